@@ -25,6 +25,7 @@ package com.oracle.graal.alloc;
 
 import java.util.*;
 
+import com.oracle.graal.nodes.*;
 import com.oracle.graal.nodes.cfg.*;
 import com.oracle.graal.nodes.util.*;
 
@@ -47,6 +48,10 @@ import com.oracle.graal.nodes.util.*;
  * together in the schedule thus decreasing the probability for inserted phi moves. Also, the
  * algorithm sets the linear scan order number of the block that corresponds to its index in the
  * linear scan order.
+ * 
+ * Alternatively, the code emission order can be computed by merging blocks into fall-through chains
+ * along the most frequent edges first (Pettis-Hansen). Cold blocks, such as exception handlers and
+ * deoptimizations, are only chained with other cold blocks and are placed at the end of the method.
  */
 public final class ComputeBlockOrder {
 
@@ -62,6 +67,12 @@ public final class ComputeBlockOrder {
      */
     private static final int PENALTY_VERSUS_UNSCHEDULED = 10;
 
+    /**
+     * Probability relative to the method entry below which a block is considered cold by the
+     * chained code emission order.
+     */
+    private static final double COLD_PROBABILITY = 0.001;
+
     /**
      * Computes the block order used for the linear scan register allocator.
      * 
@@ -90,6 +101,200 @@ public final class ComputeBlockOrder {
         return order;
     }
 
+    /**
+     * Computes the block order used for code emission by merging blocks into chains along the most
+     * frequent control flow edges, so that the most likely successor of a block is usually its
+     * fall-through. The header of a loop with a single loop end is chained behind its loop end, which
+     * rotates the loop: it is entered by a jump and each iteration ends in a taken backward branch. Chains are placed in the order in which they
+     * are most frequently reached from already placed chains, with the cold chains last.
+     * 
+     * @return sorted list of blocks
+     */
+    public static List<Block> computeChainedCodeEmittingOrder(int blockCount, Block startBlock, NodesToDoubles nodeProbabilities) {
+        Chain[] chains = new Chain[blockCount];
+        List<Edge> edges = new ArrayList<>();
+        Deque<Block> worklist = new ArrayDeque<>();
+        worklist.add(startBlock);
+        chains[startBlock.getId()] = new Chain(startBlock, isCold(startBlock, nodeProbabilities));
+        while (!worklist.isEmpty()) {
+            Block block = worklist.removeFirst();
+            for (Block successor : block.getSuccessors()) {
+                edges.add(new Edge(block, successor, edgeProbability(block, successor, nodeProbabilities)));
+                if (chains[successor.getId()] == null) {
+                    chains[successor.getId()] = new Chain(successor, isCold(successor, nodeProbabilities));
+                    worklist.add(successor);
+                }
+            }
+        }
+
+        Collections.sort(edges);
+        for (Edge edge : edges) {
+            Chain from = chains[edge.source.getId()];
+            Chain to = chains[edge.target.getId()];
+            if (from != to && from.tail() == edge.source && to.head() == edge.target && edge.target != startBlock && from.cold == to.cold) {
+                from.append(to);
+                for (Block block : to.blocks) {
+                    chains[block.getId()] = from;
+                }
+            }
+        }
+
+        List<Block> order = new ArrayList<>(blockCount);
+        PriorityQueue<ChainEntry> placementQueue = new PriorityQueue<>();
+        placementQueue.add(new ChainEntry(chains[startBlock.getId()], Double.POSITIVE_INFINITY));
+        while (!placementQueue.isEmpty()) {
+            Chain chain = placementQueue.poll().chain;
+            if (chain.placed) {
+                continue;
+            }
+            chain.placed = true;
+            for (Block block : chain.blocks) {
+                order.add(block);
+            }
+            for (Block block : chain.blocks) {
+                for (Block successor : block.getSuccessors()) {
+                    Chain successorChain = chains[successor.getId()];
+                    double connection = edgeProbability(block, successor, nodeProbabilities);
+                    if (!successorChain.placed && connection > successorChain.connection) {
+                        successorChain.connection = connection;
+                        placementQueue.add(new ChainEntry(successorChain, connection));
+                    }
+                }
+            }
+        }
+        alignLoopTargets(order, blockCount);
+        assert checkOrder(order, blockCount);
+        return order;
+    }
+
+    /**
+     * Marks the targets of backward jumps within loops as aligned.
+     */
+    private static void alignLoopTargets(List<Block> order, int blockCount) {
+        int[] positions = new int[blockCount];
+        for (int i = 0; i < order.size(); i++) {
+            positions[order.get(i).getId()] = i;
+        }
+        for (Block block : order) {
+            if (block.getLoopDepth() > 0) {
+                for (Block pred : block.getPredecessors()) {
+                    if (positions[pred.getId()] > positions[block.getId()] && pred.getLoopDepth() >= block.getLoopDepth()) {
+                        block.setAlign(true);
+                        break;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the probability of the edge from a block to one of its successors. The successors of a
+     * control split have no other predecessors, so their probability is that of the edge.
+     */
+    private static double edgeProbability(Block block, Block successor, NodesToDoubles nodeProbabilities) {
+        if (block.getSuccessorCount() == 1) {
+            return nodeProbabilities.get(block.getBeginNode());
+        }
+        return nodeProbabilities.get(successor.getBeginNode());
+    }
+
+    /**
+     * Determines if a block is unlikely to be executed, i.e., if it dispatches an exception, ends in
+     * a deoptimization or unwind, or has a very low probability.
+     */
+    public static boolean isCold(Block block, NodesToDoubles nodeProbabilities) {
+        FixedNode end = block.getEndNode();
+        return block.isExceptionEntry() || end instanceof DeoptimizeNode || end instanceof UnwindNode || nodeProbabilities.get(block.getBeginNode()) < COLD_PROBABILITY;
+    }
+
+    /**
+     * A sequence of blocks that are laid out consecutively.
+     */
+    private static final class Chain {
+
+        final List<Block> blocks = new ArrayList<>();
+        final boolean cold;
+        boolean placed;
+        /**
+         * The probability of the most frequent edge from a placed block into this chain.
+         */
+        double connection = -1;
+
+        Chain(Block block, boolean cold) {
+            this.blocks.add(block);
+            this.cold = cold;
+        }
+
+        Block head() {
+            return blocks.get(0);
+        }
+
+        Block tail() {
+            return blocks.get(blocks.size() - 1);
+        }
+
+        void append(Chain other) {
+            blocks.addAll(other.blocks);
+        }
+    }
+
+    /**
+     * An edge of the control flow graph, ordered by decreasing probability. The back edge of a loop
+     * with a single loop end comes before all other edges: the edge from the header into the loop
+     * body is at least as frequent, so chaining it first would prevent the loop from being rotated.
+     */
+    private static final class Edge implements Comparable<Edge> {
+
+        final Block source;
+        final Block target;
+        final double probability;
+        final boolean rotatesLoop;
+
+        Edge(Block source, Block target, double probability) {
+            this.source = source;
+            this.target = target;
+            this.probability = probability;
+            this.rotatesLoop = source.isLoopEnd() && skipLoopHeader(target);
+        }
+
+        @Override
+        public int compareTo(Edge other) {
+            if (rotatesLoop != other.rotatesLoop) {
+                return rotatesLoop ? -1 : 1;
+            } else if (probability != other.probability) {
+                return probability > other.probability ? -1 : 1;
+            } else if (source != other.source) {
+                return source.getId() - other.source.getId();
+            }
+            return target.getId() - other.target.getId();
+        }
+    }
+
+    /**
+     * An entry of the chain placement queue. Hot chains come before cold chains, then chains are
+     * ordered by decreasing connection to the placed chains and finally by their first block.
+     */
+    private static final class ChainEntry implements Comparable<ChainEntry> {
+
+        final Chain chain;
+        final double connection;
+
+        ChainEntry(Chain chain, double connection) {
+            this.chain = chain;
+            this.connection = connection;
+        }
+
+        @Override
+        public int compareTo(ChainEntry other) {
+            if (chain.cold != other.chain.cold) {
+                return chain.cold ? 1 : -1;
+            } else if (connection != other.connection) {
+                return connection > other.connection ? -1 : 1;
+            }
+            return chain.head().getId() - other.chain.head().getId();
+        }
+    }
+
     /**
      * Iteratively adds paths to the code emission block order.
      */
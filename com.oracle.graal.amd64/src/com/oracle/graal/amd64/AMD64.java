@@ -131,6 +131,9 @@ public class AMD64 extends Architecture {
 
     @Override
     public boolean canStoreValue(RegisterCategory category, PlatformKind platformKind) {
+        if (platformKind instanceof AMD64VectorKind) {
+            return category == XMM;
+        }
         if (!(platformKind instanceof Kind)) {
             return false;
         }
@@ -158,6 +161,45 @@ public class AMD64 extends Architecture {
         return false;
     }
 
+    @Override
+    public int getSizeInBytes(PlatformKind kind) {
+        if (kind instanceof AMD64VectorKind) {
+            return AMD64VectorKind.SIZE_IN_BYTES;
+        }
+        return super.getSizeInBytes(kind);
+    }
+
+    @Override
+    public int getMaxVectorLength(Kind kind) {
+        switch (kind) {
+            case Int:
+            case Long:
+            case Float:
+            case Double:
+                return AMD64VectorKind.SIZE_IN_BYTES / getSizeInBytes(kind);
+            default:
+                return 1;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Packed values are 128 bits wide. Integer arithmetic requires SSE4.1 for the packed int
+     * multiplication.
+     */
+    @Override
+    public int getSupportedVectorLength(Kind kind, int maxLength, boolean arithmetic) {
+        if (arithmetic && kind == Kind.Int && supportedSSEVersion < 4) {
+            return 1;
+        }
+        int length = getMaxVectorLength(kind);
+        while (length > maxLength) {
+            length /= 2;
+        }
+        return Math.max(length, 1);
+    }
+
     @Override
     public PlatformKind getLargestStorableKind(RegisterCategory category) {
         if (category == CPU) {
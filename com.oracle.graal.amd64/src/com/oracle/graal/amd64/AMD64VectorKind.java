@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2013, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.amd64;
+
+import com.oracle.graal.api.meta.*;
+
+/**
+ * The kinds of packed values held in the 128-bit XMM registers.
+ */
+public enum AMD64VectorKind implements PlatformKind {
+    V4I(Kind.Int, 4), V2L(Kind.Long, 2), V4F(Kind.Float, 4), V2D(Kind.Double, 2);
+
+    /**
+     * The size in bytes of a packed value.
+     */
+    public static final int SIZE_IN_BYTES = 16;
+
+    private final Kind elementKind;
+    private final int length;
+
+    private AMD64VectorKind(Kind elementKind, int length) {
+        this.elementKind = elementKind;
+        this.length = length;
+    }
+
+    public Kind getElementKind() {
+        return elementKind;
+    }
+
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * Gets the vector kind for a vector of {@code length} elements of kind {@code elementKind}, or
+     * null if there is no such vector kind.
+     */
+    public static AMD64VectorKind get(Kind elementKind, int length) {
+        for (AMD64VectorKind kind : values()) {
+            if (kind.elementKind == elementKind && kind.length == length) {
+                return kind;
+            }
+        }
+        return null;
+    }
+}
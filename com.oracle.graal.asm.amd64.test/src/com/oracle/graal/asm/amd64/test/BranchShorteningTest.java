@@ -0,0 +1,232 @@
+/*
+ * Copyright (c) 2013, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.asm.amd64.test;
+
+import static com.oracle.graal.asm.amd64.AMD64Assembler.ConditionFlag.*;
+
+import java.util.*;
+
+import org.junit.*;
+
+import com.oracle.graal.api.code.*;
+import com.oracle.graal.api.meta.*;
+import com.oracle.graal.asm.*;
+import com.oracle.graal.asm.amd64.*;
+import com.oracle.graal.asm.test.*;
+
+/**
+ * Tests the encodings of forward branches selected by branch shortening, the detection of short
+ * branches whose target is too far away and the interaction with alignment padding.
+ */
+public class BranchShorteningTest extends AssemblerTest {
+
+    private AMD64Assembler newAssembler() {
+        return new AMD64Assembler(codeCache.getTarget(), codeCache.lookupRegisterConfig());
+    }
+
+    private static BitSet branches(int... numbers) {
+        BitSet result = new BitSet();
+        for (int number : numbers) {
+            result.set(number);
+        }
+        return result;
+    }
+
+    private static void assertBytes(AMD64Assembler asm, int position, int... expected) {
+        for (int i = 0; i < expected.length; i++) {
+            Assert.assertEquals("byte " + (position + i), expected[i], asm.codeBuffer.getByte(position + i));
+        }
+    }
+
+    @Test
+    public void testShortJcc() {
+        AMD64Assembler asm = newAssembler();
+        Label label = new Label();
+        asm.jcc(Equal, label);
+        asm.nop(10);
+        asm.bind(label);
+        assertBytes(asm, 0, 0x0F, 0x84, 10, 0, 0, 0);
+        Assert.assertEquals(branches(0), asm.getShortenableBranches());
+        asm.resetLabels();
+
+        asm = newAssembler();
+        asm.setShortBranches(branches(0));
+        asm.jcc(Equal, label);
+        asm.nop(10);
+        asm.bind(label);
+        assertBytes(asm, 0, 0x74, 10);
+        Assert.assertEquals(12, asm.codeBuffer.position());
+        Assert.assertTrue(asm.getOverflowedShortBranches().isEmpty());
+    }
+
+    @Test
+    public void testShortJmp() {
+        AMD64Assembler asm = newAssembler();
+        Label label = new Label();
+        asm.jmp(label);
+        asm.nop(100);
+        asm.bind(label);
+        assertBytes(asm, 0, 0xE9, 100, 0, 0, 0);
+        Assert.assertEquals(branches(0), asm.getShortenableBranches());
+        asm.resetLabels();
+
+        asm = newAssembler();
+        asm.setShortBranches(branches(0));
+        asm.jmp(label);
+        asm.nop(100);
+        asm.bind(label);
+        assertBytes(asm, 0, 0xEB, 100);
+        Assert.assertTrue(asm.getOverflowedShortBranches().isEmpty());
+    }
+
+    /**
+     * Only the branches whose target is within reach of an 8-bit displacement are shortenable, and
+     * backward branches are not numbered since they are encoded optimally right away.
+     */
+    @Test
+    public void testShortenableBranches() {
+        AMD64Assembler asm = newAssembler();
+        Label loop = new Label();
+        Label near = new Label();
+        Label far = new Label();
+        asm.bind(loop);
+        asm.jcc(Less, far);
+        asm.jmp(near);
+        asm.jcc(Equal, loop);
+        asm.bind(near);
+        asm.nop(200);
+        asm.bind(far);
+        Assert.assertEquals(branches(1), asm.getShortenableBranches());
+        assertBytes(asm, 11, 0x74, 0xF3);
+    }
+
+    /**
+     * A short branch whose target turns out to be too far away is reported, so that the code can be
+     * emitted again with the long encoding for that branch.
+     */
+    @Test
+    public void testOverflowFallback() {
+        AMD64Assembler asm = newAssembler();
+        Label near = new Label();
+        Label far = new Label();
+        asm.setShortBranches(branches(0, 1));
+        asm.jcc(NotEqual, near);
+        asm.jmp(far);
+        asm.bind(near);
+        asm.nop(200);
+        asm.bind(far);
+        BitSet overflowed = asm.getOverflowedShortBranches();
+        Assert.assertEquals(branches(1), overflowed);
+        asm.resetLabels();
+
+        BitSet shortBranches = branches(0, 1);
+        shortBranches.andNot(overflowed);
+        asm = newAssembler();
+        asm.setShortBranches(shortBranches);
+        asm.jcc(NotEqual, near);
+        asm.jmp(far);
+        asm.bind(near);
+        asm.nop(200);
+        asm.bind(far);
+        Assert.assertTrue(asm.getOverflowedShortBranches().isEmpty());
+        assertBytes(asm, 0, 0x75, 5);
+        assertBytes(asm, 2, 0xE9, 200, 0, 0, 0);
+    }
+
+    /**
+     * A short jump that was not selected by branch shortening must never be emitted for a target
+     * that is too far away.
+     */
+    @Test(expected = InternalError.class)
+    public void testJmpbOverflow() {
+        AMD64Assembler asm = newAssembler();
+        Label label = new Label();
+        asm.jmpb(label);
+        asm.nop(200);
+        asm.bind(label);
+    }
+
+    /**
+     * Shortening a branch changes the padding emitted for an aligned target behind it, which the
+     * displacement must account for.
+     */
+    @Test
+    public void testAlignment() {
+        AMD64Assembler asm = newAssembler();
+        Label label = new Label();
+        asm.jcc(Equal, label);
+        asm.nop(3);
+        asm.align(16);
+        asm.bind(label);
+        Assert.assertEquals(16, asm.codeBuffer.position());
+        assertBytes(asm, 0, 0x0F, 0x84, 10, 0, 0, 0);
+        Assert.assertEquals(branches(0), asm.getShortenableBranches());
+        asm.resetLabels();
+
+        asm = newAssembler();
+        asm.setShortBranches(branches(0));
+        asm.jcc(Equal, label);
+        asm.nop(3);
+        asm.align(16);
+        asm.bind(label);
+        Assert.assertEquals(16, asm.codeBuffer.position());
+        assertBytes(asm, 0, 0x74, 14);
+        Assert.assertTrue(asm.getOverflowedShortBranches().isEmpty());
+    }
+
+    /**
+     * Executes code with shortened branches.
+     */
+    @Test
+    public void testExecuteShortBranches() {
+        CodeGenTest test = new CodeGenTest() {
+
+            @Override
+            public Buffer generateCode(CompilationResult compResult, TargetDescription target, RegisterConfig registerConfig, CallingConvention cc) {
+                AMD64Assembler asm = new AMD64Assembler(target, registerConfig);
+                asm.setShortBranches(branches(0, 1));
+                Register arg = ValueUtil.asRegister(cc.getArgument(0));
+                Register ret = registerConfig.getReturnRegister(Kind.Int);
+                Label negative = new Label();
+                Label done = new Label();
+                asm.cmpl(arg, 0);
+                asm.jcc(Less, negative);
+                asm.movl(ret, 1);
+                asm.jmp(done);
+                asm.bind(negative);
+                asm.movl(ret, -1);
+                asm.align(16);
+                asm.bind(done);
+                asm.ret(0);
+                Assert.assertTrue(asm.getOverflowedShortBranches().isEmpty());
+                return asm.codeBuffer;
+            }
+        };
+        assertReturn("signumStub", test, 1, 42);
+        assertReturn("signumStub", test, -1, -42);
+    }
+
+    public static int signumStub(@SuppressWarnings("unused") int value) {
+        return 0;
+    }
+}
@@ -27,6 +27,8 @@ import static com.oracle.graal.api.code.MemoryBarriers.*;
 import static com.oracle.graal.asm.NumUtil.*;
 import static com.oracle.graal.asm.amd64.AMD64AsmOptions.*;
 
+import java.util.*;
+
 import com.oracle.graal.amd64.*;
 import com.oracle.graal.api.code.*;
 import com.oracle.graal.asm.*;
@@ -156,11 +158,48 @@ public class AMD64Assembler extends AbstractAssembler {
         private static final int REXWRXB = 0x4F;
     }
 
+    /**
+     * Constants for the fields of the VEX prefix.
+     */
+    private static class VexPrefix {
+
+        private static final int VEX_2BYTES = 0xC5;
+        private static final int VEX_3BYTES = 0xC4;
+
+        // implied mandatory prefix
+        private static final int PP_NONE = 0x0;
+        private static final int PP_66 = 0x1;
+
+        // implied leading opcode bytes
+        private static final int MAP_0F = 0x1;
+        private static final int MAP_0F38 = 0x2;
+    }
+
     /**
      * The register to which {@link Register#Frame} and {@link Register#CallerFrame} are bound.
      */
     public final Register frameRegister;
 
+    /**
+     * Maps the position of each jump to a label that was not yet bound to the number of the jump.
+     */
+    private final Map<Integer, Integer> forwardBranches = new HashMap<>();
+
+    /**
+     * The forward branches that are emitted with an 8-bit displacement.
+     */
+    private BitSet shortBranches = new BitSet();
+
+    /**
+     * The forward branches emitted with a 32-bit displacement that would fit into 8 bits.
+     */
+    private final BitSet shortenableBranches = new BitSet();
+
+    /**
+     * The forward branches emitted with an 8-bit displacement that does not fit.
+     */
+    private final BitSet overflowedShortBranches = new BitSet();
+
     /**
      * Constructs an assembler for the AMD64 architecture.
      * 
@@ -773,10 +812,16 @@ public class AMD64Assembler extends AbstractAssembler {
             // is the same however, seems to be rather unlikely case.
             // Note: use jccb() if label to be bound is very close to get
             // an 8-bit displacement
+            boolean isShort = addForwardBranch();
             l.addPatchAt(codeBuffer.position());
-            emitByte(0x0F);
-            emitByte(0x80 | cc.getValue());
-            emitInt(0);
+            if (isShort) {
+                emitByte(0x70 | cc.getValue());
+                emitByte(0);
+            } else {
+                emitByte(0x0F);
+                emitByte(0x80 | cc.getValue());
+                emitInt(0);
+            }
         }
 
     }
@@ -819,14 +864,48 @@ public class AMD64Assembler extends AbstractAssembler {
             // By default, forward jumps are always 32-bit displacements, since
             // we can't yet know where the label will be bound. If you're sure that
             // the forward jump will not run beyond 256 bytes, use jmpb to
-            // force an 8-bit displacement.
+            // force an 8-bit displacement. Branch shortening can select the
+            // 8-bit displacement when the same code is emitted again.
 
+            boolean isShort = addForwardBranch();
             l.addPatchAt(codeBuffer.position());
-            emitByte(0xE9);
-            emitInt(0);
+            if (isShort) {
+                emitByte(0xEB);
+                emitByte(0);
+            } else {
+                emitByte(0xE9);
+                emitInt(0);
+            }
         }
     }
 
+    /**
+     * Numbers a jump to a label that is not yet bound, which is emitted at the current position.
+     * 
+     * @return true if the jump is to be emitted with an 8-bit displacement
+     */
+    private boolean addForwardBranch() {
+        int branch = forwardBranches.size();
+        forwardBranches.put(codeBuffer.position(), branch);
+        return shortBranches.get(branch);
+    }
+
+    @Override
+    public BitSet getShortenableBranches() {
+        return shortenableBranches;
+    }
+
+    @Override
+    public void setShortBranches(BitSet branches) {
+        assert forwardBranches.isEmpty() : "must be set before any code is emitted";
+        shortBranches = branches;
+    }
+
+    @Override
+    public BitSet getOverflowedShortBranches() {
+        return overflowedShortBranches;
+    }
+
     public final void jmp(Register entry) {
         int encode = prefixAndEncode(entry.encoding);
         emitByte(0xFF);
@@ -1742,6 +1821,210 @@ public class AMD64Assembler extends AbstractAssembler {
         emitOperandHelper(dst, src);
     }
 
+    public final void movdqu(Register dst, Register src) {
+        emitPackedOp(0xF3, 0x6F, dst, src);
+    }
+
+    public final void movdqu(Register dst, AMD64Address src) {
+        assert dst.getRegisterCategory() == AMD64.XMM;
+        emitByte(0xF3);
+        prefix(src, dst);
+        emitByte(0x0F);
+        emitByte(0x6F);
+        emitOperandHelper(dst, src);
+    }
+
+    public final void movdqu(AMD64Address dst, Register src) {
+        assert src.getRegisterCategory() == AMD64.XMM;
+        emitByte(0xF3);
+        prefix(dst, src);
+        emitByte(0x0F);
+        emitByte(0x7F);
+        emitOperandHelper(src, dst);
+    }
+
+    public final void pshufd(Register dst, Register src, int imm8) {
+        assert isUByte(imm8);
+        emitPackedOp(0x66, 0x70, dst, src);
+        emitByte(imm8);
+    }
+
+    public final void paddd(Register dst, Register src) {
+        emitPackedOp(0x66, 0xFE, dst, src);
+    }
+
+    public final void paddq(Register dst, Register src) {
+        emitPackedOp(0x66, 0xD4, dst, src);
+    }
+
+    public final void psubd(Register dst, Register src) {
+        emitPackedOp(0x66, 0xFA, dst, src);
+    }
+
+    public final void psubq(Register dst, Register src) {
+        emitPackedOp(0x66, 0xFB, dst, src);
+    }
+
+    public final void pmulld(Register dst, Register src) {
+        // SSE4.1
+        assert dst.getRegisterCategory() == AMD64.XMM && src.getRegisterCategory() == AMD64.XMM;
+        emitByte(0x66);
+        int encode = prefixAndEncode(dst.encoding, src.encoding);
+        emitByte(0x0F);
+        emitByte(0x38);
+        emitByte(0x40);
+        emitByte(0xC0 | encode);
+    }
+
+    public final void pand(Register dst, Register src) {
+        emitPackedOp(0x66, 0xDB, dst, src);
+    }
+
+    public final void por(Register dst, Register src) {
+        emitPackedOp(0x66, 0xEB, dst, src);
+    }
+
+    public final void pxor(Register dst, Register src) {
+        emitPackedOp(0x66, 0xEF, dst, src);
+    }
+
+    public final void addps(Register dst, Register src) {
+        emitPackedOp(0, 0x58, dst, src);
+    }
+
+    public final void addpd(Register dst, Register src) {
+        emitPackedOp(0x66, 0x58, dst, src);
+    }
+
+    public final void subps(Register dst, Register src) {
+        emitPackedOp(0, 0x5C, dst, src);
+    }
+
+    public final void subpd(Register dst, Register src) {
+        emitPackedOp(0x66, 0x5C, dst, src);
+    }
+
+    public final void mulps(Register dst, Register src) {
+        emitPackedOp(0, 0x59, dst, src);
+    }
+
+    public final void mulpd(Register dst, Register src) {
+        emitPackedOp(0x66, 0x59, dst, src);
+    }
+
+    public final void divps(Register dst, Register src) {
+        emitPackedOp(0, 0x5E, dst, src);
+    }
+
+    public final void divpd(Register dst, Register src) {
+        emitPackedOp(0x66, 0x5E, dst, src);
+    }
+
+    /**
+     * Emits a two-operand SSE instruction on XMM registers with the opcode {@code 0x0F opcode},
+     * preceded by the mandatory prefix {@code simdPrefix} unless it is 0.
+     */
+    private void emitPackedOp(int simdPrefix, int opcode, Register dst, Register src) {
+        assert dst.getRegisterCategory() == AMD64.XMM && src.getRegisterCategory() == AMD64.XMM;
+        if (simdPrefix != 0) {
+            emitByte(simdPrefix);
+        }
+        int encode = prefixAndEncode(dst.encoding, src.encoding);
+        emitByte(0x0F);
+        emitByte(opcode);
+        emitByte(0xC0 | encode);
+    }
+
+    // AVX instructions with 128-bit operands and a non-destructive source operand
+
+    public final void vpaddd(Register dst, Register nds, Register src) {
+        emitVexOp(VexPrefix.PP_66, VexPrefix.MAP_0F, 0xFE, dst, nds, src);
+    }
+
+    public final void vpaddq(Register dst, Register nds, Register src) {
+        emitVexOp(VexPrefix.PP_66, VexPrefix.MAP_0F, 0xD4, dst, nds, src);
+    }
+
+    public final void vpsubd(Register dst, Register nds, Register src) {
+        emitVexOp(VexPrefix.PP_66, VexPrefix.MAP_0F, 0xFA, dst, nds, src);
+    }
+
+    public final void vpsubq(Register dst, Register nds, Register src) {
+        emitVexOp(VexPrefix.PP_66, VexPrefix.MAP_0F, 0xFB, dst, nds, src);
+    }
+
+    public final void vpmulld(Register dst, Register nds, Register src) {
+        emitVexOp(VexPrefix.PP_66, VexPrefix.MAP_0F38, 0x40, dst, nds, src);
+    }
+
+    public final void vpand(Register dst, Register nds, Register src) {
+        emitVexOp(VexPrefix.PP_66, VexPrefix.MAP_0F, 0xDB, dst, nds, src);
+    }
+
+    public final void vpor(Register dst, Register nds, Register src) {
+        emitVexOp(VexPrefix.PP_66, VexPrefix.MAP_0F, 0xEB, dst, nds, src);
+    }
+
+    public final void vpxor(Register dst, Register nds, Register src) {
+        emitVexOp(VexPrefix.PP_66, VexPrefix.MAP_0F, 0xEF, dst, nds, src);
+    }
+
+    public final void vaddps(Register dst, Register nds, Register src) {
+        emitVexOp(VexPrefix.PP_NONE, VexPrefix.MAP_0F, 0x58, dst, nds, src);
+    }
+
+    public final void vaddpd(Register dst, Register nds, Register src) {
+        emitVexOp(VexPrefix.PP_66, VexPrefix.MAP_0F, 0x58, dst, nds, src);
+    }
+
+    public final void vsubps(Register dst, Register nds, Register src) {
+        emitVexOp(VexPrefix.PP_NONE, VexPrefix.MAP_0F, 0x5C, dst, nds, src);
+    }
+
+    public final void vsubpd(Register dst, Register nds, Register src) {
+        emitVexOp(VexPrefix.PP_66, VexPrefix.MAP_0F, 0x5C, dst, nds, src);
+    }
+
+    public final void vmulps(Register dst, Register nds, Register src) {
+        emitVexOp(VexPrefix.PP_NONE, VexPrefix.MAP_0F, 0x59, dst, nds, src);
+    }
+
+    public final void vmulpd(Register dst, Register nds, Register src) {
+        emitVexOp(VexPrefix.PP_66, VexPrefix.MAP_0F, 0x59, dst, nds, src);
+    }
+
+    public final void vdivps(Register dst, Register nds, Register src) {
+        emitVexOp(VexPrefix.PP_NONE, VexPrefix.MAP_0F, 0x5E, dst, nds, src);
+    }
+
+    public final void vdivpd(Register dst, Register nds, Register src) {
+        emitVexOp(VexPrefix.PP_66, VexPrefix.MAP_0F, 0x5E, dst, nds, src);
+    }
+
+    /**
+     * Emits a VEX encoded instruction with 128-bit XMM register operands. The two-byte VEX prefix
+     * is used when possible, i.e., when the opcode is in the 0x0F map and {@code src} does not need
+     * the VEX.B bit.
+     */
+    private void emitVexOp(int pp, int map, int opcode, Register dst, Register nds, Register src) {
+        assert dst.getRegisterCategory() == AMD64.XMM && nds.getRegisterCategory() == AMD64.XMM && src.getRegisterCategory() == AMD64.XMM;
+        // the R, X, B and vvvv fields are stored in inverted form, L = 0 selects 128-bit operands
+        int r = dst.encoding < 8 ? 0x80 : 0;
+        int vvvv = (~nds.encoding & 0xF) << 3;
+        if (map == VexPrefix.MAP_0F && src.encoding < 8) {
+            emitByte(VexPrefix.VEX_2BYTES);
+            emitByte(r | vvvv | pp);
+        } else {
+            int b = src.encoding < 8 ? 0x20 : 0;
+            emitByte(VexPrefix.VEX_3BYTES);
+            emitByte(r | 0x40 | b | map);
+            // W = 0
+            emitByte(vvvv | pp);
+        }
+        emitByte(opcode);
+        emitByte(0xC0 | (dst.encoding & 0x7) << 3 | (src.encoding & 0x7));
+    }
+
     protected final void decl(Register dst) {
         // Use two-byte form (one-byte form is a REX prefix in 64-bit mode)
         int encode = prefixAndEncode(dst.encoding);
@@ -2369,6 +2652,13 @@ public class AMD64Assembler extends AbstractAssembler {
 
             // short offset operators (jmp and jcc)
             int imm8 = branchTarget - (branch + 2);
+            if (!isByte(imm8)) {
+                Integer forwardBranch = forwardBranches.get(branch);
+                if (forwardBranch == null || !shortBranches.get(forwardBranch)) {
+                    throw new InternalError("Displacement too large for a short jump at " + branch);
+                }
+                overflowedShortBranches.set(forwardBranch);
+            }
             codeBuffer.emitByte(imm8, branch + 1);
 
         } else {
@@ -2380,6 +2670,11 @@ public class AMD64Assembler extends AbstractAssembler {
 
             int imm32 = branchTarget - (branch + 4 + off);
             codeBuffer.emitInt(imm32, branch + off);
+
+            Integer forwardBranch = forwardBranches.get(branch);
+            if (forwardBranch != null && isByte(branchTarget - (branch + 2))) {
+                shortenableBranches.set(forwardBranch);
+            }
         }
     }
 
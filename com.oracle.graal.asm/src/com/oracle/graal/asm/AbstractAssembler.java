@@ -45,10 +45,57 @@ public abstract class AbstractAssembler {
         }
     }
 
+    /**
+     * The labels bound by this assembler.
+     */
+    private final List<Label> boundLabels = new ArrayList<>();
+
     public void bind(Label l) {
         assert !l.isBound() : "can bind label only once";
         l.bind(codeBuffer.position());
         l.patchInstructions(this);
+        boundLabels.add(l);
+    }
+
+    /**
+     * Unbinds all labels bound by this assembler so that the same code can be emitted again by
+     * another assembler.
+     */
+    public void resetLabels() {
+        for (Label l : boundLabels) {
+            l.reset();
+        }
+        boundLabels.clear();
+    }
+
+    /**
+     * Gets the forward branches that were emitted with a long displacement although their target
+     * is close enough for a short one. Forward branches are numbered in the order in which they are
+     * emitted, which is the same each time the same code is emitted.
+     * 
+     * @return the numbers of the branches, or null if this assembler does not support shortening
+     *         branches
+     */
+    public BitSet getShortenableBranches() {
+        return null;
+    }
+
+    /**
+     * Sets the forward branches to emit with a short displacement, as numbered by
+     * {@link #getShortenableBranches()}. Assemblers that do not support shortening branches have
+     * no such branches.
+     */
+    public void setShortBranches(BitSet branches) {
+        assert branches.isEmpty() : "assembler does not support shortening branches";
+    }
+
+    /**
+     * Gets the branches set by {@link #setShortBranches(BitSet)} whose target turned out to be too
+     * far away for a short displacement. The code emitted by this assembler is invalid if there are
+     * any.
+     */
+    public BitSet getOverflowedShortBranches() {
+        return new BitSet();
     }
 
     public abstract void align(int modulus);
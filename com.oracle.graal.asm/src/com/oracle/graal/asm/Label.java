@@ -65,6 +65,15 @@ public final class Label {
         return position >= 0;
     }
 
+    /**
+     * Unbinds this label and discards its references so that the code containing it can be emitted
+     * again.
+     */
+    public void reset() {
+        position = -1;
+        patchPositions.clear();
+    }
+
     public void addPatchAt(int branchLocation) {
         assert !isBound() : "Label is already bound " + this + " " + branchLocation + " at position " + position;
         patchPositions.add(branchLocation);
@@ -0,0 +1,203 @@
+/*
+ * Copyright (c) 2013, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.compiler.amd64.test;
+
+import static com.oracle.graal.amd64.AMD64.*;
+import static com.oracle.graal.api.code.ValueUtil.*;
+
+import java.util.*;
+
+import org.junit.*;
+
+import com.oracle.graal.api.code.*;
+import com.oracle.graal.api.meta.*;
+import com.oracle.graal.asm.amd64.AMD64Assembler.ConditionFlag;
+import com.oracle.graal.lir.*;
+import com.oracle.graal.lir.StandardOp.MoveOp;
+import com.oracle.graal.lir.amd64.*;
+import com.oracle.graal.lir.amd64.AMD64Arithmetic.BinaryRegConst;
+import com.oracle.graal.lir.amd64.AMD64Arithmetic.BinaryRegReg;
+import com.oracle.graal.lir.amd64.AMD64Compare.CompareOp;
+import com.oracle.graal.lir.amd64.AMD64ControlFlow.BranchOp;
+import com.oracle.graal.lir.amd64.AMD64Move.MoveFromRegOp;
+import com.oracle.graal.lir.amd64.AMD64Move.MoveToRegOp;
+import com.oracle.graal.nodes.*;
+import com.oracle.graal.nodes.cfg.*;
+
+/**
+ * Tests the {@linkplain AMD64Peephole AMD64 peephole rules} on single blocks of allocated LIR.
+ */
+public class AMD64PeepholeTest {
+
+    private static final RegisterValue RAX = rax.asValue(Kind.Int);
+    private static final RegisterValue RBX = rbx.asValue(Kind.Int);
+    private static final RegisterValue RCX = rcx.asValue(Kind.Int);
+    private static final RegisterValue LRAX = rax.asValue(Kind.Long);
+    private static final RegisterValue LRBX = rbx.asValue(Kind.Long);
+    private static final StackSlot SLOT = StackSlot.get(Kind.Int, 8, true);
+
+    private LIR lir;
+    private Block block;
+
+    @Before
+    public void setUp() {
+        StructuredGraph graph = new StructuredGraph();
+        graph.start().setNext(graph.add(new ReturnNode(null)));
+        ControlFlowGraph cfg = ControlFlowGraph.compute(graph, true, false, false, false);
+        List<Block> blocks = Arrays.asList(cfg.getBlocks());
+        block = blocks.get(0);
+        lir = new LIR(cfg, null, blocks, blocks, null);
+        lir.peepholeRules = AMD64Peephole.rules();
+        lir.spillMoveFactory = new LIR.SpillMoveFactory() {
+
+            @Override
+            public LIRInstruction createMove(AllocatableValue result, Value input) {
+                if (isRegister(input) || isStackSlot(result)) {
+                    return new MoveFromRegOp(result, input);
+                } else {
+                    return new MoveToRegOp(result, input);
+                }
+            }
+        };
+    }
+
+    private List<LIRInstruction> optimize(LIRInstruction... instructions) {
+        lir.setLir(block, new ArrayList<>(Arrays.asList(instructions)));
+        PeepholeOptimizer.optimize(lir);
+        return lir.lir(block);
+    }
+
+    private BranchOp branch(ConditionFlag condition) {
+        return new BranchOp(condition, LabelRef.forSuccessor(lir, block, 0));
+    }
+
+    private static void assertMove(LIRInstruction op, Value result, Value input) {
+        Assert.assertTrue(op instanceof MoveOp);
+        Assert.assertEquals(result, ((MoveOp) op).getResult());
+        Assert.assertEquals(input, ((MoveOp) op).getInput());
+    }
+
+    @Test
+    public void testSelfMove() {
+        LIRInstruction move = new MoveFromRegOp(RBX, RAX);
+        List<LIRInstruction> result = optimize(new MoveFromRegOp(RAX, RAX), move);
+        Assert.assertEquals(Arrays.asList(move), result);
+    }
+
+    @Test
+    public void testStoreLoad() {
+        LIRInstruction store = new MoveFromRegOp(SLOT, RAX);
+        List<LIRInstruction> result = optimize(store, new MoveToRegOp(RBX, SLOT));
+        Assert.assertEquals(2, result.size());
+        Assert.assertSame(store, result.get(0));
+        assertMove(result.get(1), RBX, RAX);
+    }
+
+    @Test
+    public void testStoreLoadSameRegister() {
+        LIRInstruction store = new MoveFromRegOp(SLOT, RAX);
+        List<LIRInstruction> result = optimize(store, new MoveToRegOp(RAX, SLOT));
+        Assert.assertEquals(Arrays.asList(store), result);
+    }
+
+    @Test
+    public void testMoveChainRedefined() {
+        LIRInstruction load = new MoveToRegOp(RBX, SLOT);
+        List<LIRInstruction> result = optimize(new MoveFromRegOp(RBX, RAX), new MoveFromRegOp(RCX, RBX), load);
+        Assert.assertEquals(2, result.size());
+        assertMove(result.get(0), RCX, RAX);
+        Assert.assertSame(load, result.get(1));
+    }
+
+    @Test
+    public void testMoveChainLiveAtBlockEnd() {
+        LIRInstruction first = new MoveFromRegOp(RBX, RAX);
+        List<LIRInstruction> result = optimize(first, new MoveFromRegOp(RCX, RBX));
+        Assert.assertEquals(2, result.size());
+        Assert.assertSame(first, result.get(0));
+        assertMove(result.get(1), RCX, RAX);
+    }
+
+    @Test
+    public void testMoveChainReadAgain() {
+        LIRInstruction first = new MoveFromRegOp(RBX, RAX);
+        LIRInstruction read = new MoveFromRegOp(SLOT, RBX);
+        List<LIRInstruction> result = optimize(first, new MoveFromRegOp(RCX, RBX), read);
+        Assert.assertEquals(3, result.size());
+        Assert.assertSame(first, result.get(0));
+        assertMove(result.get(1), RCX, RAX);
+        Assert.assertSame(read, result.get(2));
+    }
+
+    @Test
+    public void testCompareZero() {
+        LIRInstruction add = new BinaryRegReg(AMD64Arithmetic.IADD, RAX, RAX, RBX);
+        LIRInstruction branch = branch(ConditionFlag.Equal);
+        List<LIRInstruction> result = optimize(add, new CompareOp(AMD64Compare.ICMP, RAX, Constant.INT_0), branch);
+        Assert.assertEquals(Arrays.asList(add, branch), result);
+    }
+
+    @Test
+    public void testCompareZeroLong() {
+        LIRInstruction add = new BinaryRegConst(AMD64Arithmetic.LADD, LRAX, LRAX, Constant.LONG_0);
+        LIRInstruction branch = branch(ConditionFlag.NotEqual);
+        List<LIRInstruction> result = optimize(add, new CompareOp(AMD64Compare.LCMP, LRAX, Constant.LONG_0), branch);
+        Assert.assertEquals(Arrays.asList(add, branch), result);
+    }
+
+    @Test
+    public void testCompareZeroIntAddOfZero() {
+        LIRInstruction[] instructions = {new BinaryRegConst(AMD64Arithmetic.IADD, RAX, RAX, Constant.INT_0), new CompareOp(AMD64Compare.ICMP, RAX, Constant.INT_0), branch(ConditionFlag.Equal)};
+        Assert.assertEquals(Arrays.asList(instructions), optimize(instructions));
+    }
+
+    @Test
+    public void testCompareZeroIntSubOfZero() {
+        LIRInstruction[] instructions = {new BinaryRegConst(AMD64Arithmetic.ISUB, RAX, RAX, Constant.INT_0), new CompareOp(AMD64Compare.ICMP, RAX, Constant.INT_0), branch(ConditionFlag.NotEqual)};
+        Assert.assertEquals(Arrays.asList(instructions), optimize(instructions));
+    }
+
+    @Test
+    public void testCompareZeroOrderedCondition() {
+        LIRInstruction[] instructions = {new BinaryRegReg(AMD64Arithmetic.ISUB, RAX, RAX, RBX), new CompareOp(AMD64Compare.ICMP, RAX, Constant.INT_0), branch(ConditionFlag.Less)};
+        Assert.assertEquals(Arrays.asList(instructions), optimize(instructions));
+    }
+
+    @Test
+    public void testCompareZeroMultiply() {
+        LIRInstruction[] instructions = {new BinaryRegReg(AMD64Arithmetic.IMUL, RAX, RAX, RBX), new CompareOp(AMD64Compare.ICMP, RAX, Constant.INT_0), branch(ConditionFlag.Equal)};
+        Assert.assertEquals(Arrays.asList(instructions), optimize(instructions));
+    }
+
+    @Test
+    public void testCompareZeroOtherRegister() {
+        LIRInstruction[] instructions = {new BinaryRegReg(AMD64Arithmetic.IXOR, RAX, RAX, RBX), new CompareOp(AMD64Compare.ICMP, RBX, Constant.INT_0), branch(ConditionFlag.Equal)};
+        Assert.assertEquals(Arrays.asList(instructions), optimize(instructions));
+    }
+
+    @Test
+    public void testCompareZeroKindMismatch() {
+        LIRInstruction[] instructions = {new BinaryRegReg(AMD64Arithmetic.LAND, LRAX, LRAX, LRBX), new CompareOp(AMD64Compare.ICMP, RAX, Constant.INT_0), branch(ConditionFlag.Equal)};
+        Assert.assertEquals(Arrays.asList(instructions), optimize(instructions));
+    }
+}
@@ -28,6 +28,7 @@ import static com.oracle.graal.lir.amd64.AMD64Arithmetic.*;
 import static com.oracle.graal.lir.amd64.AMD64BitManipulationOp.IntrinsicOpcode.*;
 import static com.oracle.graal.lir.amd64.AMD64Compare.*;
 import static com.oracle.graal.lir.amd64.AMD64MathIntrinsicOp.IntrinsicOpcode.*;
+import static com.oracle.graal.lir.amd64.AMD64VectorArithmetic.*;
 
 import com.oracle.graal.amd64.*;
 import com.oracle.graal.api.code.*;
@@ -64,6 +65,11 @@ import com.oracle.graal.lir.amd64.AMD64Move.MembarOp;
 import com.oracle.graal.lir.amd64.AMD64Move.MoveFromRegOp;
 import com.oracle.graal.lir.amd64.AMD64Move.MoveToRegOp;
 import com.oracle.graal.lir.amd64.AMD64Move.StackLeaOp;
+import com.oracle.graal.lir.amd64.AMD64Move.VectorLoadOp;
+import com.oracle.graal.lir.amd64.AMD64Move.VectorStoreOp;
+import com.oracle.graal.lir.amd64.AMD64VectorArithmetic.AVXBinaryOp;
+import com.oracle.graal.lir.amd64.AMD64VectorArithmetic.BinaryOp;
+import com.oracle.graal.lir.amd64.AMD64VectorArithmetic.BroadcastOp;
 import com.oracle.graal.nodes.*;
 import com.oracle.graal.nodes.calc.*;
 import com.oracle.graal.phases.util.*;
@@ -90,6 +96,7 @@ public abstract class AMD64LIRGenerator extends LIRGenerator {
     public AMD64LIRGenerator(StructuredGraph graph, CodeCacheProvider runtime, TargetDescription target, FrameMap frameMap, CallingConvention cc, LIR lir) {
         super(graph, runtime, target, frameMap, cc, lir);
         lir.spillMoveFactory = new AMD64SpillMoveFactory();
+        lir.peepholeRules = AMD64Peephole.rules();
     }
 
     @Override
@@ -421,8 +428,72 @@ public abstract class AMD64LIRGenerator extends LIRGenerator {
         return result;
     }
 
+    private static boolean isVector(Value value) {
+        return value.getPlatformKind() instanceof AMD64VectorKind;
+    }
+
+    /**
+     * Emits a vector operation, selecting the opcode by the element kind of the operands.
+     */
+    private Variable emitVectorBinary(Value a, Value b, AMD64VectorArithmetic intOp, AMD64VectorArithmetic longOp, AMD64VectorArithmetic floatOp, AMD64VectorArithmetic doubleOp) {
+        AMD64VectorKind kind = (AMD64VectorKind) a.getPlatformKind();
+        assert b.getPlatformKind() == kind;
+        AMD64VectorArithmetic op;
+        switch (kind.getElementKind()) {
+            case Int:
+                op = intOp;
+                break;
+            case Long:
+                op = longOp;
+                break;
+            case Float:
+                op = floatOp;
+                break;
+            case Double:
+                op = doubleOp;
+                break;
+            default:
+                throw GraalInternalError.shouldNotReachHere();
+        }
+        if (op == null) {
+            throw GraalInternalError.shouldNotReachHere("unsupported vector operation on " + kind);
+        }
+        Variable result = newVariable(kind);
+        if (((AMD64) target().arch).getSupportedAVXVersion() > 0) {
+            append(new AVXBinaryOp(op, result, asAllocatable(a), asAllocatable(b)));
+        } else {
+            append(new BinaryOp(op, result, asAllocatable(a), asAllocatable(b)));
+        }
+        return result;
+    }
+
+    @Override
+    public Variable emitVectorLoad(Kind elementKind, int length, Value address, DeoptimizingNode deopting) {
+        AMD64AddressValue loadAddress = asAddressValue(address);
+        Variable result = newVariable(AMD64VectorKind.get(elementKind, length));
+        append(new VectorLoadOp(result, loadAddress, deopting != null ? state(deopting) : null));
+        return result;
+    }
+
+    @Override
+    public void emitVectorStore(Kind elementKind, int length, Value address, Value inputVal, DeoptimizingNode deopting) {
+        AMD64AddressValue storeAddress = asAddressValue(address);
+        assert inputVal.getPlatformKind() == AMD64VectorKind.get(elementKind, length);
+        append(new VectorStoreOp(storeAddress, load(inputVal), deopting != null ? state(deopting) : null));
+    }
+
+    @Override
+    public Variable emitVectorBroadcast(Kind elementKind, int length, Value input) {
+        Variable result = newVariable(AMD64VectorKind.get(elementKind, length));
+        append(new BroadcastOp(result, load(input)));
+        return result;
+    }
+
     @Override
     public Variable emitAdd(Value a, Value b) {
+        if (isVector(a)) {
+            return emitVectorBinary(a, b, VIADD, VLADD, VFADD, VDADD);
+        }
         switch (a.getKind().getStackKind()) {
             case Int:
                 return emitBinary(IADD, true, a, b);
@@ -439,6 +510,9 @@ public abstract class AMD64LIRGenerator extends LIRGenerator {
 
     @Override
     public Variable emitSub(Value a, Value b) {
+        if (isVector(a)) {
+            return emitVectorBinary(a, b, VISUB, VLSUB, VFSUB, VDSUB);
+        }
         switch (a.getKind().getStackKind()) {
             case Int:
                 return emitBinary(ISUB, false, a, b);
@@ -455,6 +529,9 @@ public abstract class AMD64LIRGenerator extends LIRGenerator {
 
     @Override
     public Variable emitMul(Value a, Value b) {
+        if (isVector(a)) {
+            return emitVectorBinary(a, b, VIMUL, null, VFMUL, VDMUL);
+        }
         switch (a.getKind().getStackKind()) {
             case Int:
                 return emitBinary(IMUL, true, a, b);
@@ -518,6 +595,9 @@ public abstract class AMD64LIRGenerator extends LIRGenerator {
 
     @Override
     public Value emitDiv(Value a, Value b, DeoptimizingNode deopting) {
+        if (isVector(a)) {
+            return emitVectorBinary(a, b, null, null, VFDIV, VDDIV);
+        }
         switch (a.getKind().getStackKind()) {
             case Int:
                 emitDivRem(IDIV, a, b, state(deopting));
@@ -596,6 +676,9 @@ public abstract class AMD64LIRGenerator extends LIRGenerator {
 
     @Override
     public Variable emitAnd(Value a, Value b) {
+        if (isVector(a)) {
+            return emitVectorBinary(a, b, VIAND, VLAND, null, null);
+        }
         switch (a.getKind().getStackKind()) {
             case Int:
                 return emitBinary(IAND, true, a, b);
@@ -608,6 +691,9 @@ public abstract class AMD64LIRGenerator extends LIRGenerator {
 
     @Override
     public Variable emitOr(Value a, Value b) {
+        if (isVector(a)) {
+            return emitVectorBinary(a, b, VIOR, VLOR, null, null);
+        }
         switch (a.getKind().getStackKind()) {
             case Int:
                 return emitBinary(IOR, true, a, b);
@@ -620,6 +706,9 @@ public abstract class AMD64LIRGenerator extends LIRGenerator {
 
     @Override
     public Variable emitXor(Value a, Value b) {
+        if (isVector(a)) {
+            return emitVectorBinary(a, b, VIXOR, VLXOR, null, null);
+        }
         switch (a.getKind().getStackKind()) {
             case Int:
                 return emitBinary(IXOR, true, a, b);
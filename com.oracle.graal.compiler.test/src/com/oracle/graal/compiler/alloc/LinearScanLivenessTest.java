@@ -0,0 +1,230 @@
+/*
+ * Copyright (c) 2013, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.compiler.alloc;
+
+import static com.oracle.graal.api.code.CodeUtil.*;
+import static com.oracle.graal.phases.GraalOptions.*;
+
+import java.util.*;
+
+import org.junit.*;
+
+import com.oracle.graal.api.code.*;
+import com.oracle.graal.api.code.CallingConvention.Type;
+import com.oracle.graal.compiler.*;
+import com.oracle.graal.compiler.alloc.LinearScan.BlockData;
+import com.oracle.graal.compiler.gen.*;
+import com.oracle.graal.compiler.test.*;
+import com.oracle.graal.lir.*;
+import com.oracle.graal.nodes.*;
+import com.oracle.graal.nodes.cfg.*;
+import com.oracle.graal.phases.*;
+
+/**
+ * Compares the global live sets computed by {@link LinearScan#computeGlobalLiveSets()} with a
+ * reference fixpoint that recomputes the sets of all blocks until none of them changes. Besides the
+ * local live sets of the LIR itself, random local live sets are checked on the control flow graphs
+ * of the snippets, which contain nested and irregular loops. The test is in the package of the
+ * allocator so that it can run the analysis on its own.
+ */
+public class LinearScanLivenessTest extends GraalCompilerTest {
+
+    private static final int RANDOM_ROUNDS = 50;
+
+    public static int nestedLoopSnippet(int n, int[] array) {
+        int sum = 0;
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < i; j++) {
+                if (array[j] == i) {
+                    continue;
+                }
+                sum += array[j] * i;
+                if (sum > 1000) {
+                    break;
+                }
+            }
+            for (int j = i; j < n; j++) {
+                sum ^= j;
+            }
+        }
+        return sum;
+    }
+
+    public static int multipleBackEdgesSnippet(int n, int m) {
+        int a = 0;
+        int b = 1;
+        int i = 0;
+        while (i < n) {
+            i++;
+            if ((i & 1) == 0) {
+                a += b;
+                continue;
+            }
+            if ((i & 2) == 0) {
+                b += a;
+                continue;
+            }
+            if (a > m) {
+                return b;
+            }
+            a = a * 3 + b;
+        }
+        return a - b;
+    }
+
+    public static long switchLoopSnippet(int n, long x, long y) {
+        long result = 0;
+        outer: for (int i = 0; i < n; i++) {
+            int k = 0;
+            while (k < i) {
+                switch ((int) (x + k) & 3) {
+                    case 0:
+                        result += y;
+                        break;
+                    case 1:
+                        result -= x;
+                        k++;
+                        continue;
+                    case 2:
+                        if (result > y) {
+                            continue outer;
+                        }
+                        break;
+                    default:
+                        x = result;
+                }
+                k += 2;
+            }
+            y = y * 31 + result;
+        }
+        return result + x + y;
+    }
+
+    @Test
+    public void testNestedLoop() {
+        checkLiveness("nestedLoopSnippet");
+    }
+
+    @Test
+    public void testMultipleBackEdges() {
+        checkLiveness("multipleBackEdgesSnippet");
+    }
+
+    @Test
+    public void testSwitchLoop() {
+        checkLiveness("switchLoopSnippet");
+    }
+
+    private void checkLiveness(String snippet) {
+        StructuredGraph graph = parse(snippet);
+        LIR lir = GraalCompiler.emitHIR(runtime, backend.target, graph, replacements, new Assumptions(OptAssumptions.getValue()), null, new PhasePlan(), OptimisticOptimizations.ALL,
+                        new SpeculationLog(), suites);
+        CallingConvention cc = getCallingConvention(runtime, Type.JavaCallee, graph.method(), false);
+        LIRGenerator lirGen = GraalCompiler.emitLIRInstructions(backend, lir, graph, cc);
+
+        LinearScan allocator = new LinearScan(backend.target, lir, lirGen, lirGen.frameMap);
+        allocator.numberInstructions();
+        allocator.computeLocalLiveSets();
+        allocator.computeGlobalLiveSets();
+        assertReferenceFixpoint(allocator);
+
+        Random random = new Random(snippet.hashCode());
+        for (int round = 0; round < RANDOM_ROUNDS; round++) {
+            randomizeLocalLiveSets(allocator, random);
+            allocator.computeGlobalLiveSets();
+            assertReferenceFixpoint(allocator);
+        }
+    }
+
+    /**
+     * Replaces the local live sets of all blocks with random sets. Fixed registers are never live
+     * at block boundaries and nothing may be live on entry to the start block, so these bits are
+     * left clear and the start block kills every operand.
+     */
+    private static void randomizeLocalLiveSets(LinearScan allocator, Random random) {
+        int firstVariable = allocator.maxRegisterNumber() + 1;
+        int liveSetSize = allocator.liveSetSize();
+        Block startBlock = allocator.ir.cfg.getStartBlock();
+        for (int i = 0; i < allocator.blockCount(); i++) {
+            Block block = allocator.blockAt(i);
+            BlockData data = allocator.blockData.get(block);
+            data.liveGen.clear();
+            data.liveKill.clear();
+            if (block == startBlock) {
+                data.liveKill.set(firstVariable, liveSetSize);
+                continue;
+            }
+            for (int operand = firstVariable; operand < liveSetSize; operand++) {
+                int choice = random.nextInt(8);
+                if (choice == 0) {
+                    data.liveGen.set(operand);
+                } else if (choice == 1) {
+                    data.liveKill.set(operand);
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks that the live sets of each block satisfy the dataflow equations and are the least
+     * solution, by comparing them with sets computed from scratch by sweeping over all blocks until
+     * nothing changes.
+     */
+    private static void assertReferenceFixpoint(LinearScan allocator) {
+        int numBlocks = allocator.blockCount();
+        BitSet[] liveIn = new BitSet[numBlocks];
+        BitSet[] liveOut = new BitSet[numBlocks];
+        for (int i = 0; i < numBlocks; i++) {
+            liveIn[i] = new BitSet();
+            liveOut[i] = new BitSet();
+        }
+
+        boolean changed;
+        do {
+            changed = false;
+            for (int i = numBlocks - 1; i >= 0; i--) {
+                Block block = allocator.blockAt(i);
+                BlockData data = allocator.blockData.get(block);
+                BitSet out = new BitSet();
+                for (Block successor : block.getSuccessors()) {
+                    out.or(liveIn[successor.getLinearScanNumber()]);
+                }
+                BitSet in = (BitSet) out.clone();
+                in.andNot(data.liveKill);
+                in.or(data.liveGen);
+                if (!out.equals(liveOut[i]) || !in.equals(liveIn[i])) {
+                    liveOut[i] = out;
+                    liveIn[i] = in;
+                    changed = true;
+                }
+            }
+        } while (changed);
+
+        for (int i = 0; i < numBlocks; i++) {
+            Block block = allocator.blockAt(i);
+            BlockData data = allocator.blockData.get(block);
+            Assert.assertEquals("liveIn of B" + block.getId(), liveIn[i], data.liveIn);
+            Assert.assertEquals("liveOut of B" + block.getId(), liveOut[i], data.liveOut);
+        }
+    }
+}
@@ -328,7 +328,7 @@ public class BoxingEliminationTest extends GraalCompilerTest {
                 CanonicalizerPhase canonicalizer = new CanonicalizerPhase(true);
                 new InliningPhase(runtime(), null, replacements, assumptions, null, getDefaultPhasePlan(), OptimisticOptimizations.ALL).apply(graph);
                 if (loopPeeling) {
-                    new LoopTransformHighPhase().apply(graph);
+                    new LoopTransformHighPhase().apply(graph, context);
                 }
                 new DeadCodeEliminationPhase().apply(graph);
                 canonicalizer.apply(graph, context);
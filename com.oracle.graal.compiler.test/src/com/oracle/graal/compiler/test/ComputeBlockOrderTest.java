@@ -0,0 +1,208 @@
+/*
+ * Copyright (c) 2013, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.compiler.test;
+
+import java.lang.reflect.*;
+import java.util.*;
+
+import org.junit.*;
+
+import com.oracle.graal.alloc.*;
+import com.oracle.graal.debug.*;
+import com.oracle.graal.nodes.*;
+import com.oracle.graal.nodes.cfg.*;
+import com.oracle.graal.nodes.util.*;
+import com.oracle.graal.phases.graph.*;
+
+/**
+ * Tests the block order computed by {@link ComputeBlockOrder#computeChainedCodeEmittingOrder} for
+ * graphs parsed with the profiles recorded while running the snippets.
+ */
+public class ComputeBlockOrderTest extends GraalCompilerTest {
+
+    private static final int PROFILING_EXECUTIONS = 100;
+
+    public static int loopSnippet(int n) {
+        int sum = 0;
+        for (int i = 0; i < n; i++) {
+            sum += i;
+        }
+        return sum;
+    }
+
+    @Test
+    public void testLoop() {
+        test("loopSnippet", 1, 100);
+    }
+
+    public static int nestedLoopSnippet(int n) {
+        int sum = 0;
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < i; j++) {
+                if ((j & 3) == 0) {
+                    sum += j;
+                } else {
+                    sum ^= i;
+                }
+            }
+        }
+        return sum;
+    }
+
+    @Test
+    public void testNestedLoop() {
+        test("nestedLoopSnippet", 2, 30);
+    }
+
+    private static int check(int i) {
+        if (i % 50 == 49) {
+            throw new IllegalArgumentException();
+        }
+        return i;
+    }
+
+    public static int exceptionSnippet(int n) {
+        int sum = 0;
+        for (int i = 0; i < n; i++) {
+            try {
+                sum += check(i);
+            } catch (IllegalArgumentException e) {
+                sum--;
+            }
+        }
+        if (sum < 0) {
+            throw new IllegalStateException();
+        }
+        return sum;
+    }
+
+    @Test
+    public void testException() {
+        Assert.assertTrue(coldBlocks(test("exceptionSnippet", 1, 100)) > 0);
+    }
+
+    public static int deoptSnippet(int n) {
+        int sum = 0;
+        for (int i = 0; i < n; i++) {
+            if (i < 0) {
+                // never executed while profiling, so the parser emits a deoptimization
+                sum += n * n;
+            }
+            sum += i;
+        }
+        return sum;
+    }
+
+    @Test
+    public void testDeopt() {
+        StructuredGraph graph = test("deoptSnippet", 1, 100);
+        Assert.assertFalse(graph.getNodes(DeoptimizeNode.class).isEmpty());
+        Assert.assertTrue(coldBlocks(graph) > 0);
+    }
+
+    private StructuredGraph test(String snippet, int loops, int argument) {
+        Method method = getMethod(snippet);
+        runtime.lookupJavaMethod(method).reprofile();
+        for (int i = 0; i < PROFILING_EXECUTIONS; i++) {
+            try {
+                method.invoke(null, argument);
+            } catch (ReflectiveOperationException e) {
+                throw new AssertionError(e);
+            }
+        }
+        StructuredGraph graph = parseProfiled(snippet);
+        Debug.dump(graph, "Graph");
+        ControlFlowGraph cfg = ControlFlowGraph.compute(graph, true, true, true, true);
+        Assert.assertEquals(loops, cfg.getLoops().length);
+        NodesToDoubles nodeProbabilities = new ComputeProbabilityClosure(graph).apply();
+        List<Block> order = ComputeBlockOrder.computeChainedCodeEmittingOrder(cfg.getBlocks().length, cfg.getStartBlock(), nodeProbabilities);
+
+        Assert.assertEquals(cfg.getStartBlock(), order.get(0));
+        int[] positions = positions(cfg, order);
+        assertColdBlocksLast(order, nodeProbabilities);
+        for (Loop loop : cfg.getLoops()) {
+            assertRotated(loop, positions);
+        }
+        return graph;
+    }
+
+    /**
+     * Checks that every block of the control flow graph is placed exactly once.
+     */
+    private static int[] positions(ControlFlowGraph cfg, List<Block> order) {
+        Assert.assertEquals(cfg.getBlocks().length, order.size());
+        int[] positions = new int[cfg.getBlocks().length];
+        Arrays.fill(positions, -1);
+        for (int i = 0; i < order.size(); i++) {
+            Block block = order.get(i);
+            Assert.assertEquals(block + " is placed twice", -1, positions[block.getId()]);
+            positions[block.getId()] = i;
+        }
+        return positions;
+    }
+
+    private static void assertColdBlocksLast(List<Block> order, NodesToDoubles nodeProbabilities) {
+        Block firstCold = null;
+        for (Block block : order) {
+            if (ComputeBlockOrder.isCold(block, nodeProbabilities)) {
+                if (firstCold == null) {
+                    firstCold = block;
+                }
+            } else {
+                Assert.assertNull(block + " is placed after the cold " + firstCold, firstCold);
+            }
+        }
+    }
+
+    /**
+     * Checks that a loop with a single loop end is rotated, i.e., that its header is placed
+     * directly behind the loop end and that the targets of backward jumps from the header are
+     * aligned.
+     */
+    private static void assertRotated(Loop loop, int[] positions) {
+        Assert.assertEquals(1, loop.loopBegin().loopEnds().count());
+        Block header = loop.header;
+        for (Block loopEnd : header.getPredecessors()) {
+            if (loop.blocks.contains(loopEnd)) {
+                Assert.assertEquals(header + " is not placed behind " + loopEnd, positions[loopEnd.getId()] + 1, positions[header.getId()]);
+            }
+        }
+        for (Block successor : header.getSuccessors()) {
+            if (loop.blocks.contains(successor) && positions[successor.getId()] < positions[header.getId()]) {
+                Assert.assertTrue(successor + " is not aligned", successor.isAligned());
+            }
+        }
+    }
+
+    private static int coldBlocks(StructuredGraph graph) {
+        ControlFlowGraph cfg = ControlFlowGraph.compute(graph, true, false, false, false);
+        NodesToDoubles nodeProbabilities = new ComputeProbabilityClosure(graph).apply();
+        int count = 0;
+        for (Block block : cfg.getBlocks()) {
+            if (ComputeBlockOrder.isCold(block, nodeProbabilities)) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
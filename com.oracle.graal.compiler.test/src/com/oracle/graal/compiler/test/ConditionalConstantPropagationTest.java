@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2013, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.compiler.test;
+
+import static org.junit.Assert.*;
+
+import org.junit.*;
+
+import com.oracle.graal.api.code.*;
+import com.oracle.graal.nodes.*;
+import com.oracle.graal.nodes.extended.*;
+import com.oracle.graal.phases.common.*;
+import com.oracle.graal.phases.tiers.*;
+
+/**
+ * Tests for {@link ConditionalConstantPropagationPhase}: values that are only constant because
+ * some branch is never taken cannot be found by the canonicalizer alone.
+ */
+public class ConditionalConstantPropagationTest extends GraalCompilerTest {
+
+    public static int loopConstantSnippet(int n) {
+        int x = 1;
+        for (int i = 0; i < n; i++) {
+            if (x != 1) {
+                x = 2;
+            }
+        }
+        return x;
+    }
+
+    public static int loopRangeSnippet(int n) {
+        int x = 0;
+        int sum = 0;
+        for (int i = 0; i < n; i++) {
+            if (x > 10) {
+                sum += 100;
+            }
+            sum += x;
+            x = x & 7;
+        }
+        return sum;
+    }
+
+    public static int switchSnippet(int n) {
+        int k = 3;
+        int sum = 0;
+        for (int i = 0; i < n; i++) {
+            switch (k) {
+                case 1:
+                    k = 2;
+                    break;
+                case 3:
+                    sum += i;
+                    break;
+                default:
+                    k = 1;
+                    break;
+            }
+        }
+        return sum + k;
+    }
+
+    @Test
+    public void testLoopConstant() {
+        test("loopConstantSnippet", 0);
+        test("loopConstantSnippet", 10);
+        assertEquals(1, ifCount(propagate("loopConstantSnippet")));
+    }
+
+    @Test
+    public void testLoopRange() {
+        test("loopRangeSnippet", 0);
+        test("loopRangeSnippet", 10);
+        assertEquals(1, ifCount(propagate("loopRangeSnippet")));
+    }
+
+    @Test
+    public void testSwitch() {
+        test("switchSnippet", 0);
+        test("switchSnippet", 10);
+        StructuredGraph graph = propagate("switchSnippet");
+        assertEquals(1, ifCount(graph));
+        assertTrue(graph.getNodes().filter(IntegerSwitchNode.class).isEmpty());
+    }
+
+    private StructuredGraph propagate(String snippet) {
+        StructuredGraph graph = parse(snippet);
+        PhaseContext context = new PhaseContext(runtime(), new Assumptions(false), replacements);
+        new ConditionalConstantPropagationPhase(new CanonicalizerPhase(true)).apply(graph, context);
+        return graph;
+    }
+
+    private static int ifCount(StructuredGraph graph) {
+        return graph.getNodes().filter(IfNode.class).count();
+    }
+}
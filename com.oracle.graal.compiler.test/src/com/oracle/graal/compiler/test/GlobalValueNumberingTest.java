@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2013, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.compiler.test;
+
+import static com.oracle.graal.graph.UnsafeAccess.*;
+
+import org.junit.*;
+
+import com.oracle.graal.api.code.*;
+import com.oracle.graal.nodes.*;
+import com.oracle.graal.nodes.extended.*;
+import com.oracle.graal.nodes.spi.Lowerable.LoweringType;
+import com.oracle.graal.phases.*;
+import com.oracle.graal.phases.common.*;
+import com.oracle.graal.phases.tiers.*;
+
+public class GlobalValueNumberingTest extends GraalCompilerTest {
+
+    static class A {
+
+        int value;
+    }
+
+    static int field;
+
+    private static final long VALUE_OFFSET;
+
+    static {
+        try {
+            VALUE_OFFSET = unsafe.objectFieldOffset(A.class.getDeclaredField("value"));
+        } catch (NoSuchFieldException e) {
+            throw new Error(e);
+        }
+    }
+
+    public static int redundantReadSnippet(A a, boolean b) {
+        int x = a.value;
+        if (b) {
+            field = x;
+        }
+        return x + a.value;
+    }
+
+    public static int killedReadSnippet(A a, A other, boolean b) {
+        int x = a.value;
+        if (b) {
+            other.value = x;
+        }
+        return x + a.value;
+    }
+
+    public static int loopReadSnippet(A a, A other, int n) {
+        int sum = a.value;
+        for (int i = 0; i < n; i++) {
+            sum += a.value;
+            other.value = i;
+        }
+        return sum;
+    }
+
+    public static int unsafeReadSnippet(A a, A other) {
+        int x = unsafe.getInt(a, VALUE_OFFSET);
+        other.value = x + 1;
+        return x + unsafe.getInt(a, VALUE_OFFSET);
+    }
+
+    @Test
+    public void testRedundantRead() {
+        test("redundantReadSnippet", new A(), true);
+        assertEquals(1, readsRemoved("redundantReadSnippet"));
+    }
+
+    @Test
+    public void testKilledRead() {
+        test("killedReadSnippet", new A(), new A(), true);
+        assertEquals(0, readsRemoved("killedReadSnippet"));
+    }
+
+    @Test
+    public void testLoopKilledRead() {
+        test("loopReadSnippet", new A(), new A(), 10);
+        assertEquals(0, readsRemoved("loopReadSnippet"));
+    }
+
+    @Test
+    public void testUnsafeReadKilledByFieldWrite() {
+        A a = new A();
+        a.value = 3;
+        test("unsafeReadSnippet", a, a);
+        assertEquals(0, readsRemoved("unsafeReadSnippet"));
+    }
+
+    private int readsRemoved(String snippet) {
+        StructuredGraph graph = parse(snippet);
+        Assumptions assumptions = new Assumptions(false);
+        new InliningPhase(runtime(), null, replacements, assumptions, null, getDefaultPhasePlan(), OptimisticOptimizations.ALL).apply(graph);
+        new CanonicalizerPhase.Instance(runtime(), assumptions, true).apply(graph);
+        new LoweringPhase(LoweringType.BEFORE_GUARDS).apply(graph, new PhaseContext(runtime, assumptions, replacements));
+        int before = graph.getNodes(ReadNode.class).count();
+        new GlobalValueNumberingPhase().apply(graph);
+        return before - graph.getNodes(ReadNode.class).count();
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright (c) 2013, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.compiler.test;
+
+import static org.junit.Assert.*;
+
+import org.junit.*;
+
+import com.oracle.graal.api.code.*;
+import com.oracle.graal.api.meta.*;
+import com.oracle.graal.nodes.*;
+import com.oracle.graal.nodes.calc.*;
+import com.oracle.graal.nodes.extended.*;
+import com.oracle.graal.nodes.spi.Lowerable.LoweringType;
+import com.oracle.graal.phases.common.*;
+import com.oracle.graal.phases.tiers.*;
+
+/**
+ * Tests for {@link IntegerRangePropagationPhase}.
+ */
+public class IntegerRangePropagationTest extends GraalCompilerTest {
+
+    public static int nestedSnippet(int a) {
+        if (a < 10) {
+            if (a < 20) {
+                return 1;
+            }
+            return 2;
+        }
+        return 3;
+    }
+
+    public static int loopSnippet(int n) {
+        int sum = 0;
+        for (int i = 0; i < n; i++) {
+            if (i < 0) {
+                sum += 100;
+            } else {
+                sum++;
+            }
+        }
+        return sum;
+    }
+
+    public static int switchSnippet(int a) {
+        if (a >= 0 && a <= 2) {
+            switch (a) {
+                case 0:
+                    return 5;
+                case 1:
+                    return 7;
+                case 2:
+                    return 9;
+                default:
+                    return -1;
+            }
+        }
+        return 0;
+    }
+
+    public static int divSnippet(int a, int b) {
+        if (b > 0) {
+            return a / b;
+        }
+        return 0;
+    }
+
+    public static int guardedLoadSnippet(int i) {
+        int[] small = new int[10];
+        int[] large = new int[20];
+        return small[i] + large[i];
+    }
+
+    @Test
+    public void testNested() {
+        test("nestedSnippet", 5);
+        test("nestedSnippet", 15);
+        assertEquals(1, propagate("nestedSnippet").getNodes().filter(IfNode.class).count());
+    }
+
+    @Test
+    public void testLoop() {
+        test("loopSnippet", 10);
+        assertEquals(1, propagate("loopSnippet").getNodes().filter(IfNode.class).count());
+    }
+
+    @Test
+    public void testSwitch() {
+        for (int i = -1; i < 4; i++) {
+            test("switchSnippet", i);
+        }
+        StructuredGraph graph = propagate("switchSnippet");
+        for (ConstantNode constant : graph.getNodes().filter(ConstantNode.class)) {
+            assertTrue("unexpected constant: " + constant, constant.asConstant().asInt() != -1 || constant.usages().isEmpty());
+        }
+    }
+
+    @Test
+    public void testDiv() {
+        test("divSnippet", 10, 3);
+        test("divSnippet", 10, 0);
+        StructuredGraph graph = propagate("divSnippet");
+        for (IntegerDivNode div : graph.getNodes().filter(IntegerDivNode.class)) {
+            assertFalse(div.canDeoptimize());
+        }
+    }
+
+    @Test
+    public void testGuardedLoad() {
+        test("guardedLoadSnippet", 5);
+        test("guardedLoadSnippet", 15);
+        StructuredGraph graph = parse("guardedLoadSnippet");
+        PhaseContext context = new PhaseContext(runtime(), new Assumptions(false), replacements);
+        new CanonicalizerPhase(true).apply(graph, context);
+        new LoweringPhase(LoweringType.BEFORE_GUARDS).apply(graph, context);
+        new IntegerRangePropagationPhase().apply(graph);
+        // the bounds check of large is implied by the one of small
+        GuardNode boundsCheck = null;
+        for (GuardNode guard : graph.getNodes().filter(GuardNode.class)) {
+            if (guard.reason() == DeoptimizationReason.BoundsCheckException) {
+                assertNull(boundsCheck);
+                boundsCheck = guard;
+            }
+        }
+        assertNotNull(boundsCheck);
+        // the load from large must still depend on the bounds check of small
+        int reads = 0;
+        for (ReadNode read : graph.getNodes().filter(ReadNode.class)) {
+            if (read.location().getLocationIdentity() != LocationIdentity.FINAL_LOCATION) {
+                assertSame(boundsCheck, read.getGuard());
+                reads++;
+            }
+        }
+        assertEquals(2, reads);
+    }
+
+    private StructuredGraph propagate(String snippet) {
+        StructuredGraph graph = parse(snippet);
+        PhaseContext context = new PhaseContext(runtime(), new Assumptions(false), replacements);
+        new CanonicalizerPhase(true).apply(graph, context);
+        new IntegerRangePropagationPhase().apply(graph);
+        new CanonicalizerPhase(true).apply(graph, context);
+        return graph;
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2011, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.compiler.test;
+
+import org.junit.*;
+
+import com.oracle.graal.loop.phases.*;
+import com.oracle.graal.nodes.*;
+import com.oracle.graal.nodes.calc.*;
+
+public class LoopPartialUnrollTest extends GraalCompilerTest {
+
+    public static int test1Snippet(int a) {
+        int sum = 0;
+        for (int i = 0; i < 1000; i++) {
+            sum = sum * 31 + i * a;
+        }
+        return sum;
+    }
+
+    public static int test2Snippet(int a) {
+        int sum = 0;
+        for (int i = 0; i < 3; i++) {
+            sum = sum * 31 + i * a;
+        }
+        return sum;
+    }
+
+    @Test
+    public void test1() {
+        StructuredGraph graph = parse("test1Snippet");
+        int multiplications = graph.getNodes().filter(IntegerMulNode.class).count();
+        new LoopTransformLowPhase().apply(graph);
+        // a main loop with several copies of the body and a post loop with a single copy
+        Assert.assertEquals(2, graph.getNodes(LoopBeginNode.class).count());
+        Assert.assertTrue(graph.getNodes().filter(IntegerMulNode.class).count() >= 3 * multiplications);
+    }
+
+    @Test
+    public void test2() {
+        // too few iterations to be worth unrolling
+        StructuredGraph graph = parse("test2Snippet");
+        new LoopTransformLowPhase().apply(graph);
+        Assert.assertEquals(1, graph.getNodes(LoopBeginNode.class).count());
+    }
+}
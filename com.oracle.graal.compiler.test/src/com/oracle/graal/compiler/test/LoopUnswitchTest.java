@@ -108,6 +108,52 @@ public class LoopUnswitchTest extends GraalCompilerTest {
         return sum;
     }
 
+    public static int referenceSnippet3(int a) {
+        int sum = 0;
+        if (a > 2) {
+            for (int i = 0; i < 1000; i++) {
+                sum += 2;
+            }
+        } else {
+            for (int i = 0; i < 1000; i++) {
+                sum += a;
+            }
+        }
+        if (a > 5) {
+            for (int i = 0; i < 1000; i++) {
+                sum += 3;
+            }
+        } else {
+            for (int i = 0; i < 1000; i++) {
+                sum -= a;
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * Two independent loops which are both unswitched without recomputing the loops data in
+     * between.
+     */
+    public static int test3Snippet(int a) {
+        int sum = 0;
+        for (int i = 0; i < 1000; i++) {
+            if (a > 2) {
+                sum += 2;
+            } else {
+                sum += a;
+            }
+        }
+        for (int i = 0; i < 1000; i++) {
+            if (a > 5) {
+                sum += 3;
+            } else {
+                sum -= a;
+            }
+        }
+        return sum;
+    }
+
     @Test
     public void test1() {
         test("test1Snippet", "referenceSnippet1");
@@ -118,6 +164,11 @@ public class LoopUnswitchTest extends GraalCompilerTest {
         test("test2Snippet", "referenceSnippet2");
     }
 
+    @Test
+    public void test3() {
+        test("test3Snippet", "referenceSnippet3");
+    }
+
     private void test(String snippet, String referenceSnippet) {
         final StructuredGraph graph = parse(snippet);
         final StructuredGraph referenceGraph = parse(referenceSnippet);
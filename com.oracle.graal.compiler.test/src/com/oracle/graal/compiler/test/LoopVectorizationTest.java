@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2013, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.compiler.test;
+
+import org.junit.*;
+
+import com.oracle.graal.api.code.*;
+import com.oracle.graal.api.meta.*;
+import com.oracle.graal.graph.*;
+import com.oracle.graal.loop.phases.*;
+import com.oracle.graal.nodes.*;
+import com.oracle.graal.nodes.calc.*;
+import com.oracle.graal.nodes.java.*;
+import com.oracle.graal.phases.*;
+import com.oracle.graal.phases.tiers.*;
+
+public class LoopVectorizationTest extends GraalCompilerTest {
+
+    public static void test1Snippet(int[] dst, int[] src1, int[] src2) {
+        for (int i = 0; i < 1000; i++) {
+            dst[i] = src1[i] + src2[i];
+        }
+    }
+
+    public static int test2Snippet(int[] dst, int[] src) {
+        int sum = 0;
+        for (int i = 0; i < 1000; i++) {
+            dst[i] = src[i];
+            sum += src[i];
+        }
+        return sum;
+    }
+
+    public static int test3Snippet(int[] dst, int[] src, int start, int limit) {
+        for (int i = start; i < limit; i++) {
+            dst[i] = src[i] * 3;
+        }
+        return limit - start;
+    }
+
+    @Test
+    public void test1() {
+        StructuredGraph graph = vectorize("test1Snippet");
+        Assert.assertEquals(1, graph.getNodes().filter(VectorStoreIndexedNode.class).count());
+        Assert.assertEquals(2, graph.getNodes().filter(VectorLoadIndexedNode.class).count());
+        // a main loop of vector accesses and a scalar post loop
+        Assert.assertEquals(2, graph.getNodes(LoopBeginNode.class).count());
+        // the predicate must not dereference the arrays if the loop is not entered
+        int predicateGuards = 0;
+        for (FixedGuardNode guard : graph.getNodes(FixedGuardNode.class)) {
+            if (guard.getReason() == DeoptimizationReason.LoopLimitCheck) {
+                Assert.assertTrue(isOnlyExecutedIfEntered(guard));
+                predicateGuards++;
+            }
+        }
+        Assert.assertTrue(predicateGuards > 0);
+        for (ArrayLengthNode length : graph.getNodes().filter(ArrayLengthNode.class)) {
+            Assert.assertTrue(isOnlyExecutedIfEntered(length));
+        }
+    }
+
+    @Test
+    public void test2() {
+        // the loaded values are also used by another loop phi
+        StructuredGraph graph = vectorize("test2Snippet");
+        Assert.assertEquals(0, graph.getNodes().filter(VectorStoreIndexedNode.class).count());
+        Assert.assertEquals(1, graph.getNodes(LoopBeginNode.class).count());
+    }
+
+    @Test
+    public void test3() {
+        test("test3Snippet", new int[100], new int[100], 0, 100);
+        test("test3Snippet", new int[100], new int[100], 7, 93);
+        test("test3Snippet", null, null, 0, 0);
+        test("test3Snippet", new int[2], new int[2], 10, 3);
+        test("test3Snippet", new int[100], new int[50], 0, 100);
+    }
+
+    private StructuredGraph vectorize(String snippet) {
+        StructuredGraph graph = parse(snippet);
+        HighTierContext context = new HighTierContext(runtime(), new Assumptions(false), replacements, runtime().getTarget(), OptimisticOptimizations.ALL);
+        new LoopVectorizationPhase().apply(graph, context);
+        return graph;
+    }
+
+    /**
+     * Checks that {@code node} is in a branch of the test of whether the vectorized loop is entered.
+     */
+    private static boolean isOnlyExecutedIfEntered(FixedNode node) {
+        Node current = node;
+        while (!(current instanceof AbstractBeginNode)) {
+            current = current.predecessor();
+        }
+        Node split = current.predecessor();
+        return split instanceof IfNode && ((IfNode) split).trueSuccessor() == current && ((IfNode) split).condition() instanceof IntegerLessThanNode;
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) 2013, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.compiler.test.backend;
+
+import static com.oracle.graal.phases.GraalOptions.*;
+
+import java.lang.reflect.*;
+
+import org.junit.*;
+
+import com.oracle.graal.api.code.*;
+import com.oracle.graal.api.meta.*;
+import com.oracle.graal.compiler.test.*;
+import com.oracle.graal.nodes.*;
+import com.oracle.graal.phases.*;
+import com.oracle.graal.phases.common.*;
+
+/**
+ * Tests that spill slots are shared between intervals whose lifetimes do not overlap. The values
+ * computed in each step of the snippets are live across a call, which forces them to be spilled,
+ * but they are dead before the next step starts.
+ */
+public class SpillSlotColoringTest extends GraalCompilerTest {
+
+    private CompilationResult lastCompilationResult;
+
+    @Override
+    protected void editPhasePlan(ResolvedJavaMethod method, StructuredGraph graph, PhasePlan phasePlan) {
+        phasePlan.disablePhase(InliningPhase.class);
+    }
+
+    @Override
+    protected InstalledCode addMethod(ResolvedJavaMethod method, CompilationResult compResult) {
+        lastCompilationResult = compResult;
+        return super.addMethod(method, compResult);
+    }
+
+    public static int callee(int value) {
+        return value * 31 + 7;
+    }
+
+    public static int intSnippet(int a, int b) {
+        int sum = a;
+        int x0 = sum + b;
+        int x1 = sum * b;
+        int x2 = sum ^ b;
+        int x3 = sum - b;
+        sum = callee(sum) + x0 + x1 + x2 + x3;
+        int y0 = sum + b;
+        int y1 = sum * b;
+        int y2 = sum ^ b;
+        int y3 = sum - b;
+        sum = callee(sum) + y0 + y1 + y2 + y3;
+        int z0 = sum + b;
+        int z1 = sum * b;
+        int z2 = sum ^ b;
+        int z3 = sum - b;
+        sum = callee(sum) + z0 + z1 + z2 + z3;
+        int w0 = sum + b;
+        int w1 = sum * b;
+        int w2 = sum ^ b;
+        int w3 = sum - b;
+        return callee(sum) + w0 + w1 + w2 + w3;
+    }
+
+    public static long mixedSnippet(long a, Object o, double d) {
+        long sum = a;
+        long x0 = sum + 3;
+        double x1 = d * sum;
+        Object x2 = sum > 0 ? o : null;
+        sum = callee((int) sum) + x0 + (long) x1 + (x2 == null ? 1 : 2);
+        long y0 = sum + 5;
+        double y1 = d + sum;
+        Object y2 = sum > 0 ? null : o;
+        sum = callee((int) sum) + y0 + (long) y1 + (y2 == null ? 3 : 4);
+        long z0 = sum - 7;
+        double z1 = d - sum;
+        Object z2 = sum > 100 ? o : null;
+        return callee((int) sum) + z0 + (long) z1 + (z2 == null ? 5 : 6);
+    }
+
+    public static long stackArgumentsSnippet(int a, long b, int c, long d, int e, long f, int g, long h, int i, long j) {
+        long x = callee(a) + b;
+        long y = callee(c) + d;
+        x = callee((int) x) + e + f;
+        y = callee((int) y) + g + h;
+        x = callee((int) x) + i + j;
+        y = callee((int) y) + a - b;
+        return callee((int) (x ^ y)) + c * d + e * f + g * h + i * j;
+    }
+
+    @Test
+    public void testInt() {
+        assertFrameShrinks("intSnippet");
+        test("intSnippet", 3, 5);
+        test("intSnippet", -100, 77);
+        test("intSnippet", Integer.MAX_VALUE, Integer.MIN_VALUE);
+    }
+
+    @Test
+    public void testMixed() {
+        assertFrameShrinks("mixedSnippet");
+        test("mixedSnippet", 3L, "object", 1.5);
+        test("mixedSnippet", -1000L, null, -2.25);
+        test("mixedSnippet", Long.MAX_VALUE, "object", Double.NaN);
+    }
+
+    @Test
+    public void testStackArguments() {
+        boolean originalSetting = ColorSpillSlots.getValue();
+        ColorSpillSlots.setValue(true);
+        try {
+            test("stackArgumentsSnippet", 1, 2L, 3, 4L, 5, 6L, 7, 8L, 9, 10L);
+            test("stackArgumentsSnippet", -1, Long.MAX_VALUE, Integer.MIN_VALUE, -4L, 55, 66L, -77, 88L, 99, Long.MIN_VALUE);
+        } finally {
+            ColorSpillSlots.setValue(originalSetting);
+        }
+    }
+
+    private void assertFrameShrinks(String snippet) {
+        int uncolored = frameSize(snippet, false);
+        int colored = frameSize(snippet, true);
+        Assert.assertTrue("frame size " + colored + " is not smaller than " + uncolored, colored < uncolored);
+    }
+
+    private int frameSize(String snippet, boolean colorSpillSlots) {
+        boolean originalSetting = ColorSpillSlots.getValue();
+        ColorSpillSlots.setValue(colorSpillSlots);
+        try {
+            Method method = getMethod(snippet);
+            getCode(runtime.lookupJavaMethod(method), parse(method), true);
+            return lastCompilationResult.getFrameSize();
+        } finally {
+            ColorSpillSlots.setValue(originalSetting);
+        }
+    }
+}
@@ -118,6 +118,19 @@ public class GraalCompiler {
         return leafGraphIdArray;
     }
 
+    /**
+     * Compacts the graph if the fraction of deleted node slots exceeds
+     * {@link GraalOptions#GraphCompactionThreshold}. This must only be done between phases since
+     * compaction invalidates all node id based side tables.
+     */
+    private static void compactGraph(StructuredGraph graph) {
+        double threshold = GraphCompactionThreshold.getValue();
+        int deleted = graph.getDeletedNodeCount();
+        if (threshold > 0 && deleted > 0 && deleted >= threshold * (graph.getNodeCount() + deleted)) {
+            graph.compact();
+        }
+    }
+
     /**
      * Builds the graph, optimizes it.
      * 
@@ -144,7 +157,7 @@ public class GraalCompiler {
         }
 
         CanonicalizerPhase canonicalizer = new CanonicalizerPhase(!AOTCompilation.getValue());
-        HighTierContext highTierContext = new HighTierContext(runtime, assumptions, replacements);
+        HighTierContext highTierContext = new HighTierContext(runtime, assumptions, replacements, target, optimisticOpts);
 
         if (OptCanonicalizer.getValue()) {
             canonicalizer.apply(graph, highTierContext);
@@ -167,9 +180,11 @@ public class GraalCompiler {
 
         plan.runPhases(PhasePosition.HIGH_LEVEL, graph);
         suites.getHighTier().apply(graph, highTierContext);
+        compactGraph(graph);
 
         MidTierContext midTierContext = new MidTierContext(runtime, assumptions, replacements, target, optimisticOpts);
         suites.getMidTier().apply(graph, midTierContext);
+        compactGraph(graph);
 
         LowTierContext lowTierContext = new LowTierContext(runtime, assumptions, replacements, target);
         suites.getLowTier().apply(graph, lowTierContext);
@@ -193,7 +208,12 @@ public class GraalCompiler {
             @Override
             public LIR call() {
                 NodesToDoubles nodeProbabilities = new ComputeProbabilityClosure(graph).apply();
-                List<Block> codeEmittingOrder = ComputeBlockOrder.computeCodeEmittingOrder(blocks.length, startBlock, nodeProbabilities);
+                List<Block> codeEmittingOrder;
+                if (ChainedBlockLayout.getValue()) {
+                    codeEmittingOrder = ComputeBlockOrder.computeChainedCodeEmittingOrder(blocks.length, startBlock, nodeProbabilities);
+                } else {
+                    codeEmittingOrder = ComputeBlockOrder.computeCodeEmittingOrder(blocks.length, startBlock, nodeProbabilities);
+                }
                 List<Block> linearScanOrder = ComputeBlockOrder.computeLinearScanOrder(blocks.length, startBlock, nodeProbabilities);
 
                 LIR lir = new LIR(schedule.getCFG(), schedule.getBlockToNodesMap(), linearScanOrder, codeEmittingOrder, speculationLog);
@@ -206,6 +226,22 @@ public class GraalCompiler {
     }
 
     public static LIRGenerator emitLIR(Backend backend, final TargetDescription target, final LIR lir, StructuredGraph graph, CallingConvention cc) {
+        final LIRGenerator lirGen = emitLIRInstructions(backend, lir, graph, cc);
+        final FrameMap frameMap = lirGen.frameMap;
+
+        Debug.scope("Allocator", new Runnable() {
+
+            public void run() {
+                newRegisterAllocator(target, lir, lirGen, frameMap).allocate();
+            }
+        });
+        return lirGen;
+    }
+
+    /**
+     * Generates the LIR instructions for all blocks of a graph, without allocating registers.
+     */
+    public static LIRGenerator emitLIRInstructions(Backend backend, final LIR lir, StructuredGraph graph, CallingConvention cc) {
         final FrameMap frameMap = backend.newFrameMap();
         final LIRGenerator lirGen = backend.newLIRGenerator(graph, frameMap, cc, lir);
 
@@ -232,18 +268,29 @@ public class GraalCompiler {
         });
 
         lirGen.beforeRegisterAllocation();
-
-        Debug.scope("Allocator", new Runnable() {
-
-            public void run() {
-                new LinearScan(target, lir, lirGen, frameMap).allocate();
-            }
-        });
         return lirGen;
     }
 
+    private static RegisterAllocator newRegisterAllocator(TargetDescription target, LIR lir, LIRGenerator lirGen, FrameMap frameMap) {
+        if (LocalRegisterAllocation.getValue()) {
+            return new LocalRegisterAllocator(target, lir, lirGen, frameMap);
+        }
+        return new LinearScan(target, lir, lirGen, frameMap);
+    }
+
+    private static final DebugMetric metricBranchShorteningBytes = Debug.metric("BranchShorteningBytes");
+
+    /**
+     * The maximum number of times code is emitted to verify a set of short branches.
+     */
+    private static final int MAX_BRANCH_SHORTENING_PASSES = 4;
+
     public static void emitCode(Backend backend, long[] leafGraphIds, Assumptions assumptions, LIRGenerator lirGen, CompilationResult compilationResult, ResolvedJavaMethod installedCodeOwner) {
+        BitSet shortBranches = ShortenBranches.getValue() ? computeShortBranches(backend, lirGen, installedCodeOwner) : null;
         TargetMethodAssembler tasm = backend.newAssembler(lirGen, compilationResult);
+        if (shortBranches != null) {
+            tasm.asm.setShortBranches(shortBranches);
+        }
         backend.emitCode(tasm, lirGen, installedCodeOwner);
         CompilationResult result = tasm.finishTargetMethod(lirGen.getGraph());
         if (!assumptions.isEmpty()) {
@@ -253,4 +300,40 @@ public class GraalCompiler {
 
         Debug.dump(result, "After code generation");
     }
+
+    /**
+     * Emits the code for a method into scratch compilation results to determine which forward
+     * branches can be emitted with a short displacement. Shortening a branch moves the code after
+     * it, which usually brings other targets closer but can also move them further away by changing
+     * the padding required for alignment. The selected branches are therefore verified by emitting
+     * the code again with short encodings, dropping those that no longer fit, until a set is found
+     * for which all of them fit.
+     * 
+     * @return the forward branches to emit with a short displacement, or null if none can be
+     *         shortened
+     */
+    private static BitSet computeShortBranches(Backend backend, LIRGenerator lirGen, ResolvedJavaMethod installedCodeOwner) {
+        TargetMethodAssembler tasm = backend.newAssembler(lirGen, new CompilationResult());
+        BitSet candidates = tasm.asm.getShortenableBranches();
+        if (candidates == null) {
+            return null;
+        }
+        backend.emitCode(tasm, lirGen, installedCodeOwner);
+        tasm.asm.resetLabels();
+        int longCodeSize = tasm.asm.codeBuffer.position();
+
+        for (int pass = 0; pass < MAX_BRANCH_SHORTENING_PASSES && !candidates.isEmpty(); pass++) {
+            tasm = backend.newAssembler(lirGen, new CompilationResult());
+            tasm.asm.setShortBranches(candidates);
+            backend.emitCode(tasm, lirGen, installedCodeOwner);
+            tasm.asm.resetLabels();
+            BitSet overflowed = tasm.asm.getOverflowedShortBranches();
+            if (overflowed.isEmpty()) {
+                metricBranchShorteningBytes.add(longCodeSize - tasm.asm.codeBuffer.position());
+                return candidates;
+            }
+            candidates.andNot(overflowed);
+        }
+        return null;
+    }
 }
@@ -584,6 +584,25 @@ public final class Interval {
         splitParent().spillSlot = slot;
     }
 
+    /**
+     * Moves this interval to other stack slots after register allocation. The spill slot of a split
+     * parent and a stack slot assigned as location are replaced according to {@code newSlots}.
+     */
+    void replaceStackSlots(Map<StackSlot, StackSlot> newSlots) {
+        if (isSplitParent() && spillSlot != null) {
+            StackSlot newSpillSlot = newSlots.get(spillSlot);
+            if (newSpillSlot != null) {
+                spillSlot = newSpillSlot;
+            }
+        }
+        if (location != null && isStackSlot(location)) {
+            StackSlot newLocation = newSlots.get(location);
+            if (newLocation != null) {
+                location = newLocation;
+            }
+        }
+    }
+
     Interval currentSplitChild() {
         return splitParent().currentSplitChild;
     }
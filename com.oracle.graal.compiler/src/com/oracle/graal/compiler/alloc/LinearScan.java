@@ -54,7 +54,7 @@ import com.oracle.graal.phases.util.*;
  * >"Optimized Interval Splitting in a Linear Scan Register Allocator"</a> by Christian Wimmer and
  * Hanspeter Moessenboeck.
  */
-public final class LinearScan {
+public final class LinearScan implements RegisterAllocator {
 
     final TargetDescription target;
     final LIR ir;
@@ -794,73 +794,85 @@ public final class LinearScan {
     }
 
     /**
-     * Performs a backward dataflow analysis to compute global live sets (i.e.
-     * {@link BlockData#liveIn} and {@link BlockData#liveOut}) for each block.
+     * The maximum number of times the live sets of a block are computed on average before the
+     * analysis gives up.
+     */
+    private static final int MAX_LIVENESS_ITERATIONS_PER_BLOCK = 50;
+
+    /**
+     * Performs a backward dataflow analysis to compute liveOut and liveIn for each block. Blocks are
+     * processed from a worklist, starting in reverse linear scan order, which visits the successors
+     * of a block before the block itself except along loop back edges. A block is only added to the
+     * worklist again when the liveIn set of one of its successors changes.
      */
     void computeGlobalLiveSets() {
         int numBlocks = blockCount();
-        boolean changeOccurred;
-        boolean changeOccurredInBlock;
-        int iterationCount = 0;
         BitSet liveOut = new BitSet(liveSetSize()); // scratch set for calculations
+        BitSet liveIn = new BitSet(liveSetSize()); // scratch set for calculations
 
-        // Perform a backward dataflow analysis to compute liveOut and liveIn for each block.
-        // The loop is executed until a fixpoint is reached (no changes in an iteration)
-        do {
-            changeOccurred = false;
-
-            // iterate all blocks in reverse order
-            for (int i = numBlocks - 1; i >= 0; i--) {
-                Block block = blockAt(i);
+        int[] worklist = new int[numBlocks];
+        int worklistSize = 0;
+        BitSet onWorklist = new BitSet(numBlocks);
+        for (int i = 0; i < numBlocks; i++) {
+            BlockData data = blockData.get(blockAt(i));
+            data.liveOut.clear();
+            data.liveIn.clear();
+            data.liveIn.or(data.liveGen);
+            worklist[worklistSize++] = i;
+            onWorklist.set(i);
+        }
 
-                changeOccurredInBlock = false;
+        int iterationCount = 0;
+        while (worklistSize > 0) {
+            int index = worklist[--worklistSize];
+            onWorklist.clear(index);
+            Block block = blockAt(index);
+            BlockData data = blockData.get(block);
+
+            // liveOut(block) is the union of liveIn(sux), for successors sux of block
+            liveOut.clear();
+            for (Block successor : block.getSuccessors()) {
+                liveOut.or(blockData.get(successor).liveIn);
+            }
 
-                // liveOut(block) is the union of liveIn(sux), for successors sux of block
-                int n = block.getSuccessorCount();
-                if (n > 0) {
-                    // block has successors
-                    if (n > 0) {
-                        liveOut.clear();
-                        for (Block successor : block.getSuccessors()) {
-                            liveOut.or(blockData.get(successor).liveIn);
+            boolean changeOccurredInBlock = !data.liveOut.equals(liveOut);
+            if (changeOccurredInBlock) {
+                // Swap the old and new live out sets to avoid copying.
+                BitSet temp = data.liveOut;
+                data.liveOut = liveOut;
+                liveOut = temp;
+
+                // liveIn(block) is the union of liveGen(block) with (liveOut(block) &
+                // !liveKill(block))
+                liveIn.clear();
+                liveIn.or(data.liveOut);
+                liveIn.andNot(data.liveKill);
+                liveIn.or(data.liveGen);
+                if (!data.liveIn.equals(liveIn)) {
+                    temp = data.liveIn;
+                    data.liveIn = liveIn;
+                    liveIn = temp;
+
+                    // only the predecessors can be affected by the change
+                    for (Block predecessor : block.getPredecessors()) {
+                        int predecessorIndex = predecessor.getLinearScanNumber();
+                        if (!onWorklist.get(predecessorIndex)) {
+                            onWorklist.set(predecessorIndex);
+                            worklist[worklistSize++] = predecessorIndex;
                         }
-                    } else {
-                        liveOut.clear();
                     }
-
-                    if (!blockData.get(block).liveOut.equals(liveOut)) {
-                        // A change occurred. Swap the old and new live out sets to avoid copying.
-                        BitSet temp = blockData.get(block).liveOut;
-                        blockData.get(block).liveOut = liveOut;
-                        liveOut = temp;
-
-                        changeOccurred = true;
-                        changeOccurredInBlock = true;
-                    }
-                }
-
-                if (iterationCount == 0 || changeOccurredInBlock) {
-                    // liveIn(block) is the union of liveGen(block) with (liveOut(block) &
-                    // !liveKill(block))
-                    // note: liveIn has to be computed only in first iteration or if liveOut has
-                    // changed!
-                    BitSet liveIn = blockData.get(block).liveIn;
-                    liveIn.clear();
-                    liveIn.or(blockData.get(block).liveOut);
-                    liveIn.andNot(blockData.get(block).liveKill);
-                    liveIn.or(blockData.get(block).liveGen);
                 }
+            }
 
-                if (TraceLinearScanLevel.getValue() >= 4) {
-                    traceLiveness(changeOccurredInBlock, iterationCount, block);
-                }
+            if (TraceLinearScanLevel.getValue() >= 4) {
+                traceLiveness(changeOccurredInBlock, iterationCount, block);
             }
-            iterationCount++;
 
-            if (changeOccurred && iterationCount > 50) {
+            iterationCount++;
+            if (iterationCount > MAX_LIVENESS_ITERATIONS_PER_BLOCK * numBlocks) {
                 throw new BailoutException("too many iterations in computeGlobalLiveSets");
             }
-        } while (changeOccurred);
+        }
 
         if (DetailedAsserts.getValue()) {
             verifyLiveness();
@@ -1801,8 +1813,29 @@ public final class LinearScan {
         }
     }
 
+    /**
+     * Numbers the instructions and computes the local live sets, so that the global liveness
+     * analysis can then be run on its own with {@link #computeGlobalLiveness()}. This is only meant
+     * for benchmarks and tests.
+     */
+    public void computeLocalLiveness() {
+        numberInstructions();
+        computeLocalLiveSets();
+    }
+
+    /**
+     * Runs the global liveness analysis after {@link #computeLocalLiveness()}. This is only meant
+     * for benchmarks and tests.
+     */
+    public void computeGlobalLiveness() {
+        computeGlobalLiveSets();
+    }
+
+    @Override
     public void allocate() {
 
+        final int spillAreaSize = frameMap.spillAreaSize();
+
         Debug.scope("LifetimeAnalysis", new Runnable() {
 
             public void run() {
@@ -1830,6 +1863,15 @@ public final class LinearScan {
             }
         });
 
+        if (ColorSpillSlots.getValue()) {
+            Debug.scope("SpillSlotColoring", new Runnable() {
+
+                public void run() {
+                    new SpillSlotColoring(LinearScan.this).colorSpillSlots(spillAreaSize);
+                }
+            });
+        }
+
         Debug.scope("DebugInfo", new Runnable() {
 
             public void run() {
@@ -1858,6 +1900,9 @@ public final class LinearScan {
             public void run() {
                 printLir("After register number assignment", true);
                 EdgeMoveOptimizer.optimize(ir);
+                if (PeepholeOptimization.getValue()) {
+                    PeepholeOptimizer.optimize(ir);
+                }
                 ControlFlowOptimizer.optimize(ir);
                 printLir("After control flow optimization", false);
             }
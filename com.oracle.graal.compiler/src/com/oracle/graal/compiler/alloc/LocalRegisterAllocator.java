@@ -0,0 +1,353 @@
+/*
+ * Copyright (c) 2013, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.compiler.alloc;
+
+import static com.oracle.graal.api.code.ValueUtil.*;
+import static com.oracle.graal.lir.LIRValueUtil.*;
+
+import java.util.*;
+
+import com.oracle.graal.alloc.*;
+import com.oracle.graal.api.code.*;
+import com.oracle.graal.api.meta.*;
+import com.oracle.graal.compiler.gen.*;
+import com.oracle.graal.debug.*;
+import com.oracle.graal.lir.*;
+import com.oracle.graal.lir.LIRInstruction.OperandFlag;
+import com.oracle.graal.lir.LIRInstruction.OperandMode;
+import com.oracle.graal.lir.LIRInstruction.ValueProcedure;
+import com.oracle.graal.nodes.cfg.*;
+import com.oracle.graal.nodes.util.*;
+import com.oracle.graal.phases.graph.*;
+
+/**
+ * A register allocator that assigns registers to the values local to the hot blocks of a method
+ * with a fast greedy algorithm and leaves all other values to the {@linkplain LinearScan linear scan
+ * allocator}. A block is hot unless {@link ComputeBlockOrder#isCold} says otherwise. The locally
+ * allocated values are replaced by registers before linear scan runs, which then treats them like
+ * any other fixed register.
+ * <p>
+ * Linear scan requires that fixed registers are never live at block boundaries or across an
+ * instruction with a state that does not refer to them, so only values that are defined and used
+ * within one block and whose lifetime does not span such an instruction are allocated locally. To
+ * leave room for the values handled by linear scan, at most half of the allocatable registers are
+ * used.
+ * <p>
+ * The remaining variables are renumbered before linear scan runs, so that its liveness sets and
+ * interval tables only cover the values it still has to allocate.
+ */
+public final class LocalRegisterAllocator implements RegisterAllocator {
+
+    private static final DebugMetric metricLocalVariables = Debug.metric("LocallyAllocatedVariables");
+
+    private static final int MULTIPLE_BLOCKS = -2;
+
+    private final TargetDescription target;
+    private final LIR lir;
+    private final LIRGenerator gen;
+    private final FrameMap frameMap;
+
+    /**
+     * The block in which each variable is used or defined, or {@link #MULTIPLE_BLOCKS}.
+     */
+    private final int[] variableBlocks;
+
+    /**
+     * The variable for each variable index.
+     */
+    private final Variable[] variables;
+
+    /**
+     * The positions of the first and last operand of each variable within its block.
+     */
+    private final int[] firstPositions;
+    private final int[] lastPositions;
+
+    /**
+     * The variables that cannot be allocated locally.
+     */
+    private final BitSet excluded;
+
+    /**
+     * The registers assigned to variables.
+     */
+    private final Register[] assigned;
+
+    /**
+     * The positions within the current block at which each register is live as a fixed operand,
+     * i.e. the positions from each definition of the register to its last use after it.
+     */
+    private final BitSet[] fixedPositions;
+
+    /**
+     * The position of the last definition of each register within the current block, or -1 if it
+     * is not defined before the current position.
+     */
+    private final int[] fixedDefinitions;
+
+    private final Map<PlatformKind, Register[]> registerPools = new HashMap<>();
+
+    public LocalRegisterAllocator(TargetDescription target, LIR lir, LIRGenerator gen, FrameMap frameMap) {
+        this.target = target;
+        this.lir = lir;
+        this.gen = gen;
+        this.frameMap = frameMap;
+        int numVariables = lir.numVariables();
+        this.variableBlocks = new int[numVariables];
+        this.variables = new Variable[numVariables];
+        this.firstPositions = new int[numVariables];
+        this.lastPositions = new int[numVariables];
+        this.excluded = new BitSet(numVariables);
+        this.assigned = new Register[numVariables];
+        this.fixedPositions = new BitSet[target.arch.getRegisters().length];
+        this.fixedDefinitions = new int[fixedPositions.length];
+    }
+
+    @Override
+    public void allocate() {
+        Debug.scope("LocalAllocation", new Runnable() {
+
+            public void run() {
+                allocateLocalVariables();
+            }
+        });
+        new LinearScan(target, lir, gen, frameMap).allocate();
+    }
+
+    /**
+     * Assigns registers to the values local to the hot blocks without running linear scan
+     * afterwards, so that the result can be inspected.
+     * 
+     * @return the number of values that were assigned a register
+     */
+    public int allocateLocalVariables() {
+        Arrays.fill(variableBlocks, -1);
+        for (Block block : lir.linearScanOrder()) {
+            final int blockId = block.getId();
+            ValueProcedure proc = new ValueProcedure() {
+
+                @Override
+                public Value doValue(Value value) {
+                    if (isVariable(value)) {
+                        int index = asVariable(value).index;
+                        if (variableBlocks[index] == -1) {
+                            variableBlocks[index] = blockId;
+                        } else if (variableBlocks[index] != blockId) {
+                            variableBlocks[index] = MULTIPLE_BLOCKS;
+                        }
+                    }
+                    return value;
+                }
+            };
+            for (LIRInstruction op : lir.lir(block)) {
+                forEachOperand(op, proc);
+            }
+        }
+
+        NodesToDoubles nodeProbabilities = new ComputeProbabilityClosure(gen.getGraph()).apply();
+        int allocated = 0;
+        for (Block block : lir.linearScanOrder()) {
+            if (!ComputeBlockOrder.isCold(block, nodeProbabilities)) {
+                allocated += allocateBlock(block);
+            }
+        }
+        if (allocated > 0) {
+            metricLocalVariables.add(allocated);
+            renumberVariables();
+        }
+        return allocated;
+    }
+
+    /**
+     * Renumbers the variables that were not allocated locally so that their indexes are
+     * contiguous again.
+     */
+    private void renumberVariables() {
+        final Variable[] renumbered = new Variable[variables.length];
+        final int[] count = new int[1];
+        ValueProcedure renumber = new ValueProcedure() {
+
+            @Override
+            public Value doValue(Value value) {
+                if (isVariable(value)) {
+                    int index = asVariable(value).index;
+                    if (renumbered[index] == null) {
+                        renumbered[index] = new Variable(value.getPlatformKind(), count[0]++);
+                    }
+                    return renumbered[index];
+                }
+                return value;
+            }
+        };
+        for (Block block : lir.linearScanOrder()) {
+            for (LIRInstruction op : lir.lir(block)) {
+                forEachOperand(op, renumber);
+            }
+        }
+        lir.setNumVariables(count[0]);
+    }
+
+    private static void forEachOperand(LIRInstruction op, ValueProcedure proc) {
+        op.forEachInput(proc);
+        op.forEachAlive(proc);
+        op.forEachState(proc);
+        op.forEachTemp(proc);
+        op.forEachOutput(proc);
+    }
+
+    /**
+     * Allocates the variables local to a block.
+     * 
+     * @return the number of variables allocated
+     */
+    private int allocateBlock(Block block) {
+        final int blockId = block.getId();
+        final List<Integer> candidates = new ArrayList<>();
+        final BitSet callPositions = new BitSet();
+        final BitSet statePositions = new BitSet();
+        Arrays.fill(fixedPositions, null);
+        Arrays.fill(fixedDefinitions, -1);
+
+        List<LIRInstruction> instructions = lir.lir(block);
+        for (int i = 0; i < instructions.size(); i++) {
+            final int position = i;
+            LIRInstruction op = instructions.get(i);
+            if (op.destroysCallerSavedRegisters()) {
+                callPositions.set(position);
+            }
+            if (op.hasState()) {
+                statePositions.set(position);
+            }
+            forEachOperand(op, new ValueProcedure() {
+
+                @Override
+                public Value doValue(Value value, OperandMode mode, EnumSet<OperandFlag> flags) {
+                    if (isVariable(value)) {
+                        Variable variable = asVariable(value);
+                        int index = variable.index;
+                        if (variableBlocks[index] != blockId) {
+                            return value;
+                        }
+                        if (variables[index] == null) {
+                            variables[index] = variable;
+                            firstPositions[index] = position;
+                            candidates.add(index);
+                            if (mode == OperandMode.USE || mode == OperandMode.ALIVE) {
+                                // used before it is defined
+                                excluded.set(index);
+                            }
+                        }
+                        if (!flags.contains(OperandFlag.REG)) {
+                            excluded.set(index);
+                        }
+                        lastPositions[index] = position;
+                    } else if (isRegister(value)) {
+                        int number = asRegister(value).number;
+                        if (fixedPositions[number] == null) {
+                            fixedPositions[number] = new BitSet();
+                        }
+                        if (mode == OperandMode.TEMP || mode == OperandMode.DEF) {
+                            fixedDefinitions[number] = position;
+                            fixedPositions[number].set(position);
+                        } else {
+                            // a register used before it is defined in the block is live from the
+                            // start of the block
+                            fixedPositions[number].set(Math.max(fixedDefinitions[number], 0), position + 1);
+                        }
+                    }
+                    return value;
+                }
+            });
+        }
+
+        int[] busyUntil = new int[fixedPositions.length];
+        Arrays.fill(busyUntil, -1);
+        int allocated = 0;
+        for (int index : candidates) {
+            int first = firstPositions[index];
+            int last = lastPositions[index];
+            if (excluded.get(index) || spans(callPositions, first, last) || spans(statePositions, first + 1, last - 1)) {
+                continue;
+            }
+            PlatformKind kind = variables[index].getPlatformKind();
+            if (kind == Kind.Object && spans(statePositions, first, last)) {
+                // the reference maps do not cover fixed registers
+                continue;
+            }
+            for (Register register : registerPool(kind)) {
+                if (busyUntil[register.number] < first && !spans(fixedPositions[register.number], first, last)) {
+                    busyUntil[register.number] = last;
+                    assigned[index] = register;
+                    allocated++;
+                    break;
+                }
+            }
+        }
+        if (allocated == 0) {
+            return 0;
+        }
+
+        ValueProcedure assign = new ValueProcedure() {
+
+            @Override
+            public Value doValue(Value value) {
+                if (isVariable(value)) {
+                    Register register = assigned[asVariable(value).index];
+                    if (register != null) {
+                        return register.asValue(value.getPlatformKind());
+                    }
+                }
+                return value;
+            }
+        };
+        for (LIRInstruction op : instructions) {
+            forEachOperand(op, assign);
+        }
+        return allocated;
+    }
+
+    /**
+     * Determines if any position in the range {@code [from, to]} is in a set of positions.
+     */
+    private static boolean spans(BitSet positions, int from, int to) {
+        if (positions == null || from > to) {
+            return false;
+        }
+        int position = positions.nextSetBit(from);
+        return position != -1 && position <= to;
+    }
+
+    /**
+     * Gets the registers available for local allocation of values of a given kind, which is the
+     * second half of the allocatable registers so that linear scan gets its preferred registers.
+     */
+    private Register[] registerPool(PlatformKind kind) {
+        Register[] pool = registerPools.get(kind);
+        if (pool == null) {
+            Register[] registers = frameMap.registerConfig.getAllocatableRegisters(kind);
+            pool = Arrays.copyOfRange(registers, registers.length / 2, registers.length);
+            registerPools.put(kind, pool);
+        }
+        return pool;
+    }
+}
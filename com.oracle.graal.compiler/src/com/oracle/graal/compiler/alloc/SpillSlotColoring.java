@@ -0,0 +1,234 @@
+/*
+ * Copyright (c) 2013, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.compiler.alloc;
+
+import java.util.*;
+
+import com.oracle.graal.api.code.*;
+import com.oracle.graal.api.meta.*;
+import com.oracle.graal.debug.*;
+
+/**
+ * Shares spill slots between intervals whose lifetimes do not overlap. The
+ * {@linkplain LinearScan linear scan register allocator} gives each split parent its own spill slot.
+ * After allocation, the lifetime of a spill slot is the union of the ranges of all split children
+ * of its interval. This includes the children in registers, because a spill store at the
+ * definition keeps the value in the slot while they are live. Spill slots of the same size whose
+ * lifetimes do not interfere are given the same color, and the spill slots are then allocated in
+ * the frame again with one slot per color. Slots holding references are never shared with slots
+ * holding primitive values.
+ */
+final class SpillSlotColoring {
+
+    private static final DebugMetric metricSpillSlots = Debug.metric("SpillSlots");
+    private static final DebugMetric metricSpillSlotColors = Debug.metric("SpillSlotColors");
+
+    /**
+     * The lifetime of a spill slot as a sorted list of disjoint, inclusive position ranges.
+     */
+    private static final class Lifetime implements Comparable<Lifetime> {
+
+        final StackSlot slot;
+        private int[] ranges = new int[8];
+        private int size;
+
+        Lifetime(StackSlot slot) {
+            this.slot = slot;
+        }
+
+        void addRanges(Range first) {
+            for (Range r = first; r != Range.EndMarker; r = r.next) {
+                if (size == ranges.length) {
+                    ranges = Arrays.copyOf(ranges, size * 2);
+                }
+                ranges[size++] = r.from;
+                ranges[size++] = r.to;
+            }
+        }
+
+        /**
+         * Sorts and merges the ranges added to this lifetime.
+         */
+        void normalize() {
+            int count = size / 2;
+            long[] sorted = new long[count];
+            for (int i = 0; i < count; i++) {
+                sorted[i] = ((long) ranges[2 * i] << 32) | (ranges[2 * i + 1] & 0xFFFFFFFFL);
+            }
+            Arrays.sort(sorted);
+            size = 0;
+            for (long range : sorted) {
+                int from = (int) (range >> 32);
+                int to = (int) range;
+                if (size > 0 && from <= ranges[size - 1]) {
+                    ranges[size - 1] = Math.max(ranges[size - 1], to);
+                } else {
+                    ranges[size++] = from;
+                    ranges[size++] = to;
+                }
+            }
+        }
+
+        int from() {
+            return size == 0 ? Integer.MAX_VALUE : ranges[0];
+        }
+
+        /**
+         * Determines if this lifetime overlaps another one. The ends of the ranges are treated as
+         * inclusive so that a slot is never written at a position where another value in the same
+         * slot is still read.
+         */
+        boolean interferesWith(Lifetime other) {
+            int i = 0;
+            int j = 0;
+            while (i < size && j < other.size) {
+                if (ranges[i + 1] < other.ranges[j]) {
+                    i += 2;
+                } else if (other.ranges[j + 1] < ranges[i]) {
+                    j += 2;
+                } else {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public int compareTo(Lifetime other) {
+            return Integer.compare(from(), other.from());
+        }
+    }
+
+    /**
+     * A set of spill slots that share one slot in the frame.
+     */
+    private static final class Color {
+
+        final int size;
+        final boolean isObject;
+        final List<Lifetime> members = new ArrayList<>();
+
+        Color(int size, boolean isObject) {
+            this.size = size;
+            this.isObject = isObject;
+        }
+
+        boolean accepts(Lifetime lifetime, int slotSize, boolean slotIsObject) {
+            if (size != slotSize || isObject != slotIsObject) {
+                return false;
+            }
+            for (Lifetime member : members) {
+                if (member.interferesWith(lifetime)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private final LinearScan allocator;
+
+    SpillSlotColoring(LinearScan allocator) {
+        this.allocator = allocator;
+    }
+
+    /**
+     * Determines if a spill slot was allocated in the frame during register allocation. Incoming
+     * stack arguments keep their slot in the caller's frame and slots that existed before
+     * allocation may be referenced by other code, so neither of them is shared.
+     */
+    private static boolean isColorable(StackSlot slot, int spillAreaSize) {
+        return slot != null && !slot.isInCallerFrame() && -slot.getRawOffset() > spillAreaSize;
+    }
+
+    /**
+     * Colors the spill slots assigned during register allocation and reallocates them in the frame.
+     * 
+     * @param spillAreaSize the size of the spill area before register allocation
+     */
+    void colorSpillSlots(int spillAreaSize) {
+        Map<StackSlot, Lifetime> lifetimes = new HashMap<>();
+        for (int i = 0; i < allocator.intervalsSize; i++) {
+            Interval interval = allocator.intervals[i];
+            if (interval != null && isColorable(interval.spillSlot(), spillAreaSize)) {
+                StackSlot slot = interval.spillSlot();
+                Lifetime lifetime = lifetimes.get(slot);
+                if (lifetime == null) {
+                    lifetime = new Lifetime(slot);
+                    lifetimes.put(slot, lifetime);
+                }
+                lifetime.addRanges(interval.first());
+            }
+        }
+        metricSpillSlots.add(lifetimes.size());
+        if (lifetimes.size() < 2) {
+            metricSpillSlotColors.add(lifetimes.size());
+            return;
+        }
+
+        List<Lifetime> sorted = new ArrayList<>(lifetimes.values());
+        for (Lifetime lifetime : sorted) {
+            lifetime.normalize();
+        }
+        Collections.sort(sorted);
+
+        Architecture arch = allocator.frameMap.target.arch;
+        List<Color> colors = new ArrayList<>();
+        for (Lifetime lifetime : sorted) {
+            PlatformKind kind = lifetime.slot.getPlatformKind();
+            int size = arch.getSizeInBytes(kind);
+            boolean isObject = kind == Kind.Object;
+            Color color = null;
+            for (Color c : colors) {
+                if (c.accepts(lifetime, size, isObject)) {
+                    color = c;
+                    break;
+                }
+            }
+            if (color == null) {
+                color = new Color(size, isObject);
+                colors.add(color);
+            }
+            color.members.add(lifetime);
+        }
+        metricSpillSlotColors.add(colors.size());
+        if (colors.size() == sorted.size()) {
+            return;
+        }
+
+        allocator.frameMap.releaseSpillSlots(spillAreaSize, lifetimes.keySet());
+        Map<StackSlot, StackSlot> newSlots = new HashMap<>();
+        for (Color color : colors) {
+            StackSlot colorSlot = allocator.frameMap.allocateSpillSlot(color.members.get(0).slot.getPlatformKind());
+            for (Lifetime member : color.members) {
+                newSlots.put(member.slot, StackSlot.get(member.slot.getPlatformKind(), colorSlot.getRawOffset(), colorSlot.getRawAddFrameSize()));
+            }
+        }
+        for (int i = 0; i < allocator.intervalsSize; i++) {
+            Interval interval = allocator.intervals[i];
+            if (interval != null) {
+                interval.replaceStackSlots(newSlots);
+            }
+        }
+    }
+}
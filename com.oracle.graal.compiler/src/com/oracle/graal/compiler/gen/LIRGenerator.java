@@ -782,6 +782,25 @@ public abstract class LIRGenerator implements LIRGeneratorTool {
         }
     }
 
+    /**
+     * Vector operations are only generated for targets that report a
+     * {@linkplain Architecture#getSupportedVectorLength supported vector length} greater than 1.
+     */
+    @Override
+    public Value emitVectorLoad(Kind elementKind, int length, Value address, DeoptimizingNode deopting) {
+        throw GraalInternalError.unimplemented("vector operations");
+    }
+
+    @Override
+    public void emitVectorStore(Kind elementKind, int length, Value address, Value input, DeoptimizingNode deopting) {
+        throw GraalInternalError.unimplemented("vector operations");
+    }
+
+    @Override
+    public Value emitVectorBroadcast(Kind elementKind, int length, Value input) {
+        throw GraalInternalError.unimplemented("vector operations");
+    }
+
     public abstract void emitBitCount(Variable result, Value operand);
 
     public abstract void emitBitScanForward(Variable result, Value operand);
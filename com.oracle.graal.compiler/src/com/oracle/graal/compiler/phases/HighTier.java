@@ -36,6 +36,10 @@ public class HighTier extends PhaseSuite<HighTierContext> {
     public HighTier() {
         CanonicalizerPhase canonicalizer = new CanonicalizerPhase(!AOTCompilation.getValue());
 
+        if (OptConditionalConstantPropagation.getValue()) {
+            appendPhase(new ConditionalConstantPropagationPhase(canonicalizer));
+        }
+
         if (FullUnroll.getValue()) {
             appendPhase(new LoopFullUnrollPhase(!AOTCompilation.getValue()));
         }
@@ -54,6 +58,9 @@ public class HighTier extends PhaseSuite<HighTierContext> {
 
         if (OptLoopTransform.getValue()) {
             appendPhase(new LoopTransformHighPhase());
+            if (LoopVectorization.getValue()) {
+                appendPhase(new LoopVectorizationPhase());
+            }
             appendPhase(new LoopTransformLowPhase());
         }
         appendPhase(new RemoveValueProxyPhase());
@@ -22,6 +22,9 @@
  */
 package com.oracle.graal.compiler.phases;
 
+import static com.oracle.graal.phases.GraalOptions.*;
+
+import com.oracle.graal.loop.phases.*;
 import com.oracle.graal.nodes.spi.Lowerable.LoweringType;
 import com.oracle.graal.phases.*;
 import com.oracle.graal.phases.common.*;
@@ -37,5 +40,9 @@ public class LowTier extends PhaseSuite<LowTierContext> {
         appendPhase(new DeadCodeEliminationPhase());
 
         appendPhase(new RemoveValueProxyPhase());
+
+        if (OptLoopTransform.getValue() && LoopStrengthReduction.getValue()) {
+            appendPhase(new LoopStrengthReductionPhase());
+        }
     }
 }
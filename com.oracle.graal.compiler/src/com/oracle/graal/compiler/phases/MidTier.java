@@ -50,6 +50,10 @@ public class MidTier extends PhaseSuite<MidTierContext> {
             appendPhase(new EarlyReadEliminationPhase(canonicalizer));
         }
 
+        if (OptGlobalValueNumbering.getValue()) {
+            appendPhase(new GlobalValueNumberingPhase());
+        }
+
         if (OptFloatingReads.getValue()) {
             IncrementalCanonicalizerPhase<MidTierContext> incCanonicalizer = new IncrementalCanonicalizerPhase<>();
             incCanonicalizer.appendPhase(new FloatingReadPhase());
@@ -80,6 +84,15 @@ public class MidTier extends PhaseSuite<MidTierContext> {
             appendPhase(canonicalizer);
         }
 
+        if (LoopRangeCheckElimination.getValue()) {
+            appendPhase(new LoopRangeCheckEliminationPhase());
+        }
+
+        if (OptIntegerRangePropagation.getValue() && OptCanonicalizer.getValue()) {
+            appendPhase(new IntegerRangePropagationPhase());
+            appendPhase(canonicalizer);
+        }
+
         appendPhase(new LoopSafepointEliminationPhase());
 
         appendPhase(new SafepointInsertionPhase());
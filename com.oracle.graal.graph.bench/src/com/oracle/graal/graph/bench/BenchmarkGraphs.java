@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2011, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.graph.bench;
+
+import java.lang.reflect.*;
+
+import com.oracle.graal.api.meta.*;
+import com.oracle.graal.api.runtime.*;
+import com.oracle.graal.java.*;
+import com.oracle.graal.jtt.hotpath.*;
+import com.oracle.graal.jtt.micro.*;
+import com.oracle.graal.nodes.*;
+import com.oracle.graal.nodes.calc.*;
+import com.oracle.graal.nodes.spi.*;
+import com.oracle.graal.nodes.type.*;
+import com.oracle.graal.phases.*;
+
+/**
+ * Creates the graphs the benchmarks operate on. A graph is denoted by a name which is either
+ * {@code synthetic-<size>} for a straight line graph of {@code size} additions over a few
+ * parameters, or {@code jtt-<name>} for a graph parsed from a JTT test method. Parsing requires a
+ * Graal runtime, so the {@code jtt} graphs are only available when running on a Graal enabled VM.
+ */
+public final class BenchmarkGraphs {
+
+    private static final String SYNTHETIC_PREFIX = "synthetic-";
+    private static final String JTT_PREFIX = "jtt-";
+
+    /**
+     * The number of {@link LocalNode}s of a synthetic graph, each of which has
+     * {@code size / SYNTHETIC_PARAMETERS} usages.
+     */
+    private static final int SYNTHETIC_PARAMETERS = 8;
+
+    private BenchmarkGraphs() {
+    }
+
+    public static StructuredGraph create(String name) {
+        if (name.startsWith(SYNTHETIC_PREFIX)) {
+            return synthetic(Integer.parseInt(name.substring(SYNTHETIC_PREFIX.length())));
+        } else if (name.startsWith(JTT_PREFIX)) {
+            String method = name.substring(JTT_PREFIX.length());
+            switch (method) {
+                case "life":
+                    return parse(HP_life.class, "test");
+                case "nest":
+                    return parse(HP_nest02.class, "test");
+                case "matrix":
+                    return parse(Matrix01.class, "test");
+                default:
+                    throw new IllegalArgumentException("unknown JTT graph: " + method);
+            }
+        }
+        throw new IllegalArgumentException("unknown graph: " + name);
+    }
+
+    public static StructuredGraph synthetic(int size) {
+        StructuredGraph graph = new StructuredGraph();
+        LocalNode[] locals = new LocalNode[SYNTHETIC_PARAMETERS];
+        for (int i = 0; i < locals.length; i++) {
+            locals[i] = graph.unique(new LocalNode(i, StampFactory.forKind(Kind.Int)));
+        }
+        ValueNode value = locals[0];
+        for (int i = 0; i < size; i++) {
+            ValueNode operand = (i & 1) == 0 ? locals[i % locals.length] : ConstantNode.forInt(i, graph);
+            value = graph.unique(new IntegerAddNode(Kind.Int, value, operand));
+        }
+        ReturnNode returnNode = graph.add(new ReturnNode(value));
+        graph.start().setNext(returnNode);
+        return graph;
+    }
+
+    public static StructuredGraph parse(Class<?> holder, String methodName) {
+        MetaAccessProvider runtime = Graal.getRequiredCapability(GraalCodeCacheProvider.class);
+        Method method = null;
+        for (Method m : holder.getDeclaredMethods()) {
+            if (m.getName().equals(methodName)) {
+                method = m;
+                break;
+            }
+        }
+        if (method == null) {
+            throw new IllegalArgumentException(holder.getName() + "." + methodName + " not found");
+        }
+        StructuredGraph graph = new StructuredGraph(runtime.lookupJavaMethod(method));
+        new GraphBuilderPhase(runtime, GraphBuilderConfiguration.getEagerDefault(), OptimisticOptimizations.ALL).apply(graph);
+        return graph;
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright (c) 2011, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.graph.bench;
+
+import java.util.concurrent.*;
+
+import org.openjdk.jmh.annotations.*;
+
+import com.oracle.graal.graph.*;
+import com.oracle.graal.nodes.*;
+import com.oracle.graal.nodes.type.*;
+
+/**
+ * Benchmarks of operations on an existing graph: edge updates, iteration, the node id based side
+ * tables and graph copying. Each benchmark is run for all graphs listed in {@link #graphName}, see
+ * {@link BenchmarkGraphs} for the graph names.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class GraphBenchmark {
+
+    /**
+     * The jtt graphs need a Graal runtime to be parsed, so they are not run by default. They can be
+     * selected with {@code -p graphName=jtt-life,jtt-nest,jtt-matrix} on a Graal enabled VM.
+     */
+    @Param({"synthetic-1000", "synthetic-10000"}) public String graphName;
+
+    private StructuredGraph graph;
+    private Node[] nodes;
+
+    /**
+     * The {@link LocalNode} with the most usages and a local of the same kind without usages used
+     * to move the usages back and forth.
+     */
+    private LocalNode hotLocal;
+    private LocalNode spareLocal;
+
+    @Setup
+    public void setup() {
+        graph = BenchmarkGraphs.create(graphName);
+        int maxUsages = -1;
+        for (LocalNode local : graph.getNodes(LocalNode.class)) {
+            int usages = local.usages().count();
+            if (usages > maxUsages) {
+                hotLocal = local;
+                maxUsages = usages;
+            }
+        }
+        spareLocal = graph.unique(new LocalNode(graph.getNodes(LocalNode.class).count(), StampFactory.forKind(hotLocal.kind())));
+        nodes = graph.getNodes().snapshot().toArray(new Node[0]);
+    }
+
+    @Benchmark
+    public LocalNode replaceAtUsages() {
+        hotLocal.replaceAtUsages(spareLocal);
+        spareLocal.replaceAtUsages(hotLocal);
+        return hotLocal;
+    }
+
+    @Benchmark
+    public int iterateNodes() {
+        int count = 0;
+        for (Node node : graph.getNodes()) {
+            count += node.getNodeClass().iterableId();
+        }
+        return count;
+    }
+
+    @Benchmark
+    public int iterateTypedNodes() {
+        int count = 0;
+        for (LocalNode local : graph.getNodes(LocalNode.class)) {
+            count += local.index();
+        }
+        for (PhiNode phi : graph.getNodes(PhiNode.class)) {
+            count += phi.valueCount();
+        }
+        for (ReturnNode returnNode : graph.getNodes(ReturnNode.class)) {
+            count += returnNode.result() == null ? 0 : 1;
+        }
+        return count;
+    }
+
+    /**
+     * Marks a small fraction of the nodes, the typical usage pattern of the bitmaps created per
+     * loop or block.
+     */
+    @Benchmark
+    public int nodeBitMapSparse() {
+        NodeBitMap bitMap = graph.createNodeBitMap();
+        for (int i = 0; i < nodes.length; i += 64) {
+            bitMap.mark(nodes[i]);
+        }
+        int count = 0;
+        for (Node node : bitMap) {
+            count += node.getNodeClass().iterableId();
+        }
+        return count;
+    }
+
+    @Benchmark
+    public int nodeBitMapDense() {
+        NodeBitMap bitMap = graph.createNodeBitMap();
+        for (Node node : nodes) {
+            bitMap.mark(node);
+        }
+        NodeBitMap copy = bitMap.copy();
+        copy.intersect(bitMap);
+        return copy.cardinality();
+    }
+
+    /**
+     * Propagates through the usages of all nodes like the canonicalizer does.
+     */
+    @Benchmark
+    public int nodeWorkList() {
+        NodeWorkList workList = graph.createNodeWorkList(true, 0);
+        int count = 0;
+        for (Node node : workList) {
+            for (Node usage : node.usages()) {
+                workList.add(usage);
+            }
+            count++;
+        }
+        return count;
+    }
+
+    @Benchmark
+    public StructuredGraph copy() {
+        return graph.copy();
+    }
+
+    @Benchmark
+    public NodeMap<Node> createNodeMap() {
+        NodeMap<Node> map = graph.createNodeMap();
+        for (Node node : nodes) {
+            map.set(node, node);
+        }
+        return map;
+    }
+
+    /**
+     * Makes sure that a benchmark method did not leave the graph in an inconsistent state.
+     */
+    @TearDown
+    public void verify() {
+        assert graph.verify();
+        assert graph.getNodeCount() == nodes.length : "benchmark changed the number of nodes";
+    }
+}
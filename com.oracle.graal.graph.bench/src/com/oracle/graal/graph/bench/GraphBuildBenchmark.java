@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2011, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.graph.bench;
+
+import java.util.concurrent.*;
+
+import org.openjdk.jmh.annotations.*;
+
+import com.oracle.graal.api.meta.*;
+import com.oracle.graal.nodes.*;
+import com.oracle.graal.nodes.calc.*;
+import com.oracle.graal.nodes.type.*;
+
+/**
+ * Benchmarks of adding nodes to a graph.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class GraphBuildBenchmark {
+
+    @Param({"1000", "10000"}) public int size;
+
+    private StructuredGraph graph;
+    private LocalNode local;
+
+    @Setup
+    public void setup() {
+        graph = BenchmarkGraphs.synthetic(size);
+        local = graph.getNodes(LocalNode.class).first();
+    }
+
+    /**
+     * Adds nodes without value numbering.
+     */
+    @Benchmark
+    public StructuredGraph add() {
+        StructuredGraph newGraph = new StructuredGraph();
+        ValueNode value = newGraph.unique(new LocalNode(0, StampFactory.forKind(Kind.Int)));
+        for (int i = 0; i < size; i++) {
+            value = newGraph.add(new IntegerAddNode(Kind.Int, value, value));
+        }
+        return newGraph;
+    }
+
+    /**
+     * Adds nodes that are all different from each other, so every {@code unique} call misses.
+     */
+    @Benchmark
+    public StructuredGraph uniqueMiss() {
+        return BenchmarkGraphs.synthetic(size);
+    }
+
+    /**
+     * Looks up a node that already exists in the graph. Since the node has an input, the lookup
+     * scans the usages of that input.
+     */
+    @Benchmark
+    public ValueNode uniqueHit() {
+        ValueNode value = null;
+        for (int i = 0; i < size; i++) {
+            value = graph.unique(new IntegerAddNode(Kind.Int, local, ConstantNode.forInt(1, graph)));
+        }
+        return value;
+    }
+}
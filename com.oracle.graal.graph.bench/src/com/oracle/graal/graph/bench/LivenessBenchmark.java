@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2013, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.graph.bench;
+
+import static com.oracle.graal.api.code.CodeUtil.*;
+import static com.oracle.graal.phases.GraalOptions.*;
+
+import java.util.concurrent.*;
+
+import org.openjdk.jmh.annotations.*;
+
+import com.oracle.graal.api.code.*;
+import com.oracle.graal.api.code.CallingConvention.Type;
+import com.oracle.graal.api.runtime.*;
+import com.oracle.graal.compiler.*;
+import com.oracle.graal.compiler.alloc.*;
+import com.oracle.graal.compiler.gen.*;
+import com.oracle.graal.compiler.target.*;
+import com.oracle.graal.lir.*;
+import com.oracle.graal.nodes.*;
+import com.oracle.graal.nodes.spi.*;
+import com.oracle.graal.phases.*;
+import com.oracle.graal.phases.tiers.*;
+
+/**
+ * Benchmarks the global liveness analysis of the {@linkplain LinearScan linear scan register
+ * allocator} on the LIR of the JTT methods listed in {@link #graphName}. Compiling the methods
+ * requires a Graal runtime, so this only works on a Graal enabled VM.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class LivenessBenchmark {
+
+    @Param({"jtt-life", "jtt-nest", "jtt-matrix"}) public String graphName;
+
+    private LinearScan allocator;
+
+    @Setup
+    public void setup() {
+        StructuredGraph graph = BenchmarkGraphs.create(graphName);
+        GraalCodeCacheProvider runtime = Graal.getRequiredCapability(GraalCodeCacheProvider.class);
+        Replacements replacements = Graal.getRequiredCapability(Replacements.class);
+        Backend backend = Graal.getRequiredCapability(Backend.class);
+        Suites suites = Graal.getRequiredCapability(SuitesProvider.class).createSuites();
+        Assumptions assumptions = new Assumptions(OptAssumptions.getValue());
+
+        LIR lir = GraalCompiler.emitHIR(runtime, backend.target, graph, replacements, assumptions, null, new PhasePlan(), OptimisticOptimizations.ALL, new SpeculationLog(), suites);
+        CallingConvention cc = getCallingConvention(runtime, Type.JavaCallee, graph.method(), false);
+        LIRGenerator lirGen = GraalCompiler.emitLIRInstructions(backend, lir, graph, cc);
+
+        allocator = new LinearScan(backend.target, lir, lirGen, lirGen.frameMap);
+        allocator.computeLocalLiveness();
+    }
+
+    @Benchmark
+    public LinearScan computeGlobalLiveSets() {
+        allocator.computeGlobalLiveness();
+        return allocator;
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2013, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.graph.bench;
+
+import java.util.concurrent.*;
+
+import org.openjdk.jmh.annotations.*;
+
+import com.oracle.graal.graph.*;
+import com.oracle.graal.nodes.*;
+
+/**
+ * Benchmarks the {@link NodeClass} operations that are implemented by the generated
+ * {@link NodeAccessor}s, i.e., the operations global value numbering performs on every node. The
+ * {@link Reflective} subclass runs the same benchmarks with the generated accessors disabled, so
+ * that the two can be compared directly.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class NodeAccessorBenchmark {
+
+    @Fork(value = 1, jvmArgsAppend = "-Dgraal.disableGeneratedNodeAccessors=true")
+    public static class Reflective extends NodeAccessorBenchmark {
+    }
+
+    @Param({"synthetic-1000", "synthetic-10000"}) public String graphName;
+
+    private Node[] nodes;
+
+    @Setup
+    public void setup() {
+        StructuredGraph graph = BenchmarkGraphs.create(graphName);
+        nodes = graph.getNodes().snapshot().toArray(new Node[0]);
+    }
+
+    @Benchmark
+    public int valueNumber() {
+        int result = 0;
+        for (Node node : nodes) {
+            result += node.getNodeClass().valueNumber(node);
+        }
+        return result;
+    }
+
+    /**
+     * Compares each node with its predecessor in the graph, which is mostly a node of the same
+     * class in the synthetic graphs.
+     */
+    @Benchmark
+    public int valueEqual() {
+        int result = 0;
+        for (int i = 1; i < nodes.length; i++) {
+            NodeClass nodeClass = nodes[i].getNodeClass();
+            if (nodeClass == nodes[i - 1].getNodeClass() && nodeClass.valueEqual(nodes[i], nodes[i - 1])) {
+                result++;
+            }
+        }
+        return result;
+    }
+
+    @Benchmark
+    public int edgesEqual() {
+        int result = 0;
+        for (int i = 1; i < nodes.length; i++) {
+            NodeClass nodeClass = nodes[i].getNodeClass();
+            if (nodeClass == nodes[i - 1].getNodeClass() && nodeClass.edgesEqual(nodes[i], nodes[i - 1])) {
+                result++;
+            }
+        }
+        return result;
+    }
+
+    @Benchmark
+    public int inputContains() {
+        int result = 0;
+        for (int i = 1; i < nodes.length; i++) {
+            if (nodes[i].getNodeClass().inputContains(nodes[i], nodes[i - 1])) {
+                result++;
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2013, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.graph.bench;
+
+import static com.oracle.graal.api.code.CodeUtil.*;
+
+import java.util.concurrent.*;
+
+import org.openjdk.jmh.annotations.*;
+
+import com.oracle.graal.api.code.*;
+import com.oracle.graal.api.code.CallingConvention.Type;
+import com.oracle.graal.api.runtime.*;
+import com.oracle.graal.compiler.*;
+import com.oracle.graal.compiler.target.*;
+import com.oracle.graal.nodes.*;
+import com.oracle.graal.nodes.spi.*;
+import com.oracle.graal.phases.*;
+import com.oracle.graal.phases.tiers.*;
+
+/**
+ * Compares the {@linkplain GraalOptions#LocalRegisterAllocation local register allocator} with
+ * plain linear scan on the JTT methods listed in {@link #graphName}: {@link #compile()} measures
+ * the compile time and {@link #execute()} the run time of the code compiled with each allocator.
+ * Compiling the methods requires a Graal runtime, so this only works on a Graal enabled VM.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class RegisterAllocationBenchmark {
+
+    @Param({"jtt-life", "jtt-nest", "jtt-matrix"}) public String graphName;
+
+    @Param({"false", "true"}) public boolean localRegisterAllocation;
+
+    private GraalCodeCacheProvider runtime;
+    private Replacements replacements;
+    private Backend backend;
+    private Suites suites;
+    private StructuredGraph graph;
+    private InstalledCode installedCode;
+    private Object[] arguments;
+    private boolean originalSetting;
+
+    @Setup
+    public void setup() {
+        runtime = Graal.getRequiredCapability(GraalCodeCacheProvider.class);
+        replacements = Graal.getRequiredCapability(Replacements.class);
+        backend = Graal.getRequiredCapability(Backend.class);
+        suites = Graal.getRequiredCapability(SuitesProvider.class).createSuites();
+        graph = BenchmarkGraphs.create(graphName);
+        switch (graphName) {
+            case "jtt-life":
+                arguments = new Object[]{5};
+                break;
+            case "jtt-nest":
+                arguments = new Object[]{15};
+                break;
+            default:
+                arguments = new Object[]{2};
+        }
+
+        originalSetting = GraalOptions.LocalRegisterAllocation.getValue();
+        GraalOptions.LocalRegisterAllocation.setValue(localRegisterAllocation);
+        installedCode = runtime.addMethod(graph.method(), compile());
+    }
+
+    @TearDown
+    public void tearDown() {
+        GraalOptions.LocalRegisterAllocation.setValue(originalSetting);
+    }
+
+    /**
+     * Compiles a copy of the parsed graph, so the time for copying the graph is included.
+     */
+    @Benchmark
+    public CompilationResult compile() {
+        StructuredGraph copy = graph.copy();
+        CallingConvention cc = getCallingConvention(runtime, Type.JavaCallee, copy.method(), false);
+        return GraalCompiler.compileGraph(copy, cc, copy.method(), runtime, replacements, backend, runtime.getTarget(), null, new PhasePlan(), OptimisticOptimizations.ALL, new SpeculationLog(),
+                        suites, new CompilationResult());
+    }
+
+    @Benchmark
+    public Object execute() throws InvalidInstalledCodeException {
+        return installedCode.executeVarargs(arguments);
+    }
+}
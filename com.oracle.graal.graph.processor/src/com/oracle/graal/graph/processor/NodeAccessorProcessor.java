@@ -0,0 +1,394 @@
+/*
+ * Copyright (c) 2013, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.graph.processor;
+
+import java.io.*;
+import java.util.*;
+
+import javax.annotation.processing.*;
+import javax.lang.model.*;
+import javax.lang.model.element.*;
+import javax.lang.model.type.*;
+import javax.lang.model.util.*;
+import javax.tools.*;
+
+import com.oracle.graal.graph.*;
+
+/**
+ * Generates a {@link NodeAccessor} for each concrete node class annotated with {@link NodeInfo}.
+ * The generated accessor is named after the node class (with nested class names joined by
+ * {@code '_'}) followed by {@link NodeAccessor#SUFFIX} and is placed in the package of the node
+ * class.
+ */
+@SupportedSourceVersion(SourceVersion.RELEASE_7)
+@SupportedAnnotationTypes({"com.oracle.graal.graph.NodeInfo"})
+public class NodeAccessorProcessor extends AbstractProcessor {
+
+    private static final String NODE_CLASS_NAME = "com.oracle.graal.graph.Node";
+    private static final String NODE_LIST_CLASS_NAME = "com.oracle.graal.graph.NodeList";
+    private static final String INPUT_ANNOTATION_NAME = "com.oracle.graal.graph.Node.Input";
+    private static final String SUCCESSOR_ANNOTATION_NAME = "com.oracle.graal.graph.Node.Successor";
+
+    private final Set<Element> processed = new HashSet<>();
+
+    static class FieldInfo {
+
+        final String name;
+        final int depth;
+        final TypeKind kind;
+        final boolean list;
+
+        public FieldInfo(String name, int depth, TypeKind kind, boolean list) {
+            this.name = name;
+            this.depth = depth;
+            this.kind = kind;
+            this.list = list;
+        }
+    }
+
+    static class NodeClassInfo {
+
+        final TypeElement type;
+        final List<FieldInfo> inputs = new ArrayList<>();
+        final List<FieldInfo> successors = new ArrayList<>();
+        final List<FieldInfo> data = new ArrayList<>();
+
+        public NodeClassInfo(TypeElement type) {
+            this.type = type;
+        }
+    }
+
+    private static boolean hasAnnotation(Element element, String annotationName) {
+        for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            if (((TypeElement) mirror.getAnnotationType().asElement()).getQualifiedName().contentEquals(annotationName)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isAccessible(TypeElement type) {
+        Element current = type;
+        while (current.getKind() != ElementKind.PACKAGE) {
+            if (current.getModifiers().contains(Modifier.PRIVATE)) {
+                return false;
+            }
+            current = current.getEnclosingElement();
+        }
+        return true;
+    }
+
+    private static Element topDeclaringType(Element element) {
+        Element enclosing = element.getEnclosingElement();
+        if (enclosing.getKind() == ElementKind.PACKAGE) {
+            return element;
+        }
+        return topDeclaringType(enclosing);
+    }
+
+    private NodeClassInfo scan(TypeElement type) {
+        Elements elements = processingEnv.getElementUtils();
+        Types types = processingEnv.getTypeUtils();
+        TypeElement nodeElement = elements.getTypeElement(NODE_CLASS_NAME);
+        TypeMirror nodeListType = types.erasure(elements.getTypeElement(NODE_LIST_CLASS_NAME).asType());
+        if (type.getKind() != ElementKind.CLASS || type.getModifiers().contains(Modifier.ABSTRACT) || !isAccessible(type) || !types.isSubtype(type.asType(), nodeElement.asType())) {
+            return null;
+        }
+
+        NodeClassInfo info = new NodeClassInfo(type);
+        TypeElement current = type;
+        int depth = 0;
+        while (!current.equals(nodeElement)) {
+            for (VariableElement field : ElementFilter.fieldsIn(current.getEnclosedElements())) {
+                if (field.getModifiers().contains(Modifier.STATIC)) {
+                    continue;
+                }
+                String name = field.getSimpleName().toString();
+                TypeMirror fieldType = field.asType();
+                boolean list = types.isSubtype(types.erasure(fieldType), nodeListType);
+                if (hasAnnotation(field, INPUT_ANNOTATION_NAME)) {
+                    info.inputs.add(new FieldInfo(name, depth, fieldType.getKind(), list));
+                } else if (hasAnnotation(field, SUCCESSOR_ANNOTATION_NAME)) {
+                    info.successors.add(new FieldInfo(name, depth, fieldType.getKind(), list));
+                } else {
+                    info.data.add(new FieldInfo(name, depth, fieldType.getKind(), false));
+                }
+            }
+            current = (TypeElement) types.asElement(current.getSuperclass());
+            depth++;
+        }
+        return info;
+    }
+
+    private static String unsafeGet(TypeKind kind, String node, String offset) {
+        switch (kind) {
+            case BOOLEAN:
+                return "unsafe.getBoolean(" + node + ", " + offset + ")";
+            case BYTE:
+                return "unsafe.getByte(" + node + ", " + offset + ")";
+            case SHORT:
+                return "unsafe.getShort(" + node + ", " + offset + ")";
+            case CHAR:
+                return "unsafe.getChar(" + node + ", " + offset + ")";
+            case INT:
+                return "unsafe.getInt(" + node + ", " + offset + ")";
+            case LONG:
+                return "unsafe.getLong(" + node + ", " + offset + ")";
+            case FLOAT:
+                return "unsafe.getFloat(" + node + ", " + offset + ")";
+            case DOUBLE:
+                return "unsafe.getDouble(" + node + ", " + offset + ")";
+            default:
+                return "unsafe.getObject(" + node + ", " + offset + ")";
+        }
+    }
+
+    /**
+     * Gets the expression hashing a data field value the same way as
+     * {@code NodeClass.valueNumber}, or null if the field does not contribute to the hash.
+     */
+    private static String hash(TypeKind kind, String value) {
+        switch (kind) {
+            case BOOLEAN:
+                return "(" + value + " ? 7 : 0)";
+            case INT:
+                return value;
+            case LONG:
+                return "longHash(" + value + ")";
+            case BYTE:
+            case SHORT:
+            case CHAR:
+            case FLOAT:
+            case DOUBLE:
+                return null;
+            default:
+                return "objectHash(" + value + ")";
+        }
+    }
+
+    private static String equal(TypeKind kind, String a, String b) {
+        if (kind.isPrimitive()) {
+            return a + " == " + b;
+        }
+        return "objectEquals(" + a + ", " + b + ")";
+    }
+
+    private static void printConjunction(PrintWriter out, List<String> terms) {
+        if (terms.isEmpty()) {
+            out.println("        return true;");
+            return;
+        }
+        for (int i = 0; i < terms.size(); i++) {
+            out.print(i == 0 ? "        return " : "                        && ");
+            out.print(terms.get(i));
+            out.println(i == terms.size() - 1 ? ";" : "");
+        }
+    }
+
+    private static void printDisjunction(PrintWriter out, List<String> terms) {
+        if (terms.isEmpty()) {
+            out.println("        return false;");
+            return;
+        }
+        for (int i = 0; i < terms.size(); i++) {
+            out.print(i == 0 ? "        return " : "                        || ");
+            out.print(terms.get(i));
+            out.println(i == terms.size() - 1 ? ";" : "");
+        }
+    }
+
+    private static void printEdgeMethods(PrintWriter out, String kind, String prefix, List<FieldInfo> fields) {
+        List<String> equal = new ArrayList<>();
+        List<String> contains = new ArrayList<>();
+        for (int i = 0; i < fields.size(); i++) {
+            FieldInfo field = fields.get(i);
+            String offset = prefix + i;
+            if (field.list) {
+                equal.add("listEquals(unsafe.getObject(node, " + offset + "), unsafe.getObject(other, " + offset + "))");
+                contains.add("listContains(unsafe.getObject(node, " + offset + "), other)");
+            } else {
+                equal.add("unsafe.getObject(node, " + offset + ") == unsafe.getObject(other, " + offset + ")");
+                contains.add("unsafe.getObject(node, " + offset + ") == other");
+            }
+        }
+        out.println("    @Override");
+        out.println("    public boolean " + kind + "Equal(" + NODE_CLASS_NAME + " node, " + NODE_CLASS_NAME + " other) {");
+        printConjunction(out, equal);
+        out.println("    }");
+        out.println("");
+        out.println("    @Override");
+        out.println("    public boolean " + kind.substring(0, kind.length() - 1) + "Contains(" + NODE_CLASS_NAME + " node, " + NODE_CLASS_NAME + " other) {");
+        printDisjunction(out, contains);
+        out.println("    }");
+    }
+
+    private void createFile(NodeClassInfo info) {
+        TypeElement type = info.type;
+        String pkg = processingEnv.getElementUtils().getPackageOf(type).getQualifiedName().toString();
+        String qualifiedName = type.getQualifiedName().toString();
+        String relativeName = pkg.isEmpty() ? qualifiedName : qualifiedName.substring(pkg.length() + 1);
+        String accessorClassName = relativeName.replace('.', '_') + NodeAccessor.SUFFIX;
+
+        try (PrintWriter out = createSourceFile(pkg, accessorClassName, processingEnv.getFiler(), type)) {
+            out.println("// CheckStyle: stop header check");
+            out.println("// GENERATED CONTENT - DO NOT EDIT");
+            out.println("// Source: " + topDeclaringType(type).getSimpleName() + ".java");
+            if (!pkg.isEmpty()) {
+                out.println("package " + pkg + ";");
+            }
+            out.println("");
+            out.println("public final class " + accessorClassName + " extends " + NodeAccessor.class.getName() + " {");
+            out.println("");
+            printOffsets(out, qualifiedName, "input", info.inputs);
+            printOffsets(out, qualifiedName, "successor", info.successors);
+            printOffsets(out, qualifiedName, "data", info.data);
+            printHashMultipliers(out, info.data);
+            out.println("");
+
+            out.println("    public " + accessorClassName + "() {");
+            out.println("        super(" + offsetArray("input", info.inputs, false) + ", " + offsetArray("input", info.inputs, true) + ", " + offsetArray("successor", info.successors, false) + ", " +
+                            offsetArray("successor", info.successors, true) + ", " + offsetArray("data", info.data, false) + ", " + typeArray(info.data) + ");");
+            out.println("    }");
+            out.println("");
+
+            out.println("    @Override");
+            out.println("    public int valueNumber(int start, " + NODE_CLASS_NAME + " node) {");
+            out.print("        return start * startMultiplier");
+            for (int i = 0; i < info.data.size(); i++) {
+                FieldInfo field = info.data.get(i);
+                String hash = hash(field.kind, unsafeGet(field.kind, "node", "data" + i));
+                if (hash != null) {
+                    out.println();
+                    out.print("                        + " + hash + " * dataMultiplier" + i);
+                }
+            }
+            out.println(";");
+            out.println("    }");
+            out.println("");
+
+            List<String> valueEqual = new ArrayList<>();
+            for (int i = 0; i < info.data.size(); i++) {
+                FieldInfo field = info.data.get(i);
+                valueEqual.add(equal(field.kind, unsafeGet(field.kind, "a", "data" + i), unsafeGet(field.kind, "b", "data" + i)));
+            }
+            out.println("    @Override");
+            out.println("    public boolean valueEqual(" + NODE_CLASS_NAME + " a, " + NODE_CLASS_NAME + " b) {");
+            printConjunction(out, valueEqual);
+            out.println("    }");
+            out.println("");
+
+            printEdgeMethods(out, "inputs", "input", info.inputs);
+            out.println("");
+            printEdgeMethods(out, "successors", "successor", info.successors);
+            out.println("}");
+        }
+    }
+
+    private static void printOffsets(PrintWriter out, String nodeClassName, String prefix, List<FieldInfo> fields) {
+        for (int i = 0; i < fields.size(); i++) {
+            FieldInfo field = fields.get(i);
+            out.println("    private static final long " + prefix + i + " = fieldOffset(" + nodeClassName + ".class, " + field.depth + ", \"" + field.name + "\");");
+        }
+    }
+
+    /**
+     * Gets an array expression of the offsets of either the direct edges or the edge lists among
+     * {@code fields}, which is passed to the {@link NodeAccessor} constructor.
+     */
+    private static String offsetArray(String prefix, List<FieldInfo> fields, boolean lists) {
+        StringBuilder result = new StringBuilder("new long[]{");
+        String separator = "";
+        for (int i = 0; i < fields.size(); i++) {
+            if (fields.get(i).list == lists) {
+                result.append(separator).append(prefix).append(i);
+                separator = ", ";
+            }
+        }
+        return result.append("}").toString();
+    }
+
+    private static String typeArray(List<FieldInfo> fields) {
+        StringBuilder result = new StringBuilder("new Class<?>[]{");
+        for (int i = 0; i < fields.size(); i++) {
+            TypeKind kind = fields.get(i).kind;
+            result.append(i == 0 ? "" : ", ").append(kind.isPrimitive() ? kind.name().toLowerCase() : "Object").append(".class");
+        }
+        return result.append("}").toString();
+    }
+
+    /**
+     * Prints the multipliers with which the hash of each data field contributes to the value
+     * number. {@code NodeClass} hashes the data fields in the order of their offsets, which are
+     * only known at run time, so the multipliers are computed when the accessor is initialized.
+     */
+    private static void printHashMultipliers(PrintWriter out, List<FieldInfo> fields) {
+        StringBuilder offsets = new StringBuilder();
+        for (int i = 0; i < fields.size(); i++) {
+            offsets.append(", data").append(i);
+        }
+        out.println("    private static final int startMultiplier = hashMultiplier(Long.MIN_VALUE" + offsets + ");");
+        for (int i = 0; i < fields.size(); i++) {
+            if (hash(fields.get(i).kind, "") != null) {
+                out.println("    private static final int dataMultiplier" + i + " = hashMultiplier(data" + i + offsets + ");");
+            }
+        }
+    }
+
+    protected PrintWriter createSourceFile(String pkg, String relativeName, Filer filer, Element... originatingElements) {
+        try {
+            // Ensure Unix line endings to comply with Graal code style guide checked by Checkstyle
+            JavaFileObject sourceFile = filer.createSourceFile(pkg.isEmpty() ? relativeName : pkg + "." + relativeName, originatingElements);
+            return new PrintWriter(sourceFile.openWriter()) {
+
+                @Override
+                public void println() {
+                    print("\n");
+                }
+            };
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if (roundEnv.processingOver()) {
+            return false;
+        }
+
+        TypeElement nodeInfo = processingEnv.getElementUtils().getTypeElement(NodeInfo.class.getName());
+        if (nodeInfo == null) {
+            return false;
+        }
+        for (Element element : roundEnv.getElementsAnnotatedWith(nodeInfo)) {
+            if (!processed.contains(element) && element instanceof TypeElement) {
+                processed.add(element);
+                NodeClassInfo info = scan((TypeElement) element);
+                if (info != null) {
+                    createFile(info);
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright (c) 2013, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.graph.test;
+
+import static org.junit.Assert.*;
+
+import org.junit.*;
+
+import com.oracle.graal.graph.*;
+
+public class GraphCheckpointTest {
+
+    private static class TestNode extends Node implements Node.IterableNodeType, TestNodeInterface {
+
+        private final String name;
+        @Input private TestNode input;
+        @Input private final NodeInputList<TestNode> values = new NodeInputList<>(this);
+        @Successor private TestNode next;
+
+        public TestNode(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        void setInput(TestNode x) {
+            updateUsages(input, x);
+            input = x;
+        }
+
+        void setNext(TestNode x) {
+            updatePredecessor(next, x);
+            next = x;
+        }
+    }
+
+    @Test
+    public void rollbackTest() {
+        Graph graph = new Graph();
+        TestNode a = graph.add(new TestNode("a"));
+        TestNode b = graph.add(new TestNode("b"));
+        TestNode c = graph.add(new TestNode("c"));
+        b.setInput(a);
+        c.values.add(a);
+        c.values.add(b);
+        a.setNext(b);
+
+        try (Graph.Checkpoint checkpoint = graph.checkpoint()) {
+            TestNode d = graph.add(new TestNode("d"));
+            d.setInput(c);
+            b.replaceAtUsages(d);
+            c.replaceFirstInput(a, d);
+            a.setNext(null);
+            b.setInput(null);
+            b.safeDelete();
+            assertEquals(3, graph.getNodeCount());
+            assertEquals("acd", TypedNodeIteratorTest.toString(graph.getNodes(TestNode.class)));
+        }
+
+        assertEquals(3, graph.getNodeCount());
+        assertEquals(0, graph.getDeletedNodeCount());
+        assertTrue(b.isAlive());
+        assertEquals("abc", TypedNodeIteratorTest.toString(graph.getNodes(TestNode.class)));
+        assertEquals(a, b.input);
+        assertEquals(b, a.next);
+        assertEquals(a, b.predecessor());
+        assertEquals(2, c.values.size());
+        assertEquals(a, c.values.get(0));
+        assertEquals(b, c.values.get(1));
+        assertEquals(2, a.usages().count());
+        assertEquals(1, b.usages().count());
+        assertTrue(graph.verify());
+
+        graph.add(new TestNode("e"));
+        assertEquals("abce", TypedNodeIteratorTest.toString(graph.getNodes(TestNode.class)));
+    }
+
+    private static class ValueNode extends Node implements Node.ValueNumberable {
+
+        private final int value;
+
+        public ValueNode(int value) {
+            this.value = value;
+        }
+    }
+
+    @Test
+    public void rollbackValueNumberingTest() {
+        Graph graph = new Graph();
+        ValueNode a = graph.unique(new ValueNode(1));
+
+        try (Graph.Checkpoint checkpoint = graph.checkpoint()) {
+            a.safeDelete();
+            ValueNode b = graph.unique(new ValueNode(1));
+            assertNotSame(a, b);
+            assertSame(b, graph.unique(new ValueNode(1)));
+        }
+
+        assertTrue(a.isAlive());
+        assertSame(a, graph.unique(new ValueNode(1)));
+        assertEquals(1, graph.getNodeCount());
+        assertTrue(graph.verify());
+    }
+
+    @Test
+    public void commitTest() {
+        Graph graph = new Graph();
+        TestNode a = graph.add(new TestNode("a"));
+        TestNode b = graph.add(new TestNode("b"));
+        b.setInput(a);
+
+        try (Graph.Checkpoint checkpoint = graph.checkpoint()) {
+            TestNode c = graph.add(new TestNode("c"));
+            b.setInput(c);
+            a.safeDelete();
+            checkpoint.commit();
+        }
+
+        assertTrue(a.isDeleted());
+        assertEquals(2, graph.getNodeCount());
+        assertEquals("bc", TypedNodeIteratorTest.toString(graph.getNodes(TestNode.class)));
+        assertTrue(graph.verify());
+    }
+}
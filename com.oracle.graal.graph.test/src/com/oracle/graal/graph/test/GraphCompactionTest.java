@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2013, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.graph.test;
+
+import static org.junit.Assert.*;
+
+import org.junit.*;
+
+import com.oracle.graal.graph.*;
+
+public class GraphCompactionTest {
+
+    private static class TestNode extends Node implements Node.IterableNodeType, TestNodeInterface {
+
+        private final String name;
+
+        public TestNode(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+
+    @Test
+    public void compactTest() {
+        Graph graph = new Graph();
+        graph.add(new TestNode("a"));
+        TestNode b = graph.add(new TestNode("b"));
+        graph.add(new TestNode("c"));
+        TestNode d = graph.add(new TestNode("d"));
+        b.safeDelete();
+        d.safeDelete();
+        assertEquals(2, graph.getDeletedNodeCount());
+        assertEquals(4, graph.createNodeMap().size());
+
+        graph.compact();
+        assertEquals(0, graph.getDeletedNodeCount());
+        assertEquals(2, graph.getNodeCount());
+        assertEquals(2, graph.createNodeMap().size());
+        assertEquals("ac", TypedNodeIteratorTest.toString(graph.getNodes(TestNode.class)));
+
+        graph.add(new TestNode("e"));
+        assertEquals(3, graph.createNodeMap().size());
+        assertEquals("ace", TypedNodeIteratorTest.toString(graph.getNodes(TestNode.class)));
+    }
+
+    @Test
+    public void compactNodeMapTest() {
+        Graph graph = new Graph();
+        TestNode a = graph.add(new TestNode("a"));
+        graph.add(new TestNode("b")).safeDelete();
+        TestNode c = graph.add(new TestNode("c"));
+        graph.compact();
+
+        NodeMap<String> map = graph.createNodeMap();
+        map.set(a, "a");
+        map.set(c, "c");
+        assertEquals("a", map.get(a));
+        assertEquals("c", map.get(c));
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2013, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.graph.test;
+
+import static org.junit.Assert.*;
+
+import org.junit.*;
+
+import com.oracle.graal.graph.*;
+
+public class NodeBitMapTest {
+
+    private static class TestNode extends Node implements TestNodeInterface {
+
+        private final String name;
+
+        public TestNode(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+
+    private static TestNode[] createNodes(Graph graph, int count) {
+        TestNode[] result = new TestNode[count];
+        for (int i = 0; i < count; i++) {
+            result[i] = graph.add(new TestNode("n" + i));
+        }
+        return result;
+    }
+
+    @Test
+    public void markAndIterateTest() {
+        Graph graph = new Graph();
+        TestNode[] nodes = createNodes(graph, 10000);
+        NodeBitMap map = graph.createNodeBitMap();
+        for (int i = nodes.length - 1; i >= 0; i -= 7) {
+            map.mark(nodes[i]);
+        }
+        assertEquals((nodes.length + 6) / 7, map.cardinality());
+        int last = -1;
+        for (Node node : map) {
+            int index = indexOf(nodes, node);
+            assertTrue(index > last);
+            assertEquals(0, (nodes.length - 1 - index) % 7);
+            last = index;
+        }
+        for (int i = 0; i < nodes.length; i++) {
+            assertEquals((nodes.length - 1 - i) % 7 == 0, map.isMarked(nodes[i]));
+        }
+        map.clear(nodes[nodes.length - 1]);
+        assertFalse(map.isMarked(nodes[nodes.length - 1]));
+        map.clearAll();
+        assertEquals(0, map.cardinality());
+    }
+
+    @Test
+    public void setOperationsTest() {
+        Graph graph = new Graph();
+        TestNode[] nodes = createNodes(graph, 5000);
+        NodeBitMap sparse = graph.createNodeBitMap();
+        sparse.mark(nodes[1]);
+        sparse.mark(nodes[2]);
+        sparse.mark(nodes[3000]);
+        NodeBitMap dense = graph.createNodeBitMap();
+        for (int i = 0; i < nodes.length; i += 2) {
+            dense.mark(nodes[i]);
+        }
+
+        NodeBitMap intersection = dense.copy();
+        intersection.intersect(sparse);
+        assertEquals(2, intersection.cardinality());
+        assertTrue(intersection.isMarked(nodes[2]));
+        assertTrue(intersection.isMarked(nodes[3000]));
+
+        NodeBitMap union = sparse.copy();
+        union.setUnion(dense);
+        assertEquals(nodes.length / 2 + 1, union.cardinality());
+
+        NodeBitMap negated = sparse.copy();
+        negated.negate();
+        assertEquals(nodes.length - 3, negated.cardinality());
+        assertFalse(negated.isMarked(nodes[3000]));
+        assertEquals(3, sparse.cardinality());
+    }
+
+    private static int indexOf(Node[] nodes, Node node) {
+        for (int i = 0; i < nodes.length; i++) {
+            if (nodes[i] == node) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
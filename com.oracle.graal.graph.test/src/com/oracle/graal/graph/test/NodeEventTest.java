@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2013, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.graph.test;
+
+import static org.junit.Assert.*;
+
+import java.util.*;
+
+import org.junit.*;
+
+import com.oracle.graal.graph.*;
+import com.oracle.graal.graph.Graph.NodeEventKind;
+import com.oracle.graal.graph.Graph.NodeEventListener;
+import com.oracle.graal.graph.Graph.NodeEventScope;
+
+public class NodeEventTest {
+
+    private static class TestNode extends Node {
+
+        @Input private TestNode input;
+
+        public TestNode(TestNode input) {
+            this.input = input;
+        }
+
+        public void setInput(TestNode x) {
+            updateUsages(input, x);
+            input = x;
+        }
+    }
+
+    private static class RecordingListener implements NodeEventListener {
+
+        final List<String> events = new ArrayList<>();
+
+        @Override
+        public void nodeChanged(NodeEventKind event, Node node) {
+            events.add(event.name());
+        }
+    }
+
+    @Test
+    public void multipleListenersTest() {
+        Graph graph = new Graph();
+        TestNode a = graph.add(new TestNode(null));
+        RecordingListener all = new RecordingListener();
+        RecordingListener inputs = new RecordingListener();
+        try (NodeEventScope allScope = graph.trackNodeEvents(all, EnumSet.allOf(NodeEventKind.class))) {
+            try (NodeEventScope inputScope = graph.trackNodeEvents(inputs, EnumSet.of(NodeEventKind.INPUT_CHANGED))) {
+                TestNode b = graph.add(new TestNode(null));
+                b.setInput(a);
+                b.setInput(null);
+                b.safeDelete();
+            }
+            graph.add(new TestNode(null));
+        }
+        graph.add(new TestNode(null));
+        assertEquals(Arrays.asList("NODE_ADDED", "INPUT_CHANGED", "USAGES_DROPPED_ZERO", "NODE_DELETED", "NODE_ADDED"), all.events);
+        assertEquals(Arrays.asList("INPUT_CHANGED"), inputs.events);
+    }
+
+    @Test
+    public void batchedListenerTest() {
+        Graph graph = new Graph();
+        RecordingListener listener = new RecordingListener();
+        try (NodeEventScope scope = graph.trackNodeEvents(listener, EnumSet.of(NodeEventKind.NODE_ADDED), true)) {
+            graph.add(new TestNode(null));
+            graph.add(new TestNode(null));
+            assertTrue(listener.events.isEmpty());
+            scope.flush();
+            assertEquals(2, listener.events.size());
+            graph.add(new TestNode(null));
+        }
+        assertEquals(3, listener.events.size());
+    }
+}
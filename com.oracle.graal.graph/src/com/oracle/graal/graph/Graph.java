@@ -24,7 +24,6 @@ package com.oracle.graal.graph;
 
 import java.util.*;
 
-import com.oracle.graal.graph.GraphEvent.NodeEvent;
 import com.oracle.graal.graph.Node.IterableNodeType;
 import com.oracle.graal.graph.Node.ValueNumberable;
 import com.oracle.graal.graph.iterators.*;
@@ -47,9 +46,10 @@ public class Graph {
     private int deletedNodeCount;
     private GraphEventLog eventLog;
 
-    NodeChangedListener inputChanged;
-    NodeChangedListener usagesDroppedZero;
+    private NodeEventScope[] nodeEventScopes = NO_SCOPES;
+    private int nodeEventMask;
     private final HashMap<CacheEntry, Node> cachedNodes = new HashMap<>();
+    Checkpoint checkpoint;
 
     private static final class CacheEntry {
 
@@ -153,25 +153,288 @@ public class Graph {
         return node;
     }
 
-    public interface NodeChangedListener {
+    /**
+     * The kinds of changes to the nodes of a graph that can be observed with a
+     * {@link NodeEventListener}.
+     */
+    public enum NodeEventKind {
+        /**
+         * A node was added to the graph. Its edges may not have been initialized yet when the
+         * event is delivered synchronously.
+         */
+        NODE_ADDED,
+
+        /**
+         * An input of a node was set to a new non-null value.
+         */
+        INPUT_CHANGED,
+
+        /**
+         * The last usage of a node was removed.
+         */
+        USAGES_DROPPED_ZERO,
 
-        void nodeChanged(Node node);
+        /**
+         * A node was deleted from the graph.
+         */
+        NODE_DELETED;
+
+        final int mask() {
+            return 1 << ordinal();
+        }
     }
 
-    public void trackInputChange(NodeChangedListener inputChangedListener) {
-        this.inputChanged = inputChangedListener;
+    public interface NodeEventListener {
+
+        void nodeChanged(NodeEventKind event, Node node);
     }
 
-    public void stopTrackingInputChange() {
-        inputChanged = null;
+    private static final NodeEventScope[] NO_SCOPES = {};
+
+    /**
+     * A subscription of a {@link NodeEventListener} to a set of {@link NodeEventKind}s of a graph.
+     * Several scopes can be open on the same graph at the same time. A batched scope queues the
+     * events and delivers them (in the order they occurred, possibly several times for the same
+     * node) when {@link #flush()} or {@link #close()} is called.
+     */
+    public final class NodeEventScope implements AutoCloseable {
+
+        private final NodeEventListener listener;
+        private final int mask;
+        private final ArrayList<NodeEventKind> pendingEvents;
+        private final ArrayList<Node> pendingNodes;
+
+        private NodeEventScope(NodeEventListener listener, int mask, boolean batched) {
+            this.listener = listener;
+            this.mask = mask;
+            this.pendingEvents = batched ? new ArrayList<NodeEventKind>() : null;
+            this.pendingNodes = batched ? new ArrayList<Node>() : null;
+        }
+
+        private void notify(NodeEventKind event, Node node) {
+            if ((mask & event.mask()) != 0) {
+                if (pendingEvents == null) {
+                    listener.nodeChanged(event, node);
+                } else {
+                    pendingEvents.add(event);
+                    pendingNodes.add(node);
+                }
+            }
+        }
+
+        /**
+         * Delivers the events queued by a batched scope.
+         */
+        public void flush() {
+            if (pendingEvents != null) {
+                // events may be added while the listener is running
+                for (int i = 0; i < pendingEvents.size(); i++) {
+                    listener.nodeChanged(pendingEvents.get(i), pendingNodes.get(i));
+                }
+                pendingEvents.clear();
+                pendingNodes.clear();
+            }
+        }
+
+        /**
+         * Delivers any queued events and stops listening.
+         */
+        @Override
+        public void close() {
+            removeNodeEventScope(this);
+            flush();
+        }
+    }
+
+    /**
+     * Starts delivering the given kinds of node events of this graph to {@code listener} until the
+     * returned scope is {@linkplain NodeEventScope#close() closed}.
+     * 
+     * @param batched if true, the events are queued until the scope is
+     *            {@linkplain NodeEventScope#flush() flushed} or closed
+     */
+    public NodeEventScope trackNodeEvents(NodeEventListener listener, EnumSet<NodeEventKind> events, boolean batched) {
+        int mask = 0;
+        for (NodeEventKind event : events) {
+            mask |= event.mask();
+        }
+        NodeEventScope scope = new NodeEventScope(listener, mask, batched);
+        // copy on write, so that listeners can open and close scopes while events are delivered
+        NodeEventScope[] scopes = Arrays.copyOf(nodeEventScopes, nodeEventScopes.length + 1);
+        scopes[scopes.length - 1] = scope;
+        nodeEventScopes = scopes;
+        nodeEventMask |= mask;
+        return scope;
+    }
+
+    public NodeEventScope trackNodeEvents(NodeEventListener listener, EnumSet<NodeEventKind> events) {
+        return trackNodeEvents(listener, events, false);
+    }
+
+    private void removeNodeEventScope(NodeEventScope scope) {
+        ArrayList<NodeEventScope> scopes = new ArrayList<>(Arrays.asList(nodeEventScopes));
+        if (scopes.remove(scope)) {
+            nodeEventScopes = scopes.toArray(new NodeEventScope[scopes.size()]);
+            int mask = 0;
+            for (NodeEventScope s : nodeEventScopes) {
+                mask |= s.mask;
+            }
+            nodeEventMask = mask;
+        }
+    }
+
+    void notifyNodeEvent(NodeEventKind event, Node node) {
+        if ((nodeEventMask & event.mask()) != 0) {
+            for (NodeEventScope scope : nodeEventScopes) {
+                scope.notify(event, node);
+            }
+        }
+    }
+
+    /**
+     * Records the state of this graph so that subsequent changes can be undone. Nodes are only
+     * saved when they are first changed after the checkpoint was taken, so the cost of a
+     * checkpoint is proportional to the number of nodes touched by the speculative transformation
+     * rather than to the size of the graph.
+     * <p>
+     * The following changes are undone by {@link #rollback()}: nodes added to the graph, nodes
+     * deleted from the graph, changes to input and successor edges (including the resulting
+     * changes to usages and predecessors) and changes to data fields of nodes whose edges changed
+     * or that were explicitly {@linkplain #record(Node) recorded}, and changes to the value numbering
+     * cache of {@link #unique(Node)}. Node events are not delivered for the changes made by a
+     * rollback.
+     */
+    public final class Checkpoint implements AutoCloseable {
+
+        private final int nodeIdCount;
+        private final int savedDeletedNodeCount;
+        private final Node[] savedCacheLast;
+        private final BitSet recorded;
+        private final ArrayList<NodeSnapshot> journal;
+        private HashMap<CacheEntry, Node> savedCachedNodes;
+
+        private Checkpoint() {
+            this.nodeIdCount = nodes.size();
+            this.savedDeletedNodeCount = deletedNodeCount;
+            this.savedCacheLast = nodeCacheLast.toArray(new Node[nodeCacheLast.size()]);
+            this.recorded = new BitSet(nodeIdCount);
+            this.journal = new ArrayList<>();
+        }
+
+        /**
+         * Saves the current state of {@code node} if it existed when this checkpoint was taken
+         * and has not been saved yet. Edge changes are recorded automatically, this only needs to
+         * be called before changing a data field of a node whose edges have not changed.
+         */
+        public void record(Node node) {
+            assert node.graph() == Graph.this;
+            int id = node.id;
+            if (id >= 0 && id < nodeIdCount && !recorded.get(id)) {
+                recorded.set(id);
+                journal.add(new NodeSnapshot(node));
+            }
+        }
+
+        /**
+         * Saves the value numbering cache before it is first changed after this checkpoint was
+         * taken.
+         */
+        void recordCachedNodes() {
+            if (savedCachedNodes == null) {
+                savedCachedNodes = new HashMap<>(cachedNodes);
+            }
+        }
+
+        /**
+         * Undoes all changes made to the graph since this checkpoint was taken and ends the
+         * checkpoint. Nodes added since then are deleted.
+         */
+        public void rollback() {
+            assert checkpoint == this : "checkpoint is not active";
+            checkpoint = null;
+
+            for (int id = nodeIdCount; id < nodes.size(); id++) {
+                Node node = nodes.get(id);
+                if (node != null) {
+                    node.id = Node.DELETED_ID_START - id;
+                }
+            }
+            nodes.subList(nodeIdCount, nodes.size()).clear();
+            deletedNodeCount = savedDeletedNodeCount;
+
+            for (NodeSnapshot snapshot : journal) {
+                snapshot.restore();
+                nodes.set(snapshot.node.id, snapshot.node);
+            }
+            journal.clear();
+
+            // the cache entries are rehashed here, after the nodes have been restored
+            if (savedCachedNodes != null) {
+                cachedNodes.clear();
+                cachedNodes.putAll(savedCachedNodes);
+                savedCachedNodes = null;
+            }
+
+            // nodes are only ever appended to the type cache lists, so cutting off everything
+            // after the old tails removes exactly the nodes added since the checkpoint
+            for (int iterableId = 0; iterableId < nodeCacheLast.size(); iterableId++) {
+                Node last = iterableId < savedCacheLast.length ? savedCacheLast[iterableId] : null;
+                if (last == null) {
+                    nodeCacheFirst.set(iterableId, null);
+                } else {
+                    last.typeCacheNext = null;
+                }
+                nodeCacheLast.set(iterableId, last);
+            }
+        }
+
+        /**
+         * Keeps all changes made to the graph since this checkpoint was taken and ends the
+         * checkpoint.
+         */
+        public void commit() {
+            assert checkpoint == this : "checkpoint is not active";
+            checkpoint = null;
+            journal.clear();
+            savedCachedNodes = null;
+        }
+
+        /**
+         * Rolls back the changes made since this checkpoint was taken unless it has been
+         * {@linkplain #commit() committed}.
+         */
+        @Override
+        public void close() {
+            if (checkpoint == this) {
+                rollback();
+            }
+        }
     }
 
-    public void trackUsagesDroppedZero(NodeChangedListener usagesDroppedZeroListener) {
-        this.usagesDroppedZero = usagesDroppedZeroListener;
+    private static final class NodeSnapshot {
+
+        private final Node node;
+        private final Node copy;
+        private final Node[][] edgeLists;
+
+        NodeSnapshot(Node node) {
+            this.node = node;
+            this.copy = node.copyState();
+            this.edgeLists = node.getNodeClass().saveEdgeLists(node);
+        }
+
+        void restore() {
+            node.restoreState(copy, edgeLists);
+        }
     }
 
-    public void stopTrackingUsagesDroppedZero() {
-        usagesDroppedZero = null;
+    /**
+     * Takes a {@link Checkpoint} of this graph. Checkpoints cannot be nested.
+     */
+    public Checkpoint checkpoint() {
+        assert checkpoint == null : "nested checkpoints are not supported";
+        checkpoint = new Checkpoint();
+        return checkpoint;
     }
 
     /**
@@ -202,7 +465,7 @@ public class Graph {
             return (T) cachedNode;
         } else {
             Node result = add(node);
-            cachedNodes.put(new CacheEntry(node), result);
+            putCachedNode(new CacheEntry(node), result);
             return (T) result;
         }
     }
@@ -224,16 +487,30 @@ public class Graph {
         Node cachedNode = cachedNodes.get(key);
         if (cachedNode != null) {
             if (!cachedNode.isAlive()) {
-                cachedNodes.remove(key);
+                removeCachedNode(key);
                 return null;
             }
             return cachedNode != node ? cachedNode : null;
         } else {
-            cachedNodes.put(key, node);
+            putCachedNode(key, node);
             return null;
         }
     }
 
+    private void putCachedNode(CacheEntry key, Node node) {
+        if (checkpoint != null) {
+            checkpoint.recordCachedNodes();
+        }
+        cachedNodes.put(key, node);
+    }
+
+    private void removeCachedNode(CacheEntry key) {
+        if (checkpoint != null) {
+            checkpoint.recordCachedNodes();
+        }
+        cachedNodes.remove(key);
+    }
+
     private static boolean checkValueNumberable(Node node) {
         if (!node.getNodeClass().valueNumberable()) {
             throw new VerificationError("node is not valueNumberable").addContext(node);
@@ -518,6 +795,7 @@ public class Graph {
 
         node.id = id;
         logNodeAdded(node);
+        notifyNodeEvent(NodeEventKind.NODE_ADDED, node);
     }
 
     void logNodeAdded(Node node) {
@@ -532,7 +810,7 @@ public class Graph {
         }
     }
 
-    private void log(NodeEvent nodeEvent) {
+    private void log(GraphEvent.NodeEvent nodeEvent) {
         if (eventLog == null) {
             eventLog = new GraphEventLog();
         }
@@ -545,13 +823,80 @@ public class Graph {
 
     void unregister(Node node) {
         assert !node.isDeleted() : "cannot delete a node twice! node=" + node;
+        node.recordChange();
         logNodeDeleted(node);
         nodes.set(node.id(), null);
         deletedNodeCount++;
+        notifyNodeEvent(NodeEventKind.NODE_DELETED, node);
 
         // nodes aren't removed from the type cache here - they will be removed during iteration
     }
 
+    /**
+     * Renumbers the live nodes of this graph densely and releases the slots of deleted nodes.
+     * {@link NodeBitMap}s, {@link NodeMap}s and {@link NodeWorkList}s created afterwards are then
+     * sized to the number of live nodes instead of the number of ids ever handed out.
+     * <p>
+     * This invalidates all node id based side tables and {@linkplain #getMark() marks} that were
+     * created before, so it must only be called while none of them are in use (e.g., between
+     * compilation tiers).
+     */
+    public void compact() {
+        assert checkpoint == null : "cannot compact a graph while a checkpoint is active";
+        if (deletedNodeCount == 0) {
+            return;
+        }
+        int newId = 0;
+        for (int oldId = 0; oldId < nodes.size(); oldId++) {
+            Node node = nodes.get(oldId);
+            if (node != null) {
+                node.id = newId;
+                nodes.set(newId, node);
+                newId++;
+            }
+        }
+        nodes.subList(newId, nodes.size()).clear();
+        nodes.trimToSize();
+        deletedNodeCount = 0;
+
+        // drop the deleted nodes from the type cache
+        for (int iterableId = 0; iterableId < nodeCacheFirst.size(); iterableId++) {
+            Node last = null;
+            for (Node node = nodeCacheFirst.get(iterableId); node != null; node = node.typeCacheNext) {
+                if (!node.isDeleted()) {
+                    if (last == null) {
+                        nodeCacheFirst.set(iterableId, node);
+                    } else {
+                        last.typeCacheNext = node;
+                    }
+                    last = node;
+                }
+            }
+            if (last == null) {
+                nodeCacheFirst.set(iterableId, null);
+            } else {
+                last.typeCacheNext = null;
+            }
+            nodeCacheLast.set(iterableId, last);
+        }
+
+        // drop the value numbering entries of deleted nodes
+        Iterator<Node> cached = cachedNodes.values().iterator();
+        while (cached.hasNext()) {
+            if (!cached.next().isAlive()) {
+                cached.remove();
+            }
+        }
+        assert verifyCompact();
+    }
+
+    private boolean verifyCompact() {
+        for (int i = 0; i < nodes.size(); i++) {
+            assert nodes.get(i) != null && nodes.get(i).id() == i : "invalid node at " + i + ": " + nodes.get(i);
+        }
+        return true;
+    }
+
     public boolean verify() {
         for (Node node : getNodes()) {
             try {
@@ -25,7 +25,7 @@ package com.oracle.graal.graph;
 import java.lang.annotation.*;
 import java.util.*;
 
-import com.oracle.graal.graph.Graph.NodeChangedListener;
+import com.oracle.graal.graph.Graph.NodeEventKind;
 import com.oracle.graal.graph.NodeClass.*;
 import com.oracle.graal.graph.iterators.*;
 
@@ -118,7 +118,25 @@ public abstract class Node implements Cloneable, Formattable {
     // therefore points to the next Node of the same type.
     Node typeCacheNext;
 
-    private NodeUsagesList usages;
+    private static final Node[] NO_NODES = {};
+
+    /*
+     * The usages of this node. Most nodes have at most two usages, so the first two are stored
+     * inline and only further usages are spilled to the extraUsages array. The invariant is that
+     * usage1 is only non-null if usage0 is non-null and that extraUsages is only used if both are
+     * non-null.
+     */
+    private Node usage0;
+    private Node usage1;
+    private Node[] extraUsages = NO_NODES;
+    private int extraUsagesCount;
+    private int usageModCount;
+
+    /**
+     * The view returned by {@link #usages()}, created when first requested.
+     */
+    private NodeUsagesList usagesView;
+
     private Node predecessor;
     private int modCount;
     private final NodeClass nodeClass;
@@ -158,7 +176,88 @@ public abstract class Node implements Cloneable, Formattable {
     }
 
     public final NodeIterable<Node> usages() {
-        return usages;
+        if (usagesView == null) {
+            usagesView = new NodeUsagesList(this);
+        }
+        return usagesView;
+    }
+
+    final int getUsageCount() {
+        if (usage0 == null) {
+            return 0;
+        }
+        if (usage1 == null) {
+            return 1;
+        }
+        return 2 + extraUsagesCount;
+    }
+
+    final Node getUsageAt(int index) {
+        if (index == 0) {
+            return usage0;
+        } else if (index == 1) {
+            return usage1;
+        } else {
+            return extraUsages[index - 2];
+        }
+    }
+
+    private void setUsageAt(int index, Node usage) {
+        if (index == 0) {
+            usage0 = usage;
+        } else if (index == 1) {
+            usage1 = usage;
+        } else {
+            extraUsages[index - 2] = usage;
+        }
+    }
+
+    final int usageModCount() {
+        return usageModCount;
+    }
+
+    private void addUsage(Node usage) {
+        recordChange();
+        usageModCount++;
+        if (usage0 == null) {
+            usage0 = usage;
+        } else if (usage1 == null) {
+            usage1 = usage;
+        } else {
+            if (extraUsagesCount == extraUsages.length) {
+                extraUsages = Arrays.copyOf(extraUsages, extraUsages.length * 2 + 1);
+            }
+            extraUsages[extraUsagesCount++] = usage;
+        }
+    }
+
+    private boolean removeUsage(Node usage) {
+        recordChange();
+        usageModCount++;
+        int count = getUsageCount();
+        for (int i = 0; i < count; i++) {
+            if (getUsageAt(i) == usage) {
+                // shift the remaining usages to keep their order
+                for (int j = i + 1; j < count; j++) {
+                    setUsageAt(j - 1, getUsageAt(j));
+                }
+                setUsageAt(count - 1, null);
+                if (count > 2) {
+                    extraUsagesCount--;
+                }
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void clearUsages() {
+        recordChange();
+        usageModCount++;
+        usage0 = null;
+        usage1 = null;
+        extraUsages = NO_NODES;
+        extraUsagesCount = 0;
     }
 
     public final Node predecessor() {
@@ -170,7 +269,47 @@ public abstract class Node implements Cloneable, Formattable {
     }
 
     final void incModCount() {
+        recordChange();
+        modCount++;
+    }
+
+    /**
+     * Saves the state of this node in the active {@linkplain Graph.Checkpoint checkpoint} of its
+     * graph, if any. Must be called before any of its edges, usages or its predecessor change.
+     */
+    final void recordChange() {
+        if (graph != null && graph.checkpoint != null) {
+            graph.checkpoint.record(this);
+        }
+    }
+
+    /**
+     * Creates a shallow copy of this node's fields which can later be
+     * {@linkplain #restoreState(Node, Node[][]) restored}.
+     */
+    final Node copyState() {
+        Node copy;
+        try {
+            copy = (Node) this.clone();
+        } catch (CloneNotSupportedException e) {
+            throw new GraalInternalError(e).addContext(this);
+        }
+        if (extraUsagesCount > 0) {
+            copy.extraUsages = Arrays.copyOf(extraUsages, extraUsagesCount);
+        }
+        return copy;
+    }
+
+    final void restoreState(Node copy, Node[][] edgeLists) {
+        id = copy.id;
+        predecessor = copy.predecessor;
+        usage0 = copy.usage0;
+        usage1 = copy.usage1;
+        extraUsages = copy.extraUsages;
+        extraUsagesCount = copy.extraUsagesCount;
+        usageModCount++;
         modCount++;
+        getNodeClass().restoreState(this, copy, edgeLists);
     }
 
     public boolean isDeleted() {
@@ -186,24 +325,19 @@ public abstract class Node implements Cloneable, Formattable {
      * newInput: removes this node from oldInput's usages and adds this node to newInput's usages.
      */
     protected void updateUsages(Node oldInput, Node newInput) {
-        assert assertTrue(usages != null, "usages == null while adding %s to %s", newInput, this);
+        assert assertTrue(graph != null, "not yet added while adding %s to %s", newInput, this);
         if (oldInput != newInput) {
+            recordChange();
             if (oldInput != null) {
                 boolean result = removeThisFromUsages(oldInput);
                 assert assertTrue(result, "not found in usages, old input: %s", oldInput);
             }
             if (newInput != null) {
-                NodeChangedListener inputChanged = graph.inputChanged;
-                if (inputChanged != null) {
-                    inputChanged.nodeChanged(this);
-                }
-                assert newInput.usages != null : "not yet added? " + newInput;
-                newInput.usages.add(this);
-            } else if (oldInput != null && oldInput.usages().isEmpty()) {
-                NodeChangedListener nodeChangedListener = graph.usagesDroppedZero;
-                if (nodeChangedListener != null) {
-                    nodeChangedListener.nodeChanged(oldInput);
-                }
+                graph.notifyNodeEvent(NodeEventKind.INPUT_CHANGED, this);
+                assert newInput.graph != null : "not yet added? " + newInput;
+                newInput.addUsage(this);
+            } else if (oldInput != null && oldInput.getUsageCount() == 0) {
+                graph.notifyNodeEvent(NodeEventKind.USAGES_DROPPED_ZERO, oldInput);
             }
         }
     }
@@ -214,13 +348,16 @@ public abstract class Node implements Cloneable, Formattable {
      * this node to newSuccessor's predecessors.
      */
     protected void updatePredecessor(Node oldSuccessor, Node newSuccessor) {
-        assert assertTrue(usages != null, "usages == null while adding %s to %s", newSuccessor, this);
+        assert assertTrue(graph != null, "not yet added while adding %s to %s", newSuccessor, this);
         if (oldSuccessor != newSuccessor) {
+            recordChange();
             if (oldSuccessor != null) {
+                oldSuccessor.recordChange();
                 assert assertTrue(oldSuccessor.predecessor == this, "wrong predecessor in old successor (%s): %s", oldSuccessor, oldSuccessor.predecessor);
                 oldSuccessor.predecessor = null;
             }
             if (newSuccessor != null) {
+                newSuccessor.recordChange();
                 assert assertTrue(newSuccessor.predecessor == null, "unexpected non-null predecessor in new successor (%s): %s", newSuccessor, newSuccessor.predecessor);
                 newSuccessor.predecessor = this;
             }
@@ -231,7 +368,7 @@ public abstract class Node implements Cloneable, Formattable {
         assert assertTrue(id == INITIAL_ID, "unexpected id: %d", id);
         this.graph = newGraph;
         newGraph.register(this);
-        usages = new NodeUsagesList();
+        clearUsages();
         for (Node input : inputs()) {
             updateUsages(null, input);
         }
@@ -254,18 +391,15 @@ public abstract class Node implements Cloneable, Formattable {
 
     public void replaceAtUsages(Node other) {
         assert checkReplaceWith(other);
-        for (Node usage : usages) {
+        for (Node usage : usages()) {
             boolean result = usage.getNodeClass().replaceFirstInput(usage, this, other);
             assert assertTrue(result, "not found in inputs, usage: %s", usage);
             if (other != null) {
-                NodeChangedListener inputChanged = graph.inputChanged;
-                if (inputChanged != null) {
-                    inputChanged.nodeChanged(usage);
-                }
-                other.usages.add(usage);
+                graph.notifyNodeEvent(NodeEventKind.INPUT_CHANGED, usage);
+                other.addUsage(usage);
             }
         }
-        usages.clear();
+        clearUsages();
     }
 
     public void replaceAtPredecessor(Node other) {
@@ -304,18 +438,15 @@ public abstract class Node implements Cloneable, Formattable {
 
         for (Node input : inputs()) {
             removeThisFromUsages(input);
-            if (input.usages().isEmpty()) {
-                NodeChangedListener nodeChangedListener = graph.usagesDroppedZero;
-                if (nodeChangedListener != null) {
-                    nodeChangedListener.nodeChanged(input);
-                }
+            if (input.getUsageCount() == 0) {
+                graph.notifyNodeEvent(NodeEventKind.USAGES_DROPPED_ZERO, input);
             }
         }
         getNodeClass().clearInputs(this);
     }
 
     private boolean removeThisFromUsages(Node n) {
-        if (n.usages.remove(this)) {
+        if (n.removeUsage(this)) {
             return true;
         } else {
             return false;
@@ -327,13 +458,14 @@ public abstract class Node implements Cloneable, Formattable {
 
         for (Node successor : successors()) {
             assert assertTrue(successor.predecessor == this, "wrong predecessor in old successor (%s): %s", successor, successor.predecessor);
+            successor.recordChange();
             successor.predecessor = null;
         }
         getNodeClass().clearSuccessors(this);
     }
 
     private boolean checkDeletion() {
-        assertTrue(usages.isEmpty(), "cannot delete node %s because of usages: %s", this, usages);
+        assertTrue(usage0 == null, "cannot delete node %s because of usages: %s", this, usages());
         assertTrue(predecessor == null, "cannot delete node %s because of predecessor: %s", this, predecessor);
         return true;
     }
@@ -356,7 +488,7 @@ public abstract class Node implements Cloneable, Formattable {
         NodeClass clazz = getNodeClass();
         clazz.copyInputs(this, newNode);
         for (Node input : inputs()) {
-            input.usages.add(newNode);
+            input.addUsage(newNode);
         }
         return newNode;
     }
@@ -374,7 +506,9 @@ public abstract class Node implements Cloneable, Formattable {
         newNode.typeCacheNext = null;
         newNode.id = INITIAL_ID;
         into.register(newNode);
-        newNode.usages = new NodeUsagesList();
+        newNode.clearUsages();
+        newNode.usageModCount = 0;
+        newNode.usagesView = null;
         newNode.predecessor = null;
         newNode.modCount = 0;
         return newNode;
@@ -577,10 +711,10 @@ public abstract class Node implements Cloneable, Formattable {
         }
 
         if (precision > 0) {
-            if (this.usages.count() > 0) {
+            if (getUsageCount() > 0) {
                 formatter.format(" usages={");
                 int z = 0;
-                for (Node usage : this.usages) {
+                for (Node usage : usages()) {
                     if (z != 0) {
                         formatter.format(", ");
                     }
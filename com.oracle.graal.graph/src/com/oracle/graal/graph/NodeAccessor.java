@@ -0,0 +1,200 @@
+/*
+ * Copyright (c) 2013, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.graph;
+
+import java.lang.reflect.*;
+import java.util.*;
+
+/**
+ * Straight-line implementations of the {@link NodeClass} operations that otherwise iterate over
+ * field offset arrays. Subclasses are generated by the {@code NodeAccessorProcessor} in the
+ * {@code com.oracle.graal.graph.processor} project for every node class annotated with
+ * {@link NodeInfo} and are named after the node class with a {@value #SUFFIX} suffix.
+ * {@link NodeClass} uses such an accessor whenever one is available, after checking that it was
+ * generated from the current fields of the node class.
+ * <p>
+ * The generated code reads the node fields through {@link #unsafe} using constant offsets, so
+ * the semantics of each method must match the corresponding method in {@link NodeClass}.
+ */
+public abstract class NodeAccessor extends UnsafeAccess {
+
+    public static final String SUFFIX = "_NodeAccessor";
+
+    private final long[] inputOffsets;
+    private final long[] inputListOffsets;
+    private final long[] successorOffsets;
+    private final long[] successorListOffsets;
+    private final long[] dataOffsets;
+    private final Class<?>[] dataTypes;
+
+    /**
+     * Creates an accessor for the fields it was generated from, which are
+     * {@linkplain #verify checked} against the fields of the node class when it is used.
+     * A data field of a reference type is described by {@code Object.class}.
+     */
+    protected NodeAccessor(long[] inputOffsets, long[] inputListOffsets, long[] successorOffsets, long[] successorListOffsets, long[] dataOffsets, Class<?>[] dataTypes) {
+        this.inputOffsets = inputOffsets;
+        this.inputListOffsets = inputListOffsets;
+        this.successorOffsets = successorOffsets;
+        this.successorListOffsets = successorListOffsets;
+        this.dataOffsets = dataOffsets;
+        this.dataTypes = dataTypes;
+    }
+
+    /**
+     * Computes the value number of {@code node}. The result is identical to the one computed by
+     * {@link NodeClass#valueNumber(Node)} from the field offsets.
+     * 
+     * @param start the start value of the {@link NodeClass} of {@code node}
+     */
+    public abstract int valueNumber(int start, Node node);
+
+    /**
+     * Determines if the data fields of two nodes of the accessed class are equal.
+     */
+    public abstract boolean valueEqual(Node a, Node b);
+
+    public abstract boolean inputsEqual(Node node, Node other);
+
+    public abstract boolean successorsEqual(Node node, Node other);
+
+    public abstract boolean inputContains(Node node, Node other);
+
+    public abstract boolean successorContains(Node node, Node other);
+
+    protected static boolean objectEquals(Object a, Object b) {
+        return a == b || (a != null && b != null && a.equals(b));
+    }
+
+    @SuppressWarnings("unchecked")
+    protected static boolean listEquals(Object list, Object other) {
+        return ((NodeList<Node>) list).equals((NodeList<Node>) other);
+    }
+
+    @SuppressWarnings("unchecked")
+    protected static boolean listContains(Object list, Node other) {
+        return ((NodeList<Node>) list).contains(other);
+    }
+
+    protected static int objectHash(Object o) {
+        return o == null ? 0 : o.hashCode();
+    }
+
+    protected static int longHash(long value) {
+        return (int) (value ^ (value >>> 32));
+    }
+
+    /**
+     * Gets the factor by which {@link NodeClass#valueNumber(Node)} multiplies the hash of the data
+     * field at {@code offset}. The data fields are hashed in the order of their offsets, and the
+     * running value number is multiplied by 13 after each field, so the factor is 13 to the power
+     * of the number of data fields at or after {@code offset}. Passing {@link Long#MIN_VALUE} as
+     * {@code offset} gives the factor of the start value.
+     */
+    protected static int hashMultiplier(long offset, long... dataOffsets) {
+        int multiplier = 1;
+        for (long dataOffset : dataOffsets) {
+            if (dataOffset >= offset) {
+                multiplier *= 13;
+            }
+        }
+        return multiplier;
+    }
+
+    /**
+     * Gets the offset of a field declared in {@code clazz} or one of its superclasses.
+     * 
+     * @param depth the number of superclass steps from {@code clazz} to the declaring class
+     */
+    protected static long fieldOffset(Class<?> clazz, int depth, String name) {
+        Class<?> declaringClass = clazz;
+        for (int i = 0; i < depth; i++) {
+            declaringClass = declaringClass.getSuperclass();
+        }
+        try {
+            Field field = declaringClass.getDeclaredField(name);
+            return unsafe.objectFieldOffset(field);
+        } catch (NoSuchFieldException e) {
+            throw new GraalInternalError(e);
+        }
+    }
+
+    /**
+     * Checks that this accessor was generated from the current fields of a node class, so that a
+     * stale accessor is never used after the fields of the node class changed. The offsets are
+     * those of {@link NodeClass}, i.e. the direct edges sorted by offset followed by the edge
+     * lists sorted by offset.
+     * 
+     * @throws GraalInternalError if the fields differ
+     */
+    void verify(Class<?> clazz, long[] expectedInputs, int directInputs, long[] expectedSuccessors, int directSuccessors, long[] expectedData, Class<?>[] expectedDataTypes) {
+        if (!sameOffsets(inputOffsets, expectedInputs, 0, directInputs) || !sameOffsets(inputListOffsets, expectedInputs, directInputs, expectedInputs.length)) {
+            throw stale(clazz, "inputs");
+        }
+        if (!sameOffsets(successorOffsets, expectedSuccessors, 0, directSuccessors) || !sameOffsets(successorListOffsets, expectedSuccessors, directSuccessors, expectedSuccessors.length)) {
+            throw stale(clazz, "successors");
+        }
+        if (!sameOffsets(dataOffsets, expectedData, 0, expectedData.length)) {
+            throw stale(clazz, "data fields");
+        }
+        for (int i = 0; i < dataOffsets.length; i++) {
+            Class<?> type = expectedDataTypes[Arrays.binarySearch(expectedData, dataOffsets[i])];
+            if (type.isPrimitive() ? type != dataTypes[i] : dataTypes[i] != Object.class) {
+                throw stale(clazz, "data field types");
+            }
+        }
+    }
+
+    private static boolean sameOffsets(long[] offsets, long[] expected, int from, int to) {
+        if (offsets.length != to - from) {
+            return false;
+        }
+        long[] sorted = offsets.clone();
+        Arrays.sort(sorted);
+        return Arrays.equals(sorted, Arrays.copyOfRange(expected, from, to));
+    }
+
+    private GraalInternalError stale(Class<?> clazz, String what) {
+        return new GraalInternalError("the %s of %s do not match the generated %s, which must be regenerated", what, clazz.getName(), getClass().getName());
+    }
+
+    /**
+     * Loads the accessor generated for {@code clazz}, if any.
+     */
+    static NodeAccessor lookup(Class<?> clazz) {
+        if (clazz.getAnnotation(NodeInfo.class) == null) {
+            return null;
+        }
+        String name = clazz.getName();
+        String pkg = clazz.getPackage() == null ? "" : clazz.getPackage().getName() + ".";
+        String accessorName = pkg + name.substring(pkg.length()).replace('$', '_') + SUFFIX;
+        try {
+            Class<?> accessorClass = Class.forName(accessorName, true, clazz.getClassLoader());
+            return (NodeAccessor) accessorClass.getConstructor().newInstance();
+        } catch (ClassNotFoundException e) {
+            return null;
+        } catch (ReflectiveOperationException e) {
+            throw new GraalInternalError(e);
+        }
+    }
+}
@@ -26,38 +26,144 @@ import java.util.*;
 
 import com.oracle.graal.graph.iterators.*;
 
+/**
+ * A set of nodes of a graph, identified by their ids. Small sets are represented by a sorted array
+ * of ids so that creating and filling a bitmap for a handful of nodes does not cost time and space
+ * proportional to the size of the graph. Once the set grows beyond the size at which a dense bit
+ * array is cheaper, it switches to a {@link BitSet}.
+ */
 public final class NodeBitMap extends AbstractNodeIterable<Node> {
 
+    /**
+     * The maximum number of ids kept in the sorted array, which bounds the cost of inserting into
+     * and searching the array.
+     */
+    private static final int MAX_SPARSE_SIZE = 256;
+
+    private static final int[] NO_IDS = {};
+
     private final boolean autoGrow;
-    private final BitSet bitMap;
     private final Graph graph;
     private int nodeCount;
 
+    /**
+     * The marked ids in ascending order, only used while {@link #bitMap} is null.
+     */
+    private int[] sparseIds;
+    private int sparseSize;
+    private BitSet bitMap;
+
     public NodeBitMap(Graph graph) {
         this(graph, false);
     }
 
     public NodeBitMap(Graph graph, boolean autoGrow) {
-        this(graph, autoGrow, graph.nodeIdCount(), new BitSet(graph.nodeIdCount()));
+        this(graph, autoGrow, graph.nodeIdCount(), NO_IDS, 0, null);
     }
 
-    private NodeBitMap(Graph graph, boolean autoGrow, int nodeCount, BitSet bits) {
+    private NodeBitMap(Graph graph, boolean autoGrow, int nodeCount, int[] sparseIds, int sparseSize, BitSet bits) {
         this.graph = graph;
         this.autoGrow = autoGrow;
         this.nodeCount = nodeCount;
-        bitMap = bits;
+        this.sparseIds = sparseIds;
+        this.sparseSize = sparseSize;
+        this.bitMap = bits;
     }
 
     public Graph graph() {
         return graph;
     }
 
+    private boolean isSparse() {
+        return bitMap == null;
+    }
+
+    /**
+     * Switches to the dense representation.
+     */
+    private void densify() {
+        if (isSparse()) {
+            BitSet bits = new BitSet(nodeCount);
+            for (int i = 0; i < sparseSize; i++) {
+                bits.set(sparseIds[i]);
+            }
+            bitMap = bits;
+            sparseIds = NO_IDS;
+            sparseSize = 0;
+        }
+    }
+
+    private boolean get(int id) {
+        if (isSparse()) {
+            return Arrays.binarySearch(sparseIds, 0, sparseSize, id) >= 0;
+        }
+        return bitMap.get(id);
+    }
+
+    private void set(int id) {
+        if (isSparse()) {
+            int index = Arrays.binarySearch(sparseIds, 0, sparseSize, id);
+            if (index >= 0) {
+                return;
+            }
+            if (sparseSize >= Math.min(MAX_SPARSE_SIZE, nodeCount >>> 5)) {
+                densify();
+                bitMap.set(id);
+                return;
+            }
+            int insert = -(index + 1);
+            if (sparseSize == sparseIds.length) {
+                sparseIds = Arrays.copyOf(sparseIds, sparseSize * 2 + 4);
+            }
+            System.arraycopy(sparseIds, insert, sparseIds, insert + 1, sparseSize - insert);
+            sparseIds[insert] = id;
+            sparseSize++;
+        } else {
+            bitMap.set(id);
+        }
+    }
+
+    private void clear(int id) {
+        if (isSparse()) {
+            int index = Arrays.binarySearch(sparseIds, 0, sparseSize, id);
+            if (index >= 0) {
+                System.arraycopy(sparseIds, index + 1, sparseIds, index, sparseSize - index - 1);
+                sparseSize--;
+            }
+        } else {
+            bitMap.clear(id);
+        }
+    }
+
+    /**
+     * Returns the smallest marked id that is greater than or equal to {@code id}, or -1 if there
+     * is none.
+     */
+    private int nextMarkedId(int id) {
+        if (isSparse()) {
+            int index = Arrays.binarySearch(sparseIds, 0, sparseSize, id);
+            if (index < 0) {
+                index = -(index + 1);
+            }
+            return index < sparseSize ? sparseIds[index] : -1;
+        }
+        return bitMap.nextSetBit(id);
+    }
+
     public void setUnion(NodeBitMap other) {
-        bitMap.or(other.bitMap);
+        if (other.isSparse()) {
+            for (int i = 0; i < other.sparseSize; i++) {
+                set(other.sparseIds[i]);
+            }
+        } else {
+            densify();
+            bitMap.or(other.bitMap);
+        }
     }
 
     public void negate() {
         grow();
+        densify();
         bitMap.flip(0, nodeCount);
     }
 
@@ -70,7 +176,7 @@ public final class NodeBitMap extends AbstractNodeIterable<Node> {
     }
 
     public boolean isMarked(Node node) {
-        return bitMap.get(node.id());
+        return get(node.id());
     }
 
     public boolean isNew(Node node) {
@@ -82,7 +188,7 @@ public final class NodeBitMap extends AbstractNodeIterable<Node> {
             grow();
         }
         assert check(node);
-        bitMap.set(node.id());
+        set(node.id());
     }
 
     public void clear(Node node) {
@@ -90,16 +196,34 @@ public final class NodeBitMap extends AbstractNodeIterable<Node> {
             return;
         }
         assert check(node);
-        bitMap.clear(node.id());
+        clear(node.id());
     }
 
     public void clearAll() {
-        bitMap.clear();
+        bitMap = null;
+        sparseIds = NO_IDS;
+        sparseSize = 0;
     }
 
     public void intersect(NodeBitMap other) {
         assert graph == other.graph;
-        bitMap.and(other.bitMap);
+        if (isSparse() || other.isSparse()) {
+            // the result is a subset of the ids of a sparse operand
+            NodeBitMap sparse = isSparse() ? this : other;
+            NodeBitMap filter = sparse == this ? other : this;
+            int[] ids = sparse == this ? sparseIds : Arrays.copyOf(other.sparseIds, other.sparseSize);
+            int size = 0;
+            for (int i = 0; i < sparse.sparseSize; i++) {
+                if (filter.get(ids[i])) {
+                    ids[size++] = ids[i];
+                }
+            }
+            bitMap = null;
+            sparseIds = ids;
+            sparseSize = size;
+        } else {
+            bitMap.and(other.bitMap);
+        }
     }
 
     public void grow(Node node) {
@@ -123,30 +247,31 @@ public final class NodeBitMap extends AbstractNodeIterable<Node> {
         }
     }
 
+    /**
+     * Iterates over the live marked nodes in id order by looking up the next marked id after the
+     * last returned one, so marking or clearing nodes during the iteration is allowed.
+     */
     private static class MarkedNodeIterator implements Iterator<Node> {
 
         private final NodeBitMap visited;
-        private Iterator<Node> nodes;
+        private int nextId;
         private Node nextNode;
 
-        public MarkedNodeIterator(NodeBitMap visited, Iterator<Node> nodes) {
+        public MarkedNodeIterator(NodeBitMap visited) {
             this.visited = visited;
-            this.nodes = nodes;
             forward();
         }
 
         private void forward() {
-            do {
-                if (!nodes.hasNext()) {
-                    nextNode = null;
+            nextNode = null;
+            while (nextNode == null) {
+                int id = visited.nextMarkedId(nextId);
+                if (id < 0 || id >= visited.nodeCount || id >= visited.graph.nodeIdCount()) {
                     return;
                 }
-                nextNode = nodes.next();
-                if (visited.isNew(nextNode)) {
-                    nextNode = null;
-                    return;
-                }
-            } while (!visited.isMarked(nextNode));
+                nextNode = visited.graph.getNode(id);
+                nextId = id + 1;
+            }
         }
 
         @Override
@@ -172,15 +297,18 @@ public final class NodeBitMap extends AbstractNodeIterable<Node> {
 
     @Override
     public Iterator<Node> iterator() {
-        return new MarkedNodeIterator(NodeBitMap.this, graph().getNodes().iterator());
+        return new MarkedNodeIterator(NodeBitMap.this);
     }
 
     public int cardinality() {
-        return bitMap.cardinality();
+        return isSparse() ? sparseSize : bitMap.cardinality();
     }
 
     public NodeBitMap copy() {
-        return new NodeBitMap(graph, autoGrow, nodeCount, (BitSet) bitMap.clone());
+        if (isSparse()) {
+            return new NodeBitMap(graph, autoGrow, nodeCount, Arrays.copyOf(sparseIds, sparseSize), sparseSize, null);
+        }
+        return new NodeBitMap(graph, autoGrow, nodeCount, NO_IDS, 0, (BitSet) bitMap.clone());
     }
 
     @Override
@@ -190,7 +318,7 @@ public final class NodeBitMap extends AbstractNodeIterable<Node> {
 
     @Override
     public int count() {
-        return bitMap.cardinality();
+        return cardinality();
     }
 
     @Override
@@ -63,6 +63,12 @@ public class NodeClass extends FieldIntrospection {
     private static final Class<?> INPUT_LIST_CLASS = NodeInputList.class;
     private static final Class<?> SUCCESSOR_LIST_CLASS = NodeSuccessorList.class;
 
+    /**
+     * Allows the {@linkplain NodeAccessor generated accessors} to be disabled, e.g., to compare
+     * them against the generic offset based implementation.
+     */
+    private static final boolean USE_GENERATED_ACCESSORS = !Boolean.getBoolean("graal.disableGeneratedNodeAccessors");
+
     private static int nextIterableId = 0;
 
     private final int directInputCount;
@@ -76,6 +82,7 @@ public class NodeClass extends FieldIntrospection {
     private final String nameTemplate;
     private final int iterableId;
     private int[] iterableIds;
+    private NodeAccessor accessor;
 
     public NodeClass(Class<?> clazz) {
         super(clazz);
@@ -100,6 +107,10 @@ public class NodeClass extends FieldIntrospection {
 
         canGVN = Node.ValueNumberable.class.isAssignableFrom(clazz);
         startGVNNumber = clazz.hashCode();
+        accessor = USE_GENERATED_ACCESSORS ? NodeAccessor.lookup(clazz) : null;
+        if (accessor != null) {
+            accessor.verify(clazz, inputOffsets, directInputCount, successorOffsets, directSuccessorCount, dataOffsets, dataTypes);
+        }
 
         String newShortName = clazz.getSimpleName();
         if (newShortName.endsWith("Node") && !newShortName.equals("StartNode") && !newShortName.equals("EndNode")) {
@@ -145,6 +156,10 @@ public class NodeClass extends FieldIntrospection {
 
     @Override
     protected void rescanFieldOffsets(CalcOffset calc) {
+        if (!(calc instanceof DefaultCalcOffset)) {
+            // the generated accessors use the default field offsets
+            accessor = null;
+        }
         FieldScanner scanner = new FieldScanner(calc);
         scanner.scan(clazz);
         assert directInputCount == scanner.inputOffsets.size();
@@ -330,10 +345,12 @@ public class NodeClass extends FieldIntrospection {
     }
 
     private static void putNode(Node node, long offset, Node value) {
+        node.recordChange();
         unsafe.putObject(node, offset, value);
     }
 
     private static void putNodeList(Node node, long offset, NodeList value) {
+        node.recordChange();
         unsafe.putObject(node, offset, value);
     }
 
@@ -449,6 +466,15 @@ public class NodeClass extends FieldIntrospection {
     }
 
     public int valueNumber(Node n) {
+        if (canGVN && accessor != null) {
+            int number = accessor.valueNumber(startGVNNumber, n);
+            assert number == computeValueNumber(n) : "generated accessor of " + clazz + " computes a different value number";
+            return number;
+        }
+        return computeValueNumber(n);
+    }
+
+    private int computeValueNumber(Node n) {
         int number = 0;
         if (canGVN) {
             number = startGVNNumber;
@@ -516,6 +542,9 @@ public class NodeClass extends FieldIntrospection {
         if (!canGVN || a.getNodeClass() != b.getNodeClass()) {
             return a == b;
         }
+        if (accessor != null) {
+            return accessor.valueEqual(a, b);
+        }
         for (int i = 0; i < dataOffsets.length; ++i) {
             Class<?> type = dataTypes[i];
             if (type.isPrimitive()) {
@@ -592,6 +621,7 @@ public class NodeClass extends FieldIntrospection {
     }
 
     public void set(Node node, Position pos, Node x) {
+        node.recordChange();
         long offset = pos.input ? inputOffsets[pos.index] : successorOffsets[pos.index];
         if (pos.subIndex == NOT_ITERABLE) {
             Node old = getNode(node, offset);
@@ -648,6 +678,7 @@ public class NodeClass extends FieldIntrospection {
     }
 
     public boolean replaceFirstInput(Node node, Node old, Node other) {
+        node.recordChange();
         int index = 0;
         while (index < directInputCount) {
             Node input = getNode(node, inputOffsets[index]);
@@ -671,6 +702,7 @@ public class NodeClass extends FieldIntrospection {
     }
 
     public boolean replaceFirstSuccessor(Node node, Node old, Node other) {
+        node.recordChange();
         int index = 0;
         while (index < directSuccessorCount) {
             Node successor = getNode(node, successorOffsets[index]);
@@ -777,12 +809,89 @@ public class NodeClass extends FieldIntrospection {
         }
     }
 
+    /**
+     * Saves the contents of the input and successor lists of the given node.
+     * 
+     * @return the contents of the lists (inputs first), or null if the node has no edge lists
+     */
+    Node[][] saveEdgeLists(Node node) {
+        int listCount = (inputOffsets.length - directInputCount) + (successorOffsets.length - directSuccessorCount);
+        if (listCount == 0) {
+            return null;
+        }
+        Node[][] result = new Node[listCount][];
+        int i = 0;
+        for (int index = directInputCount; index < inputOffsets.length; index++) {
+            result[i++] = getNodeList(node, inputOffsets[index]).saveNodes();
+        }
+        for (int index = directSuccessorCount; index < successorOffsets.length; index++) {
+            result[i++] = getNodeList(node, successorOffsets[index]).saveNodes();
+        }
+        return result;
+    }
+
+    /**
+     * Restores the edges and data fields of a node from a shallow copy taken earlier and the list
+     * contents {@linkplain #saveEdgeLists(Node) saved} at the same time.
+     */
+    void restoreState(Node node, Node copy, Node[][] edgeLists) {
+        int i = 0;
+        for (int index = 0; index < inputOffsets.length; index++) {
+            if (index < directInputCount) {
+                putNode(node, inputOffsets[index], getNode(copy, inputOffsets[index]));
+            } else {
+                NodeList<Node> list = getNodeList(copy, inputOffsets[index]);
+                list.restoreNodes(edgeLists[i++]);
+                putNodeList(node, inputOffsets[index], list);
+            }
+        }
+        for (int index = 0; index < successorOffsets.length; index++) {
+            if (index < directSuccessorCount) {
+                putNode(node, successorOffsets[index], getNode(copy, successorOffsets[index]));
+            } else {
+                NodeList<Node> list = getNodeList(copy, successorOffsets[index]);
+                list.restoreNodes(edgeLists[i++]);
+                putNodeList(node, successorOffsets[index], list);
+            }
+        }
+        for (int index = 0; index < dataOffsets.length; index++) {
+            long offset = dataOffsets[index];
+            Class<?> type = dataTypes[index];
+            if (type.isPrimitive()) {
+                if (type == Integer.TYPE) {
+                    unsafe.putInt(node, offset, unsafe.getInt(copy, offset));
+                } else if (type == Long.TYPE) {
+                    unsafe.putLong(node, offset, unsafe.getLong(copy, offset));
+                } else if (type == Boolean.TYPE) {
+                    unsafe.putBoolean(node, offset, unsafe.getBoolean(copy, offset));
+                } else if (type == Double.TYPE) {
+                    unsafe.putDouble(node, offset, unsafe.getDouble(copy, offset));
+                } else if (type == Float.TYPE) {
+                    unsafe.putFloat(node, offset, unsafe.getFloat(copy, offset));
+                } else if (type == Byte.TYPE) {
+                    unsafe.putByte(node, offset, unsafe.getByte(copy, offset));
+                } else if (type == Short.TYPE) {
+                    unsafe.putShort(node, offset, unsafe.getShort(copy, offset));
+                } else if (type == Character.TYPE) {
+                    unsafe.putChar(node, offset, unsafe.getChar(copy, offset));
+                } else {
+                    assert false : "unhandled property type: " + type;
+                }
+            } else {
+                unsafe.putObject(node, offset, unsafe.getObject(copy, offset));
+            }
+        }
+    }
+
     public boolean edgesEqual(Node node, Node other) {
         return inputsEqual(node, other) && successorsEqual(node, other);
     }
 
     public boolean inputsEqual(Node node, Node other) {
         assert node.getClass() == clazz && other.getClass() == clazz;
+        if (accessor != null) {
+            return accessor.inputsEqual(node, other);
+        }
         int index = 0;
         while (index < directInputCount) {
             if (getNode(other, inputOffsets[index]) != getNode(node, inputOffsets[index])) {
@@ -802,6 +911,9 @@ public class NodeClass extends FieldIntrospection {
 
     public boolean successorsEqual(Node node, Node other) {
         assert node.getClass() == clazz && other.getClass() == clazz;
+        if (accessor != null) {
+            return accessor.successorsEqual(node, other);
+        }
         int index = 0;
         while (index < directSuccessorCount) {
             if (getNode(other, successorOffsets[index]) != getNode(node, successorOffsets[index])) {
@@ -821,6 +933,9 @@ public class NodeClass extends FieldIntrospection {
 
     public boolean inputContains(Node node, Node other) {
         assert node.getClass() == clazz;
+        if (accessor != null) {
+            return accessor.inputContains(node, other);
+        }
 
         int index = 0;
         while (index < directInputCount) {
@@ -841,6 +956,9 @@ public class NodeClass extends FieldIntrospection {
 
     public boolean successorContains(Node node, Node other) {
         assert node.getClass() == clazz;
+        if (accessor != null) {
+            return accessor.successorContains(node, other);
+        }
 
         int index = 0;
         while (index < directSuccessorCount) {
@@ -888,12 +1006,17 @@ public class NodeClass extends FieldIntrospection {
     }
 
     static Map<Node, Node> addGraphDuplicate(Graph graph, Iterable<Node> nodes, DuplicationReplacement replacements) {
-        Map<Node, Node> newNodes = new IdentityHashMap<>();
-        Map<Node, Node> replacementsMap = new IdentityHashMap<>();
+        NodeNodeMap newNodes = null;
+        NodeNodeMap replacementsMap = null;
         // create node duplicates
         for (Node node : nodes) {
             if (node != null) {
                 assert !node.isDeleted() : "trying to duplicate deleted node: " + node;
+                if (newNodes == null) {
+                    newNodes = new NodeNodeMap(node.graph());
+                    replacementsMap = new NodeNodeMap(node.graph());
+                }
+                assert node.graph() == newNodes.graph() : "all duplicated nodes must come from the same graph: " + node;
                 Node replacement = replacements.replacement(node);
                 if (replacement != node) {
                     assert replacement != null;
@@ -905,6 +1028,9 @@ public class NodeClass extends FieldIntrospection {
                 }
             }
         }
+        if (newNodes == null) {
+            return new NodeNodeMap(graph);
+        }
         // re-wire inputs
         for (Entry<Node, Node> entry : newNodes.entrySet()) {
             Node oldNode = entry.getKey();
@@ -203,6 +203,16 @@ public abstract class NodeList<T extends Node> extends AbstractList<T> implement
         return oldValue;
     }
 
+    Node[] saveNodes() {
+        return size == 0 ? EMPTY_NODE_ARRAY : Arrays.copyOf(nodes, size);
+    }
+
+    void restoreNodes(Node[] saved) {
+        incModCount();
+        nodes = saved;
+        size = saved.length;
+    }
+
     boolean replaceFirst(Node node, Node other) {
         for (int i = 0; i < size; i++) {
             if (nodes[i] == node) {
@@ -0,0 +1,186 @@
+/*
+ * Copyright (c) 2013, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.graph;
+
+import java.util.*;
+
+/**
+ * A map from the nodes of one graph to arbitrary nodes. It is backed by arrays indexed by
+ * {@link Node#id()} of the keys and is therefore much cheaper to create and query than an
+ * {@link IdentityHashMap} when a large fraction of a graph is used as keys, as is the case when
+ * {@linkplain Graph#addDuplicates duplicating} graphs.
+ * 
+ * Only nodes of the graph this map was created for can be used as keys. Querying the map with any
+ * other node (or a node that was added to the graph after the map was created) simply yields
+ * {@code null}. Null values are not supported.
+ */
+public final class NodeNodeMap extends AbstractMap<Node, Node> {
+
+    private final Graph graph;
+    private Node[] keys;
+    private Node[] values;
+    private int size;
+
+    public NodeNodeMap(Graph graph) {
+        this.graph = graph;
+        this.keys = new Node[graph.nodeIdCount()];
+        this.values = new Node[graph.nodeIdCount()];
+    }
+
+    public Graph graph() {
+        return graph;
+    }
+
+    private int indexOf(Object key) {
+        if (key instanceof Node) {
+            Node node = (Node) key;
+            if (node.graph() == graph) {
+                int id = node.id();
+                if (id >= 0 && id < keys.length && keys[id] == node) {
+                    return id;
+                }
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public Node get(Object key) {
+        int index = indexOf(key);
+        return index < 0 ? null : values[index];
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return indexOf(key) >= 0;
+    }
+
+    @Override
+    public Node put(Node key, Node value) {
+        assert value != null : "null values are not supported";
+        assert key.graph() == graph : "this node is not part of the graph";
+        int id = key.id();
+        if (id >= keys.length) {
+            int newLength = Math.max(id + 1, graph.nodeIdCount());
+            keys = Arrays.copyOf(keys, newLength);
+            values = Arrays.copyOf(values, newLength);
+        }
+        Node old = values[id];
+        if (old == null) {
+            size++;
+        }
+        keys[id] = key;
+        values[id] = value;
+        return old;
+    }
+
+    @Override
+    public Node remove(Object key) {
+        int index = indexOf(key);
+        if (index < 0) {
+            return null;
+        }
+        Node old = values[index];
+        keys[index] = null;
+        values[index] = null;
+        size--;
+        return old;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(keys, null);
+        Arrays.fill(values, null);
+        size = 0;
+    }
+
+    @Override
+    public Set<Entry<Node, Node>> entrySet() {
+        return new AbstractSet<Entry<Node, Node>>() {
+
+            @Override
+            public Iterator<Entry<Node, Node>> iterator() {
+                return new Iterator<Entry<Node, Node>>() {
+
+                    private int index = forward(0);
+                    private int last = -1;
+
+                    private int forward(int start) {
+                        int i = start;
+                        while (i < keys.length && keys[i] == null) {
+                            i++;
+                        }
+                        return i;
+                    }
+
+                    @Override
+                    public boolean hasNext() {
+                        return index < keys.length;
+                    }
+
+                    @Override
+                    public Entry<Node, Node> next() {
+                        if (index >= keys.length) {
+                            throw new NoSuchElementException();
+                        }
+                        final int pos = index;
+                        last = pos;
+                        index = forward(pos + 1);
+                        return new SimpleEntry<Node, Node>(keys[pos], values[pos]) {
+
+                            private static final long serialVersionUID = -2851469390262962853L;
+
+                            @Override
+                            public Node setValue(Node v) {
+                                assert v != null : "null values are not supported";
+                                Node oldv = super.setValue(v);
+                                values[pos] = v;
+                                return oldv;
+                            }
+                        };
+                    }
+
+                    @Override
+                    public void remove() {
+                        if (last < 0 || keys[last] == null) {
+                            throw new IllegalStateException();
+                        }
+                        keys[last] = null;
+                        values[last] = null;
+                        size--;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+}
@@ -26,56 +26,51 @@ import java.util.*;
 
 import com.oracle.graal.graph.iterators.*;
 
+/**
+ * A view of the usages of a {@link Node}. The usages are stored in the node itself, so this object
+ * only needs to be allocated when the usages are first queried; the node then keeps it for
+ * subsequent calls to {@link Node#usages()}.
+ */
 public final class NodeUsagesList extends AbstractNodeIterable<Node> {
 
-    protected static final Node[] EMPTY_NODE_ARRAY = new Node[0];
-
-    protected Node[] nodes = EMPTY_NODE_ARRAY;
-    private int size;
-    private int modCount;
+    private final Node node;
 
-    NodeUsagesList() {
-        this.size = 0;
-        this.nodes = EMPTY_NODE_ARRAY;
-    }
-
-    NodeUsagesList(Node[] nodes) {
-        this.size = nodes.length;
-        this.nodes = nodes;
+    NodeUsagesList(Node node) {
+        this.node = node;
     }
 
     @Override
     public boolean isEmpty() {
-        return size == 0;
+        return node.getUsageCount() == 0;
     }
 
     @Override
     public boolean isNotEmpty() {
-        return size > 0;
+        return node.getUsageCount() > 0;
     }
 
     @Override
     public int count() {
-        return size;
+        return node.getUsageCount();
     }
 
     @Override
     public Iterator<Node> iterator() {
         return new Iterator<Node>() {
 
-            private final int expectedModCount = NodeUsagesList.this.modCount;
+            private final int expectedModCount = node.usageModCount();
             private int index = 0;
 
             @Override
             public boolean hasNext() {
-                assert expectedModCount == NodeUsagesList.this.modCount;
-                return index < NodeUsagesList.this.size;
+                assert expectedModCount == node.usageModCount();
+                return index < node.getUsageCount();
             }
 
             @Override
             public Node next() {
-                assert expectedModCount == NodeUsagesList.this.modCount;
-                return NodeUsagesList.this.nodes[index++];
+                assert expectedModCount == node.usageModCount();
+                return node.getUsageAt(index++);
             }
 
             @Override
@@ -87,8 +82,9 @@ public final class NodeUsagesList extends AbstractNodeIterable<Node> {
 
     @Override
     public boolean contains(Node other) {
+        int size = node.getUsageCount();
         for (int i = 0; i < size; i++) {
-            if (nodes[i] == other) {
+            if (node.getUsageAt(i) == other) {
                 return true;
             }
         }
@@ -97,65 +93,24 @@ public final class NodeUsagesList extends AbstractNodeIterable<Node> {
 
     @Override
     public List<Node> snapshot() {
-        return Arrays.asList(Arrays.copyOf(NodeUsagesList.this.nodes, NodeUsagesList.this.size));
-    }
-
-    private void incModCount() {
-        modCount++;
-    }
-
-    boolean add(Node node) {
-        incModCount();
-        if (size == nodes.length) {
-            nodes = Arrays.copyOf(nodes, nodes.length * 2 + 1);
-        }
-        nodes[size++] = node;
-        return true;
-    }
-
-    void copyAndClear(NodeUsagesList other) {
-        incModCount();
-        other.incModCount();
-        nodes = other.nodes;
-        size = other.size;
-        nodes = EMPTY_NODE_ARRAY;
-        size = 0;
-    }
-
-    void clear() {
-        incModCount();
-        nodes = EMPTY_NODE_ARRAY;
-        size = 0;
-    }
-
-    boolean remove(Node node) {
-        int i = 0;
-        incModCount();
-        while (i < size && nodes[i] != node) {
-            i++;
-        }
-        if (i < size) {
-            i++;
-            while (i < size) {
-                nodes[i - 1] = nodes[i];
-                i++;
-            }
-            nodes[--size] = null;
-            return true;
-        } else {
-            return false;
+        int size = node.getUsageCount();
+        Node[] result = new Node[size];
+        for (int i = 0; i < size; i++) {
+            result[i] = node.getUsageAt(i);
         }
+        return Arrays.asList(result);
     }
 
     @Override
     public String toString() {
         StringBuilder str = new StringBuilder();
         str.append('[');
+        int size = node.getUsageCount();
         for (int i = 0; i < size; i++) {
             if (i > 0) {
                 str.append(", ");
             }
-            str.append(nodes[i]);
+            str.append(node.getUsageAt(i));
         }
         str.append(']');
         return str.toString();
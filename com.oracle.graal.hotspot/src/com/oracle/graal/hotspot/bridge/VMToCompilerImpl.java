@@ -483,6 +483,9 @@ public class VMToCompilerImpl implements VMToCompiler {
         if (GenericDynamicCounters.getValue()) {
             DynamicCounterNode.dump(System.out, (System.nanoTime() - compilerStartTime) / 1000000000d);
         }
+        if (PhaseProfiler.isEnabled()) {
+            PhaseProfiler.export();
+        }
     }
 
     private void flattenChildren(DebugValueMap map, DebugValueMap globalMap) {
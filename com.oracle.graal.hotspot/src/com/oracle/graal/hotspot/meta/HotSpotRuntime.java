@@ -633,6 +633,18 @@ public abstract class HotSpotRuntime implements GraalCodeCacheProvider, Disassem
             memoryWrite.setStateAfter(storeIndexed.stateAfter());
             graph.replaceFixedWithFixed(storeIndexed, memoryWrite);
 
+        } else if (n instanceof VectorLoadIndexedNode) {
+            VectorLoadIndexedNode loadIndexed = (VectorLoadIndexedNode) n;
+            // the creator of the node guarantees that the access is within the array
+            LocationNode arrayLocation = createArrayLocation(graph, loadIndexed.elementKind(), loadIndexed.index());
+            VectorReadNode memoryRead = graph.add(new VectorReadNode(loadIndexed.array(), arrayLocation, loadIndexed.stamp()));
+            graph.replaceFixedWithFixed(loadIndexed, memoryRead);
+        } else if (n instanceof VectorStoreIndexedNode) {
+            VectorStoreIndexedNode storeIndexed = (VectorStoreIndexedNode) n;
+            LocationNode arrayLocation = createArrayLocation(graph, storeIndexed.elementKind(), storeIndexed.index());
+            VectorWriteNode memoryWrite = graph.add(new VectorWriteNode(storeIndexed.array(), storeIndexed.value(), arrayLocation));
+            memoryWrite.setStateAfter(storeIndexed.stateAfter());
+            graph.replaceFixedWithFixed(storeIndexed, memoryWrite);
         } else if (n instanceof UnsafeLoadNode) {
             UnsafeLoadNode load = (UnsafeLoadNode) n;
             assert load.kind() != Kind.Illegal;
@@ -1114,6 +1126,9 @@ public abstract class HotSpotRuntime implements GraalCodeCacheProvider, Disassem
                 return config.deoptReasonConstraint;
             case LoopLimitCheck:
                 return config.deoptReasonLoopLimitCheck;
+            case LoopInvariantCheck:
+                // the VM has no reason of its own for hoisted checks yet
+                return config.deoptReasonConstraint;
             default:
                 throw GraalInternalError.shouldNotReachHere();
         }
@@ -0,0 +1,312 @@
+/*
+ * Copyright (c) 2013, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.jtt;
+
+import static com.oracle.graal.api.code.CodeUtil.*;
+import static com.oracle.graal.api.code.ValueUtil.*;
+import static com.oracle.graal.lir.LIRValueUtil.*;
+import static com.oracle.graal.phases.GraalOptions.*;
+
+import java.lang.reflect.*;
+import java.util.*;
+
+import org.junit.*;
+
+import com.oracle.graal.api.code.*;
+import com.oracle.graal.api.code.CallingConvention.Type;
+import com.oracle.graal.api.meta.*;
+import com.oracle.graal.compiler.*;
+import com.oracle.graal.compiler.alloc.*;
+import com.oracle.graal.compiler.gen.*;
+import com.oracle.graal.compiler.test.*;
+import com.oracle.graal.jtt.hotpath.*;
+import com.oracle.graal.jtt.micro.*;
+import com.oracle.graal.lir.*;
+import com.oracle.graal.lir.LIRInstruction.OperandFlag;
+import com.oracle.graal.lir.LIRInstruction.OperandMode;
+import com.oracle.graal.lir.LIRInstruction.ValueProcedure;
+import com.oracle.graal.nodes.*;
+import com.oracle.graal.nodes.cfg.*;
+import com.oracle.graal.phases.*;
+
+/**
+ * Runs JTT methods with {@link GraalOptions#LocalRegisterAllocation} enabled. Before running a
+ * method, the registers assigned by the {@link LocalRegisterAllocator} are checked against the LIR
+ * as it was before the assignment: a locally allocated value must be confined to one block, its
+ * register must not be live as a fixed operand or used by another local value during its lifetime,
+ * its lifetime must not span a call, and an object value must not be live at an instruction with a
+ * state.
+ */
+public class LocalRegisterAllocationTest extends GraalCompilerTest {
+
+    /**
+     * An operand of an instruction before the local allocation.
+     */
+    private static final class Operand {
+
+        final Value value;
+        final OperandMode mode;
+
+        Operand(Value value, OperandMode mode) {
+            this.value = value;
+            this.mode = mode;
+        }
+    }
+
+    /**
+     * The lifetime of a locally allocated value within its block.
+     */
+    private static final class Local {
+
+        final Variable variable;
+        final Register register;
+        final Block block;
+        final int first;
+        int last;
+
+        Local(Variable variable, Register register, Block block, int position) {
+            this.variable = variable;
+            this.register = register;
+            this.block = block;
+            this.first = position;
+            this.last = position;
+        }
+
+        boolean overlaps(int from, int to) {
+            return from <= last && first <= to;
+        }
+
+        @Override
+        public String toString() {
+            return variable + " in " + register + " at [" + first + ", " + last + "] of " + block;
+        }
+    }
+
+    @Override
+    protected InstalledCode getCode(ResolvedJavaMethod method, StructuredGraph graph) {
+        return super.getCode(method, graph, true);
+    }
+
+    @Test
+    public void testLife() {
+        Assert.assertTrue(test(HP_life.class, 5) > 0);
+    }
+
+    @Test
+    public void testNest() {
+        test(HP_nest02.class, 15);
+    }
+
+    @Test
+    public void testMatrix() {
+        Assert.assertTrue(test(Matrix01.class, 0) > 0);
+        test(Matrix01.class, 2);
+    }
+
+    @Test
+    public void testBubblesort() {
+        test(Bubblesort.class, 1);
+    }
+
+    @Test
+    public void testInvokeVirtual() {
+        test(InvokeVirtual_02.class, 1L);
+    }
+
+    @Test
+    public void testReferenceMap() {
+        test(ReferenceMap01.class);
+    }
+
+    @Test
+    public void testMixedParameters() {
+        test(BigMixedParams02.class, 1, -1, -1, -1, -1, 1f, 2f, 3f, 4f, -1, -1, 5f, 6f, 7f, 8f, 9f);
+    }
+
+    @Test
+    public void testStringFormat() {
+        test(String_format01.class, "World");
+    }
+
+    /**
+     * Checks the local allocation of the {@code test} method of a JTT class and runs it.
+     * 
+     * @return the number of locally allocated values
+     */
+    private int test(Class<?> holder, Object... args) {
+        Method method = null;
+        for (Method m : holder.getDeclaredMethods()) {
+            if (m.getName().equals("test")) {
+                method = m;
+            }
+        }
+        Assert.assertNotNull(method);
+
+        int allocated = checkLocalAllocation(method);
+        boolean originalSetting = LocalRegisterAllocation.getValue();
+        LocalRegisterAllocation.setValue(true);
+        try {
+            test(method, null, args);
+        } finally {
+            LocalRegisterAllocation.setValue(originalSetting);
+        }
+        return allocated;
+    }
+
+    private int checkLocalAllocation(Method method) {
+        StructuredGraph graph = parse(method);
+        LIR lir = GraalCompiler.emitHIR(runtime, backend.target, graph, replacements, new Assumptions(OptAssumptions.getValue()), null, new PhasePlan(), OptimisticOptimizations.ALL,
+                        new SpeculationLog(), suites);
+        CallingConvention cc = getCallingConvention(runtime, Type.JavaCallee, graph.method(), false);
+        LIRGenerator lirGen = GraalCompiler.emitLIRInstructions(backend, lir, graph, cc);
+
+        Map<Block, List<List<Operand>>> before = new HashMap<>();
+        Map<Variable, Set<Block>> variableBlocks = new HashMap<>();
+        for (Block block : lir.linearScanOrder()) {
+            List<List<Operand>> operands = operands(lir.lir(block));
+            before.put(block, operands);
+            for (List<Operand> instructionOperands : operands) {
+                for (Operand operand : instructionOperands) {
+                    Value value = operand.value;
+                    if (isVariable(value)) {
+                        if (!variableBlocks.containsKey(value)) {
+                            variableBlocks.put(asVariable(value), new HashSet<Block>());
+                        }
+                        variableBlocks.get(value).add(block);
+                    }
+                }
+            }
+        }
+
+        int allocated = new LocalRegisterAllocator(backend.target, lir, lirGen, lirGen.frameMap).allocateLocalVariables();
+
+        int checked = 0;
+        for (Block block : lir.linearScanOrder()) {
+            List<LIRInstruction> instructions = lir.lir(block);
+            List<List<Operand>> operandsBefore = before.get(block);
+            List<List<Operand>> operandsAfter = operands(instructions);
+            Map<Variable, Local> locals = new HashMap<>();
+            for (int position = 0; position < instructions.size(); position++) {
+                List<Operand> instructionBefore = operandsBefore.get(position);
+                List<Operand> instructionAfter = operandsAfter.get(position);
+                Assert.assertEquals(instructionBefore.size(), instructionAfter.size());
+                for (int i = 0; i < instructionBefore.size(); i++) {
+                    Value value = instructionBefore.get(i).value;
+                    Value assigned = instructionAfter.get(i).value;
+                    if (isVariable(value) && isRegister(assigned)) {
+                        Variable variable = asVariable(value);
+                        Register register = asRegister(assigned);
+                        Local local = locals.get(variable);
+                        if (local == null) {
+                            Assert.assertEquals(variable + " is not local to " + block, Collections.singleton(block), variableBlocks.get(variable));
+                            locals.put(variable, new Local(variable, register, block, position));
+                        } else {
+                            Assert.assertEquals(register, local.register);
+                            local.last = position;
+                        }
+                    }
+                }
+            }
+            checkLocals(instructions, operandsBefore, locals.values());
+            checked += locals.size();
+        }
+        Assert.assertEquals(allocated, checked);
+        return allocated;
+    }
+
+    private static void checkLocals(List<LIRInstruction> instructions, List<List<Operand>> operandsBefore, Collection<Local> locals) {
+        Map<Register, BitSet> fixedRanges = fixedRanges(operandsBefore);
+        for (Local local : locals) {
+            for (int position = local.first; position <= local.last; position++) {
+                LIRInstruction op = instructions.get(position);
+                Assert.assertFalse(local + " is live across the call " + op, op.destroysCallerSavedRegisters());
+                if (local.variable.getPlatformKind() == Kind.Object) {
+                    Assert.assertFalse(local + " is live at the state of " + op, op.hasState());
+                }
+            }
+            BitSet fixed = fixedRanges.get(local.register);
+            if (fixed != null) {
+                int position = fixed.nextSetBit(local.first);
+                Assert.assertTrue(local + " overlaps a fixed use of its register at " + position, position == -1 || position > local.last);
+            }
+            for (Local other : locals) {
+                if (other != local && other.register.equals(local.register)) {
+                    Assert.assertFalse(local + " overlaps " + other, local.overlaps(other.first, other.last));
+                }
+            }
+        }
+    }
+
+    /**
+     * Computes the positions at which each register is live as a fixed operand of the LIR before
+     * the local allocation, i.e. from each definition of the register to its last use. A register
+     * used before it is defined is live from the start of the block.
+     */
+    private static Map<Register, BitSet> fixedRanges(List<List<Operand>> operands) {
+        Map<Register, BitSet> ranges = new HashMap<>();
+        Map<Register, Integer> definitions = new HashMap<>();
+        for (int position = 0; position < operands.size(); position++) {
+            for (Operand operand : operands.get(position)) {
+                if (isRegister(operand.value)) {
+                    Register register = asRegister(operand.value);
+                    if (!ranges.containsKey(register)) {
+                        ranges.put(register, new BitSet());
+                    }
+                    if (operand.mode == OperandMode.DEF || operand.mode == OperandMode.TEMP) {
+                        definitions.put(register, position);
+                        ranges.get(register).set(position);
+                    } else {
+                        Integer definition = definitions.get(register);
+                        ranges.get(register).set(definition == null ? 0 : definition, position + 1);
+                    }
+                }
+            }
+        }
+        return ranges;
+    }
+
+    private static List<List<Operand>> operands(List<LIRInstruction> instructions) {
+        List<List<Operand>> result = new ArrayList<>();
+        for (LIRInstruction op : instructions) {
+            final List<Operand> operands = new ArrayList<>();
+            forEachOperand(op, new ValueProcedure() {
+
+                @Override
+                public Value doValue(Value value, OperandMode mode, EnumSet<OperandFlag> flags) {
+                    operands.add(new Operand(value, mode));
+                    return value;
+                }
+            });
+            result.add(operands);
+        }
+        return result;
+    }
+
+    private static void forEachOperand(LIRInstruction op, ValueProcedure proc) {
+        op.forEachInput(proc);
+        op.forEachAlive(proc);
+        op.forEachState(proc);
+        op.forEachTemp(proc);
+        op.forEachOutput(proc);
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2013, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.jtt.loop;
+
+import com.oracle.graal.jtt.*;
+import org.junit.*;
+
+/*
+ * Tests loops with invariant field loads, array lengths and type checks, including loops that are
+ * not entered with a null object.
+ */
+public class LoopInvariants extends JTTTest {
+
+    static class Holder {
+
+        int value;
+        int[] array;
+
+        Holder(int value, int[] array) {
+            this.value = value;
+            this.array = array;
+        }
+    }
+
+    public static int test(Holder holder, int count) {
+        int sum = 0;
+        for (int i = 0; i < count; i++) {
+            sum += holder.value + holder.array.length;
+        }
+        return sum;
+    }
+
+    public static int testStore(Holder holder, int count) {
+        int sum = 0;
+        for (int i = 0; i < count; i++) {
+            sum += holder.value;
+            holder.value = i;
+        }
+        return sum;
+    }
+
+    public static int testCast(Object object, int count) {
+        int sum = 0;
+        for (int i = 0; i < count; i++) {
+            sum += ((Holder) object).value;
+        }
+        return sum;
+    }
+
+    @Test
+    public void run0() throws Throwable {
+        runTest("test", new Holder(3, new int[7]), 10);
+    }
+
+    @Test
+    public void run1() throws Throwable {
+        runTest("test", null, 0);
+    }
+
+    @Test
+    public void run2() throws Throwable {
+        runTest("test", new Holder(3, null), 0);
+    }
+
+    @Test
+    public void run3() throws Throwable {
+        runTest("testStore", new Holder(5, null), 10);
+    }
+
+    @Test
+    public void run4() throws Throwable {
+        runTest("testCast", new Holder(2, null), 10);
+    }
+
+    @Test
+    public void run5() throws Throwable {
+        runTest("testCast", "string", 0);
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2013, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.jtt.loop;
+
+import com.oracle.graal.jtt.*;
+import org.junit.*;
+
+/*
+ * Tests partially unrolled counted loops with trip counts that are not a multiple of the unrolling factor
+ * and limits close to the integer range boundaries.
+ */
+public class LoopPartialUnroll extends JTTTest {
+
+    public static int test(int start, int limit) {
+        int sum = 0;
+        int i;
+        for (i = start; i < limit; i += 3) {
+            sum = sum * 31 + i;
+        }
+        for (int j = limit; j > start; j -= 2) {
+            sum = sum * 17 + j;
+        }
+        return sum + i;
+    }
+
+    @Test
+    public void run0() throws Throwable {
+        runTest("test", 0, 0);
+    }
+
+    @Test
+    public void run1() throws Throwable {
+        runTest("test", 0, 1);
+    }
+
+    @Test
+    public void run2() throws Throwable {
+        runTest("test", 0, 7);
+    }
+
+    @Test
+    public void run3() throws Throwable {
+        runTest("test", -5, 100);
+    }
+
+    @Test
+    public void run4() throws Throwable {
+        runTest("test", 5, 1000);
+    }
+
+    @Test
+    public void run5() throws Throwable {
+        runTest("test", 10, 3);
+    }
+
+    @Test
+    public void run6() throws Throwable {
+        runTest("test", Integer.MIN_VALUE, Integer.MIN_VALUE + 10);
+    }
+
+    @Test
+    public void run7() throws Throwable {
+        runTest("test", Integer.MAX_VALUE - 20, Integer.MAX_VALUE - 5);
+    }
+}
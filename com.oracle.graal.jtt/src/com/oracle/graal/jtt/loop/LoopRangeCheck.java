@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2013, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.jtt.loop;
+
+import java.util.*;
+
+import org.junit.*;
+
+import com.oracle.graal.api.meta.*;
+import com.oracle.graal.jtt.*;
+
+/*
+ * Tests bounds checks in counted loops that are replaced by a predicate before the loop, with index ranges
+ * that are in bounds, out of bounds at either end and empty.
+ */
+public class LoopRangeCheck extends JTTTest {
+
+    public static int test(int start, int limit, int length) {
+        int[] array = new int[length];
+        for (int i = start; i < limit; i++) {
+            array[i] = i;
+        }
+        int sum = 0;
+        for (int i = start; i < limit / 2; i++) {
+            sum += array[2 * i + 1];
+        }
+        for (int i = limit - 1; i >= start; i--) {
+            sum = sum * 31 + array[i];
+        }
+        return sum;
+    }
+
+    public static int zeroTrip(int[] array, int start, int limit) {
+        int sum = 0;
+        for (int i = start; i < limit; i++) {
+            sum += array[i];
+        }
+        return sum;
+    }
+
+    public static int zeroTripHoistedLength(int[] array, int start, int limit) {
+        int sum = array.length;
+        for (int i = start; i < limit; i++) {
+            sum += array[i];
+        }
+        return sum;
+    }
+
+    /**
+     * A loop that is not entered must not deoptimize, whatever the array it would access.
+     */
+    private static final Set<DeoptimizationReason> ZERO_TRIP_DEOPTS = EnumSet.of(DeoptimizationReason.LoopLimitCheck, DeoptimizationReason.NullCheckException,
+                    DeoptimizationReason.BoundsCheckException);
+
+    @Test
+    public void run0() throws Throwable {
+        runTest("test", 0, 10, 10);
+    }
+
+    @Test
+    public void run1() throws Throwable {
+        runTest("test", 0, 0, 0);
+    }
+
+    @Test
+    public void run2() throws Throwable {
+        runTest("test", 0, 11, 10);
+    }
+
+    @Test
+    public void run3() throws Throwable {
+        runTest("test", -1, 5, 10);
+    }
+
+    @Test
+    public void run4() throws Throwable {
+        runTest("test", 3, 10, 20);
+    }
+
+    @Test
+    public void run5() throws Throwable {
+        runTest("test", 5, 2, 3);
+    }
+
+    @Test
+    public void run6() throws Throwable {
+        runTest("test", Integer.MAX_VALUE - 2, Integer.MAX_VALUE, 10);
+    }
+
+    @Test
+    public void run7() throws Throwable {
+        runTest("test", Integer.MIN_VALUE, Integer.MIN_VALUE + 3, 10);
+    }
+
+    @Test
+    public void run8() throws Throwable {
+        runTest(ZERO_TRIP_DEOPTS, "zeroTrip", null, 0, 0);
+    }
+
+    @Test
+    public void run9() throws Throwable {
+        runTest(ZERO_TRIP_DEOPTS, "zeroTrip", new int[2], 5, 5);
+    }
+
+    @Test
+    public void run10() throws Throwable {
+        runTest(ZERO_TRIP_DEOPTS, "zeroTripHoistedLength", new int[2], 5, 1);
+    }
+
+    @Test
+    public void run11() throws Throwable {
+        runTest(ZERO_TRIP_DEOPTS, "zeroTripHoistedLength", new int[0], 0, 0);
+    }
+
+    @Test
+    public void run12() throws Throwable {
+        runTest("zeroTripHoistedLength", new int[]{1, 2, 3}, 0, 3);
+    }
+}
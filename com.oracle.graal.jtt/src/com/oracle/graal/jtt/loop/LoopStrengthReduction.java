@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2013, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.jtt.loop;
+
+import com.oracle.graal.jtt.*;
+import org.junit.*;
+
+/*
+ * Tests loops using multiples of the loop counter, with limits whose range allows or prevents
+ * rewriting the loop test in terms of the multiples.
+ */
+public class LoopStrengthReduction extends JTTTest {
+
+    public static int test(int start, int limit, int scale) {
+        int sum = 0;
+        for (int i = start; i < limit; i++) {
+            sum += i * scale;
+        }
+        return sum;
+    }
+
+    public static int testMasked(int start, int limit) {
+        int sum = 0;
+        for (int i = start & 0xFFFF; i < (limit & 0xFFFF); i += 2) {
+            sum = sum * 7 + (i + 3) * 12;
+        }
+        return sum;
+    }
+
+    public static int testNegative(int start, int limit) {
+        int sum = 0;
+        for (int i = start & 0xFFF; i > (limit & 0xFFF); i--) {
+            sum = sum * 3 + i * -5;
+        }
+        return sum;
+    }
+
+    public static long testCounterUsed(int length) {
+        long sum = 0;
+        for (int i = 0; i < (length & 0xFFFF); i++) {
+            sum += (long) i * 100000 ^ i;
+        }
+        return sum;
+    }
+
+    @Test
+    public void run0() throws Throwable {
+        runTest("test", 0, 1000, 6);
+    }
+
+    @Test
+    public void run1() throws Throwable {
+        runTest("test", Integer.MAX_VALUE - 100, Integer.MAX_VALUE, 65536);
+    }
+
+    @Test
+    public void run2() throws Throwable {
+        runTest("testMasked", 5, 40000);
+    }
+
+    @Test
+    public void run3() throws Throwable {
+        runTest("testMasked", 100, 3);
+    }
+
+    @Test
+    public void run4() throws Throwable {
+        runTest("testNegative", 4000, 17);
+    }
+
+    @Test
+    public void run5() throws Throwable {
+        runTest("testNegative", -1, 0);
+    }
+
+    @Test
+    public void run6() throws Throwable {
+        runTest("testCounterUsed", 70000);
+    }
+}
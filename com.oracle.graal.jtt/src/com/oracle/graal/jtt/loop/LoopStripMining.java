@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2013, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.jtt.loop;
+
+import com.oracle.graal.jtt.*;
+import org.junit.*;
+
+/*
+ * Tests counted loops that are long enough to be strip mined, counting up and down with different strides
+ * and with limits close to the ends of the int range. Strides so large that a strip would not fit into the int
+ * range prevent strip mining.
+ */
+public class LoopStripMining extends JTTTest {
+
+    public static int test(int start, int limit, int stride) {
+        int sum = 0;
+        int i;
+        for (i = start; i < limit; i += stride) {
+            sum = sum * 31 + i;
+        }
+        return sum + i;
+    }
+
+    public static int testDown(int start, int limit) {
+        int sum = 0;
+        int i;
+        for (i = start; i > limit; i -= 3) {
+            sum = sum * 17 + i;
+        }
+        return sum + i;
+    }
+
+    public static int testLargeStride(int start, int limit) {
+        int sum = 0;
+        int i;
+        for (i = start; i < limit; i += 1 << 20) {
+            sum = sum * 31 + i;
+        }
+        return sum + i;
+    }
+
+    public static int testStripNearRange(int start, int limit) {
+        int sum = 0;
+        int i;
+        for (i = start; i < limit; i += 500000) {
+            sum = sum * 31 + i;
+        }
+        return sum + i;
+    }
+
+    public static long testArray(int length) {
+        long[] array = new long[length];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = i * 3L;
+        }
+        long sum = 0;
+        for (int i = 0; i < array.length; i++) {
+            sum += array[i];
+        }
+        return sum;
+    }
+
+    @Test
+    public void run0() throws Throwable {
+        runTest("test", 0, 100000, 1);
+    }
+
+    @Test
+    public void run1() throws Throwable {
+        runTest("test", -5, 20000, 7);
+    }
+
+    @Test
+    public void run2() throws Throwable {
+        runTest("test", 10, 5, 1);
+    }
+
+    @Test
+    public void run3() throws Throwable {
+        runTest("test", Integer.MAX_VALUE - 10000, Integer.MAX_VALUE, 1);
+    }
+
+    @Test
+    public void run4() throws Throwable {
+        runTest("test", Integer.MIN_VALUE, Integer.MIN_VALUE + 9000, 2);
+    }
+
+    @Test
+    public void run5() throws Throwable {
+        runTest("testDown", 50000, -50000);
+    }
+
+    @Test
+    public void run6() throws Throwable {
+        runTest("testDown", Integer.MIN_VALUE + 20000, Integer.MIN_VALUE + 2);
+    }
+
+    @Test
+    public void run7() throws Throwable {
+        runTest("testArray", 10000);
+    }
+
+    @Test
+    public void run8() throws Throwable {
+        runTest("testArray", 4097);
+    }
+
+    @Test
+    public void run9() throws Throwable {
+        runTest("testLargeStride", Integer.MIN_VALUE, Integer.MAX_VALUE - (1 << 20));
+    }
+
+    @Test
+    public void run10() throws Throwable {
+        runTest("testLargeStride", 0, 10 << 20);
+    }
+
+    @Test
+    public void run11() throws Throwable {
+        runTest("testStripNearRange", Integer.MIN_VALUE, Integer.MAX_VALUE - 500000);
+    }
+
+    @Test
+    public void run12() throws Throwable {
+        runTest("testStripNearRange", Integer.MAX_VALUE - 2000000, Integer.MAX_VALUE - 500000);
+    }
+}
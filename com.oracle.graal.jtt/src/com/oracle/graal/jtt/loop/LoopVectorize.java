@@ -0,0 +1,193 @@
+/*
+ * Copyright (c) 2013, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.jtt.loop;
+
+import java.util.*;
+
+import org.junit.*;
+
+import com.oracle.graal.api.meta.*;
+import com.oracle.graal.jtt.*;
+
+/*
+ * Tests counted loops over arrays that are vectorized, with ranges that are multiples of the vector length,
+ * that leave a remainder for the post loop, that are out of bounds and with null arrays. Loops that are not
+ * entered must not deoptimize in the predicate, even if their arrays are null or too short.
+ */
+public class LoopVectorize extends JTTTest {
+
+    public static int test(int start, int limit, int length) {
+        int[] a = new int[length];
+        int[] b = new int[length];
+        for (int i = 0; i < length; i++) {
+            a[i] = i * 7;
+            b[i] = length - i;
+        }
+        int[] c = new int[length];
+        for (int i = start; i < limit; i++) {
+            c[i] = a[i] * 3 + (b[i] ^ a[i]);
+        }
+        int sum = 0;
+        for (int i = 0; i < length; i++) {
+            sum = sum * 31 + c[i];
+        }
+        return sum;
+    }
+
+    public static float testFloat(int start, int limit, int length, float scale) {
+        float[] a = new float[length];
+        for (int i = 0; i < length; i++) {
+            a[i] = i * 0.5f;
+        }
+        float[] b = new float[length];
+        for (int i = start; i < limit; i++) {
+            b[i] = a[i] * scale - a[i] / 3.0f;
+        }
+        float sum = 0;
+        for (int i = 0; i < length; i++) {
+            sum = sum * 0.75f + b[i];
+        }
+        return sum;
+    }
+
+    public static long update(long[] array, int limit) {
+        for (int i = 0; i < limit; i++) {
+            array[i] = (array[i] + 5) ^ 0x55L;
+        }
+        long sum = 0;
+        for (int i = 0; i < limit; i++) {
+            sum = sum * 31 + array[i];
+        }
+        return sum;
+    }
+
+    public static long testInPlace(int limit) {
+        long[] array = new long[Math.max(limit, 0)];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = i * 1000L;
+        }
+        return update(array, limit);
+    }
+
+    public static double testCopy(double[] src, int length) {
+        double[] dst = new double[length];
+        for (int i = 0; i < length; i++) {
+            dst[i] = src[i];
+        }
+        double sum = 0;
+        for (int i = 0; i < length; i++) {
+            sum = sum * 0.5 + dst[i];
+        }
+        return sum;
+    }
+
+    public static int add(int[] dst, int[] src1, int[] src2, int start, int limit) {
+        for (int i = start; i < limit; i++) {
+            dst[i] = src1[i] + src2[i];
+        }
+        return limit - start;
+    }
+
+    private static final Set<DeoptimizationReason> ZERO_TRIP_DEOPTS = EnumSet.of(DeoptimizationReason.LoopLimitCheck, DeoptimizationReason.NullCheckException,
+                    DeoptimizationReason.BoundsCheckException);
+
+    @Test
+    public void run0() throws Throwable {
+        runTest("test", 0, 64, 64);
+    }
+
+    @Test
+    public void run1() throws Throwable {
+        runTest("test", 3, 62, 64);
+    }
+
+    @Test
+    public void run2() throws Throwable {
+        runTest("test", 0, 0, 0);
+    }
+
+    @Test
+    public void run3() throws Throwable {
+        runTest("test", 0, 65, 64);
+    }
+
+    @Test
+    public void run4() throws Throwable {
+        runTest("test", -1, 10, 64);
+    }
+
+    @Test
+    public void run5() throws Throwable {
+        runTest("testFloat", 0, 101, 101, 1.5f);
+    }
+
+    @Test
+    public void run6() throws Throwable {
+        runTest("testFloat", 5, 4, 10, 2.0f);
+    }
+
+    @Test
+    public void run7() throws Throwable {
+        runTest("testInPlace", 33);
+    }
+
+    @Test
+    public void run8() throws Throwable {
+        runTest("testInPlace", 1);
+    }
+
+    @Test
+    public void run9() throws Throwable {
+        runTest("testCopy", new double[]{1.0, 2.0, 3.0, 4.0, 5.0, 6.0, 7.0}, 7);
+    }
+
+    @Test
+    public void run10() throws Throwable {
+        runTest("testCopy", null, 7);
+    }
+
+    @Test
+    public void run11() throws Throwable {
+        runTest("testCopy", new double[]{1.0, 2.0, 3.0}, 5);
+    }
+
+    @Test
+    public void run12() throws Throwable {
+        runTest(ZERO_TRIP_DEOPTS, "add", null, null, null, 0, 0);
+    }
+
+    @Test
+    public void run13() throws Throwable {
+        runTest(ZERO_TRIP_DEOPTS, "add", new int[4], new int[4], new int[4], 8, 8);
+    }
+
+    @Test
+    public void run14() throws Throwable {
+        runTest(ZERO_TRIP_DEOPTS, "add", new int[0], new int[0], new int[0], 5, 1);
+    }
+
+    @Test
+    public void run15() throws Throwable {
+        runTest("add", new int[16], new int[16], new int[16], 0, 16);
+    }
+}
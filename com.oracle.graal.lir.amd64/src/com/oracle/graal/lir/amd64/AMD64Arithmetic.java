@@ -111,6 +111,10 @@ public enum AMD64Arithmetic {
             this.y = y;
         }
 
+        public AMD64Arithmetic getOpcode() {
+            return opcode;
+        }
+
         @Override
         public void emitCode(TargetMethodAssembler tasm, AMD64MacroAssembler masm) {
             AMD64Move.move(tasm, masm, result, x);
@@ -142,6 +146,10 @@ public enum AMD64Arithmetic {
             this.y = y;
         }
 
+        public AMD64Arithmetic getOpcode() {
+            return opcode;
+        }
+
         @Override
         public void emitCode(TargetMethodAssembler tasm, AMD64MacroAssembler masm) {
             AMD64Move.move(tasm, masm, result, x);
@@ -172,6 +180,10 @@ public enum AMD64Arithmetic {
             this.y = y;
         }
 
+        public AMD64Arithmetic getOpcode() {
+            return opcode;
+        }
+
         @Override
         public void emitCode(TargetMethodAssembler tasm, AMD64MacroAssembler masm) {
             AMD64Move.move(tasm, masm, result, x);
@@ -201,6 +213,10 @@ public enum AMD64Arithmetic {
             this.y = y;
         }
 
+        public AMD64Arithmetic getOpcode() {
+            return opcode;
+        }
+
         @Override
         public void emitCode(TargetMethodAssembler tasm, AMD64MacroAssembler masm) {
             if (sameRegister(result, y)) {
@@ -46,6 +46,10 @@ public enum AMD64Compare {
             this.y = y;
         }
 
+        public AMD64Compare getOpcode() {
+            return opcode;
+        }
+
         @Override
         public void emitCode(TargetMethodAssembler tasm, AMD64MacroAssembler masm) {
             emit(tasm, masm, opcode, x, y);
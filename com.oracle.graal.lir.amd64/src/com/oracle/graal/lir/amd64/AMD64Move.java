@@ -267,6 +267,36 @@ public class AMD64Move {
         }
     }
 
+    public static class VectorLoadOp extends MemOp {
+
+        @Def({REG}) protected AllocatableValue result;
+
+        public VectorLoadOp(AllocatableValue result, AMD64AddressValue address, LIRFrameState state) {
+            super(((AMD64VectorKind) result.getPlatformKind()).getElementKind(), address, state);
+            this.result = result;
+        }
+
+        @Override
+        public void emitMemAccess(AMD64MacroAssembler masm) {
+            masm.movdqu(asRegister(result), address.toAddress());
+        }
+    }
+
+    public static class VectorStoreOp extends MemOp {
+
+        @Use({REG}) protected AllocatableValue input;
+
+        public VectorStoreOp(AMD64AddressValue address, AllocatableValue input, LIRFrameState state) {
+            super(((AMD64VectorKind) input.getPlatformKind()).getElementKind(), address, state);
+            this.input = input;
+        }
+
+        @Override
+        public void emitMemAccess(AMD64MacroAssembler masm) {
+            masm.movdqu(address.toAddress(), asRegister(input));
+        }
+    }
+
     public static class StoreConstantOp extends MemOp {
 
         protected final Constant input;
@@ -473,6 +503,10 @@ public class AMD64Move {
         if (asRegister(input).equals(asRegister(result))) {
             return;
         }
+        if (input.getPlatformKind() instanceof AMD64VectorKind) {
+            masm.movdqu(asRegister(result), asRegister(input));
+            return;
+        }
         switch (input.getKind()) {
             case Int:
                 masm.movl(asRegister(result), asRegister(input));
@@ -496,6 +530,10 @@ public class AMD64Move {
 
     private static void reg2stack(TargetMethodAssembler tasm, AMD64MacroAssembler masm, Value result, Value input) {
         AMD64Address dest = (AMD64Address) tasm.asAddress(result);
+        if (input.getPlatformKind() instanceof AMD64VectorKind) {
+            masm.movdqu(dest, asRegister(input));
+            return;
+        }
         switch (input.getKind()) {
             case Int:
                 masm.movl(dest, asRegister(input));
@@ -519,6 +557,10 @@ public class AMD64Move {
 
     private static void stack2reg(TargetMethodAssembler tasm, AMD64MacroAssembler masm, Value result, Value input) {
         AMD64Address src = (AMD64Address) tasm.asAddress(input);
+        if (input.getPlatformKind() instanceof AMD64VectorKind) {
+            masm.movdqu(asRegister(result), src);
+            return;
+        }
         switch (input.getKind()) {
             case Int:
                 masm.movl(asRegister(result), src);
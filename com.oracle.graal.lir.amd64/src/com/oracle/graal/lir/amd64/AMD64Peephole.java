@@ -0,0 +1,264 @@
+/*
+ * Copyright (c) 2013, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.lir.amd64;
+
+import static com.oracle.graal.api.code.ValueUtil.*;
+
+import java.util.*;
+
+import com.oracle.graal.api.meta.*;
+import com.oracle.graal.asm.amd64.AMD64Assembler.ConditionFlag;
+import com.oracle.graal.lir.*;
+import com.oracle.graal.lir.StandardOp.MoveOp;
+import com.oracle.graal.lir.amd64.AMD64Arithmetic.BinaryCommutative;
+import com.oracle.graal.lir.amd64.AMD64Arithmetic.BinaryRegConst;
+import com.oracle.graal.lir.amd64.AMD64Arithmetic.BinaryRegReg;
+import com.oracle.graal.lir.amd64.AMD64Arithmetic.BinaryRegStack;
+import com.oracle.graal.lir.amd64.AMD64Compare.CompareOp;
+import com.oracle.graal.lir.amd64.AMD64ControlFlow.BranchOp;
+import com.oracle.graal.lir.amd64.AMD64Move.MoveFromRegOp;
+import com.oracle.graal.lir.amd64.AMD64Move.MoveToRegOp;
+
+/**
+ * The {@linkplain PeepholeRule peephole rules} for AMD64.
+ */
+public final class AMD64Peephole {
+
+    private AMD64Peephole() {
+    }
+
+    /**
+     * Creates the peephole rules for AMD64, in the order in which they are tried at each
+     * instruction.
+     */
+    public static PeepholeRule[] rules() {
+        return new PeepholeRule[]{new SelfMove(), new StoreLoad(), new MoveChain(), new CompareZero()};
+    }
+
+    private static boolean isMove(LIRInstruction op) {
+        return op instanceof MoveToRegOp || op instanceof MoveFromRegOp;
+    }
+
+    /**
+     * Eliminates a move from a register to itself. This only tidies the LIR: such a move is
+     * already skipped when the code is emitted, so the machine code does not change and the
+     * instructions counted for this rule are not instructions saved. Removing the move can
+     * however make two moves adjacent so that the other rules apply to them.
+     */
+    static final class SelfMove extends PeepholeRule {
+
+        SelfMove() {
+            super("SelfMove");
+        }
+
+        @Override
+        public int apply(LIR ir, List<LIRInstruction> instructions, int index) {
+            LIRInstruction op = instructions.get(index);
+            if (isMove(op)) {
+                MoveOp move = (MoveOp) op;
+                if (isRegister(move.getResult()) && sameRegister(move.getResult(), move.getInput())) {
+                    instructions.set(index, null);
+                    return 1;
+                }
+            }
+            return 0;
+        }
+    }
+
+    /**
+     * Replaces a load from a stack slot that directly follows a store of a register to the same
+     * stack slot with a move from that register. The load is eliminated if it targets the stored
+     * register.
+     */
+    static final class StoreLoad extends PeepholeRule {
+
+        StoreLoad() {
+            super("StoreLoad");
+        }
+
+        @Override
+        public int apply(LIR ir, List<LIRInstruction> instructions, int index) {
+            LIRInstruction op = instructions.get(index);
+            int nextIndex = next(instructions, index);
+            if (!(op instanceof MoveFromRegOp) || nextIndex == -1 || !(instructions.get(nextIndex) instanceof MoveToRegOp)) {
+                return 0;
+            }
+            MoveOp store = (MoveOp) op;
+            MoveOp load = (MoveOp) instructions.get(nextIndex);
+            Value stored = store.getInput();
+            if (!isStackSlot(store.getResult()) || !isRegister(stored) || !isRegister(load.getResult()) || !sameLocation(store.getResult(), load.getInput())) {
+                return 0;
+            }
+            if (store.getResult().getKind() != load.getResult().getKind() || stored.getKind() != load.getResult().getKind()) {
+                return 0;
+            }
+            if (sameRegister(stored, load.getResult())) {
+                instructions.set(nextIndex, null);
+                return 1;
+            }
+            instructions.set(nextIndex, ir.spillMoveFactory.createMove(load.getResult(), stored));
+            return 0;
+        }
+    }
+
+    /**
+     * Rewrites a move {@code b <- t} that directly follows a move {@code t <- a} of a register
+     * {@code t} to {@code b <- a}. The first move is eliminated if {@code t} is redefined in the
+     * block before it is read again.
+     */
+    static final class MoveChain extends PeepholeRule {
+
+        MoveChain() {
+            super("MoveChain");
+        }
+
+        @Override
+        public int apply(LIR ir, List<LIRInstruction> instructions, int index) {
+            LIRInstruction op = instructions.get(index);
+            int nextIndex = next(instructions, index);
+            if (!isMove(op) || nextIndex == -1 || !isMove(instructions.get(nextIndex))) {
+                return 0;
+            }
+            MoveOp first = (MoveOp) op;
+            MoveOp second = (MoveOp) instructions.get(nextIndex);
+            Value a = first.getInput();
+            AllocatableValue t = first.getResult();
+            AllocatableValue b = second.getResult();
+            if (!isRegister(t) || isConstant(a) || !sameLocation(second.getInput(), t) || sameLocation(a, t) || sameLocation(b, t)) {
+                return 0;
+            }
+            if (a.getKind() != t.getKind() || b.getKind() != t.getKind() || second.getInput().getKind() != t.getKind()) {
+                return 0;
+            }
+            int count = 0;
+            if (sameLocation(a, b)) {
+                instructions.set(nextIndex, null);
+                count++;
+            } else if (isStackSlot(a) && isStackSlot(b)) {
+                // there is no memory to memory move
+                return 0;
+            } else {
+                instructions.set(nextIndex, ir.spillMoveFactory.createMove(b, a));
+            }
+            if (isDeadAfter(instructions, nextIndex, t)) {
+                instructions.set(index, null);
+                count++;
+            }
+            return count;
+        }
+
+        private static boolean isDeadAfter(List<LIRInstruction> instructions, int index, Value location) {
+            for (int i = next(instructions, index); i != -1; i = next(instructions, i)) {
+                LIRInstruction op = instructions.get(i);
+                if (reads(op, location)) {
+                    return false;
+                }
+                if (writes(op, location)) {
+                    return true;
+                }
+            }
+            // the location may be live at the end of the block
+            return false;
+        }
+    }
+
+    /**
+     * Eliminates a comparison of a register with zero if the register was just computed by an
+     * arithmetic instruction that already set the zero flag accordingly, and the comparison is
+     * only used by a branch on equality.
+     */
+    static final class CompareZero extends PeepholeRule {
+
+        CompareZero() {
+            super("CompareZero");
+        }
+
+        @Override
+        public int apply(LIR ir, List<LIRInstruction> instructions, int index) {
+            LIRInstruction op = instructions.get(index);
+            if (!(op instanceof CompareOp)) {
+                return 0;
+            }
+            CompareOp compare = (CompareOp) op;
+            if (compare.getOpcode() != AMD64Compare.ICMP && compare.getOpcode() != AMD64Compare.LCMP) {
+                return 0;
+            }
+            if (!isConstant(compare.y) || !((Constant) compare.y).isDefaultForKind()) {
+                return 0;
+            }
+            int previousIndex = previous(instructions, index);
+            int nextIndex = next(instructions, index);
+            if (previousIndex == -1 || nextIndex == -1 || instructions.get(nextIndex).getClass() != BranchOp.class) {
+                return 0;
+            }
+            ConditionFlag condition = ((BranchOp) instructions.get(nextIndex)).condition;
+            if (condition != ConditionFlag.Equal && condition != ConditionFlag.NotEqual) {
+                return 0;
+            }
+            LIRInstruction arithmetic = instructions.get(previousIndex);
+            if (!setsZeroFlag(arithmetic, compare.getOpcode()) || !writes(arithmetic, compare.x)) {
+                return 0;
+            }
+            instructions.set(index, null);
+            return 1;
+        }
+
+        /**
+         * Determines if an instruction is a two-operand arithmetic instruction of the kind compared
+         * by the given comparison whose last emitted machine instruction sets the zero flag from
+         * its result.
+         */
+        private static boolean setsZeroFlag(LIRInstruction op, AMD64Compare compare) {
+            AMD64Arithmetic opcode;
+            if (op instanceof BinaryRegReg) {
+                opcode = ((BinaryRegReg) op).getOpcode();
+            } else if (op instanceof BinaryRegStack) {
+                opcode = ((BinaryRegStack) op).getOpcode();
+            } else if (op instanceof BinaryCommutative) {
+                opcode = ((BinaryCommutative) op).getOpcode();
+            } else if (op instanceof BinaryRegConst) {
+                opcode = ((BinaryRegConst) op).getOpcode();
+            } else {
+                return false;
+            }
+            switch (opcode) {
+                case IADD:
+                case ISUB:
+                    // an int addition or subtraction of zero emits no instruction
+                    return compare == AMD64Compare.ICMP && !(op instanceof BinaryRegConst && ((BinaryRegConst) op).y.isDefaultForKind());
+                case IAND:
+                case IOR:
+                case IXOR:
+                    return compare == AMD64Compare.ICMP;
+                case LADD:
+                case LSUB:
+                case LAND:
+                case LOR:
+                case LXOR:
+                    return compare == AMD64Compare.LCMP;
+                default:
+                    return false;
+            }
+        }
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright (c) 2013, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.lir.amd64;
+
+import static com.oracle.graal.api.code.ValueUtil.*;
+import static com.oracle.graal.lir.LIRInstruction.OperandFlag.*;
+
+import com.oracle.graal.amd64.*;
+import com.oracle.graal.api.code.*;
+import com.oracle.graal.api.meta.*;
+import com.oracle.graal.asm.amd64.*;
+import com.oracle.graal.graph.*;
+import com.oracle.graal.lir.*;
+import com.oracle.graal.lir.asm.*;
+
+// @formatter:off
+/**
+ * Arithmetic operations on the packed values of {@link AMD64VectorKind}s.
+ */
+public enum AMD64VectorArithmetic {
+    VIADD, VISUB, VIMUL, VIAND, VIOR, VIXOR,
+    VLADD, VLSUB, VLAND, VLOR, VLXOR,
+    VFADD, VFSUB, VFMUL, VFDIV,
+    VDADD, VDSUB, VDMUL, VDDIV;
+
+    /**
+     * Binary operation using the SSE encoding, which combines the first source operand with the
+     * destination.
+     */
+    public static class BinaryOp extends AMD64LIRInstruction {
+        @Opcode private final AMD64VectorArithmetic opcode;
+        @Def({REG, HINT}) protected AllocatableValue result;
+        @Use({REG}) protected AllocatableValue x;
+        @Alive({REG}) protected AllocatableValue y;
+
+        public BinaryOp(AMD64VectorArithmetic opcode, AllocatableValue result, AllocatableValue x, AllocatableValue y) {
+            this.opcode = opcode;
+            this.result = result;
+            this.x = x;
+            this.y = y;
+        }
+
+        @Override
+        public void emitCode(TargetMethodAssembler tasm, AMD64MacroAssembler masm) {
+            AMD64Move.move(tasm, masm, result, x);
+            emit(masm, opcode, asRegister(result), asRegister(y));
+        }
+    }
+
+    /**
+     * Binary operation using the VEX encoding, which has a separate destination operand.
+     */
+    public static class AVXBinaryOp extends AMD64LIRInstruction {
+        @Opcode private final AMD64VectorArithmetic opcode;
+        @Def({REG}) protected AllocatableValue result;
+        @Use({REG}) protected AllocatableValue x;
+        @Use({REG}) protected AllocatableValue y;
+
+        public AVXBinaryOp(AMD64VectorArithmetic opcode, AllocatableValue result, AllocatableValue x, AllocatableValue y) {
+            this.opcode = opcode;
+            this.result = result;
+            this.x = x;
+            this.y = y;
+        }
+
+        @Override
+        public void emitCode(TargetMethodAssembler tasm, AMD64MacroAssembler masm) {
+            emitAVX(masm, opcode, asRegister(result), asRegister(x), asRegister(y));
+        }
+    }
+
+    /**
+     * Copies a scalar value into all elements of a packed value.
+     */
+    public static class BroadcastOp extends AMD64LIRInstruction {
+        @Def({REG}) protected AllocatableValue result;
+        @Use({REG}) protected AllocatableValue input;
+
+        public BroadcastOp(AllocatableValue result, AllocatableValue input) {
+            this.result = result;
+            this.input = input;
+        }
+
+        @Override
+        public void emitCode(TargetMethodAssembler tasm, AMD64MacroAssembler masm) {
+            Register dst = asRegister(result);
+            Register src = asRegister(input);
+            switch (((AMD64VectorKind) result.getPlatformKind()).getElementKind()) {
+                case Int:    masm.movdl(dst, src); masm.pshufd(dst, dst, 0x00); break;
+                case Long:   masm.movdq(dst, src); masm.pshufd(dst, dst, 0x44); break;
+                case Float:  masm.pshufd(dst, src, 0x00); break;
+                case Double: masm.pshufd(dst, src, 0x44); break;
+                default:     throw GraalInternalError.shouldNotReachHere();
+            }
+        }
+    }
+
+    public static void emit(AMD64MacroAssembler masm, AMD64VectorArithmetic opcode, Register dst, Register src) {
+        switch (opcode) {
+            case VIADD: masm.paddd(dst, src); break;
+            case VISUB: masm.psubd(dst, src); break;
+            case VIMUL: masm.pmulld(dst, src); break;
+            case VIAND: masm.pand(dst, src); break;
+            case VIOR:  masm.por(dst, src); break;
+            case VIXOR: masm.pxor(dst, src); break;
+            case VLADD: masm.paddq(dst, src); break;
+            case VLSUB: masm.psubq(dst, src); break;
+            case VLAND: masm.pand(dst, src); break;
+            case VLOR:  masm.por(dst, src); break;
+            case VLXOR: masm.pxor(dst, src); break;
+            case VFADD: masm.addps(dst, src); break;
+            case VFSUB: masm.subps(dst, src); break;
+            case VFMUL: masm.mulps(dst, src); break;
+            case VFDIV: masm.divps(dst, src); break;
+            case VDADD: masm.addpd(dst, src); break;
+            case VDSUB: masm.subpd(dst, src); break;
+            case VDMUL: masm.mulpd(dst, src); break;
+            case VDDIV: masm.divpd(dst, src); break;
+            default:    throw GraalInternalError.shouldNotReachHere();
+        }
+    }
+
+    public static void emitAVX(AMD64MacroAssembler masm, AMD64VectorArithmetic opcode, Register dst, Register x, Register y) {
+        switch (opcode) {
+            case VIADD: masm.vpaddd(dst, x, y); break;
+            case VISUB: masm.vpsubd(dst, x, y); break;
+            case VIMUL: masm.vpmulld(dst, x, y); break;
+            case VIAND: masm.vpand(dst, x, y); break;
+            case VIOR:  masm.vpor(dst, x, y); break;
+            case VIXOR: masm.vpxor(dst, x, y); break;
+            case VLADD: masm.vpaddq(dst, x, y); break;
+            case VLSUB: masm.vpsubq(dst, x, y); break;
+            case VLAND: masm.vpand(dst, x, y); break;
+            case VLOR:  masm.vpor(dst, x, y); break;
+            case VLXOR: masm.vpxor(dst, x, y); break;
+            case VFADD: masm.vaddps(dst, x, y); break;
+            case VFSUB: masm.vsubps(dst, x, y); break;
+            case VFMUL: masm.vmulps(dst, x, y); break;
+            case VFDIV: masm.vdivps(dst, x, y); break;
+            case VDADD: masm.vaddpd(dst, x, y); break;
+            case VDSUB: masm.vsubpd(dst, x, y); break;
+            case VDMUL: masm.vmulpd(dst, x, y); break;
+            case VDDIV: masm.vdivpd(dst, x, y); break;
+            default:    throw GraalInternalError.shouldNotReachHere();
+        }
+    }
+}
@@ -198,7 +198,7 @@ public final class FrameMap {
             // Without this, frameNeedsAllocating() would never return true.
             int total = 0;
             for (StackSlot s : freedSlots) {
-                total += target.arch.getSizeInBytes(s.getKind());
+                total += target.arch.getSizeInBytes(s.getPlatformKind());
             }
             int initialSpillSize = returnAddressSize() + calleeSaveAreaSize();
             if (total == spillSize - initialSpillSize) {
@@ -280,19 +280,22 @@ public final class FrameMap {
      */
     public StackSlot allocateSpillSlot(PlatformKind kind) {
         assert frameSize == -1 : "frame size must not yet be fixed";
+        int size = target.arch.getSizeInBytes(kind);
         if (freedSlots != null) {
             for (Iterator<StackSlot> iter = freedSlots.iterator(); iter.hasNext();) {
                 StackSlot s = iter.next();
-                if (s.getPlatformKind() == kind) {
+                if (target.arch.getSizeInBytes(s.getPlatformKind()) == size) {
                     iter.remove();
                     if (freedSlots.isEmpty()) {
                         freedSlots = null;
                     }
+                    if (s.getPlatformKind() != kind) {
+                        return StackSlot.get(kind, s.getRawOffset(), s.getRawAddFrameSize());
+                    }
                     return s;
                 }
             }
         }
-        int size = target.arch.getSizeInBytes(kind);
         spillSize = NumUtil.roundUp(spillSize + size, size);
         return getSlot(kind, 0);
     }
@@ -301,7 +304,7 @@ public final class FrameMap {
 
     /**
      * Frees a spill slot that was obtained via {@link #allocateSpillSlot(PlatformKind)} such that
-     * it can be reused for the next allocation request for the same kind of slot.
+     * it can be reused for the next allocation request for a slot of the same size.
      */
     public void freeSpillSlot(StackSlot slot) {
         if (freedSlots == null) {
@@ -310,6 +313,46 @@ public final class FrameMap {
         freedSlots.add(slot);
     }
 
+    /**
+     * Gets the current size of the area occupied by spill slots and other stack-allocated memory
+     * blocks. The spill slots allocated after this call can be released with
+     * {@link #releaseSpillSlots(int, Collection)}.
+     */
+    public int spillAreaSize() {
+        return spillSize;
+    }
+
+    /**
+     * Releases spill slots so that their memory can be handed out again by
+     * {@link #allocateSpillSlot(PlatformKind)}. The spill area is truncated to a size previously
+     * returned by {@link #spillAreaSize()}, which releases all slots allocated since then. The
+     * given slots that lie within the remaining area were reused from {@linkplain #freeSpillSlot
+     * freed} slots and are freed again. Slots in the caller's frame are never released.
+     * 
+     * @param size the size to which the spill area is truncated
+     * @param slots the slots being released
+     */
+    public void releaseSpillSlots(int size, Collection<StackSlot> slots) {
+        assert frameSize == -1 : "frame size must not yet be fixed";
+        assert size <= spillSize;
+        if (freedSlots != null) {
+            for (Iterator<StackSlot> iter = freedSlots.iterator(); iter.hasNext();) {
+                if (-iter.next().getRawOffset() > size) {
+                    iter.remove();
+                }
+            }
+        }
+        for (StackSlot slot : slots) {
+            if (!slot.isInCallerFrame() && -slot.getRawOffset() <= size) {
+                freeSpillSlot(slot);
+            }
+        }
+        if (freedSlots != null && freedSlots.isEmpty()) {
+            freedSlots = null;
+        }
+        spillSize = size;
+    }
+
     /**
      * Reserves a block of memory in the frame of the method being compiled. The returned block is
      * aligned on a word boundary. If the requested size is 0, the method returns {@code null}.
@@ -60,6 +60,12 @@ public class LIR {
 
     public SpillMoveFactory spillMoveFactory;
 
+    /**
+     * The rules applied by the {@link PeepholeOptimizer} after register allocation, or null if the
+     * target has none.
+     */
+    public PeepholeRule[] peepholeRules;
+
     public final BlockMap<List<LIRInstruction>> lirInstructions;
 
     public interface SpillMoveFactory {
@@ -138,6 +144,14 @@ public class LIR {
         return numVariables++;
     }
 
+    /**
+     * Sets the number of variables after the variables were renumbered, for example because some
+     * of them were replaced by registers.
+     */
+    public void setNumVariables(int numVariables) {
+        this.numVariables = numVariables;
+    }
+
     public void emitCode(TargetMethodAssembler tasm) {
         if (tasm.frameContext != null) {
             tasm.frameContext.enter(tasm);
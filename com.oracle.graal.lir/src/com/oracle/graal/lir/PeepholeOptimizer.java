@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2013, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.lir;
+
+import java.util.*;
+
+import com.oracle.graal.debug.*;
+import com.oracle.graal.nodes.cfg.*;
+
+/**
+ * Applies the architecture specific {@linkplain PeepholeRule peephole rules} of a LIR to all its
+ * blocks after register allocation. Every rule is tried at every instruction in a single forward
+ * pass over a block, so a rule sees the result of the rewrites made before the current position.
+ */
+public final class PeepholeOptimizer {
+
+    private static final DebugMetric metricEliminated = Debug.metric("PeepholeEliminated");
+
+    /**
+     * Performs the peephole optimizations on the given LIR.
+     */
+    public static void optimize(LIR ir) {
+        PeepholeRule[] rules = ir.peepholeRules;
+        if (rules == null || rules.length == 0) {
+            return;
+        }
+        for (Block block : ir.codeEmittingOrder()) {
+            optimize(ir, ir.lir(block), rules);
+        }
+    }
+
+    private PeepholeOptimizer() {
+    }
+
+    private static void optimize(LIR ir, List<LIRInstruction> instructions, PeepholeRule[] rules) {
+        int eliminated = 0;
+        for (int i = 0; i < instructions.size(); i++) {
+            for (PeepholeRule rule : rules) {
+                if (instructions.get(i) == null) {
+                    break;
+                }
+                int count = rule.apply(ir, instructions, i);
+                if (count != 0) {
+                    Debug.log("%s eliminated %d instructions at %d", rule, count, i);
+                    rule.eliminated(count);
+                    eliminated += count;
+                }
+            }
+        }
+        if (eliminated != 0) {
+            metricEliminated.add(eliminated);
+            int size = 0;
+            for (LIRInstruction op : instructions) {
+                if (op != null) {
+                    instructions.set(size++, op);
+                }
+            }
+            assert size == instructions.size() - eliminated : "rule reported wrong number of eliminated instructions";
+            instructions.subList(size, instructions.size()).clear();
+        }
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright (c) 2013, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.lir;
+
+import static com.oracle.graal.api.code.ValueUtil.*;
+
+import java.util.*;
+
+import com.oracle.graal.api.code.*;
+import com.oracle.graal.api.meta.*;
+import com.oracle.graal.debug.*;
+import com.oracle.graal.lir.LIRInstruction.ValueProcedure;
+
+/**
+ * A rewrite of a short sequence of LIR instructions after register allocation. A rule is matched
+ * at every position of every block by the {@link PeepholeOptimizer}. Rules are provided per
+ * architecture through {@link LIR#peepholeRules}.
+ * 
+ * The operands of an instruction are matched using the {@linkplain LIRInstructionClass
+ * introspection} of its class, so a rule does not need to know the concrete instruction classes
+ * other than the ones it rewrites.
+ */
+public abstract class PeepholeRule {
+
+    private final String name;
+    private final DebugMetric metricEliminated;
+
+    protected PeepholeRule(String name) {
+        this.name = name;
+        this.metricEliminated = Debug.metric("PeepholeEliminated" + name);
+    }
+
+    /**
+     * Tries to apply this rule to the instruction at {@code index}. Eliminated instructions are
+     * replaced with {@code null} in {@code instructions}; a rule must skip {@code null} entries
+     * when it looks at the neighbors of an instruction. Instructions may also be replaced with
+     * other instructions.
+     * 
+     * @param ir the LIR being optimized
+     * @param instructions the instructions of the block being optimized
+     * @param index the position of the instruction at which the rule is matched; the instruction
+     *            at this position is never {@code null}
+     * @return the number of instructions eliminated
+     */
+    public abstract int apply(LIR ir, List<LIRInstruction> instructions, int index);
+
+    final void eliminated(int count) {
+        metricEliminated.add(count);
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+
+    /**
+     * Returns the position of the next instruction after {@code index}, or -1 if there is none.
+     */
+    protected static int next(List<LIRInstruction> instructions, int index) {
+        for (int i = index + 1; i < instructions.size(); i++) {
+            if (instructions.get(i) != null) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the position of the previous instruction before {@code index}, or -1 if there is
+     * none.
+     */
+    protected static int previous(List<LIRInstruction> instructions, int index) {
+        for (int i = index - 1; i >= 0; i--) {
+            if (instructions.get(i) != null) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Determines if two operands denote the same register or the same stack slot, regardless of
+     * their kinds.
+     */
+    protected static boolean sameLocation(Value a, Value b) {
+        if (isRegister(a) && isRegister(b)) {
+            return asRegister(a).equals(asRegister(b));
+        } else if (isStackSlot(a) && isStackSlot(b)) {
+            StackSlot x = asStackSlot(a);
+            StackSlot y = asStackSlot(b);
+            return x.getRawOffset() == y.getRawOffset() && x.getRawAddFrameSize() == y.getRawAddFrameSize();
+        }
+        return false;
+    }
+
+    /**
+     * Determines if an instruction reads a location, either as an input, an alive operand or in
+     * its frame state.
+     */
+    protected static boolean reads(LIRInstruction op, Value location) {
+        LocationFinder finder = new LocationFinder(location);
+        op.forEachInput(finder);
+        op.forEachAlive(finder);
+        op.forEachState(finder);
+        return finder.found;
+    }
+
+    /**
+     * Determines if an instruction may write a location, either as an output or a temporary. A
+     * call is assumed to destroy all registers.
+     */
+    protected static boolean writes(LIRInstruction op, Value location) {
+        if (isRegister(location) && op.destroysCallerSavedRegisters()) {
+            return true;
+        }
+        LocationFinder finder = new LocationFinder(location);
+        op.forEachTemp(finder);
+        op.forEachOutput(finder);
+        return finder.found;
+    }
+
+    private static final class LocationFinder extends ValueProcedure {
+
+        private final Value location;
+        boolean found;
+
+        LocationFinder(Value location) {
+            this.location = location;
+        }
+
+        @Override
+        protected Value doValue(Value value) {
+            if (sameLocation(value, location)) {
+                found = true;
+            }
+            return value;
+        }
+    }
+}
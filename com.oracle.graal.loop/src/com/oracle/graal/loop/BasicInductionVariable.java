@@ -130,6 +130,12 @@ public class BasicInductionVariable extends InductionVariable {
         return IntegerArithmeticNode.add(IntegerArithmeticNode.mul(stride, IntegerArithmeticNode.sub(maxTripCount, ConstantNode.forIntegerKind(kind, 1, graph))), initNode);
     }
 
+    @Override
+    public ValueNode valueNodeFor(ValueNode basicValue, Kind kind) {
+        assert basicValue.kind() == kind;
+        return basicValue;
+    }
+
     @Override
     public boolean isConstantExtremum() {
         return isConstantInit() && isConstantStride() && loop.counted().isConstantMaxTripCount();
@@ -106,6 +106,10 @@ public class CountedLoopInfo {
         return "iv=" + iv + " until " + end + (oneOff ? iv.direction() == Direction.Up ? "+1" : "-1" : "");
     }
 
+    public InductionVariable getCounter() {
+        return iv;
+    }
+
     public ValueNode getLimit() {
         return end;
     }
@@ -40,6 +40,14 @@ public class DerivedOffsetInductionVariable extends InductionVariable {
         this.value = value;
     }
 
+    public InductionVariable getBase() {
+        return base;
+    }
+
+    public ValueNode getOffset() {
+        return offset;
+    }
+
     @Override
     public Direction direction() {
         return base.direction();
@@ -91,6 +99,11 @@ public class DerivedOffsetInductionVariable extends InductionVariable {
         return op(base.extremumNode(assumePositiveTripCount, kind), ConvertNode.convert(kind, offset));
     }
 
+    @Override
+    public ValueNode valueNodeFor(ValueNode basicValue, Kind kind) {
+        return op(base.valueNodeFor(basicValue, kind), ConvertNode.convert(kind, offset));
+    }
+
     @Override
     public boolean isConstantExtremum() {
         return offset.isConstant() && base.isConstantExtremum();
@@ -47,6 +47,14 @@ public class DerivedScaledInductionVariable extends InductionVariable {
         this.value = value;
     }
 
+    public InductionVariable getBase() {
+        return base;
+    }
+
+    public ValueNode getScale() {
+        return scale;
+    }
+
     @Override
     public Direction direction() {
         Stamp stamp = scale.stamp();
@@ -101,6 +109,11 @@ public class DerivedScaledInductionVariable extends InductionVariable {
         return IntegerArithmeticNode.mul(base.extremumNode(assumePositiveTripCount, kind), ConvertNode.convert(kind, scale));
     }
 
+    @Override
+    public ValueNode valueNodeFor(ValueNode basicValue, Kind kind) {
+        return IntegerArithmeticNode.mul(base.valueNodeFor(basicValue, kind), ConvertNode.convert(kind, scale));
+    }
+
     @Override
     public boolean isConstantExtremum() {
         return scale.isConstant() && base.isConstantExtremum();
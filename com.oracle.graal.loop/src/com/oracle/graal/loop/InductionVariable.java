@@ -75,6 +75,13 @@ public abstract class InductionVariable {
 
     public abstract ValueNode extremumNode(boolean assumePositiveTripCount, Kind kind);
 
+    /**
+     * Creates a node computing the value of this induction variable, in {@code kind}, for the
+     * iteration in which the basic induction variable it is derived from has the value
+     * {@code basicValue} (which must already be of {@code kind}).
+     */
+    public abstract ValueNode valueNodeFor(ValueNode basicValue, Kind kind);
+
     public abstract boolean isConstantExtremum();
 
     public abstract long constantExtremum();
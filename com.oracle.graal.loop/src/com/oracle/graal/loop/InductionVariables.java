@@ -43,6 +43,13 @@ public class InductionVariables {
         return ivs.get(v);
     }
 
+    /**
+     * Gets all the induction variables of the loop, basic and derived, in no particular order.
+     */
+    public Collection<InductionVariable> getAll() {
+        return ivs.values();
+    }
+
     private Collection<BasicInductionVariable> findBasic() {
         List<BasicInductionVariable> bivs = new LinkedList<>();
         LoopBeginNode loopBegin = loop.loopBegin();
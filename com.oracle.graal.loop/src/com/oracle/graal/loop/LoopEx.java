@@ -141,6 +141,31 @@ public class LoopEx {
         }
     }
 
+    /**
+     * Checks that the blocks of this loop and its exits still start and end with the nodes they
+     * had when the control flow graph was computed.
+     */
+    boolean hasIntactBlocks() {
+        for (Block block : lirLoop.blocks) {
+            if (!block.getBeginNode().isAlive() || !block.getEndNode().isAlive()) {
+                return false;
+            }
+        }
+        for (Block block : lirLoop.exits) {
+            if (!block.getBeginNode().isAlive()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    void clearCaches() {
+        inside = null;
+        whole = null;
+        counted = null;
+        ivs = null;
+    }
+
     public void setCounted(CountedLoopInfo countedLoopInfo) {
         counted = countedLoopInfo;
     }
@@ -105,44 +105,52 @@ public abstract class LoopFragment {
     protected void patchNodes(final DuplicationReplacement dataFix) {
         if (isDuplicate() && !nodesReady) {
             assert !original.isDuplicate();
-            final DuplicationReplacement cfgFix = original().getDuplicationReplacement();
-            DuplicationReplacement dr;
-            if (cfgFix == null && dataFix != null) {
-                dr = dataFix;
-            } else if (cfgFix != null && dataFix == null) {
-                dr = cfgFix;
-            } else if (cfgFix != null && dataFix != null) {
-                dr = new DuplicationReplacement() {
+            patchNodes(original().nodes(), original().getDuplicationReplacement(), dataFix);
+        } else {
+            // TODO (gd) apply fix ?
+        }
+    }
 
-                    @Override
-                    public Node replacement(Node o) {
-                        Node r1 = dataFix.replacement(o);
-                        if (r1 != o) {
-                            assert cfgFix.replacement(o) == o;
-                            return r1;
-                        }
-                        Node r2 = cfgFix.replacement(o);
-                        if (r2 != o) {
-                            return r2;
-                        }
-                        return o;
+    /**
+     * Duplicates {@code toDuplicate}, which must be a subset of the original fragment's nodes,
+     * using the given control flow and data fixes.
+     */
+    protected void patchNodes(Iterable<Node> toDuplicate, final DuplicationReplacement cfgFix, final DuplicationReplacement dataFix) {
+        assert isDuplicate() && !nodesReady && !original.isDuplicate();
+        DuplicationReplacement dr;
+        if (cfgFix == null && dataFix != null) {
+            dr = dataFix;
+        } else if (cfgFix != null && dataFix == null) {
+            dr = cfgFix;
+        } else if (cfgFix != null && dataFix != null) {
+            dr = new DuplicationReplacement() {
+
+                @Override
+                public Node replacement(Node o) {
+                    Node r1 = dataFix.replacement(o);
+                    if (r1 != o) {
+                        assert cfgFix.replacement(o) == o;
+                        return r1;
                     }
-                };
-            } else {
-                dr = new DuplicationReplacement() {
-
-                    @Override
-                    public Node replacement(Node o) {
-                        return o;
+                    Node r2 = cfgFix.replacement(o);
+                    if (r2 != o) {
+                        return r2;
                     }
-                };
-            }
-            duplicationMap = graph().addDuplicates(original().nodes(), dr);
-            finishDuplication();
-            nodesReady = true;
+                    return o;
+                }
+            };
         } else {
-            // TODO (gd) apply fix ?
+            dr = new DuplicationReplacement() {
+
+                @Override
+                public Node replacement(Node o) {
+                    return o;
+                }
+            };
         }
+        duplicationMap = graph().addDuplicates(toDuplicate, dr);
+        finishDuplication();
+        nodesReady = true;
     }
 
     protected static NodeBitMap computeNodes(Graph graph, Collection<AbstractBeginNode> blocks) {
@@ -72,9 +72,63 @@ public class LoopFragmentInside extends LoopFragment {
         return (LoopFragmentInside) super.original();
     }
 
-    @SuppressWarnings("unused")
+    /**
+     * Appends this duplicate of the loop body after the original body, so that each iteration of
+     * the loop executes the body twice. The duplicated body keeps its own copy of the loop exits,
+     * which are merged with the original ones. The loop must have a single back edge.
+     */
     public void appendInside(LoopEx loop) {
-        // TODO (gd)
+        assert this.isDuplicate() && this.original().loop() == loop;
+        final LoopBeginNode loopBegin = loop.loopBegin();
+        assert loopBegin.loopEnds().count() == 1;
+        LoopEndNode loopEnd = loopBegin.loopEnds().first();
+        final int backEdgeIndex = loopBegin.phiPredecessorIndex(loopEnd);
+
+        // the loop begin itself is not duplicated: the copies of the loop exits and of the loop end
+        // keep referring to it and the loop phis are replaced by their back edge values
+        patchNodes(original().nodes().filter(NodePredicates.not(NodePredicates.equals(loopBegin))), null, new DuplicationReplacement() {
+
+            @Override
+            public Node replacement(Node oriInput) {
+                if (loopBegin.isPhiAtMerge(oriInput)) {
+                    return ((PhiNode) oriInput).valueAt(backEdgeIndex);
+                }
+                return oriInput;
+            }
+        });
+
+        // the back edge values after the duplicated body have to be computed before any phi is
+        // updated, since they may refer to the back edge values of other phis
+        List<PhiNode> phis = loopBegin.phis().snapshot();
+        List<ValueNode> newBackValues = new ArrayList<>(phis.size());
+        for (PhiNode phi : phis) {
+            ValueNode backValue = phi.valueAt(backEdgeIndex);
+            if (loopBegin.isPhiAtMerge(backValue)) {
+                newBackValues.add(((PhiNode) backValue).valueAt(backEdgeIndex));
+            } else {
+                ValueNode duplicated = getDuplicatedNode(backValue);
+                newBackValues.add(duplicated != null ? duplicated : backValue);
+            }
+        }
+
+        // the duplicated loop end takes over the phi inputs of the original one
+        LoopEndNode newLoopEnd = getDuplicatedNode(loopEnd);
+        assert newLoopEnd.loopBegin() == loopBegin && loopBegin.phiPredecessorIndex(newLoopEnd) == backEdgeIndex;
+        loopEnd.replaceAtPredecessor(getDuplicatedNode(loopBegin.next()));
+        loopEnd.safeDelete();
+        for (int i = 0; i < phis.size(); i++) {
+            phis.get(i).setValueAt(backEdgeIndex, newBackValues.get(i));
+        }
+
+        mergeEarlyExits();
+
+        FrameState state = loopBegin.stateAfter();
+        if (state != null) {
+            FrameState duplicatedState = getDuplicatedNode(state);
+            if (duplicatedState != null) {
+                GraphUtil.killWithUnusedFloatingInputs(duplicatedState);
+            }
+        }
     }
 
     @Override
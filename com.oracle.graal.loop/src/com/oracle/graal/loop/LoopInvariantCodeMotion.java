@@ -0,0 +1,247 @@
+/*
+ * Copyright (c) 2013, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.loop;
+
+import java.util.*;
+
+import com.oracle.graal.api.code.*;
+import com.oracle.graal.api.meta.*;
+import com.oracle.graal.graph.*;
+import com.oracle.graal.nodes.*;
+import com.oracle.graal.nodes.calc.*;
+import com.oracle.graal.nodes.cfg.*;
+import com.oracle.graal.nodes.extended.*;
+import com.oracle.graal.nodes.java.*;
+import com.oracle.graal.nodes.type.*;
+
+/**
+ * Moves loop invariant fixed nodes that the schedule cannot move out of a loop to the end of the
+ * loop's pre-header: guards with invariant conditions, type checks of invariant objects and loads
+ * of array lengths and of fields of invariant objects that are not written in the loop.
+ * <p>
+ * Nodes of the loop header are executed on every entry to the loop, so they are simply moved.
+ * Guards and type checks of other blocks only execute on some iterations; if speculation is
+ * enabled they are replaced by guards in the pre-header that deoptimize with
+ * {@link DeoptimizationReason#LoopInvariantCheck}, which disables the speculation once it fails too
+ * often. Loads of possibly null objects are hoisted behind such a speculative null check.
+ */
+public class LoopInvariantCodeMotion {
+
+    private final LoopEx loop;
+    private final boolean speculate;
+    private final NodeBitMap hoisted;
+    /**
+     * The location identities and fields written in the loop.
+     */
+    private final Set<Object> killedLocations = new HashSet<>();
+    private boolean killsAnyLocation;
+    /**
+     * Maps invariant objects that are known to be non-null in the pre-header to the value that
+     * should be used for them.
+     */
+    private final Map<ValueNode, ValueNode> nonNullObjects = new HashMap<>();
+    private int hoistedCount;
+
+    public LoopInvariantCodeMotion(LoopEx loop, boolean speculate) {
+        this.loop = loop;
+        this.speculate = speculate;
+        this.hoisted = loop.loopBegin().graph().createNodeBitMap(true);
+        computeKilledLocations();
+    }
+
+    /**
+     * Hoists all the invariant nodes of the loop.
+     * 
+     * @return the number of nodes that were hoisted
+     */
+    public int hoist() {
+        Loop lirLoop = loop.lirLoop();
+        for (Block block : loop.loopsData().controlFlowGraph().getBlocks()) {
+            if (block.getLoop() != lirLoop) {
+                continue;
+            }
+            List<FixedNode> nodes = new ArrayList<>();
+            for (FixedNode node : block.getNodes()) {
+                nodes.add(node);
+            }
+            for (FixedNode node : nodes) {
+                // the block boundaries must stay intact for the other loops
+                if (node instanceof FixedWithNextNode && node != block.getBeginNode() && node != block.getEndNode()) {
+                    hoist((FixedWithNextNode) node, block == lirLoop.header);
+                }
+            }
+        }
+        return hoistedCount;
+    }
+
+    private void hoist(FixedWithNextNode node, boolean inHeader) {
+        StructuredGraph graph = node.graph();
+        if (node instanceof FixedGuardNode) {
+            FixedGuardNode guard = (FixedGuardNode) node;
+            if (!isInvariant(guard.condition())) {
+                return;
+            }
+            FixedGuardNode hoistedGuard = guard;
+            if (inHeader) {
+                move(guard);
+            } else if (speculate) {
+                hoistedGuard = graph.add(new FixedGuardNode(guard.condition(), DeoptimizationReason.LoopInvariantCheck, DeoptimizationAction.InvalidateRecompile, guard.isNegated()));
+                insert(hoistedGuard);
+                guard.replaceAtUsages(hoistedGuard);
+                graph.removeFixed(guard);
+            } else {
+                return;
+            }
+            if (hoistedGuard.condition() instanceof IsNullNode && hoistedGuard.isNegated()) {
+                ValueNode object = ((IsNullNode) hoistedGuard.condition()).object();
+                if (!nonNullObjects.containsKey(object)) {
+                    nonNullObjects.put(object, object);
+                }
+            }
+        } else if (node instanceof LoadFieldNode) {
+            LoadFieldNode load = (LoadFieldNode) node;
+            if (load.isVolatile() || isKilled(load.field())) {
+                return;
+            }
+            if (!load.isStatic()) {
+                ValueNode object = invariantObject(load.object(), inHeader);
+                if (object == null) {
+                    return;
+                }
+                load.replaceFirstInput(load.object(), object);
+            }
+            move(load);
+        } else if (node instanceof ArrayLengthNode) {
+            ArrayLengthNode length = (ArrayLengthNode) node;
+            ValueNode array = invariantObject(length.array(), inHeader);
+            if (array == null) {
+                return;
+            }
+            length.replaceFirstInput(length.array(), array);
+            move(length);
+        } else if (node instanceof CheckCastNode) {
+            CheckCastNode checkCast = (CheckCastNode) node;
+            ValueNode object = checkCast.object();
+            if (!isInvariant(object)) {
+                return;
+            }
+            if (inHeader) {
+                move(checkCast);
+            } else if (speculate && object.objectStamp().nonNull()) {
+                Stamp stamp = StampFactory.declared(checkCast.type()).join(object.stamp());
+                if (stamp == null) {
+                    // the cast always fails
+                    return;
+                }
+                InstanceOfNode typeTest = graph.unique(new InstanceOfNode(checkCast.type(), object, checkCast.profile()));
+                GuardingPiNode checkedObject = graph.add(new GuardingPiNode(object, typeTest, false, DeoptimizationReason.LoopInvariantCheck, DeoptimizationAction.InvalidateRecompile, stamp));
+                insert(checkedObject);
+                checkCast.replaceAtUsages(checkedObject);
+                graph.removeFixed(checkCast);
+            }
+        }
+    }
+
+    /**
+     * Gets the value to use for an invariant object that is accessed by a hoisted load, or null if
+     * it is not invariant or the access may not be moved to the pre-header because the object may
+     * be null.
+     */
+    private ValueNode invariantObject(ValueNode object, boolean inHeader) {
+        if (!isInvariant(object)) {
+            return null;
+        }
+        if (inHeader || object.objectStamp().nonNull()) {
+            return object;
+        }
+        ValueNode nonNull = nonNullObjects.get(object);
+        if (nonNull == null && speculate) {
+            StructuredGraph graph = object.graph();
+            GuardingPiNode nullCheck = graph.add(new GuardingPiNode(object, graph.unique(new IsNullNode(object)), true, DeoptimizationReason.LoopInvariantCheck, DeoptimizationAction.InvalidateRecompile,
+                            object.stamp().join(StampFactory.objectNonNull())));
+            insert(nullCheck);
+            nonNullObjects.put(object, nullCheck);
+            nonNull = nullCheck;
+        }
+        return nonNull;
+    }
+
+    private boolean isInvariant(Node node) {
+        if (node == null || hoisted.isMarked(node) || loop.isOutsideLoop(node)) {
+            return true;
+        }
+        if (node instanceof FixedNode || node instanceof PhiNode || node instanceof ProxyNode) {
+            return false;
+        }
+        for (Node input : node.inputs()) {
+            if (!isInvariant(input)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean isKilled(ResolvedJavaField field) {
+        return killsAnyLocation || killedLocations.contains(field);
+    }
+
+    private void computeKilledLocations() {
+        for (Node node : loop.whole().nodes()) {
+            if (node instanceof MemoryCheckpoint.Single) {
+                kill(((MemoryCheckpoint.Single) node).getLocationIdentity());
+            } else if (node instanceof MemoryCheckpoint.Multi) {
+                for (LocationIdentity identity : ((MemoryCheckpoint.Multi) node).getLocationIdentities()) {
+                    kill(identity);
+                }
+            } else if (node instanceof StoreFieldNode) {
+                killedLocations.add(((StoreFieldNode) node).field());
+            } else if (node instanceof StoreIndexedNode) {
+                // array elements and lengths are never written by field stores
+            } else if (node instanceof StateSplit && ((StateSplit) node).hasSideEffect()) {
+                killsAnyLocation = true;
+            }
+        }
+    }
+
+    private void kill(LocationIdentity identity) {
+        if (identity == LocationIdentity.ANY_LOCATION) {
+            killsAnyLocation = true;
+        } else {
+            killedLocations.add(identity);
+        }
+    }
+
+    private void move(FixedWithNextNode node) {
+        FixedNode next = node.next();
+        node.setNext(null);
+        node.replaceAtPredecessor(next);
+        insert(node);
+    }
+
+    private void insert(FixedWithNextNode node) {
+        StructuredGraph graph = loop.loopBegin().graph();
+        graph.addBeforeFixed(loop.loopBegin().forwardEnd(), node);
+        hoisted.mark(node);
+        hoistedCount++;
+    }
+}
@@ -55,6 +55,63 @@ public abstract class LoopPolicies {
         return size * exactTrips <= maxNodes;
     }
 
+    public static boolean shouldPartialUnroll(LoopEx loop) {
+        return partialUnrollFactor(loop) > 1;
+    }
+
+    /**
+     * Computes the factor by which a counted loop should be partially unrolled, or 1 if it should
+     * not be unrolled. The factor is the largest power of two such that the expected number of
+     * iterations (the constant trip count if known, the profiled loop frequency otherwise) covers
+     * at least two iterations of the main loop and the main and post loop fit into the node budget.
+     */
+    public static int partialUnrollFactor(LoopEx loop) {
+        LoopBeginNode loopBegin = loop.loopBegin();
+        if (!loop.isCounted() || !loop.lirLoop().children.isEmpty() || loopBegin.loopEnds().count() != 1) {
+            return 1;
+        }
+        CountedLoopInfo counted = loop.counted();
+        InductionVariable counter = counted.getCounter();
+        if (!counted.isExactTripCount() || counted.isLimitIncluded() || !counter.isConstantStride()) {
+            return 1;
+        }
+        double trips = counted.isConstantMaxTripCount() ? counted.constantMaxTripCount() : loopBegin.loopFrequency();
+        long stride = Math.abs(counter.constantStride());
+        int size = Math.max(1, loop.size() - 1 - loopBegin.phis().count());
+        int maxNodes = Math.min(PartialUnrollMaxNodes.getValue(), MaximumDesiredSize.getValue() - loopBegin.graph().getNodeCount());
+        int factor = 1;
+        while (factor * 2 <= PartialUnrollMaxFactor.getValue()) {
+            int next = factor * 2;
+            // the post loop is a copy of the original loop, the main loop adds next - 1 copies
+            if (trips < next * 2 || size * next > maxNodes || stride <= 0 || stride > counted.getKind().getMaxValue() / (next - 1)) {
+                break;
+            }
+            factor = next;
+        }
+        return factor;
+    }
+
+    /**
+     * Decides whether a counted loop should be vectorized with vectors of {@code length} elements:
+     * the expected number of iterations must cover at least two iterations of the vectorized loop,
+     * and the vectorized loop and its scalar post loop must fit into the node budget.
+     */
+    public static boolean shouldVectorize(LoopEx loop, int length) {
+        LoopBeginNode loopBegin = loop.loopBegin();
+        CountedLoopInfo counted = loop.counted();
+        double trips = counted.isConstantMaxTripCount() ? counted.constantMaxTripCount() : loopBegin.loopFrequency();
+        return trips >= length * 2 && loop.size() * 2 + loopBegin.graph().getNodeCount() < MaximumDesiredSize.getValue();
+    }
+
+    /**
+     * Decides whether the multiplications computing derived induction variables of a loop should
+     * be replaced by new basic induction variables. This only pays off if the loop is expected to
+     * iterate, since each new induction variable occupies a register for the whole loop.
+     */
+    public static boolean shouldStrengthReduce(LoopEx loop) {
+        return loop.loopBegin().loopFrequency() > 1;
+    }
+
     public static boolean shouldTryUnswitch(LoopEx loop) {
         return loop.loopBegin().unswitches() <= LoopMaxUnswitch.getValue();
     }
@@ -24,13 +24,20 @@ package com.oracle.graal.loop;
 
 import static com.oracle.graal.phases.GraalOptions.*;
 
+import java.util.*;
+
 import com.oracle.graal.api.code.*;
 import com.oracle.graal.api.meta.*;
 import com.oracle.graal.graph.*;
 import com.oracle.graal.graph.NodeClass.NodeClassIterator;
 import com.oracle.graal.graph.NodeClass.Position;
+import com.oracle.graal.loop.InductionVariable.Direction;
 import com.oracle.graal.nodes.*;
+import com.oracle.graal.nodes.PhiNode.PhiType;
+import com.oracle.graal.nodes.VirtualState.NodeClosure;
+import com.oracle.graal.nodes.calc.*;
 import com.oracle.graal.nodes.extended.*;
+import com.oracle.graal.nodes.util.*;
 import com.oracle.graal.phases.common.*;
 
 public abstract class LoopTransformations {
@@ -95,25 +102,225 @@ public abstract class LoopTransformations {
         // TODO (gd) probabilities need some amount of fixup.. (probably also in other transforms)
     }
 
+    /**
+     * Partially unrolls a counted loop by {@code factor}, which must be a power of two. The loop
+     * becomes a main loop whose body is repeated {@code factor} times and which only tests its
+     * condition once per iteration, followed by a post loop (a copy of the original loop) that
+     * executes the remaining iterations.
+     */
     public static void unroll(LoopEx loop, int factor) {
-        assert loop.isCounted();
-        if (factor > 0) {
-            throw new UnsupportedOperationException();
+        LoopBeginNode loopBegin = loop.loopBegin();
+        StructuredGraph graph = loopBegin.graph();
+        LoopExitNode mainExit = splitPostLoop(loop, factor);
+        for (int copies = 1; copies < factor; copies *= 2) {
+            LoopEx mainLoop = new LoopsData(graph).loop(loopBegin);
+            mainLoop.inside().duplicate().appendInside(mainLoop);
+        }
+        // all copies of the loop test but the first one can now be removed
+        for (LoopExitNode exit : loopBegin.loopExits().snapshot()) {
+            if (exit != mainExit) {
+                IfNode test = (IfNode) exit.predecessor();
+                graph.removeSplitPropagate(test, test.trueSuccessor() == exit ? test.falseSuccessor() : test.trueSuccessor());
+            }
+        }
+    }
+
+    /**
+     * Prepares a counted loop for executing {@code factor} iterations of its body per iteration:
+     * the test of the loop is changed so that the loop is only entered while at least
+     * {@code factor} iterations are left, and a post loop (a copy of the original loop) that
+     * executes the remaining iterations is inserted after it. The caller is responsible for
+     * changing the body of the loop accordingly.
+     * 
+     * @return the exit of the loop, which now leads to the post loop
+     */
+    public static LoopExitNode splitPostLoop(LoopEx loop, int factor) {
+        assert loop.isCounted() && factor > 1 && Integer.bitCount(factor) == 1;
+        LoopBeginNode loopBegin = loop.loopBegin();
+        CountedLoopInfo counted = loop.counted();
+        AbstractBeginNode body = counted.getBody();
+        IfNode loopTest = (IfNode) body.predecessor();
+        LoopExitNode mainExit = (LoopExitNode) (loopTest.trueSuccessor() == body ? loopTest.falseSuccessor() : loopTest.trueSuccessor());
+        assert loopBegin.loopExits().count() == 1 && loopBegin.loopEnds().count() == 1;
+
+        insertPostLoop(loop, mainExit);
+        LogicNode oldTest = loopTest.condition();
+        loopTest.setCondition(createMainLoopTest(counted, (IntegerLessThanNode) oldTest, factor));
+        if (oldTest.usages().isEmpty()) {
+            GraphUtil.killWithUnusedFloatingInputs(oldTest);
+        }
+        loopTest.setProbability(mainExit, Math.min(1.0, loopTest.probability(mainExit) * factor));
+        return mainExit;
+    }
+
+    /**
+     * Creates the post loop of a partially unrolled loop: a copy of the loop that is entered through
+     * the exit of the main loop and starts with the values the loop phis have at that exit.
+     */
+    private static void insertPostLoop(LoopEx loop, LoopExitNode mainExit) {
+        LoopBeginNode loopBegin = loop.loopBegin();
+        StructuredGraph graph = loopBegin.graph();
+        LoopFragmentWhole postLoop = loop.whole().duplicate();
+        LoopBeginNode postLoopBegin = postLoop.getDuplicatedNode(loopBegin);
+        // the duplication merged the exits of both loops, the main loop now leaves to the post loop
+        GraphUtil.killCFG(mainExit.next());
+        mainExit.setNext(postLoop.entryPoint());
+        int entryIndex = postLoopBegin.phiPredecessorIndex(postLoopBegin.forwardEnd());
+        for (PhiNode phi : loopBegin.phis()) {
+            ProxyNode exitValue = graph.unique(new ProxyNode(phi, mainExit, phi.type(), phi.type() == PhiType.Value ? null : phi.getIdentity()));
+            PhiNode postPhi = postLoop.getDuplicatedNode(phi);
+            postPhi.setValueAt(entryIndex, exitValue);
+        }
+    }
+
+    /**
+     * Creates the test of the main loop: the loop is only entered if all {@code factor} iterations
+     * of its body are within the limit, i.e. the limit is moved back by {@code factor - 1} strides.
+     * If this would overflow, the limit is clamped so that the main loop is never entered.
+     */
+    private static LogicNode createMainLoopTest(CountedLoopInfo counted, IntegerLessThanNode test, int factor) {
+        assert !counted.isLimitIncluded() && counted.getCounter().isConstantStride();
+        StructuredGraph graph = test.graph();
+        Kind kind = counted.getKind();
+        ValueNode limit = counted.getLimit();
+        long offset = counted.getCounter().constantStride() * (factor - 1);
+        IntegerLessThanNode overflow;
+        long clamp;
+        if (counted.getDirection() == Direction.Up) {
+            overflow = graph.unique(new IntegerLessThanNode(limit, ConstantNode.forIntegerKind(kind, kind.getMinValue() + offset, graph)));
+            clamp = kind.getMinValue();
+        } else {
+            overflow = graph.unique(new IntegerLessThanNode(ConstantNode.forIntegerKind(kind, kind.getMaxValue() + offset, graph), limit));
+            clamp = kind.getMaxValue();
         }
-        // TODO (gd) implement counted loop
-        LoopFragmentWhole main = loop.whole();
-        LoopFragmentWhole prologue = main.duplicate();
-        prologue.insertBefore(loop);
-        // CountedLoopBeginNode counted = prologue.countedLoop();
-        // StructuredGraph graph = (StructuredGraph) counted.graph();
-        // ValueNode tripCountPrologue = counted.tripCount();
-        // ValueNode tripCountMain = counted.tripCount();
-        // graph.replaceFloating(tripCountPrologue, "tripCountPrologue % factor");
-        // graph.replaceFloating(tripCountMain, "tripCountMain - (tripCountPrologue % factor)");
-        LoopFragmentInside inside = loop.inside();
-        for (int i = 0; i < factor; i++) {
-            inside.duplicate().appendInside(loop);
+        IntegerSubNode shifted = IntegerArithmeticNode.sub(limit, ConstantNode.forIntegerKind(kind, offset, graph));
+        ValueNode mainLimit = graph.unique(new ConditionalNode(overflow, ConstantNode.forIntegerKind(kind, clamp, graph), shifted));
+        if (test.x() == limit) {
+            return graph.unique(new IntegerLessThanNode(mainLimit, test.y()));
+        } else {
+            assert test.y() == limit;
+            return graph.unique(new IntegerLessThanNode(test.x(), mainLimit));
+        }
+    }
+
+    /**
+     * Strip mines a counted loop: the loop is nested into a new outer loop and its test is changed
+     * so that it runs at most about {@code iterations} iterations each time it is entered. The
+     * outer loop repeats the original test after the inner loop exits, so the safepoint of the
+     * inner loop can be removed while the loop end of the outer loop still polls. The loop must
+     * have a single exit, which is its counted loop test, and a basic induction variable as
+     * counter.
+     *
+     * @return the begin of the outer loop
+     */
+    public static LoopBeginNode stripMine(LoopEx loop, int iterations) {
+        LoopBeginNode loopBegin = loop.loopBegin();
+        StructuredGraph graph = loopBegin.graph();
+        CountedLoopInfo counted = loop.counted();
+        assert counted.getCounter() instanceof BasicInductionVariable && counted.getCounter().isConstantStride() && iterations > 0;
+        assert loopBegin.loopExits().count() == 1 && loopBegin.forwardEndCount() == 1;
+        AbstractBeginNode body = counted.getBody();
+        IfNode loopTest = (IfNode) body.predecessor();
+        IntegerLessThanNode test = (IntegerLessThanNode) loopTest.condition();
+        LoopExitNode exit = loopBegin.loopExits().first();
+        AbstractEndNode forwardEnd = loopBegin.forwardEnd();
+
+        // the outer loop begins where the loop used to begin and has a copy of each loop phi
+        LoopBeginNode outerBegin = graph.add(new LoopBeginNode());
+        EndNode outerForwardEnd = graph.add(new EndNode());
+        forwardEnd.replaceAtPredecessor(outerForwardEnd);
+        outerBegin.addForwardEnd(outerForwardEnd);
+        outerBegin.setNext(forwardEnd);
+        int entryIndex = loopBegin.phiPredecessorIndex(forwardEnd);
+        final Map<PhiNode, PhiNode> outerPhis = new IdentityHashMap<>();
+        for (PhiNode phi : loopBegin.phis().snapshot()) {
+            PhiNode outerPhi = graph.add(phi.type() == PhiType.Value ? new PhiNode(phi.stamp(), outerBegin) : new PhiNode(phi.type(), outerBegin, phi.getIdentity()));
+            outerPhi.addInput(phi.valueAt(entryIndex));
+            phi.setValueAt(entryIndex, outerPhi);
+            outerPhis.put(phi, outerPhi);
+        }
+        FrameState outerState = loopBegin.stateAfter().duplicateWithVirtualState();
+        outerState.applyToNonVirtual(new NodeClosure<ValueNode>() {
+
+            @Override
+            public void apply(Node from, ValueNode node) {
+                PhiNode outerPhi = outerPhis.get(node);
+                if (outerPhi != null) {
+                    from.replaceFirstInput(node, outerPhi);
+                }
+            }
+        });
+        outerBegin.setStateAfter(outerState);
+
+        // the inner loop runs until the end of the strip, which is at most the original limit
+        ValueNode stripLimit = createStripLimit(counted, outerPhis.get(counted.getCounter().valueNode()), iterations);
+        if (test.y() == counted.getLimit()) {
+            loopTest.setCondition(graph.unique(new IntegerLessThanNode(test.x(), stripLimit)));
+        } else {
+            assert test.x() == counted.getLimit();
+            loopTest.setCondition(graph.unique(new IntegerLessThanNode(stripLimit, test.y())));
+        }
+
+        // after the inner loop the original test decides whether to start the next strip
+        double outerFrequency = Math.max(1.0, loopBegin.loopFrequency() / iterations);
+        outerBegin.setLoopFrequency(outerFrequency);
+        FixedNode next = exit.next();
+        exit.setNext(null);
+        BeginNode continueBegin = graph.add(new BeginNode());
+        LoopExitNode outerExit = graph.add(new LoopExitNode(outerBegin));
+        outerExit.setNext(next);
+        boolean continueIfTrue = loopTest.trueSuccessor() == body;
+        double continueProbability = 1.0 - 1.0 / outerFrequency;
+        IfNode outerTest = graph.add(new IfNode(test, continueIfTrue ? continueBegin : outerExit, continueIfTrue ? outerExit : continueBegin, continueIfTrue ? continueProbability
+                        : 1.0 - continueProbability));
+        exit.setNext(outerTest);
+        LoopEndNode outerEnd = graph.add(new LoopEndNode(outerBegin));
+        continueBegin.setNext(outerEnd);
+        for (Map.Entry<PhiNode, PhiNode> entry : outerPhis.entrySet()) {
+            PhiNode phi = entry.getKey();
+            ValueNode exitValue = phi;
+            if (phi.type() != PhiType.Value) {
+                exitValue = graph.unique(new ProxyNode(phi, exit, phi.type(), phi.getIdentity()));
+            }
+            entry.getValue().addInput(exitValue);
+        }
+        return outerBegin;
+    }
+
+    /**
+     * Checks whether the distance the counter of {@code counted} moves in {@code iterations}
+     * iterations can be represented in the kind of the counter, which {@link #stripMine} requires.
+     */
+    public static boolean canStrip(CountedLoopInfo counted, int iterations) {
+        long stride = counted.getCounter().constantStride();
+        long maxValue = counted.getKind().getMaxValue();
+        return iterations > 0 && stride != Long.MIN_VALUE && Math.abs(stride) <= maxValue / iterations;
+    }
+
+    /**
+     * Creates the limit of a strip starting with the counter value {@code start}: the value the
+     * counter has after {@code iterations} iterations, or the original limit if that is reached
+     * first. The distance to the original limit is computed in long arithmetic to avoid overflows.
+     */
+    private static ValueNode createStripLimit(CountedLoopInfo counted, ValueNode start, int iterations) {
+        StructuredGraph graph = start.graph();
+        Kind kind = counted.getKind();
+        ValueNode limit = counted.getLimit();
+        assert canStrip(counted, iterations);
+        long strip = Math.abs(counted.getCounter().constantStride()) * iterations;
+        ValueNode longStart = ConvertNode.convert(Kind.Long, start);
+        ValueNode longLimit = ConvertNode.convert(Kind.Long, limit);
+        ValueNode distance;
+        ValueNode stripEnd;
+        if (counted.getDirection() == Direction.Up) {
+            distance = IntegerArithmeticNode.sub(longLimit, longStart);
+            stripEnd = IntegerArithmeticNode.add(start, ConstantNode.forIntegerKind(kind, strip, graph));
+        } else {
+            distance = IntegerArithmeticNode.sub(longStart, longLimit);
+            stripEnd = IntegerArithmeticNode.sub(start, ConstantNode.forIntegerKind(kind, strip, graph));
         }
+        LogicNode withinStrip = graph.unique(new IntegerLessThanNode(distance, ConstantNode.forLong(strip, graph)));
+        return graph.unique(new ConditionalNode(withinStrip, limit, stripEnd));
     }
 
     public static ControlSplitNode findUnswitchable(LoopEx loop) {
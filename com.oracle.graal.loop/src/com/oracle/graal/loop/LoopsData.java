@@ -38,6 +38,7 @@ public class LoopsData {
     private Map<Loop, LoopEx> lirLoopToEx = new IdentityHashMap<>();
     private Map<LoopBeginNode, LoopEx> loopBeginToEx = new IdentityHashMap<>();
     private ControlFlowGraph cfg;
+    private boolean countedLoopsDetected;
 
     public LoopsData(final StructuredGraph graph) {
         cfg = Debug.scope("ControlFlowGraph", new Callable<ControlFlowGraph>() {
@@ -78,6 +79,18 @@ public class LoopsData {
         return loops;
     }
 
+    public List<LoopEx> innerFirst() {
+        ArrayList<LoopEx> loops = new ArrayList<>(loops());
+        Collections.sort(loops, new Comparator<LoopEx>() {
+
+            @Override
+            public int compare(LoopEx o1, LoopEx o2) {
+                return o2.lirLoop().depth - o1.lirLoop().depth;
+            }
+        });
+        return loops;
+    }
+
     public Collection<LoopEx> countedLoops() {
         List<LoopEx> counted = new LinkedList<>();
         for (LoopEx loop : loops()) {
@@ -90,73 +103,116 @@ public class LoopsData {
 
     public void detectedCountedLoops() {
         for (LoopEx loop : loops()) {
-            InductionVariables ivs = new InductionVariables(loop);
-            LoopBeginNode loopBegin = loop.loopBegin();
-            FixedNode next = loopBegin.next();
-            while (next instanceof FixedGuardNode || next instanceof ValueAnchorNode) {
-                next = ((FixedWithNextNode) next).next();
+            detectCountedLoop(loop);
+        }
+        countedLoopsDetected = true;
+    }
+
+    private static void detectCountedLoop(LoopEx loop) {
+        InductionVariables ivs = new InductionVariables(loop);
+        LoopBeginNode loopBegin = loop.loopBegin();
+        FixedNode next = loopBegin.next();
+        while (next instanceof FixedGuardNode || next instanceof ValueAnchorNode) {
+            next = ((FixedWithNextNode) next).next();
+        }
+        if (next instanceof IfNode) {
+            IfNode ifNode = (IfNode) next;
+            boolean negated = false;
+            if (!loopBegin.isLoopExit(ifNode.falseSuccessor())) {
+                if (!loopBegin.isLoopExit(ifNode.trueSuccessor())) {
+                    return;
+                }
+                negated = true;
             }
-            if (next instanceof IfNode) {
-                IfNode ifNode = (IfNode) next;
-                boolean negated = false;
-                if (!loopBegin.isLoopExit(ifNode.falseSuccessor())) {
-                    if (!loopBegin.isLoopExit(ifNode.trueSuccessor())) {
-                        continue;
-                    }
-                    negated = true;
+            LogicNode ifTest = ifNode.condition();
+            if (!(ifTest instanceof IntegerLessThanNode)) {
+                if (ifTest instanceof IntegerBelowThanNode) {
+                    Debug.log("Ignored potential Counted loop at %s with |<|", loopBegin);
                 }
-                LogicNode ifTest = ifNode.condition();
-                if (!(ifTest instanceof IntegerLessThanNode)) {
-                    if (ifTest instanceof IntegerBelowThanNode) {
-                        Debug.log("Ignored potential Counted loop at %s with |<|", loopBegin);
-                    }
-                    continue;
+                return;
+            }
+            IntegerLessThanNode lessThan = (IntegerLessThanNode) ifTest;
+            Condition condition = null;
+            InductionVariable iv = null;
+            ValueNode limit = null;
+            if (loop.isOutsideLoop(lessThan.x())) {
+                iv = ivs.get(lessThan.y());
+                if (iv != null) {
+                    condition = lessThan.condition().mirror();
+                    limit = lessThan.x();
+                }
+            } else if (loop.isOutsideLoop(lessThan.y())) {
+                iv = ivs.get(lessThan.x());
+                if (iv != null) {
+                    condition = lessThan.condition();
+                    limit = lessThan.y();
                 }
-                IntegerLessThanNode lessThan = (IntegerLessThanNode) ifTest;
-                Condition condition = null;
-                InductionVariable iv = null;
-                ValueNode limit = null;
-                if (loop.isOutsideLoop(lessThan.x())) {
-                    iv = ivs.get(lessThan.y());
-                    if (iv != null) {
-                        condition = lessThan.condition().mirror();
-                        limit = lessThan.x();
+            }
+            if (condition == null) {
+                return;
+            }
+            if (negated) {
+                condition = condition.negate();
+            }
+            boolean oneOff = false;
+            switch (condition) {
+                case LE:
+                    oneOff = true; // fall through
+                case LT:
+                    if (iv.direction() != Direction.Up) {
+                        return;
                     }
-                } else if (loop.isOutsideLoop(lessThan.y())) {
-                    iv = ivs.get(lessThan.x());
-                    if (iv != null) {
-                        condition = lessThan.condition();
-                        limit = lessThan.y();
+                    break;
+                case GE:
+                    oneOff = true; // fall through
+                case GT:
+                    if (iv.direction() != Direction.Down) {
+                        return;
                     }
-                }
-                if (condition == null) {
-                    continue;
-                }
-                if (negated) {
-                    condition = condition.negate();
-                }
-                boolean oneOff = false;
-                switch (condition) {
-                    case LE:
-                        oneOff = true; // fall through
-                    case LT:
-                        if (iv.direction() != Direction.Up) {
-                            continue;
-                        }
-                        break;
-                    case GE:
-                        oneOff = true; // fall through
-                    case GT:
-                        if (iv.direction() != Direction.Down) {
-                            continue;
-                        }
-                        break;
-                    default:
-                        throw GraalInternalError.shouldNotReachHere();
-                }
-                loop.setCounted(new CountedLoopInfo(loop, iv, limit, oneOff, negated ? ifNode.falseSuccessor() : ifNode.trueSuccessor()));
+                    break;
+                default:
+                    throw GraalInternalError.shouldNotReachHere();
+            }
+            loop.setCounted(new CountedLoopInfo(loop, iv, limit, oneOff, negated ? ifNode.falseSuccessor() : ifNode.trueSuccessor()));
+        }
+    }
+
+    /**
+     * Updates this object after {@code loop} has been transformed, for example by
+     * {@link LoopTransformations#unswitch}, {@link LoopTransformations#peel} or
+     * {@link LoopTransformations#fullUnroll}, without recomputing the control flow graph. The
+     * transformed loop and the loops enclosing it are removed since their blocks changed, and so
+     * are the loops whose blocks were deleted by the transformation. The other loops stay valid
+     * and can be transformed in turn; their node sets and induction variables are recomputed on
+     * demand since the transformation may have changed their inputs. Loops created by the
+     * transformation are not added, finding them requires a new {@link LoopsData}.
+     */
+    public void transformed(LoopEx loop) {
+        List<LoopEx> removed = new ArrayList<>();
+        for (LoopEx other : loops()) {
+            if (other == loop || isAncestor(other.lirLoop(), loop.lirLoop()) || !other.hasIntactBlocks()) {
+                removed.add(other);
+            }
+        }
+        for (LoopEx other : removed) {
+            lirLoopToEx.remove(other.lirLoop());
+            loopBeginToEx.remove(other.loopBegin());
+        }
+        for (LoopEx other : loops()) {
+            other.clearCaches();
+            if (countedLoopsDetected) {
+                detectCountedLoop(other);
+            }
+        }
+    }
+
+    private static boolean isAncestor(Loop ancestor, Loop loop) {
+        for (Loop parent = loop.parent; parent != null; parent = parent.parent) {
+            if (parent == ancestor) {
+                return true;
             }
         }
+        return false;
     }
 
     public ControlFlowGraph controlFlowGraph() {
@@ -45,14 +45,19 @@ public class LoopFullUnrollPhase extends BasePhase<HighTierContext> {
                 peeled = false;
                 final LoopsData dataCounted = new LoopsData(graph);
                 dataCounted.detectedCountedLoops();
+                // unroll as many loops as possible before recomputing the loops data
                 for (LoopEx loop : dataCounted.countedLoops()) {
+                    if (dataCounted.loop(loop.loopBegin()) != loop) {
+                        // invalidated by a previous unrolling
+                        continue;
+                    }
                     if (LoopPolicies.shouldFullUnroll(loop)) {
                         Debug.log("FullUnroll %s", loop);
                         LoopTransformations.fullUnroll(loop, context.getRuntime(), context.getAssumptions(), canonicalizeReads);
+                        dataCounted.transformed(loop);
                         FULLY_UNROLLED_LOOPS.increment();
                         Debug.dump(graph, "After fullUnroll %s", loop);
                         peeled = true;
-                        break;
                     }
                 }
             } while (peeled);
@@ -0,0 +1,297 @@
+/*
+ * Copyright (c) 2013, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.loop.phases;
+
+import static com.oracle.graal.api.meta.LocationIdentity.*;
+
+import java.util.*;
+
+import com.oracle.graal.api.code.*;
+import com.oracle.graal.api.meta.*;
+import com.oracle.graal.debug.*;
+import com.oracle.graal.loop.*;
+import com.oracle.graal.loop.InductionVariable.Direction;
+import com.oracle.graal.nodes.*;
+import com.oracle.graal.nodes.calc.*;
+import com.oracle.graal.nodes.cfg.*;
+import com.oracle.graal.nodes.extended.*;
+import com.oracle.graal.nodes.java.*;
+import com.oracle.graal.nodes.type.*;
+import com.oracle.graal.nodes.util.*;
+import com.oracle.graal.phases.*;
+import com.oracle.graal.phases.tiers.*;
+
+/**
+ * Replaces the bounds check guards of array accesses in counted loops by a predicate evaluated once
+ * before the loop. A guard {@code index |<| length} inside the loop qualifies if {@code index} is an
+ * induction variable derived from the loop counter and {@code length} is the loop invariant length
+ * of an array. The
+ * predicate checks that the index is in bounds at both ends of the range of values the counter can
+ * take in the loop body; since the index is an affine function of the counter this covers all
+ * iterations. The predicate is computed in long arithmetic so that indexes which would overflow
+ * in the loop fail it instead of wrapping around. If the predicate does not hold, the compiled code
+ * deoptimizes with {@link DeoptimizationReason#LoopLimitCheck} before entering the loop.
+ */
+public class LoopRangeCheckEliminationPhase extends BasePhase<MidTierContext> {
+
+    private static final DebugMetric RANGE_CHECKS_ELIMINATED = Debug.metric("RangeChecksEliminated");
+
+    /**
+     * Bound on the magnitude of the long values computed for an index, leaving room for the
+     * additions and multiplications that compute them.
+     */
+    private static final long MAX_MAGNITUDE = 1L << 62;
+
+    @Override
+    protected void run(StructuredGraph graph, MidTierContext context) {
+        if (graph.hasLoops() && context.getOptimisticOptimizations().useLoopLimitChecks()) {
+            LoopsData loops = new LoopsData(graph);
+            loops.detectedCountedLoops();
+            for (LoopEx loop : loops.countedLoops()) {
+                if (loop.counted().getKind() == Kind.Int && loop.counted().getCounter() instanceof BasicInductionVariable && loop.counted().isExactTripCount()) {
+                    processLoop(loop);
+                }
+            }
+        }
+    }
+
+    private static void processLoop(LoopEx loop) {
+        StructuredGraph graph = loop.loopBegin().graph();
+        ControlFlowGraph cfg = loop.loopsData().controlFlowGraph();
+        Block bodyBlock = cfg.blockFor(loop.counted().getBody());
+        List<Block> loopEndBlocks = new ArrayList<>();
+        for (LoopEndNode loopEnd : loop.loopBegin().loopEnds()) {
+            loopEndBlocks.add(cfg.blockFor(loopEnd));
+        }
+        LoopPredicate predicate = null;
+        for (GuardNode guard : graph.getNodes(GuardNode.class).snapshot()) {
+            if (!guard.isAlive() || guard.negated() || guard.reason() != DeoptimizationReason.BoundsCheckException || !(guard.condition() instanceof IntegerBelowThanNode) ||
+                            !(guard.getGuard() instanceof FixedNode)) {
+                continue;
+            }
+            Block anchorBlock = cfg.blockFor(guard.getGuard().asNode());
+            if (anchorBlock == null || !anchorBlock.isDominatedBy(bodyBlock) || !dominatesAll(anchorBlock, loopEndBlocks)) {
+                // only speculate on checks that are performed in every iteration
+                continue;
+            }
+            IntegerBelowThanNode check = (IntegerBelowThanNode) guard.condition();
+            if (!isArrayLength(check.y())) {
+                continue;
+            }
+            InductionVariable index = loop.getInductionVariables().get(check.x());
+            if (index == null || index.valueNode().kind() != Kind.Int || rootOf(index).valueNode() != loop.counted().getCounter().valueNode() || magnitudeBound(index) < 0) {
+                continue;
+            }
+            if (predicate == null) {
+                predicate = new LoopPredicate(loop);
+            }
+            ValueNode length = predicate.invariant(check.y());
+            if (length == null) {
+                continue;
+            }
+            GuardNode replacement = predicate.createRangeGuard(index, length);
+            Debug.log("Replacing %s in %s by %s", guard, loop, replacement);
+            guard.replaceAtUsages(replacement);
+            GraphUtil.killWithUnusedFloatingInputs(guard);
+            RANGE_CHECKS_ELIMINATED.increment();
+        }
+        if (predicate != null && predicate.used) {
+            loop.counted().createOverFlowGuard();
+        }
+    }
+
+    /**
+     * Determines if {@code value} is the length of an array, either as an {@link ArrayLengthNode}
+     * or as the lowered read of the final int field of an object known to be an array.
+     */
+    private static boolean isArrayLength(ValueNode value) {
+        if (value instanceof ArrayLengthNode) {
+            return true;
+        }
+        ValueNode object;
+        LocationNode location;
+        if (value instanceof FloatingAccessNode) {
+            object = ((FloatingAccessNode) value).object();
+            location = ((FloatingAccessNode) value).location();
+        } else if (value instanceof AccessNode) {
+            object = ((AccessNode) value).object();
+            location = ((AccessNode) value).location();
+        } else {
+            return false;
+        }
+        if (value.kind() != Kind.Int || location.getLocationIdentity() != FINAL_LOCATION || !(object.stamp() instanceof ObjectStamp)) {
+            return false;
+        }
+        ResolvedJavaType type = ((ObjectStamp) object.stamp()).type();
+        return type != null && type.isArray();
+    }
+
+    private static boolean dominatesAll(Block block, List<Block> blocks) {
+        for (Block b : blocks) {
+            if (!block.dominates(b)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static InductionVariable rootOf(InductionVariable iv) {
+        if (iv instanceof DerivedOffsetInductionVariable) {
+            return rootOf(((DerivedOffsetInductionVariable) iv).getBase());
+        } else if (iv instanceof DerivedScaledInductionVariable) {
+            return rootOf(((DerivedScaledInductionVariable) iv).getBase());
+        }
+        return iv;
+    }
+
+    /**
+     * Returns an upper bound of the magnitude of the values of {@code iv} computed in long
+     * arithmetic from int counter values, or -1 if such a bound cannot be established.
+     */
+    private static long magnitudeBound(InductionVariable iv) {
+        if (iv instanceof BasicInductionVariable) {
+            return 1L << 31;
+        } else if (iv instanceof DerivedOffsetInductionVariable) {
+            DerivedOffsetInductionVariable derived = (DerivedOffsetInductionVariable) iv;
+            long base = magnitudeBound(derived.getBase());
+            ValueNode offset = derived.getOffset();
+            if (base < 0 || offset.kind() != Kind.Int) {
+                return -1;
+            }
+            long bound = base + (offset.isConstant() ? Math.abs(offset.asConstant().asLong()) : 1L << 31);
+            return bound <= MAX_MAGNITUDE ? bound : -1;
+        } else if (iv instanceof DerivedScaledInductionVariable) {
+            DerivedScaledInductionVariable derived = (DerivedScaledInductionVariable) iv;
+            long base = magnitudeBound(derived.getBase());
+            ValueNode scale = derived.getScale();
+            if (base < 0 || !scale.isConstant() || scale.kind() != Kind.Int) {
+                return -1;
+            }
+            long factor = Math.abs(scale.asConstant().asLong());
+            return factor == 0 || base <= MAX_MAGNITUDE / factor ? base * factor : -1;
+        }
+        return -1;
+    }
+
+    /**
+     * The nodes of the predicate built before a loop, created lazily and shared by all the range
+     * checks of the loop.
+     */
+    private static class LoopPredicate {
+
+        private final LoopEx loop;
+        private final StructuredGraph graph;
+        private final AbstractBeginNode anchor;
+        private LogicNode entryTest;
+        private boolean entryTestNegated;
+        private ValueNode first;
+        private ValueNode last;
+        boolean used;
+
+        LoopPredicate(LoopEx loop) {
+            this.loop = loop;
+            this.graph = loop.loopBegin().graph();
+            this.anchor = BeginNode.prevBegin(loop.entryPoint());
+        }
+
+        /**
+         * Returns a node computing the value of {@code value} before the loop, or null if the value
+         * is not loop invariant. Besides values defined outside the loop, this handles reads from
+         * final locations (such as array lengths) whose inputs and guard are all outside the loop,
+         * by re-creating the read before the loop.
+         * <p>
+         * A read whose guard is inside the loop is not hoisted. The predicate is evaluated even if
+         * the loop is not entered, and the guard of the read (e.g. the null check of an array) may
+         * not hold in that case.
+         */
+        ValueNode invariant(ValueNode value) {
+            if (loop.isOutsideLoop(value)) {
+                return value;
+            }
+            if (value instanceof FloatingReadNode) {
+                FloatingReadNode read = (FloatingReadNode) value;
+                GuardingNode guard = read.getGuard();
+                if (read.location().getLocationIdentity() == FINAL_LOCATION && loop.isOutsideLoop(read.object()) && loop.isOutsideLoop(read.location()) &&
+                                (read.lastLocationAccess() == null || loop.isOutsideLoop(read.lastLocationAccess())) && (guard == null || loop.isOutsideLoop(guard.asNode()))) {
+                    return graph.unique(new FloatingReadNode(read.object(), read.location(), read.lastLocationAccess(), read.stamp(), guard, read.getBarrierType(), read.isCompressible()));
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Creates a guard which holds if the values of {@code index} in all the iterations of the
+         * loop are in the range [0, {@code length}).
+         */
+        GuardNode createRangeGuard(InductionVariable index, ValueNode length) {
+            if (entryTest == null) {
+                createCounterRange();
+            }
+            used = true;
+            ValueNode longLength = ConvertNode.convert(Kind.Long, length);
+            GuardNode firstGuard = createBelowGuard(index.valueNodeFor(first, Kind.Long), longLength, anchor);
+            return createBelowGuard(index.valueNodeFor(last, Kind.Long), longLength, firstGuard);
+        }
+
+        /**
+         * Creates a guard for {@code value |<| length} which trivially holds if the loop is not
+         * entered.
+         */
+        private GuardNode createBelowGuard(ValueNode value, ValueNode length, GuardingNode guardAnchor) {
+            ValueNode checkedValue = ifEntered(value, ConstantNode.forLong(0, graph));
+            ValueNode checkedLength = ifEntered(length, ConstantNode.forLong(1, graph));
+            LogicNode condition = graph.unique(new IntegerBelowThanNode(checkedValue, checkedLength));
+            return graph.unique(new GuardNode(condition, guardAnchor, DeoptimizationReason.LoopLimitCheck, DeoptimizationAction.InvalidateRecompile, false));
+        }
+
+        private ValueNode ifEntered(ValueNode value, ValueNode otherwise) {
+            if (entryTestNegated) {
+                return graph.unique(new ConditionalNode(entryTest, otherwise, value));
+            }
+            return graph.unique(new ConditionalNode(entryTest, value, otherwise));
+        }
+
+        /**
+         * Computes, in long arithmetic, the bounds of the values the counter can have in the body
+         * of the loop, as well as the condition under which the body is entered at all.
+         */
+        private void createCounterRange() {
+            CountedLoopInfo counted = loop.counted();
+            ValueNode start = counted.getStart();
+            ValueNode limit = counted.getLimit();
+            ValueNode longStart = ConvertNode.convert(Kind.Long, start);
+            ValueNode longLimit = ConvertNode.convert(Kind.Long, limit);
+            ConstantNode one = ConstantNode.forLong(1, graph);
+            if (counted.getDirection() == Direction.Up) {
+                first = longStart;
+                last = counted.isLimitIncluded() ? longLimit : IntegerArithmeticNode.sub(longLimit, one);
+                entryTest = counted.isLimitIncluded() ? graph.unique(new IntegerLessThanNode(limit, start)) : graph.unique(new IntegerLessThanNode(start, limit));
+            } else {
+                first = counted.isLimitIncluded() ? longLimit : IntegerArithmeticNode.add(longLimit, one);
+                last = longStart;
+                entryTest = counted.isLimitIncluded() ? graph.unique(new IntegerLessThanNode(start, limit)) : graph.unique(new IntegerLessThanNode(limit, start));
+            }
+            entryTestNegated = counted.isLimitIncluded();
+        }
+    }
+}
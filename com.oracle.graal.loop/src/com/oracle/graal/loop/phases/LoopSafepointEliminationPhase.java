@@ -22,7 +22,12 @@
  */
 package com.oracle.graal.loop.phases;
 
+import static com.oracle.graal.phases.GraalOptions.*;
+
+import java.util.*;
+
 import com.oracle.graal.api.meta.*;
+import com.oracle.graal.debug.*;
 import com.oracle.graal.loop.*;
 import com.oracle.graal.nodes.*;
 import com.oracle.graal.nodes.cfg.*;
@@ -30,11 +35,22 @@ import com.oracle.graal.nodes.extended.*;
 import com.oracle.graal.phases.*;
 import com.oracle.graal.phases.tiers.*;
 
+/**
+ * Removes the safepoint polls at the ends of innermost int counted loops, which are guaranteed to
+ * terminate once an overflow guard is added, and of loops whose body always performs a call. To
+ * keep the time to safepoint bounded, loops that may run for more than
+ * {@link GraalOptions#LoopStripMiningIterations} iterations are strip mined (see
+ * {@link LoopTransformations#stripMine}) if {@link GraalOptions#LoopStripMining} is enabled: only
+ * the inner loop loses its poll.
+ */
 public class LoopSafepointEliminationPhase extends BasePhase<MidTierContext> {
 
+    private static final DebugMetric STRIP_MINED = Debug.metric("StripMinedLoops");
+
     @Override
     protected void run(StructuredGraph graph, MidTierContext context) {
         LoopsData loops = new LoopsData(graph);
+        List<LoopEx> stripMine = new ArrayList<>();
         if (context.getOptimisticOptimizations().useLoopLimitChecks()) {
             loops.detectedCountedLoops();
             for (LoopEx loop : loops.countedLoops()) {
@@ -45,8 +61,12 @@ public class LoopSafepointEliminationPhase extends BasePhase<MidTierContext> {
                     }
                     if (hasSafepoint) {
                         loop.counted().createOverFlowGuard();
-                        for (LoopEndNode loopEnd : loop.loopBegin().loopEnds()) {
-                            loopEnd.disableSafepoint();
+                        if (LoopStripMining.getValue() && canStripMine(loop)) {
+                            stripMine.add(loop);
+                        } else {
+                            for (LoopEndNode loopEnd : loop.loopBegin().loopEnds()) {
+                                loopEnd.disableSafepoint();
+                            }
                         }
                     }
                 }
@@ -67,5 +87,36 @@ public class LoopSafepointEliminationPhase extends BasePhase<MidTierContext> {
                 }
             }
         }
+        // transform last, the control flow graph of the loops data does not include the outer loops
+        for (LoopEx loop : stripMine) {
+            boolean hasSafepoint = false;
+            for (LoopEndNode loopEnd : loop.loopBegin().loopEnds()) {
+                hasSafepoint |= loopEnd.canSafepoint();
+                loopEnd.disableSafepoint();
+            }
+            if (hasSafepoint) {
+                Debug.log("Strip mining %s", loop);
+                LoopTransformations.stripMine(loop, LoopStripMiningIterations.getValue());
+                STRIP_MINED.increment();
+            }
+        }
+    }
+
+    private static boolean canStripMine(LoopEx loop) {
+        LoopBeginNode loopBegin = loop.loopBegin();
+        CountedLoopInfo counted = loop.counted();
+        if (counted.isConstantMaxTripCount() && counted.constantMaxTripCount() <= LoopStripMiningIterations.getValue()) {
+            // the loop is short enough to not need a poll
+            return false;
+        }
+        if (!(counted.getCounter() instanceof BasicInductionVariable) || !counted.getCounter().isConstantStride()) {
+            return false;
+        }
+        if (!LoopTransformations.canStrip(counted, LoopStripMiningIterations.getValue())) {
+            // the loop runs at most about twice the iterations of a strip anyway
+            return false;
+        }
+        // the only exit must be the one of the counted loop test
+        return loopBegin.stateAfter() != null && loopBegin.loopExits().count() == 1;
     }
 }
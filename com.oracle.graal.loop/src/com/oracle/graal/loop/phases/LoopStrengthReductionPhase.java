@@ -0,0 +1,284 @@
+/*
+ * Copyright (c) 2013, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.loop.phases;
+
+import java.util.*;
+
+import com.oracle.graal.api.meta.*;
+import com.oracle.graal.debug.*;
+import com.oracle.graal.graph.*;
+import com.oracle.graal.loop.*;
+import com.oracle.graal.nodes.*;
+import com.oracle.graal.nodes.calc.*;
+import com.oracle.graal.nodes.type.*;
+import com.oracle.graal.nodes.util.*;
+import com.oracle.graal.phases.*;
+import com.oracle.graal.phases.graph.*;
+
+/**
+ * Replaces the multiplications computing derived induction variables ({@code i * k}) by new basic
+ * induction variables that are incremented by {@code stride * k} on every iteration. The counter of
+ * a counted loop that is then only used by the loop test is eliminated by rewriting the test in
+ * terms of one of the new induction variables (linear function test replacement), provided the
+ * stamps of the start and limit prove that this does not introduce an overflow.
+ */
+public class LoopStrengthReductionPhase extends Phase {
+
+    private static final DebugMetric STRENGTH_REDUCED = Debug.metric("StrengthReducedIVs");
+    private static final DebugMetric TESTS_REPLACED = Debug.metric("LoopTestsReplaced");
+
+    @Override
+    protected void run(StructuredGraph graph) {
+        if (!graph.hasLoops()) {
+            return;
+        }
+        new ComputeProbabilityClosure(graph).apply();
+        LoopsData data = new LoopsData(graph);
+        data.detectedCountedLoops();
+        for (LoopEx loop : new ArrayList<>(data.outterFirst())) {
+            if (data.loop(loop.loopBegin()) != loop || !LoopPolicies.shouldStrengthReduce(loop)) {
+                continue;
+            }
+            if (reduce(loop)) {
+                data.transformed(loop);
+                Debug.dump(graph, "After strength reduction of %s", loop);
+            }
+        }
+    }
+
+    private static boolean reduce(LoopEx loop) {
+        InductionVariable counter = null;
+        if (loop.isCounted() && loop.counted().getKind() == Kind.Int && loop.counted().getCounter() instanceof BasicInductionVariable) {
+            counter = loop.counted().getCounter();
+        }
+        // query all induction variables before changing the graph, their values are defined by the
+        // nodes that get replaced
+        List<ReducedInductionVariable> reduced = new ArrayList<>();
+        for (InductionVariable iv : loop.getInductionVariables().getAll()) {
+            ValueNode value = iv.valueNode();
+            if (iv instanceof DerivedScaledInductionVariable && value instanceof IntegerMulNode && (value.kind() == Kind.Int || value.kind() == Kind.Long)) {
+                long[] affine = counter == null ? null : affineFunction(iv, counter);
+                StructuredGraph graph = value.graph();
+                ValueNode init = iv.isConstantInit() ? ConstantNode.forIntegerKind(value.kind(), iv.constantInit(), graph) : iv.initNode();
+                ValueNode stride = iv.isConstantStride() ? ConstantNode.forIntegerKind(value.kind(), iv.constantStride(), graph) : iv.strideNode();
+                reduced.add(new ReducedInductionVariable((IntegerMulNode) value, init, stride, affine));
+            }
+        }
+        if (reduced.isEmpty()) {
+            return false;
+        }
+        LoopBeginNode loopBegin = loop.loopBegin();
+        StructuredGraph graph = loopBegin.graph();
+        for (ReducedInductionVariable iv : reduced) {
+            PhiNode phi = graph.add(new PhiNode(iv.mul.kind(), loopBegin));
+            phi.addInput(iv.init);
+            ValueNode next = IntegerArithmeticNode.add(phi, iv.stride);
+            for (int i = 0; i < loopBegin.loopEnds().count(); i++) {
+                phi.addInput(next);
+            }
+            iv.mul.replaceAtUsages(phi);
+            GraphUtil.killWithUnusedFloatingInputs(iv.mul);
+            iv.phi = phi;
+            STRENGTH_REDUCED.increment();
+        }
+        if (counter != null) {
+            replaceLoopTest(loop, (BasicInductionVariable) counter, reduced);
+        }
+        for (ReducedInductionVariable iv : reduced) {
+            if (iv.phi.isAlive()) {
+                killIfDead(iv.phi);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Rewrites the loop test {@code i < limit} into {@code a * i + b < a * limit + b} where
+     * {@code a * i + b} is one of the new induction variables, and removes the counter {@code i} if
+     * the test was its only use.
+     */
+    private static void replaceLoopTest(LoopEx loop, BasicInductionVariable counter, List<ReducedInductionVariable> reduced) {
+        CountedLoopInfo counted = loop.counted();
+        IfNode loopTest = (IfNode) counted.getBody().predecessor();
+        if (!(loopTest.condition() instanceof IntegerLessThanNode)) {
+            return;
+        }
+        IntegerLessThanNode condition = (IntegerLessThanNode) loopTest.condition();
+        PhiNode counterPhi = counter.valueNode();
+        ValueNode limit = counted.getLimit();
+        boolean counterIsX;
+        if (condition.x() == counterPhi && condition.y() == limit) {
+            counterIsX = true;
+        } else if (condition.y() == counterPhi && condition.x() == limit) {
+            counterIsX = false;
+        } else {
+            return;
+        }
+        if (condition.usages().count() != 1 || !isOnlyUsedBy(counterPhi, condition)) {
+            return;
+        }
+        if (!(counter.initNode().stamp() instanceof IntegerStamp) || !(limit.stamp() instanceof IntegerStamp) || !counter.isConstantStride()) {
+            return;
+        }
+        IntegerStamp startStamp = (IntegerStamp) counter.initNode().stamp();
+        IntegerStamp limitStamp = (IntegerStamp) limit.stamp();
+        long stride = Math.abs(counter.constantStride());
+        // all the values the counter and the limit can take when the test is evaluated
+        long lower = Math.min(startStamp.lowerBound(), limitStamp.lowerBound()) - stride;
+        long upper = Math.max(startStamp.upperBound(), limitStamp.upperBound()) + stride;
+        if (lower < Integer.MIN_VALUE || upper > Integer.MAX_VALUE) {
+            return;
+        }
+        for (ReducedInductionVariable iv : reduced) {
+            if (iv.affine != null && iv.phi.kind() == Kind.Int && !iv.phi.usages().isEmpty() && fitsInt(iv.affine, lower, upper)) {
+                long scale = iv.affine[0];
+                long offset = iv.affine[1];
+                StructuredGraph graph = loop.loopBegin().graph();
+                ValueNode newLimit;
+                if (limit.isConstant()) {
+                    newLimit = ConstantNode.forInt((int) (scale * limit.asConstant().asInt() + offset), graph);
+                } else {
+                    newLimit = IntegerArithmeticNode.add(IntegerArithmeticNode.mul(limit, ConstantNode.forInt((int) scale, graph)), ConstantNode.forInt((int) offset, graph));
+                }
+                // a negative scale reverses the order
+                IntegerLessThanNode newCondition;
+                if (counterIsX == scale > 0) {
+                    newCondition = graph.unique(new IntegerLessThanNode(iv.phi, newLimit));
+                } else {
+                    newCondition = graph.unique(new IntegerLessThanNode(newLimit, iv.phi));
+                }
+                Debug.log("Replacing %s by %s in %s", condition, newCondition, loop);
+                loopTest.setCondition(newCondition);
+                GraphUtil.killWithUnusedFloatingInputs(condition);
+                killIfDead(counterPhi);
+                TESTS_REPLACED.increment();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Computes {@code a} and {@code b} such that the value of {@code iv} is {@code a * c + b} where
+     * {@code c} is the value of {@code counter}, or returns null if the derivation is not linear
+     * with constant coefficients.
+     */
+    private static long[] affineFunction(InductionVariable iv, InductionVariable counter) {
+        if (iv.valueNode() == counter.valueNode()) {
+            // the counted loop info has its own instances of the induction variables
+            return new long[]{1, 0};
+        }
+        long[] result;
+        if (iv instanceof DerivedOffsetInductionVariable) {
+            DerivedOffsetInductionVariable offsetIV = (DerivedOffsetInductionVariable) iv;
+            long[] base = affineFunction(offsetIV.getBase(), counter);
+            if (base == null || !offsetIV.getOffset().isConstant()) {
+                return null;
+            }
+            long offset = offsetIV.getOffset().asConstant().asLong();
+            ValueNode value = offsetIV.valueNode();
+            if (value instanceof IntegerAddNode) {
+                result = new long[]{base[0], base[1] + offset};
+            } else if (((IntegerSubNode) value).x() == offsetIV.getBase().valueNode()) {
+                result = new long[]{base[0], base[1] - offset};
+            } else {
+                result = new long[]{-base[0], offset - base[1]};
+            }
+        } else if (iv instanceof DerivedScaledInductionVariable) {
+            DerivedScaledInductionVariable scaledIV = (DerivedScaledInductionVariable) iv;
+            long[] base = affineFunction(scaledIV.getBase(), counter);
+            if (base == null || !scaledIV.getScale().isConstant()) {
+                return null;
+            }
+            long scale = scaledIV.getScale().asConstant().asLong();
+            result = new long[]{base[0] * scale, base[1] * scale};
+        } else {
+            return null;
+        }
+        if (!isInt(result[0]) || !isInt(result[1]) || result[0] == 0) {
+            return null;
+        }
+        return result;
+    }
+
+    /**
+     * Checks that the affine function maps all the values in {@code [lower, upper]} into the int
+     * range. The function is linear, so the bounds of the range are sufficient.
+     */
+    private static boolean fitsInt(long[] affine, long lower, long upper) {
+        return isInt(affine[0] * lower + affine[1]) && isInt(affine[0] * upper + affine[1]);
+    }
+
+    private static boolean isInt(long value) {
+        return value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE;
+    }
+
+    private static boolean isOnlyUsedBy(PhiNode phi, Node user) {
+        for (Node usage : phi.usages()) {
+            if (usage != user && !isIncrementOf(usage, phi)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isIncrementOf(Node node, PhiNode phi) {
+        if (!phi.values().contains(node)) {
+            return false;
+        }
+        for (Node usage : node.usages()) {
+            if (usage != phi) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Removes an induction variable that is only used to compute its own next value.
+     */
+    private static void killIfDead(PhiNode phi) {
+        for (Node usage : phi.usages()) {
+            if (!isIncrementOf(usage, phi)) {
+                return;
+            }
+        }
+        phi.replaceAtUsages(null);
+        GraphUtil.killWithUnusedFloatingInputs(phi);
+    }
+
+    private static class ReducedInductionVariable {
+
+        final IntegerMulNode mul;
+        final ValueNode init;
+        final ValueNode stride;
+        final long[] affine;
+        PhiNode phi;
+
+        ReducedInductionVariable(IntegerMulNode mul, ValueNode init, ValueNode stride, long[] affine) {
+            this.mul = mul;
+            this.init = init;
+            this.stride = stride;
+            this.affine = affine;
+        }
+    }
+}
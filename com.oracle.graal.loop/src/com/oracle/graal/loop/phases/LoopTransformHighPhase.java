@@ -30,23 +30,39 @@ import com.oracle.graal.nodes.*;
 import com.oracle.graal.nodes.util.*;
 import com.oracle.graal.phases.*;
 import com.oracle.graal.phases.graph.*;
+import com.oracle.graal.phases.tiers.*;
 
-public class LoopTransformHighPhase extends Phase {
+public class LoopTransformHighPhase extends BasePhase<HighTierContext> {
+
+    private static final DebugMetric HOISTED = Debug.metric("HoistedLoopInvariants");
 
     @Override
-    protected void run(StructuredGraph graph) {
+    protected void run(StructuredGraph graph, HighTierContext context) {
         if (graph.hasLoops()) {
             if (LoopPeeling.getValue()) {
                 NodesToDoubles probabilities = new ComputeProbabilityClosure(graph).apply();
                 LoopsData data = new LoopsData(graph);
                 for (LoopEx loop : data.outterFirst()) {
-                    if (LoopPolicies.shouldPeel(loop, probabilities)) {
+                    if (data.loop(loop.loopBegin()) == loop && LoopPolicies.shouldPeel(loop, probabilities)) {
                         Debug.log("Peeling %s", loop);
                         LoopTransformations.peel(loop);
+                        data.transformed(loop);
                         Debug.dump(graph, "After peeling %s", loop);
                     }
                 }
             }
+            if (HoistLoopInvariants.getValue()) {
+                // inner loops first so that their invariants can be moved further out
+                LoopsData data = new LoopsData(graph);
+                boolean speculate = context.getOptimisticOptimizations().hoistLoopInvariantChecks();
+                for (LoopEx loop : data.innerFirst()) {
+                    int hoisted = new LoopInvariantCodeMotion(loop, speculate).hoist();
+                    if (hoisted > 0) {
+                        HOISTED.add(hoisted);
+                        Debug.dump(graph, "After hoisting %d invariants of %s", hoisted, loop);
+                    }
+                }
+            }
         }
     }
 }
@@ -24,15 +24,19 @@ package com.oracle.graal.loop.phases;
 
 import static com.oracle.graal.phases.GraalOptions.*;
 
+import java.util.*;
+
 import com.oracle.graal.debug.*;
 import com.oracle.graal.graph.NodeClass.NodeClassIterator;
 import com.oracle.graal.loop.*;
 import com.oracle.graal.nodes.*;
 import com.oracle.graal.phases.*;
+import com.oracle.graal.phases.graph.*;
 
 public class LoopTransformLowPhase extends Phase {
 
     private static final DebugMetric UNSWITCHED = Debug.metric("Unswitched");
+    private static final DebugMetric PARTIALLY_UNROLLED = Debug.metric("PartiallyUnrolled");
 
     @Override
     protected void run(StructuredGraph graph) {
@@ -54,7 +58,12 @@ public class LoopTransformLowPhase extends Phase {
                 do {
                     unswitched = false;
                     final LoopsData dataUnswitch = new LoopsData(graph);
-                    for (LoopEx loop : dataUnswitch.loops()) {
+                    // unswitch as many loops as possible before recomputing the loops data
+                    for (LoopEx loop : new ArrayList<>(dataUnswitch.loops())) {
+                        if (dataUnswitch.loop(loop.loopBegin()) != loop) {
+                            // invalidated by a previous unswitch
+                            continue;
+                        }
                         if (LoopPolicies.shouldTryUnswitch(loop)) {
                             ControlSplitNode controlSplit = LoopTransformations.findUnswitchable(loop);
                             if (controlSplit != null && LoopPolicies.shouldUnswitch(loop, controlSplit)) {
@@ -62,15 +71,40 @@ public class LoopTransformLowPhase extends Phase {
                                     logUnswitch(loop, controlSplit);
                                 }
                                 LoopTransformations.unswitch(loop, controlSplit);
+                                dataUnswitch.transformed(loop);
                                 UNSWITCHED.increment();
                                 Debug.dump(graph, "After unswitch %s", loop);
                                 unswitched = true;
-                                break;
                             }
                         }
                     }
                 } while (unswitched);
             }
+            if (PartialUnroll.getValue()) {
+                // refresh the loop frequencies the unrolling policy is based on
+                new ComputeProbabilityClosure(graph).apply();
+                LoopsData dataCandidates = new LoopsData(graph);
+                dataCandidates.detectedCountedLoops();
+                List<LoopBeginNode> candidates = new ArrayList<>();
+                for (LoopEx loop : dataCandidates.countedLoops()) {
+                    if (LoopPolicies.shouldPartialUnroll(loop)) {
+                        candidates.add(loop.loopBegin());
+                    }
+                }
+                // the main and post loops created by unrolling are not in the candidate list
+                for (LoopBeginNode loopBegin : candidates) {
+                    LoopsData dataUnroll = new LoopsData(graph);
+                    dataUnroll.detectedCountedLoops();
+                    LoopEx loop = dataUnroll.loop(loopBegin);
+                    int factor = LoopPolicies.partialUnrollFactor(loop);
+                    if (factor > 1) {
+                        Debug.log("Partially unrolling %s by %d", loop, factor);
+                        LoopTransformations.unroll(loop, factor);
+                        PARTIALLY_UNROLLED.increment();
+                        Debug.dump(graph, "After partial unroll %s", loop);
+                    }
+                }
+            }
         }
     }
 
@@ -0,0 +1,437 @@
+/*
+ * Copyright (c) 2013, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.loop.phases;
+
+import static com.oracle.graal.nodes.extended.BranchProbabilityNode.*;
+
+import java.util.*;
+
+import com.oracle.graal.api.code.*;
+import com.oracle.graal.api.meta.*;
+import com.oracle.graal.debug.*;
+import com.oracle.graal.graph.*;
+import com.oracle.graal.loop.*;
+import com.oracle.graal.loop.InductionVariable.Direction;
+import com.oracle.graal.nodes.*;
+import com.oracle.graal.nodes.calc.*;
+import com.oracle.graal.nodes.calc.VectorArithmeticNode.Operation;
+import com.oracle.graal.nodes.java.*;
+import com.oracle.graal.nodes.type.*;
+import com.oracle.graal.nodes.util.*;
+import com.oracle.graal.phases.*;
+import com.oracle.graal.phases.graph.*;
+import com.oracle.graal.phases.tiers.*;
+
+/**
+ * Vectorizes simple counted loops over primitive arrays. A loop qualifies if its counter counts up
+ * by one, its body is a straight sequence of array loads and stores indexed by the counter, and the
+ * stored values are computed from the loaded values and loop invariants by operations the target
+ * supports on packed values. The loop is split into a main loop, which processes as many elements
+ * per iteration as fit into a vector register, and a scalar post loop for the remaining elements
+ * (see {@link LoopTransformations#splitPostLoop}).
+ * <p>
+ * The vector accesses do not perform null or bounds checks. Instead, a predicate evaluated before
+ * the loop, if the loop is entered, checks that all accessed arrays are non-null and that the first
+ * and last value of the counter are valid indexes for them; if it does not hold, the compiled code
+ * deoptimizes with {@link DeoptimizationReason#LoopLimitCheck}.
+ */
+public class LoopVectorizationPhase extends BasePhase<HighTierContext> {
+
+    private static final DebugMetric LOOPS_VECTORIZED = Debug.metric("LoopsVectorized");
+
+    @Override
+    protected void run(StructuredGraph graph, HighTierContext context) {
+        if (graph.hasLoops() && context.getTarget() != null && context.getOptimisticOptimizations().useLoopLimitChecks()) {
+            Architecture arch = context.getTarget().arch;
+            // refresh the loop frequencies the vectorization policy is based on
+            new ComputeProbabilityClosure(graph).apply();
+            LoopsData dataCandidates = new LoopsData(graph);
+            dataCandidates.detectedCountedLoops();
+            List<LoopBeginNode> candidates = new ArrayList<>();
+            for (LoopEx loop : dataCandidates.countedLoops()) {
+                candidates.add(loop.loopBegin());
+            }
+            // the main and post loops created by vectorization are not in the candidate list
+            for (LoopBeginNode loopBegin : candidates) {
+                LoopsData data = new LoopsData(graph);
+                data.detectedCountedLoops();
+                LoopEx loop = data.loop(loopBegin);
+                if (loop == null || !loop.isCounted()) {
+                    continue;
+                }
+                VectorizableLoop vectorizable = VectorizableLoop.analyze(loop);
+                if (vectorizable == null) {
+                    continue;
+                }
+                int length = arch.getSupportedVectorLength(vectorizable.kind, arch.getMaxVectorLength(vectorizable.kind), vectorizable.hasArithmetic);
+                if (length > 1 && LoopPolicies.shouldVectorize(loop, length)) {
+                    Debug.log("Vectorizing %s with %d x %s", loop, length, vectorizable.kind);
+                    vectorizable.vectorize(length);
+                    LOOPS_VECTORIZED.increment();
+                    Debug.dump(graph, "After vectorizing %s", loop);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the vector operation corresponding to a scalar arithmetic or logic node, or null if
+     * there is none for values of kind {@code kind}.
+     */
+    private static Operation operationOf(ValueNode node, Kind kind) {
+        if (node.kind() != kind) {
+            return null;
+        }
+        boolean integer = kind == Kind.Int || kind == Kind.Long;
+        if (integer) {
+            if (node instanceof IntegerAddNode) {
+                return Operation.Add;
+            } else if (node instanceof IntegerSubNode) {
+                return Operation.Sub;
+            } else if (node instanceof IntegerMulNode && kind == Kind.Int) {
+                // there is no packed long multiplication
+                return Operation.Mul;
+            } else if (node instanceof AndNode) {
+                return Operation.And;
+            } else if (node instanceof OrNode) {
+                return Operation.Or;
+            } else if (node instanceof XorNode) {
+                return Operation.Xor;
+            }
+        } else {
+            if (node instanceof FloatAddNode) {
+                return Operation.Add;
+            } else if (node instanceof FloatSubNode) {
+                return Operation.Sub;
+            } else if (node instanceof FloatMulNode) {
+                return Operation.Mul;
+            } else if (node instanceof FloatDivNode) {
+                return Operation.Div;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * The result of analyzing a loop that can be vectorized.
+     */
+    private static final class VectorizableLoop {
+
+        private final LoopEx loop;
+        private final StructuredGraph graph;
+        private final PhiNode counter;
+        private final IntegerAddNode increment;
+        private final Kind kind;
+        private final List<FixedWithNextNode> accesses;
+        private final Set<ValueNode> computations;
+        private final boolean hasArithmetic;
+
+        private VectorizableLoop(LoopEx loop, IntegerAddNode increment, Kind kind, List<FixedWithNextNode> accesses, Set<ValueNode> computations) {
+            this.loop = loop;
+            this.graph = loop.loopBegin().graph();
+            this.counter = (PhiNode) loop.counted().getCounter().valueNode();
+            this.increment = increment;
+            this.kind = kind;
+            this.accesses = accesses;
+            this.computations = computations;
+            this.hasArithmetic = !computations.isEmpty();
+        }
+
+        /**
+         * Checks whether {@code loop} can be vectorized and returns the information needed to do
+         * so, or null if it cannot.
+         */
+        static VectorizableLoop analyze(LoopEx loop) {
+            LoopBeginNode loopBegin = loop.loopBegin();
+            CountedLoopInfo counted = loop.counted();
+            if (loopBegin.loopEnds().count() != 1 || loopBegin.loopExits().count() != 1 || loopBegin.phis().count() != 1) {
+                return null;
+            }
+            if (counted.getKind() != Kind.Int || counted.getDirection() != Direction.Up || counted.isLimitIncluded() || !(counted.getCounter() instanceof BasicInductionVariable)) {
+                return null;
+            }
+            BasicInductionVariable counterIV = (BasicInductionVariable) counted.getCounter();
+            if (!counterIV.isConstantStride() || counterIV.constantStride() != 1) {
+                return null;
+            }
+            PhiNode counter = counterIV.valueNode();
+            AbstractBeginNode body = counted.getBody();
+            if (!(body.predecessor() instanceof IfNode) || loopBegin.next() != body.predecessor()) {
+                return null;
+            }
+            IfNode loopTest = (IfNode) body.predecessor();
+            if (loopTest.trueSuccessor() != body || !(loopTest.condition() instanceof IntegerLessThanNode) || ((IntegerLessThanNode) loopTest.condition()).x() != counter) {
+                return null;
+            }
+            LoopEndNode loopEnd = loopBegin.loopEnds().first();
+            ValueNode backedgeValue = counter.valueAt(loopEnd);
+            if (!(backedgeValue instanceof IntegerAddNode)) {
+                return null;
+            }
+            IntegerAddNode increment = (IntegerAddNode) backedgeValue;
+
+            // the body must be a straight sequence of array accesses indexed by the counter
+            Kind kind = null;
+            List<FixedWithNextNode> accesses = new ArrayList<>();
+            Set<ValueNode> loads = new HashSet<>();
+            FixedNode current = body.next();
+            while (current != loopEnd) {
+                if (!(current instanceof LoadIndexedNode) && !(current instanceof StoreIndexedNode)) {
+                    return null;
+                }
+                AccessIndexedNode access = (AccessIndexedNode) current;
+                if (access.index() != counter || !loop.isOutsideLoop(access.array())) {
+                    return null;
+                }
+                if (kind == null) {
+                    kind = access.elementKind();
+                    if (kind != Kind.Int && kind != Kind.Long && kind != Kind.Float && kind != Kind.Double) {
+                        return null;
+                    }
+                } else if (access.elementKind() != kind) {
+                    return null;
+                }
+                if (access instanceof LoadIndexedNode) {
+                    loads.add(access);
+                }
+                accesses.add(access);
+                current = access.next();
+            }
+            if (accesses.isEmpty() || loads.size() == accesses.size()) {
+                return null;
+            }
+
+            // the stored values must be computed from loads and loop invariants only
+            Set<ValueNode> computations = new HashSet<>();
+            Set<Node> storeValueUsers = new HashSet<>();
+            for (FixedWithNextNode access : accesses) {
+                if (access instanceof StoreIndexedNode) {
+                    StoreIndexedNode store = (StoreIndexedNode) access;
+                    if (loop.isOutsideLoop(store.value()) || !isVectorizable(loop, store.value(), kind, loads, computations)) {
+                        return null;
+                    }
+                    if (!isValidState(loop, store.stateAfter(), counter, increment)) {
+                        return null;
+                    }
+                    storeValueUsers.add(store);
+                }
+            }
+            // the loaded and computed values must not be used elsewhere, for example in a frame state
+            for (ValueNode value : loads) {
+                if (!onlyUsedBy(value, computations, storeValueUsers)) {
+                    return null;
+                }
+            }
+            for (ValueNode value : computations) {
+                if (!onlyUsedBy(value, computations, storeValueUsers)) {
+                    return null;
+                }
+            }
+            for (Node usage : increment.usages()) {
+                if (usage != counter && !isStoreState(usage, accesses)) {
+                    return null;
+                }
+            }
+            return new VectorizableLoop(loop, increment, kind, accesses, computations);
+        }
+
+        /**
+         * Checks whether {@code node} is a frame state that is only used by stores among
+         * {@code accesses}.
+         */
+        private static boolean isStoreState(Node node, List<FixedWithNextNode> accesses) {
+            if (!(node instanceof FrameState)) {
+                return false;
+            }
+            for (Node usage : node.usages()) {
+                if (!(usage instanceof StoreIndexedNode) || !accesses.contains(usage)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static boolean isVectorizable(LoopEx loop, ValueNode value, Kind kind, Set<ValueNode> loads, Set<ValueNode> computations) {
+            if (loop.isOutsideLoop(value)) {
+                return value.kind() == kind;
+            } else if (value instanceof LoadIndexedNode) {
+                return loads.contains(value);
+            } else if (operationOf(value, kind) != null) {
+                BinaryNode binary = (BinaryNode) value;
+                computations.add(value);
+                return isVectorizable(loop, binary.x(), kind, loads, computations) && isVectorizable(loop, binary.y(), kind, loads, computations);
+            }
+            return false;
+        }
+
+        private static boolean onlyUsedBy(ValueNode value, Set<ValueNode> computations, Set<Node> stores) {
+            for (Node usage : value.usages()) {
+                if (!computations.contains(usage) && !(stores.contains(usage) && ((StoreIndexedNode) usage).value() == value)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Checks that the values of a frame state after a store in the loop body can be
+         * reconstructed after a vector store, i.e. that they are loop invariants or depend on the
+         * counter.
+         */
+        private static boolean isValidState(LoopEx loop, FrameState state, PhiNode counter, IntegerAddNode increment) {
+            if (state == null || state.usages().count() != 1) {
+                return false;
+            }
+            for (ValueNode value : state.values()) {
+                if (value != null && value != counter && value != increment && !loop.isOutsideLoop(value)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Vectorizes the loop so that each iteration of the main loop processes {@code length}
+         * elements.
+         */
+        void vectorize(int length) {
+            LoopBeginNode loopBegin = loop.loopBegin();
+            CountedLoopInfo counted = loop.counted();
+            ValueNode start = counted.getStart();
+            ValueNode limit = counted.getLimit();
+            LoopTransformations.splitPostLoop(loop, length);
+            insertPredicate(start, limit, loopBegin.forwardEnd());
+
+            Map<ValueNode, ValueNode> vectors = new HashMap<>();
+            StoreIndexedNode lastStore = null;
+            for (FixedWithNextNode access : accesses) {
+                if (access instanceof LoadIndexedNode) {
+                    LoadIndexedNode load = (LoadIndexedNode) access;
+                    VectorLoadIndexedNode vectorLoad = graph.add(new VectorLoadIndexedNode(load.array(), counter, kind, length));
+                    graph.addBeforeFixed(load, vectorLoad);
+                    vectors.put(load, vectorLoad);
+                } else {
+                    lastStore = (StoreIndexedNode) access;
+                }
+            }
+            ValueNode lastIndex = IntegerArithmeticNode.add(counter, ConstantNode.forInt(length - 1, graph));
+            ValueNode nextIndex = IntegerArithmeticNode.add(counter, ConstantNode.forInt(length, graph));
+            for (FixedWithNextNode access : accesses) {
+                if (access instanceof StoreIndexedNode) {
+                    StoreIndexedNode store = (StoreIndexedNode) access;
+                    VectorStoreIndexedNode vectorStore = graph.add(new VectorStoreIndexedNode(store.array(), counter, kind, vectorOf(store.value(), vectors, length)));
+                    FrameState oldState = store.stateAfter();
+                    FrameState state;
+                    if (store == lastStore) {
+                        // the state after the last store is the state after the last element it stores
+                        state = oldState.duplicate();
+                        for (int i = 0; i < state.values().size(); i++) {
+                            ValueNode value = state.values().get(i);
+                            if (value == counter) {
+                                state.values().set(i, lastIndex);
+                            } else if (value == increment) {
+                                state.values().set(i, nextIndex);
+                            }
+                        }
+                    } else {
+                        // the loop cannot be left between the stores of the vector body
+                        state = graph.add(new FrameState(FrameState.INVALID_FRAMESTATE_BCI));
+                    }
+                    vectorStore.setStateAfter(state);
+                    store.setStateAfter(null);
+                    GraphUtil.killWithUnusedFloatingInputs(oldState);
+                    ValueNode oldValue = store.value();
+                    graph.replaceFixedWithFixed(store, vectorStore);
+                    if (oldValue.isAlive() && oldValue.usages().isEmpty() && !(oldValue instanceof FixedNode)) {
+                        GraphUtil.killWithUnusedFloatingInputs(oldValue);
+                    }
+                }
+            }
+            for (FixedWithNextNode access : accesses) {
+                if (access instanceof LoadIndexedNode && access.isAlive()) {
+                    assert access.usages().isEmpty();
+                    graph.removeFixed(access);
+                }
+            }
+            counter.setValueAt(loopBegin.phiPredecessorIndex(loopBegin.loopEnds().first()), nextIndex);
+            if (increment.usages().isEmpty()) {
+                GraphUtil.killWithUnusedFloatingInputs(increment);
+            }
+            if (lastIndex.usages().isEmpty()) {
+                GraphUtil.killWithUnusedFloatingInputs(lastIndex);
+            }
+        }
+
+        private ValueNode vectorOf(ValueNode scalar, Map<ValueNode, ValueNode> vectors, int length) {
+            ValueNode vector = vectors.get(scalar);
+            if (vector == null) {
+                if (loop.isOutsideLoop(scalar)) {
+                    vector = graph.unique(new VectorBroadcastNode(scalar, length));
+                } else {
+                    assert computations.contains(scalar);
+                    BinaryNode binary = (BinaryNode) scalar;
+                    ValueNode x = vectorOf(binary.x(), vectors, length);
+                    ValueNode y = vectorOf(binary.y(), vectors, length);
+                    vector = graph.unique(new VectorArithmeticNode(operationOf(scalar, kind), x, y));
+                }
+                vectors.put(scalar, vector);
+            }
+            return vector;
+        }
+
+        /**
+         * Inserts the checks replacing the null and bounds checks of the array accesses before
+         * {@code entry}. The checks are only performed if the loop is entered: an array that is
+         * not accessed may be null, in which case its length cannot be read either.
+         */
+        private void insertPredicate(ValueNode start, ValueNode limit, FixedNode entry) {
+            LogicNode entered = graph.unique(new IntegerLessThanNode(start, limit));
+            EndNode checksEnd = graph.add(new EndNode());
+            EndNode skipEnd = graph.add(new EndNode());
+            MergeNode merge = graph.add(new MergeNode());
+            entry.replaceAtPredecessor(graph.add(new IfNode(entered, checksEnd, skipEnd, FREQUENT_PROBABILITY)));
+            merge.addForwardEnd(checksEnd);
+            merge.addForwardEnd(skipEnd);
+            merge.setNext(entry);
+
+            ValueNode last = IntegerArithmeticNode.sub(limit, ConstantNode.forInt(1, graph));
+            Set<ValueNode> arrays = new HashSet<>();
+            for (FixedWithNextNode access : accesses) {
+                ValueNode array = ((AccessIndexedNode) access).array();
+                if (!arrays.add(array)) {
+                    continue;
+                }
+                if (!(array.stamp() instanceof ObjectStamp) || !((ObjectStamp) array.stamp()).nonNull()) {
+                    LogicNode isNull = graph.unique(new IsNullNode(array));
+                    graph.addBeforeFixed(checksEnd, graph.add(new FixedGuardNode(isNull, DeoptimizationReason.LoopLimitCheck, DeoptimizationAction.InvalidateRecompile, true)));
+                }
+                ArrayLengthNode arrayLength = graph.add(new ArrayLengthNode(array));
+                graph.addBeforeFixed(checksEnd, arrayLength);
+                for (ValueNode index : new ValueNode[]{start, last}) {
+                    LogicNode inBounds = graph.unique(new IntegerBelowThanNode(index, arrayLength));
+                    graph.addBeforeFixed(checksEnd, graph.add(new FixedGuardNode(inBounds, DeoptimizationReason.LoopLimitCheck, DeoptimizationAction.InvalidateRecompile)));
+                }
+            }
+        }
+    }
+}
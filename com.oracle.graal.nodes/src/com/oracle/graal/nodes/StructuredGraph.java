@@ -147,9 +147,14 @@ public class StructuredGraph extends Graph {
     @Override
     public StructuredGraph copy(String newName) {
         StructuredGraph copy = new StructuredGraph(newName, method, graphId, entryBCI);
-        HashMap<Node, Node> replacements = new HashMap<>();
-        replacements.put(start, copy.start);
-        copy.addDuplicates(getNodes(), replacements);
+        final StartNode copyStart = copy.start;
+        copy.addDuplicates(getNodes(), new DuplicationReplacement() {
+
+            @Override
+            public Node replacement(Node original) {
+                return original == start ? copyStart : original;
+            }
+        });
         return copy;
     }
 
@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2013, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.nodes.calc;
+
+import com.oracle.graal.api.meta.*;
+import com.oracle.graal.graph.*;
+import com.oracle.graal.nodes.*;
+import com.oracle.graal.nodes.spi.*;
+import com.oracle.graal.nodes.type.*;
+
+/**
+ * The {@code VectorArithmeticNode} applies an arithmetic or logic operation to each pair of
+ * corresponding elements of two vectors.
+ */
+public final class VectorArithmeticNode extends FloatingNode implements LIRLowerable {
+
+    public enum Operation {
+        Add, Sub, Mul, Div, And, Or, Xor
+    }
+
+    @Input private ValueNode x;
+    @Input private ValueNode y;
+    private final Operation operation;
+
+    public ValueNode x() {
+        return x;
+    }
+
+    public ValueNode y() {
+        return y;
+    }
+
+    public Operation operation() {
+        return operation;
+    }
+
+    public VectorArithmeticNode(Operation operation, ValueNode x, ValueNode y) {
+        super(x.stamp());
+        assert x.stamp() instanceof VectorStamp && x.stamp().equals(y.stamp());
+        this.operation = operation;
+        this.x = x;
+        this.y = y;
+    }
+
+    @Override
+    public void generate(LIRGeneratorTool gen) {
+        Value a = gen.operand(x());
+        Value b = gen.operand(y());
+        switch (operation) {
+            case Add:
+                gen.setResult(this, gen.emitAdd(a, b));
+                break;
+            case Sub:
+                gen.setResult(this, gen.emitSub(a, b));
+                break;
+            case Mul:
+                gen.setResult(this, gen.emitMul(a, b));
+                break;
+            case Div:
+                gen.setResult(this, gen.emitDiv(a, b, null));
+                break;
+            case And:
+                gen.setResult(this, gen.emitAnd(a, b));
+                break;
+            case Or:
+                gen.setResult(this, gen.emitOr(a, b));
+                break;
+            case Xor:
+                gen.setResult(this, gen.emitXor(a, b));
+                break;
+            default:
+                throw GraalInternalError.shouldNotReachHere();
+        }
+    }
+}
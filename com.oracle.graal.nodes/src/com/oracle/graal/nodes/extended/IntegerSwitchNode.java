@@ -115,34 +115,42 @@ public final class IntegerSwitchNode extends SwitchNode implements LIRLowerable,
             IntegerStamp stamp = value().integerStamp();
             if (!stamp.isUnrestricted()) {
                 int validKeys = 0;
+                int lastValidKey = -1;
                 for (int i = 0; i < keyCount(); i++) {
                     if (stamp.contains(keys[i])) {
                         validKeys++;
+                        lastValidKey = i;
                     }
                 }
+                // the keys are distinct, so the default is unreachable if they cover the range
+                boolean defaultReachable = stamp.upperBound() - stamp.lowerBound() + 1 != validKeys;
                 if (validKeys == 0) {
                     tool.addToWorkList(defaultSuccessor());
                     graph().removeSplitPropagate(this, defaultSuccessor());
-                } else if (validKeys != keys.length) {
+                } else if (validKeys != keys.length || !defaultReachable) {
+                    // if the default is unreachable, the last valid key becomes the default
+                    int defaultIndex = defaultReachable ? keyCount() : lastValidKey;
+                    int newKeyCount = defaultReachable ? validKeys : validKeys - 1;
                     ArrayList<AbstractBeginNode> newSuccessors = new ArrayList<>(blockSuccessorCount());
-                    int[] newKeys = new int[validKeys];
-                    int[] newKeySuccessors = new int[validKeys + 1];
-                    double[] newKeyProbabilities = new double[validKeys + 1];
+                    int[] newKeys = new int[newKeyCount];
+                    int[] newKeySuccessors = new int[newKeyCount + 1];
+                    double[] newKeyProbabilities = new double[newKeyCount + 1];
                     double totalProbability = 0;
                     int current = 0;
                     for (int i = 0; i < keyCount() + 1; i++) {
-                        if (i == keyCount() || stamp.contains(keys[i])) {
-                            int index = newSuccessors.indexOf(keySuccessor(i));
+                        int keyIndex = i == keyCount() ? defaultIndex : i;
+                        if (i == keyCount() || (stamp.contains(keys[i]) && i != defaultIndex)) {
+                            int index = newSuccessors.indexOf(keySuccessor(keyIndex));
                             if (index == -1) {
                                 index = newSuccessors.size();
-                                newSuccessors.add(keySuccessor(i));
+                                newSuccessors.add(keySuccessor(keyIndex));
                             }
                             newKeySuccessors[current] = index;
                             if (i < keyCount()) {
                                 newKeys[current] = keys[i];
                             }
-                            newKeyProbabilities[current] = keyProbability(i);
-                            totalProbability += keyProbability(i);
+                            newKeyProbabilities[current] = keyProbability(keyIndex);
+                            totalProbability += keyProbability(keyIndex);
                             current++;
                         }
                     }
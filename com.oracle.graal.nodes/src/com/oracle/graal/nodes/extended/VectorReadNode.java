@@ -0,0 +1,46 @@
+/*
+ * Copyright (c) 2013, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.nodes.extended;
+
+import com.oracle.graal.api.meta.*;
+import com.oracle.graal.nodes.*;
+import com.oracle.graal.nodes.spi.*;
+import com.oracle.graal.nodes.type.*;
+
+/**
+ * Reads a vector of consecutive values of the {@linkplain LocationNode#getValueKind() value kind}
+ * of the {@linkplain AccessNode accessed} location.
+ */
+public final class VectorReadNode extends AccessNode implements LIRLowerable {
+
+    public VectorReadNode(ValueNode object, ValueNode location, Stamp stamp) {
+        super(object, location, stamp);
+        assert ((VectorStamp) stamp).elementKind() == location().getValueKind();
+    }
+
+    @Override
+    public void generate(LIRGeneratorTool gen) {
+        Value address = location().generateAddress(gen, gen.operand(object()));
+        gen.setResult(this, gen.emitVectorLoad(location().getValueKind(), ((VectorStamp) stamp()).length(), address, this));
+    }
+}
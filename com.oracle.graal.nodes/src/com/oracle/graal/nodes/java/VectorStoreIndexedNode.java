@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2013, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.nodes.java;
+
+import com.oracle.graal.api.meta.*;
+import com.oracle.graal.nodes.*;
+import com.oracle.graal.nodes.type.*;
+
+/**
+ * The {@code VectorStoreIndexedNode} writes a vector to consecutive elements of an array, starting
+ * at {@link #index()}. Unlike {@link StoreIndexedNode}, it does not perform null or bounds checks:
+ * the creator of this node must guarantee that all accessed elements are within the array.
+ */
+public final class VectorStoreIndexedNode extends AccessIndexedNode implements StateSplit {
+
+    @Input private ValueNode value;
+    @Input(notDataflow = true) private FrameState stateAfter;
+
+    public FrameState stateAfter() {
+        return stateAfter;
+    }
+
+    public void setStateAfter(FrameState x) {
+        assert x == null || x.isAlive() : "frame state must be in a graph";
+        updateUsages(stateAfter, x);
+        stateAfter = x;
+    }
+
+    public boolean hasSideEffect() {
+        return true;
+    }
+
+    public ValueNode value() {
+        return value;
+    }
+
+    /**
+     * Creates a new VectorStoreIndexedNode.
+     * 
+     * @param array the node producing the array
+     * @param index the node producing the index of the first element
+     * @param elementKind the element type
+     * @param value the vector to store into the array
+     */
+    public VectorStoreIndexedNode(ValueNode array, ValueNode index, Kind elementKind, ValueNode value) {
+        super(StampFactory.forVoid(), array, index, elementKind);
+        assert ((VectorStamp) value.stamp()).elementKind() == elementKind;
+        this.value = value;
+    }
+}
@@ -65,6 +65,22 @@ public interface LIRGeneratorTool {
 
     void emitStore(Kind kind, Value address, Value input, DeoptimizingNode deopting);
 
+    /**
+     * Loads a vector of {@code length} consecutive values of kind {@code elementKind}.
+     */
+    Value emitVectorLoad(Kind elementKind, int length, Value address, DeoptimizingNode deopting);
+
+    /**
+     * Stores a vector of {@code length} consecutive values of kind {@code elementKind}.
+     */
+    void emitVectorStore(Kind elementKind, int length, Value address, Value input, DeoptimizingNode deopting);
+
+    /**
+     * Creates a vector of {@code length} values of kind {@code elementKind} that are all equal to
+     * {@code input}. The arithmetic operations of this interface can be applied to the vector.
+     */
+    Value emitVectorBroadcast(Kind elementKind, int length, Value input);
+
     Value emitNegate(Value input);
 
     Value emitAdd(Value a, Value b);
@@ -131,6 +131,10 @@ public class StampFactory {
         return new FloatStamp(kind, lowerBound, upperBound, nonNaN);
     }
 
+    public static Stamp forVector(Kind elementKind, int length) {
+        return new VectorStamp(elementKind, length);
+    }
+
     public static Stamp forConstant(Constant value) {
         Kind kind = value.getKind();
         switch (kind) {
@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2013, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.nodes.type;
+
+import com.oracle.graal.api.meta.*;
+import com.oracle.graal.graph.*;
+
+/**
+ * The stamp of a vector of {@linkplain #length() length} values of the primitive kind
+ * {@linkplain #elementKind() elementKind}. Vector values have no Java type, their {@link #kind()
+ * kind} is {@link Kind#Illegal}.
+ */
+public final class VectorStamp extends Stamp {
+
+    private final Kind elementKind;
+    private final int length;
+
+    VectorStamp(Kind elementKind, int length) {
+        super(Kind.Illegal);
+        assert elementKind.isPrimitive() && length > 1;
+        this.elementKind = elementKind;
+        this.length = length;
+    }
+
+    public Kind elementKind() {
+        return elementKind;
+    }
+
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public ResolvedJavaType javaType(MetaAccessProvider metaAccess) {
+        throw GraalInternalError.shouldNotReachHere("vector values have no Java type");
+    }
+
+    @Override
+    public boolean alwaysDistinct(Stamp other) {
+        return false;
+    }
+
+    @Override
+    public Stamp meet(Stamp other) {
+        assert equals(other);
+        return this;
+    }
+
+    @Override
+    public Stamp join(Stamp other) {
+        assert equals(other);
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return elementKind.getTypeChar() + "x" + length;
+    }
+
+    @Override
+    public int hashCode() {
+        return elementKind.hashCode() * 31 + length;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        VectorStamp other = (VectorStamp) obj;
+        return elementKind == other.elementKind && length == other.length;
+    }
+}
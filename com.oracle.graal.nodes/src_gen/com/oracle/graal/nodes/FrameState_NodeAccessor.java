@@ -0,0 +1,73 @@
+// CheckStyle: stop header check
+// GENERATED CONTENT - DO NOT EDIT
+// Source: FrameState.java
+package com.oracle.graal.nodes;
+
+public final class FrameState_NodeAccessor extends com.oracle.graal.graph.NodeAccessor {
+
+    private static final long input0 = fieldOffset(com.oracle.graal.nodes.FrameState.class, 0, "outerFrameState");
+    private static final long input1 = fieldOffset(com.oracle.graal.nodes.FrameState.class, 0, "values");
+    private static final long input2 = fieldOffset(com.oracle.graal.nodes.FrameState.class, 0, "virtualObjectMappings");
+    private static final long data0 = fieldOffset(com.oracle.graal.nodes.FrameState.class, 0, "localsSize");
+    private static final long data1 = fieldOffset(com.oracle.graal.nodes.FrameState.class, 0, "stackSize");
+    private static final long data2 = fieldOffset(com.oracle.graal.nodes.FrameState.class, 0, "rethrowException");
+    private static final long data3 = fieldOffset(com.oracle.graal.nodes.FrameState.class, 0, "duringCall");
+    private static final long data4 = fieldOffset(com.oracle.graal.nodes.FrameState.class, 0, "bci");
+    private static final long data5 = fieldOffset(com.oracle.graal.nodes.FrameState.class, 0, "method");
+    private static final int startMultiplier = hashMultiplier(Long.MIN_VALUE, data0, data1, data2, data3, data4, data5);
+    private static final int dataMultiplier0 = hashMultiplier(data0, data0, data1, data2, data3, data4, data5);
+    private static final int dataMultiplier1 = hashMultiplier(data1, data0, data1, data2, data3, data4, data5);
+    private static final int dataMultiplier2 = hashMultiplier(data2, data0, data1, data2, data3, data4, data5);
+    private static final int dataMultiplier3 = hashMultiplier(data3, data0, data1, data2, data3, data4, data5);
+    private static final int dataMultiplier4 = hashMultiplier(data4, data0, data1, data2, data3, data4, data5);
+    private static final int dataMultiplier5 = hashMultiplier(data5, data0, data1, data2, data3, data4, data5);
+
+    public FrameState_NodeAccessor() {
+        super(new long[]{input0}, new long[]{input1, input2}, new long[]{}, new long[]{}, new long[]{data0, data1, data2, data3, data4, data5}, new Class<?>[]{int.class, int.class, boolean.class, boolean.class, int.class, Object.class});
+    }
+
+    @Override
+    public int valueNumber(int start, com.oracle.graal.graph.Node node) {
+        return start * startMultiplier
+                        + unsafe.getInt(node, data0) * dataMultiplier0
+                        + unsafe.getInt(node, data1) * dataMultiplier1
+                        + (unsafe.getBoolean(node, data2) ? 7 : 0) * dataMultiplier2
+                        + (unsafe.getBoolean(node, data3) ? 7 : 0) * dataMultiplier3
+                        + unsafe.getInt(node, data4) * dataMultiplier4
+                        + objectHash(unsafe.getObject(node, data5)) * dataMultiplier5;
+    }
+
+    @Override
+    public boolean valueEqual(com.oracle.graal.graph.Node a, com.oracle.graal.graph.Node b) {
+        return unsafe.getInt(a, data0) == unsafe.getInt(b, data0)
+                        && unsafe.getInt(a, data1) == unsafe.getInt(b, data1)
+                        && unsafe.getBoolean(a, data2) == unsafe.getBoolean(b, data2)
+                        && unsafe.getBoolean(a, data3) == unsafe.getBoolean(b, data3)
+                        && unsafe.getInt(a, data4) == unsafe.getInt(b, data4)
+                        && objectEquals(unsafe.getObject(a, data5), unsafe.getObject(b, data5));
+    }
+
+    @Override
+    public boolean inputsEqual(com.oracle.graal.graph.Node node, com.oracle.graal.graph.Node other) {
+        return unsafe.getObject(node, input0) == unsafe.getObject(other, input0)
+                        && listEquals(unsafe.getObject(node, input1), unsafe.getObject(other, input1))
+                        && listEquals(unsafe.getObject(node, input2), unsafe.getObject(other, input2));
+    }
+
+    @Override
+    public boolean inputContains(com.oracle.graal.graph.Node node, com.oracle.graal.graph.Node other) {
+        return unsafe.getObject(node, input0) == other
+                        || listContains(unsafe.getObject(node, input1), other)
+                        || listContains(unsafe.getObject(node, input2), other);
+    }
+
+    @Override
+    public boolean successorsEqual(com.oracle.graal.graph.Node node, com.oracle.graal.graph.Node other) {
+        return true;
+    }
+
+    @Override
+    public boolean successorContains(com.oracle.graal.graph.Node node, com.oracle.graal.graph.Node other) {
+        return false;
+    }
+}
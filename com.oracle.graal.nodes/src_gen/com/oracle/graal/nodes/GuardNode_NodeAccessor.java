@@ -0,0 +1,62 @@
+// CheckStyle: stop header check
+// GENERATED CONTENT - DO NOT EDIT
+// Source: GuardNode.java
+package com.oracle.graal.nodes;
+
+public final class GuardNode_NodeAccessor extends com.oracle.graal.graph.NodeAccessor {
+
+    private static final long input0 = fieldOffset(com.oracle.graal.nodes.GuardNode.class, 0, "condition");
+    private static final long input1 = fieldOffset(com.oracle.graal.nodes.GuardNode.class, 1, "guard");
+    private static final long data0 = fieldOffset(com.oracle.graal.nodes.GuardNode.class, 0, "reason");
+    private static final long data1 = fieldOffset(com.oracle.graal.nodes.GuardNode.class, 0, "action");
+    private static final long data2 = fieldOffset(com.oracle.graal.nodes.GuardNode.class, 0, "negated");
+    private static final long data3 = fieldOffset(com.oracle.graal.nodes.GuardNode.class, 3, "stamp");
+    private static final int startMultiplier = hashMultiplier(Long.MIN_VALUE, data0, data1, data2, data3);
+    private static final int dataMultiplier0 = hashMultiplier(data0, data0, data1, data2, data3);
+    private static final int dataMultiplier1 = hashMultiplier(data1, data0, data1, data2, data3);
+    private static final int dataMultiplier2 = hashMultiplier(data2, data0, data1, data2, data3);
+    private static final int dataMultiplier3 = hashMultiplier(data3, data0, data1, data2, data3);
+
+    public GuardNode_NodeAccessor() {
+        super(new long[]{input0, input1}, new long[]{}, new long[]{}, new long[]{}, new long[]{data0, data1, data2, data3}, new Class<?>[]{Object.class, Object.class, boolean.class, Object.class});
+    }
+
+    @Override
+    public int valueNumber(int start, com.oracle.graal.graph.Node node) {
+        return start * startMultiplier
+                        + objectHash(unsafe.getObject(node, data0)) * dataMultiplier0
+                        + objectHash(unsafe.getObject(node, data1)) * dataMultiplier1
+                        + (unsafe.getBoolean(node, data2) ? 7 : 0) * dataMultiplier2
+                        + objectHash(unsafe.getObject(node, data3)) * dataMultiplier3;
+    }
+
+    @Override
+    public boolean valueEqual(com.oracle.graal.graph.Node a, com.oracle.graal.graph.Node b) {
+        return objectEquals(unsafe.getObject(a, data0), unsafe.getObject(b, data0))
+                        && objectEquals(unsafe.getObject(a, data1), unsafe.getObject(b, data1))
+                        && unsafe.getBoolean(a, data2) == unsafe.getBoolean(b, data2)
+                        && objectEquals(unsafe.getObject(a, data3), unsafe.getObject(b, data3));
+    }
+
+    @Override
+    public boolean inputsEqual(com.oracle.graal.graph.Node node, com.oracle.graal.graph.Node other) {
+        return unsafe.getObject(node, input0) == unsafe.getObject(other, input0)
+                        && unsafe.getObject(node, input1) == unsafe.getObject(other, input1);
+    }
+
+    @Override
+    public boolean inputContains(com.oracle.graal.graph.Node node, com.oracle.graal.graph.Node other) {
+        return unsafe.getObject(node, input0) == other
+                        || unsafe.getObject(node, input1) == other;
+    }
+
+    @Override
+    public boolean successorsEqual(com.oracle.graal.graph.Node node, com.oracle.graal.graph.Node other) {
+        return true;
+    }
+
+    @Override
+    public boolean successorContains(com.oracle.graal.graph.Node node, com.oracle.graal.graph.Node other) {
+        return false;
+    }
+}
@@ -0,0 +1,74 @@
+// CheckStyle: stop header check
+// GENERATED CONTENT - DO NOT EDIT
+// Source: InvokeWithExceptionNode.java
+package com.oracle.graal.nodes;
+
+public final class InvokeWithExceptionNode_NodeAccessor extends com.oracle.graal.graph.NodeAccessor {
+
+    private static final long input0 = fieldOffset(com.oracle.graal.nodes.InvokeWithExceptionNode.class, 0, "callTarget");
+    private static final long input1 = fieldOffset(com.oracle.graal.nodes.InvokeWithExceptionNode.class, 0, "deoptState");
+    private static final long input2 = fieldOffset(com.oracle.graal.nodes.InvokeWithExceptionNode.class, 0, "stateAfter");
+    private static final long input3 = fieldOffset(com.oracle.graal.nodes.InvokeWithExceptionNode.class, 0, "guard");
+    private static final long successor0 = fieldOffset(com.oracle.graal.nodes.InvokeWithExceptionNode.class, 0, "next");
+    private static final long successor1 = fieldOffset(com.oracle.graal.nodes.InvokeWithExceptionNode.class, 0, "exceptionEdge");
+    private static final long data0 = fieldOffset(com.oracle.graal.nodes.InvokeWithExceptionNode.class, 0, "bci");
+    private static final long data1 = fieldOffset(com.oracle.graal.nodes.InvokeWithExceptionNode.class, 0, "polymorphic");
+    private static final long data2 = fieldOffset(com.oracle.graal.nodes.InvokeWithExceptionNode.class, 0, "useForInlining");
+    private static final long data3 = fieldOffset(com.oracle.graal.nodes.InvokeWithExceptionNode.class, 0, "exceptionProbability");
+    private static final long data4 = fieldOffset(com.oracle.graal.nodes.InvokeWithExceptionNode.class, 3, "stamp");
+    private static final int startMultiplier = hashMultiplier(Long.MIN_VALUE, data0, data1, data2, data3, data4);
+    private static final int dataMultiplier0 = hashMultiplier(data0, data0, data1, data2, data3, data4);
+    private static final int dataMultiplier1 = hashMultiplier(data1, data0, data1, data2, data3, data4);
+    private static final int dataMultiplier2 = hashMultiplier(data2, data0, data1, data2, data3, data4);
+    private static final int dataMultiplier4 = hashMultiplier(data4, data0, data1, data2, data3, data4);
+
+    public InvokeWithExceptionNode_NodeAccessor() {
+        super(new long[]{input0, input1, input2, input3}, new long[]{}, new long[]{successor0, successor1}, new long[]{}, new long[]{data0, data1, data2, data3, data4}, new Class<?>[]{int.class, boolean.class, boolean.class, double.class, Object.class});
+    }
+
+    @Override
+    public int valueNumber(int start, com.oracle.graal.graph.Node node) {
+        return start * startMultiplier
+                        + unsafe.getInt(node, data0) * dataMultiplier0
+                        + (unsafe.getBoolean(node, data1) ? 7 : 0) * dataMultiplier1
+                        + (unsafe.getBoolean(node, data2) ? 7 : 0) * dataMultiplier2
+                        + objectHash(unsafe.getObject(node, data4)) * dataMultiplier4;
+    }
+
+    @Override
+    public boolean valueEqual(com.oracle.graal.graph.Node a, com.oracle.graal.graph.Node b) {
+        return unsafe.getInt(a, data0) == unsafe.getInt(b, data0)
+                        && unsafe.getBoolean(a, data1) == unsafe.getBoolean(b, data1)
+                        && unsafe.getBoolean(a, data2) == unsafe.getBoolean(b, data2)
+                        && unsafe.getDouble(a, data3) == unsafe.getDouble(b, data3)
+                        && objectEquals(unsafe.getObject(a, data4), unsafe.getObject(b, data4));
+    }
+
+    @Override
+    public boolean inputsEqual(com.oracle.graal.graph.Node node, com.oracle.graal.graph.Node other) {
+        return unsafe.getObject(node, input0) == unsafe.getObject(other, input0)
+                        && unsafe.getObject(node, input1) == unsafe.getObject(other, input1)
+                        && unsafe.getObject(node, input2) == unsafe.getObject(other, input2)
+                        && unsafe.getObject(node, input3) == unsafe.getObject(other, input3);
+    }
+
+    @Override
+    public boolean inputContains(com.oracle.graal.graph.Node node, com.oracle.graal.graph.Node other) {
+        return unsafe.getObject(node, input0) == other
+                        || unsafe.getObject(node, input1) == other
+                        || unsafe.getObject(node, input2) == other
+                        || unsafe.getObject(node, input3) == other;
+    }
+
+    @Override
+    public boolean successorsEqual(com.oracle.graal.graph.Node node, com.oracle.graal.graph.Node other) {
+        return unsafe.getObject(node, successor0) == unsafe.getObject(other, successor0)
+                        && unsafe.getObject(node, successor1) == unsafe.getObject(other, successor1);
+    }
+
+    @Override
+    public boolean successorContains(com.oracle.graal.graph.Node node, com.oracle.graal.graph.Node other) {
+        return unsafe.getObject(node, successor0) == other
+                        || unsafe.getObject(node, successor1) == other;
+    }
+}
@@ -0,0 +1,50 @@
+// CheckStyle: stop header check
+// GENERATED CONTENT - DO NOT EDIT
+// Source: LocalNode.java
+package com.oracle.graal.nodes;
+
+public final class LocalNode_NodeAccessor extends com.oracle.graal.graph.NodeAccessor {
+
+    private static final long data0 = fieldOffset(com.oracle.graal.nodes.LocalNode.class, 1, "index");
+    private static final long data1 = fieldOffset(com.oracle.graal.nodes.LocalNode.class, 3, "stamp");
+    private static final int startMultiplier = hashMultiplier(Long.MIN_VALUE, data0, data1);
+    private static final int dataMultiplier0 = hashMultiplier(data0, data0, data1);
+    private static final int dataMultiplier1 = hashMultiplier(data1, data0, data1);
+
+    public LocalNode_NodeAccessor() {
+        super(new long[]{}, new long[]{}, new long[]{}, new long[]{}, new long[]{data0, data1}, new Class<?>[]{int.class, Object.class});
+    }
+
+    @Override
+    public int valueNumber(int start, com.oracle.graal.graph.Node node) {
+        return start * startMultiplier
+                        + unsafe.getInt(node, data0) * dataMultiplier0
+                        + objectHash(unsafe.getObject(node, data1)) * dataMultiplier1;
+    }
+
+    @Override
+    public boolean valueEqual(com.oracle.graal.graph.Node a, com.oracle.graal.graph.Node b) {
+        return unsafe.getInt(a, data0) == unsafe.getInt(b, data0)
+                        && objectEquals(unsafe.getObject(a, data1), unsafe.getObject(b, data1));
+    }
+
+    @Override
+    public boolean inputsEqual(com.oracle.graal.graph.Node node, com.oracle.graal.graph.Node other) {
+        return true;
+    }
+
+    @Override
+    public boolean inputContains(com.oracle.graal.graph.Node node, com.oracle.graal.graph.Node other) {
+        return false;
+    }
+
+    @Override
+    public boolean successorsEqual(com.oracle.graal.graph.Node node, com.oracle.graal.graph.Node other) {
+        return true;
+    }
+
+    @Override
+    public boolean successorContains(com.oracle.graal.graph.Node node, com.oracle.graal.graph.Node other) {
+        return false;
+    }
+}
@@ -0,0 +1,58 @@
+// CheckStyle: stop header check
+// GENERATED CONTENT - DO NOT EDIT
+// Source: PhiNode.java
+package com.oracle.graal.nodes;
+
+public final class PhiNode_NodeAccessor extends com.oracle.graal.graph.NodeAccessor {
+
+    private static final long input0 = fieldOffset(com.oracle.graal.nodes.PhiNode.class, 0, "merge");
+    private static final long input1 = fieldOffset(com.oracle.graal.nodes.PhiNode.class, 0, "values");
+    private static final long data0 = fieldOffset(com.oracle.graal.nodes.PhiNode.class, 0, "type");
+    private static final long data1 = fieldOffset(com.oracle.graal.nodes.PhiNode.class, 0, "identity");
+    private static final long data2 = fieldOffset(com.oracle.graal.nodes.PhiNode.class, 2, "stamp");
+    private static final int startMultiplier = hashMultiplier(Long.MIN_VALUE, data0, data1, data2);
+    private static final int dataMultiplier0 = hashMultiplier(data0, data0, data1, data2);
+    private static final int dataMultiplier1 = hashMultiplier(data1, data0, data1, data2);
+    private static final int dataMultiplier2 = hashMultiplier(data2, data0, data1, data2);
+
+    public PhiNode_NodeAccessor() {
+        super(new long[]{input0}, new long[]{input1}, new long[]{}, new long[]{}, new long[]{data0, data1, data2}, new Class<?>[]{Object.class, Object.class, Object.class});
+    }
+
+    @Override
+    public int valueNumber(int start, com.oracle.graal.graph.Node node) {
+        return start * startMultiplier
+                        + objectHash(unsafe.getObject(node, data0)) * dataMultiplier0
+                        + objectHash(unsafe.getObject(node, data1)) * dataMultiplier1
+                        + objectHash(unsafe.getObject(node, data2)) * dataMultiplier2;
+    }
+
+    @Override
+    public boolean valueEqual(com.oracle.graal.graph.Node a, com.oracle.graal.graph.Node b) {
+        return objectEquals(unsafe.getObject(a, data0), unsafe.getObject(b, data0))
+                        && objectEquals(unsafe.getObject(a, data1), unsafe.getObject(b, data1))
+                        && objectEquals(unsafe.getObject(a, data2), unsafe.getObject(b, data2));
+    }
+
+    @Override
+    public boolean inputsEqual(com.oracle.graal.graph.Node node, com.oracle.graal.graph.Node other) {
+        return unsafe.getObject(node, input0) == unsafe.getObject(other, input0)
+                        && listEquals(unsafe.getObject(node, input1), unsafe.getObject(other, input1));
+    }
+
+    @Override
+    public boolean inputContains(com.oracle.graal.graph.Node node, com.oracle.graal.graph.Node other) {
+        return unsafe.getObject(node, input0) == other
+                        || listContains(unsafe.getObject(node, input1), other);
+    }
+
+    @Override
+    public boolean successorsEqual(com.oracle.graal.graph.Node node, com.oracle.graal.graph.Node other) {
+        return true;
+    }
+
+    @Override
+    public boolean successorContains(com.oracle.graal.graph.Node node, com.oracle.graal.graph.Node other) {
+        return false;
+    }
+}
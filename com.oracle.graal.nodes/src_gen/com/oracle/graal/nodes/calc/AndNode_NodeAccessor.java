@@ -0,0 +1,50 @@
+// CheckStyle: stop header check
+// GENERATED CONTENT - DO NOT EDIT
+// Source: AndNode.java
+package com.oracle.graal.nodes.calc;
+
+public final class AndNode_NodeAccessor extends com.oracle.graal.graph.NodeAccessor {
+
+    private static final long input0 = fieldOffset(com.oracle.graal.nodes.calc.AndNode.class, 2, "x");
+    private static final long input1 = fieldOffset(com.oracle.graal.nodes.calc.AndNode.class, 2, "y");
+    private static final long data0 = fieldOffset(com.oracle.graal.nodes.calc.AndNode.class, 4, "stamp");
+    private static final int startMultiplier = hashMultiplier(Long.MIN_VALUE, data0);
+    private static final int dataMultiplier0 = hashMultiplier(data0, data0);
+
+    public AndNode_NodeAccessor() {
+        super(new long[]{input0, input1}, new long[]{}, new long[]{}, new long[]{}, new long[]{data0}, new Class<?>[]{Object.class});
+    }
+
+    @Override
+    public int valueNumber(int start, com.oracle.graal.graph.Node node) {
+        return start * startMultiplier
+                        + objectHash(unsafe.getObject(node, data0)) * dataMultiplier0;
+    }
+
+    @Override
+    public boolean valueEqual(com.oracle.graal.graph.Node a, com.oracle.graal.graph.Node b) {
+        return objectEquals(unsafe.getObject(a, data0), unsafe.getObject(b, data0));
+    }
+
+    @Override
+    public boolean inputsEqual(com.oracle.graal.graph.Node node, com.oracle.graal.graph.Node other) {
+        return unsafe.getObject(node, input0) == unsafe.getObject(other, input0)
+                        && unsafe.getObject(node, input1) == unsafe.getObject(other, input1);
+    }
+
+    @Override
+    public boolean inputContains(com.oracle.graal.graph.Node node, com.oracle.graal.graph.Node other) {
+        return unsafe.getObject(node, input0) == other
+                        || unsafe.getObject(node, input1) == other;
+    }
+
+    @Override
+    public boolean successorsEqual(com.oracle.graal.graph.Node node, com.oracle.graal.graph.Node other) {
+        return true;
+    }
+
+    @Override
+    public boolean successorContains(com.oracle.graal.graph.Node node, com.oracle.graal.graph.Node other) {
+        return false;
+    }
+}
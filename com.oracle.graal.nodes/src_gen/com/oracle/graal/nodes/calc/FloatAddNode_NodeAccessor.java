@@ -0,0 +1,54 @@
+// CheckStyle: stop header check
+// GENERATED CONTENT - DO NOT EDIT
+// Source: FloatAddNode.java
+package com.oracle.graal.nodes.calc;
+
+public final class FloatAddNode_NodeAccessor extends com.oracle.graal.graph.NodeAccessor {
+
+    private static final long input0 = fieldOffset(com.oracle.graal.nodes.calc.FloatAddNode.class, 3, "x");
+    private static final long input1 = fieldOffset(com.oracle.graal.nodes.calc.FloatAddNode.class, 3, "y");
+    private static final long data0 = fieldOffset(com.oracle.graal.nodes.calc.FloatAddNode.class, 2, "isStrictFP");
+    private static final long data1 = fieldOffset(com.oracle.graal.nodes.calc.FloatAddNode.class, 5, "stamp");
+    private static final int startMultiplier = hashMultiplier(Long.MIN_VALUE, data0, data1);
+    private static final int dataMultiplier0 = hashMultiplier(data0, data0, data1);
+    private static final int dataMultiplier1 = hashMultiplier(data1, data0, data1);
+
+    public FloatAddNode_NodeAccessor() {
+        super(new long[]{input0, input1}, new long[]{}, new long[]{}, new long[]{}, new long[]{data0, data1}, new Class<?>[]{boolean.class, Object.class});
+    }
+
+    @Override
+    public int valueNumber(int start, com.oracle.graal.graph.Node node) {
+        return start * startMultiplier
+                        + (unsafe.getBoolean(node, data0) ? 7 : 0) * dataMultiplier0
+                        + objectHash(unsafe.getObject(node, data1)) * dataMultiplier1;
+    }
+
+    @Override
+    public boolean valueEqual(com.oracle.graal.graph.Node a, com.oracle.graal.graph.Node b) {
+        return unsafe.getBoolean(a, data0) == unsafe.getBoolean(b, data0)
+                        && objectEquals(unsafe.getObject(a, data1), unsafe.getObject(b, data1));
+    }
+
+    @Override
+    public boolean inputsEqual(com.oracle.graal.graph.Node node, com.oracle.graal.graph.Node other) {
+        return unsafe.getObject(node, input0) == unsafe.getObject(other, input0)
+                        && unsafe.getObject(node, input1) == unsafe.getObject(other, input1);
+    }
+
+    @Override
+    public boolean inputContains(com.oracle.graal.graph.Node node, com.oracle.graal.graph.Node other) {
+        return unsafe.getObject(node, input0) == other
+                        || unsafe.getObject(node, input1) == other;
+    }
+
+    @Override
+    public boolean successorsEqual(com.oracle.graal.graph.Node node, com.oracle.graal.graph.Node other) {
+        return true;
+    }
+
+    @Override
+    public boolean successorContains(com.oracle.graal.graph.Node node, com.oracle.graal.graph.Node other) {
+        return false;
+    }
+}
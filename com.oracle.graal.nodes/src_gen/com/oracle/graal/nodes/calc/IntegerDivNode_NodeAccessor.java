@@ -0,0 +1,54 @@
+// CheckStyle: stop header check
+// GENERATED CONTENT - DO NOT EDIT
+// Source: IntegerDivNode.java
+package com.oracle.graal.nodes.calc;
+
+public final class IntegerDivNode_NodeAccessor extends com.oracle.graal.graph.NodeAccessor {
+
+    private static final long input0 = fieldOffset(com.oracle.graal.nodes.calc.IntegerDivNode.class, 1, "x");
+    private static final long input1 = fieldOffset(com.oracle.graal.nodes.calc.IntegerDivNode.class, 1, "y");
+    private static final long input2 = fieldOffset(com.oracle.graal.nodes.calc.IntegerDivNode.class, 2, "deoptState");
+    private static final long successor0 = fieldOffset(com.oracle.graal.nodes.calc.IntegerDivNode.class, 3, "next");
+    private static final long data0 = fieldOffset(com.oracle.graal.nodes.calc.IntegerDivNode.class, 5, "stamp");
+    private static final int startMultiplier = hashMultiplier(Long.MIN_VALUE, data0);
+    private static final int dataMultiplier0 = hashMultiplier(data0, data0);
+
+    public IntegerDivNode_NodeAccessor() {
+        super(new long[]{input0, input1, input2}, new long[]{}, new long[]{successor0}, new long[]{}, new long[]{data0}, new Class<?>[]{Object.class});
+    }
+
+    @Override
+    public int valueNumber(int start, com.oracle.graal.graph.Node node) {
+        return start * startMultiplier
+                        + objectHash(unsafe.getObject(node, data0)) * dataMultiplier0;
+    }
+
+    @Override
+    public boolean valueEqual(com.oracle.graal.graph.Node a, com.oracle.graal.graph.Node b) {
+        return objectEquals(unsafe.getObject(a, data0), unsafe.getObject(b, data0));
+    }
+
+    @Override
+    public boolean inputsEqual(com.oracle.graal.graph.Node node, com.oracle.graal.graph.Node other) {
+        return unsafe.getObject(node, input0) == unsafe.getObject(other, input0)
+                        && unsafe.getObject(node, input1) == unsafe.getObject(other, input1)
+                        && unsafe.getObject(node, input2) == unsafe.getObject(other, input2);
+    }
+
+    @Override
+    public boolean inputContains(com.oracle.graal.graph.Node node, com.oracle.graal.graph.Node other) {
+        return unsafe.getObject(node, input0) == other
+                        || unsafe.getObject(node, input1) == other
+                        || unsafe.getObject(node, input2) == other;
+    }
+
+    @Override
+    public boolean successorsEqual(com.oracle.graal.graph.Node node, com.oracle.graal.graph.Node other) {
+        return unsafe.getObject(node, successor0) == unsafe.getObject(other, successor0);
+    }
+
+    @Override
+    public boolean successorContains(com.oracle.graal.graph.Node node, com.oracle.graal.graph.Node other) {
+        return unsafe.getObject(node, successor0) == other;
+    }
+}
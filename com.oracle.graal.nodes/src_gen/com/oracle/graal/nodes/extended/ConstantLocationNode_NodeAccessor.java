@@ -0,0 +1,58 @@
+// CheckStyle: stop header check
+// GENERATED CONTENT - DO NOT EDIT
+// Source: ConstantLocationNode.java
+package com.oracle.graal.nodes.extended;
+
+public final class ConstantLocationNode_NodeAccessor extends com.oracle.graal.graph.NodeAccessor {
+
+    private static final long data0 = fieldOffset(com.oracle.graal.nodes.extended.ConstantLocationNode.class, 0, "valueKind");
+    private static final long data1 = fieldOffset(com.oracle.graal.nodes.extended.ConstantLocationNode.class, 0, "locationIdentity");
+    private static final long data2 = fieldOffset(com.oracle.graal.nodes.extended.ConstantLocationNode.class, 0, "displacement");
+    private static final long data3 = fieldOffset(com.oracle.graal.nodes.extended.ConstantLocationNode.class, 3, "stamp");
+    private static final int startMultiplier = hashMultiplier(Long.MIN_VALUE, data0, data1, data2, data3);
+    private static final int dataMultiplier0 = hashMultiplier(data0, data0, data1, data2, data3);
+    private static final int dataMultiplier1 = hashMultiplier(data1, data0, data1, data2, data3);
+    private static final int dataMultiplier2 = hashMultiplier(data2, data0, data1, data2, data3);
+    private static final int dataMultiplier3 = hashMultiplier(data3, data0, data1, data2, data3);
+
+    public ConstantLocationNode_NodeAccessor() {
+        super(new long[]{}, new long[]{}, new long[]{}, new long[]{}, new long[]{data0, data1, data2, data3}, new Class<?>[]{Object.class, Object.class, long.class, Object.class});
+    }
+
+    @Override
+    public int valueNumber(int start, com.oracle.graal.graph.Node node) {
+        return start * startMultiplier
+                        + objectHash(unsafe.getObject(node, data0)) * dataMultiplier0
+                        + objectHash(unsafe.getObject(node, data1)) * dataMultiplier1
+                        + longHash(unsafe.getLong(node, data2)) * dataMultiplier2
+                        + objectHash(unsafe.getObject(node, data3)) * dataMultiplier3;
+    }
+
+    @Override
+    public boolean valueEqual(com.oracle.graal.graph.Node a, com.oracle.graal.graph.Node b) {
+        return objectEquals(unsafe.getObject(a, data0), unsafe.getObject(b, data0))
+                        && objectEquals(unsafe.getObject(a, data1), unsafe.getObject(b, data1))
+                        && unsafe.getLong(a, data2) == unsafe.getLong(b, data2)
+                        && objectEquals(unsafe.getObject(a, data3), unsafe.getObject(b, data3));
+    }
+
+    @Override
+    public boolean inputsEqual(com.oracle.graal.graph.Node node, com.oracle.graal.graph.Node other) {
+        return true;
+    }
+
+    @Override
+    public boolean inputContains(com.oracle.graal.graph.Node node, com.oracle.graal.graph.Node other) {
+        return false;
+    }
+
+    @Override
+    public boolean successorsEqual(com.oracle.graal.graph.Node node, com.oracle.graal.graph.Node other) {
+        return true;
+    }
+
+    @Override
+    public boolean successorContains(com.oracle.graal.graph.Node node, com.oracle.graal.graph.Node other) {
+        return false;
+    }
+}
@@ -0,0 +1,55 @@
+// CheckStyle: stop header check
+// GENERATED CONTENT - DO NOT EDIT
+// Source: CommitAllocationNode.java
+package com.oracle.graal.nodes.virtual;
+
+public final class CommitAllocationNode_NodeAccessor extends com.oracle.graal.graph.NodeAccessor {
+
+    private static final long input0 = fieldOffset(com.oracle.graal.nodes.virtual.CommitAllocationNode.class, 0, "virtualObjects");
+    private static final long input1 = fieldOffset(com.oracle.graal.nodes.virtual.CommitAllocationNode.class, 0, "values");
+    private static final long successor0 = fieldOffset(com.oracle.graal.nodes.virtual.CommitAllocationNode.class, 1, "next");
+    private static final long data0 = fieldOffset(com.oracle.graal.nodes.virtual.CommitAllocationNode.class, 0, "locks");
+    private static final long data1 = fieldOffset(com.oracle.graal.nodes.virtual.CommitAllocationNode.class, 3, "stamp");
+    private static final int startMultiplier = hashMultiplier(Long.MIN_VALUE, data0, data1);
+    private static final int dataMultiplier0 = hashMultiplier(data0, data0, data1);
+    private static final int dataMultiplier1 = hashMultiplier(data1, data0, data1);
+
+    public CommitAllocationNode_NodeAccessor() {
+        super(new long[]{}, new long[]{input0, input1}, new long[]{successor0}, new long[]{}, new long[]{data0, data1}, new Class<?>[]{Object.class, Object.class});
+    }
+
+    @Override
+    public int valueNumber(int start, com.oracle.graal.graph.Node node) {
+        return start * startMultiplier
+                        + objectHash(unsafe.getObject(node, data0)) * dataMultiplier0
+                        + objectHash(unsafe.getObject(node, data1)) * dataMultiplier1;
+    }
+
+    @Override
+    public boolean valueEqual(com.oracle.graal.graph.Node a, com.oracle.graal.graph.Node b) {
+        return objectEquals(unsafe.getObject(a, data0), unsafe.getObject(b, data0))
+                        && objectEquals(unsafe.getObject(a, data1), unsafe.getObject(b, data1));
+    }
+
+    @Override
+    public boolean inputsEqual(com.oracle.graal.graph.Node node, com.oracle.graal.graph.Node other) {
+        return listEquals(unsafe.getObject(node, input0), unsafe.getObject(other, input0))
+                        && listEquals(unsafe.getObject(node, input1), unsafe.getObject(other, input1));
+    }
+
+    @Override
+    public boolean inputContains(com.oracle.graal.graph.Node node, com.oracle.graal.graph.Node other) {
+        return listContains(unsafe.getObject(node, input0), other)
+                        || listContains(unsafe.getObject(node, input1), other);
+    }
+
+    @Override
+    public boolean successorsEqual(com.oracle.graal.graph.Node node, com.oracle.graal.graph.Node other) {
+        return unsafe.getObject(node, successor0) == unsafe.getObject(other, successor0);
+    }
+
+    @Override
+    public boolean successorContains(com.oracle.graal.graph.Node node, com.oracle.graal.graph.Node other) {
+        return unsafe.getObject(node, successor0) == other;
+    }
+}
@@ -22,13 +22,16 @@
  */
 package com.oracle.graal.phases.common;
 
+import java.util.*;
 import java.util.concurrent.*;
 
 import com.oracle.graal.api.code.*;
 import com.oracle.graal.api.meta.*;
 import com.oracle.graal.debug.*;
 import com.oracle.graal.graph.*;
-import com.oracle.graal.graph.Graph.NodeChangedListener;
+import com.oracle.graal.graph.Graph.NodeEventKind;
+import com.oracle.graal.graph.Graph.NodeEventListener;
+import com.oracle.graal.graph.Graph.NodeEventScope;
 import com.oracle.graal.nodes.*;
 import com.oracle.graal.nodes.calc.*;
 import com.oracle.graal.nodes.extended.*;
@@ -130,22 +133,18 @@ public class CanonicalizerPhase extends BasePhase<PhaseContext> {
         }
 
         private void processWorkSet(StructuredGraph graph) {
-            NodeChangedListener nodeChangedListener = new NodeChangedListener() {
+            NodeEventListener listener = new NodeEventListener() {
 
                 @Override
-                public void nodeChanged(Node node) {
+                public void nodeChanged(NodeEventKind event, Node node) {
                     workList.addAgain(node);
                 }
             };
-            graph.trackInputChange(nodeChangedListener);
-            graph.trackUsagesDroppedZero(nodeChangedListener);
-
-            for (Node n : workList) {
-                processNode(n, graph);
+            try (NodeEventScope scope = graph.trackNodeEvents(listener, EnumSet.of(NodeEventKind.INPUT_CHANGED, NodeEventKind.USAGES_DROPPED_ZERO))) {
+                for (Node n : workList) {
+                    processNode(n, graph);
+                }
             }
-
-            graph.stopTrackingInputChange();
-            graph.stopTrackingUsagesDroppedZero();
         }
 
         private void processNode(Node node, StructuredGraph graph) {
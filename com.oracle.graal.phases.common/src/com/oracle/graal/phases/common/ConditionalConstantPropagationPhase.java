@@ -0,0 +1,498 @@
+/*
+ * Copyright (c) 2013, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.phases.common;
+
+import java.util.*;
+
+import com.oracle.graal.api.meta.*;
+import com.oracle.graal.api.meta.ProfilingInfo.TriState;
+import com.oracle.graal.debug.*;
+import com.oracle.graal.graph.*;
+import com.oracle.graal.nodes.*;
+import com.oracle.graal.nodes.PhiNode.PhiType;
+import com.oracle.graal.nodes.calc.*;
+import com.oracle.graal.nodes.extended.*;
+import com.oracle.graal.nodes.java.*;
+import com.oracle.graal.nodes.type.*;
+import com.oracle.graal.nodes.util.*;
+import com.oracle.graal.phases.*;
+import com.oracle.graal.phases.tiers.*;
+
+/**
+ * Sparse conditional constant propagation. Computes the reachable control flow and a stamp for
+ * every phi, proxy, conditional and integer arithmetic node at the same time: the value of a phi
+ * is the meet of the values flowing in from reachable predecessors only, and only the successors
+ * of a branch that its condition allows are reachable. All values start out undefined, so values
+ * that are only constant because a branch is never taken are found in a single pass.
+ * <p>
+ * Afterwards, branches that are never taken are removed and values whose stamp is a constant are
+ * replaced by that constant. Other nodes are not simplified; if a canonicalizer is given it is run
+ * after anything changed.
+ */
+public class ConditionalConstantPropagationPhase extends BasePhase<PhaseContext> {
+
+    private static final DebugMetric BRANCHES_REMOVED = Debug.metric("SCCPBranchesRemoved");
+    private static final DebugMetric VALUES_FOLDED = Debug.metric("SCCPValuesFolded");
+
+    /**
+     * The number of times the value of a node may change before it is widened to the node's own
+     * stamp, which ensures termination for loop phis.
+     */
+    private static final int MAX_UPDATES = 3;
+
+    private final CanonicalizerPhase canonicalizer;
+
+    public ConditionalConstantPropagationPhase(CanonicalizerPhase canonicalizer) {
+        this.canonicalizer = canonicalizer;
+    }
+
+    @Override
+    protected void run(StructuredGraph graph, PhaseContext context) {
+        Propagation propagation = new Propagation(graph);
+        propagation.propagate();
+        if (propagation.apply(context.getRuntime()) && canonicalizer != null) {
+            canonicalizer.apply(graph, context);
+        }
+    }
+
+    private static final class Propagation {
+
+        private final StructuredGraph graph;
+        private final NodeBitMap reachable;
+        /**
+         * The values of the modeled nodes. A modeled node without a value is undefined.
+         */
+        private final Map<ValueNode, Stamp> values = new HashMap<>();
+        private final Map<ValueNode, Integer> updates = new HashMap<>();
+        private final Deque<FixedNode> controlWorkList = new ArrayDeque<>();
+        private final Deque<Node> valueWorkList = new ArrayDeque<>();
+
+        Propagation(StructuredGraph graph) {
+            this.graph = graph;
+            this.reachable = graph.createNodeBitMap();
+        }
+
+        void propagate() {
+            controlWorkList.add(graph.start());
+            for (Node node : graph.getNodes()) {
+                if (isModeled(node)) {
+                    valueWorkList.add(node);
+                }
+            }
+            while (!controlWorkList.isEmpty() || !valueWorkList.isEmpty()) {
+                while (!controlWorkList.isEmpty()) {
+                    visitControl(controlWorkList.removeFirst());
+                }
+                if (!valueWorkList.isEmpty()) {
+                    visitValue(valueWorkList.removeFirst());
+                }
+            }
+        }
+
+        /**
+         * Removes the branches that are never taken and replaces constant values.
+         * 
+         * @return true if the graph was changed
+         */
+        boolean apply(MetaAccessProvider runtime) {
+            boolean changed = false;
+            for (ControlSplitNode split : graph.getNodes().filter(ControlSplitNode.class).snapshot()) {
+                if (!split.isAlive() || !reachable.isMarked(split)) {
+                    continue;
+                }
+                AbstractBeginNode survivor = null;
+                int reachableSuccessors = 0;
+                for (Node successor : split.successors()) {
+                    if (reachable.isMarked(successor)) {
+                        survivor = (AbstractBeginNode) successor;
+                        reachableSuccessors++;
+                    }
+                }
+                if (reachableSuccessors == 1 && (split instanceof IfNode || split instanceof IntegerSwitchNode)) {
+                    Debug.log("Removing dead successors of %s", split);
+                    graph.removeSplitPropagate(split, survivor);
+                    BRANCHES_REMOVED.increment();
+                    changed = true;
+                }
+            }
+            for (Map.Entry<ValueNode, Stamp> entry : values.entrySet()) {
+                ValueNode node = entry.getKey();
+                if (node.isAlive() && !(node instanceof ConstantNode)) {
+                    ConstantNode constant = asConstant(entry.getValue(), node.kind(), runtime);
+                    if (constant != null) {
+                        node.replaceAtUsages(constant);
+                        GraphUtil.killWithUnusedFloatingInputs(node);
+                        VALUES_FOLDED.increment();
+                        changed = true;
+                    }
+                }
+            }
+            return changed;
+        }
+
+        private ConstantNode asConstant(Stamp stamp, Kind kind, MetaAccessProvider runtime) {
+            if (stamp instanceof IntegerStamp && (kind == Kind.Int || kind == Kind.Long)) {
+                IntegerStamp integerStamp = (IntegerStamp) stamp;
+                if (integerStamp.lowerBound() == integerStamp.upperBound()) {
+                    return ConstantNode.forIntegerKind(kind, integerStamp.lowerBound(), graph);
+                }
+            } else if (stamp instanceof ObjectStamp && ((ObjectStamp) stamp).alwaysNull()) {
+                return ConstantNode.forConstant(Constant.NULL_OBJECT, runtime, graph);
+            }
+            return null;
+        }
+
+        private void visitControl(FixedNode start) {
+            FixedNode current = start;
+            while (!reachable.isMarked(current)) {
+                reachable.mark(current);
+                if (current instanceof FixedWithNextNode) {
+                    current = ((FixedWithNextNode) current).next();
+                } else if (current instanceof AbstractEndNode) {
+                    MergeNode merge = ((AbstractEndNode) current).merge();
+                    // the phis of the merge have a new defined input
+                    for (PhiNode phi : merge.phis()) {
+                        valueWorkList.add(phi);
+                    }
+                    current = merge;
+                } else {
+                    if (current instanceof ControlSplitNode) {
+                        visitSplit((ControlSplitNode) current);
+                    }
+                    return;
+                }
+            }
+        }
+
+        private void visitSplit(ControlSplitNode split) {
+            if (split instanceof IfNode) {
+                IfNode ifNode = (IfNode) split;
+                TriState condition = evaluate(ifNode.condition());
+                if (condition == null) {
+                    return;
+                }
+                if (condition != TriState.FALSE) {
+                    markReachable(ifNode.trueSuccessor());
+                }
+                if (condition != TriState.TRUE) {
+                    markReachable(ifNode.falseSuccessor());
+                }
+            } else if (split instanceof IntegerSwitchNode) {
+                IntegerSwitchNode switchNode = (IntegerSwitchNode) split;
+                Stamp value = valueOf(switchNode.value());
+                if (value == null) {
+                    return;
+                }
+                if (isConstant(value)) {
+                    long key = ((IntegerStamp) value).lowerBound();
+                    for (int i = 0; i < switchNode.keyCount(); i++) {
+                        if (switchNode.keyAt(i).asInt() == key) {
+                            markReachable(switchNode.keySuccessor(i));
+                            return;
+                        }
+                    }
+                    markReachable(switchNode.defaultSuccessor());
+                } else {
+                    for (Node successor : split.successors()) {
+                        markReachable((FixedNode) successor);
+                    }
+                }
+            } else {
+                for (Node successor : split.successors()) {
+                    markReachable((FixedNode) successor);
+                }
+            }
+        }
+
+        private void markReachable(FixedNode node) {
+            if (!reachable.isMarked(node)) {
+                controlWorkList.add(node);
+            }
+        }
+
+        private void visitValue(Node node) {
+            if (isModeled(node)) {
+                ValueNode value = (ValueNode) node;
+                update(value, compute(value));
+            } else if (node instanceof LogicNode) {
+                // the result of a condition is computed when it is used
+                for (Node usage : node.usages()) {
+                    valueWorkList.add(usage);
+                }
+            } else if (node instanceof ControlSplitNode && reachable.isMarked(node)) {
+                visitSplit((ControlSplitNode) node);
+            }
+        }
+
+        private void update(ValueNode node, Stamp stamp) {
+            if (stamp == null) {
+                return;
+            }
+            Stamp old = values.get(node);
+            Stamp result = old == null ? stamp : old.meet(stamp);
+            if (result.equals(old)) {
+                return;
+            }
+            Integer count = updates.get(node);
+            int newCount = count == null ? 1 : count + 1;
+            if (newCount > MAX_UPDATES) {
+                if (newCount > MAX_UPDATES + 1) {
+                    // already widened
+                    return;
+                }
+                result = node.stamp();
+            }
+            updates.put(node, newCount);
+            values.put(node, result);
+            for (Node usage : node.usages()) {
+                valueWorkList.add(usage);
+            }
+        }
+
+        private static boolean isModeled(Node node) {
+            if (node instanceof PhiNode) {
+                return ((PhiNode) node).type() == PhiType.Value;
+            } else if (node instanceof ProxyNode) {
+                return ((ProxyNode) node).type() == PhiType.Value;
+            }
+            return node instanceof ConstantNode || node instanceof ConditionalNode || node instanceof NegateNode || node instanceof ConvertNode || node instanceof IntegerAddNode ||
+                            node instanceof IntegerSubNode || node instanceof IntegerMulNode || node instanceof AndNode || node instanceof OrNode || node instanceof XorNode ||
+                            node instanceof ShiftNode;
+        }
+
+        /**
+         * Gets the value of a node, or null if it is undefined. Nodes that are not modeled have
+         * their own stamp as value.
+         */
+        private Stamp valueOf(ValueNode node) {
+            if (node instanceof ConstantNode || !isModeled(node)) {
+                return node.stamp();
+            }
+            return values.get(node);
+        }
+
+        private static Stamp meet(Stamp a, Stamp b) {
+            if (a == null) {
+                return b;
+            } else if (b == null) {
+                return a;
+            }
+            return a.meet(b);
+        }
+
+        private static boolean isConstant(Stamp stamp) {
+            return stamp instanceof IntegerStamp && ((IntegerStamp) stamp).lowerBound() == ((IntegerStamp) stamp).upperBound();
+        }
+
+        private Stamp compute(ValueNode node) {
+            if (node instanceof ConstantNode) {
+                return node.stamp();
+            } else if (node instanceof PhiNode) {
+                PhiNode phi = (PhiNode) node;
+                MergeNode merge = phi.merge();
+                Stamp result = null;
+                for (int i = 0; i < phi.valueCount(); i++) {
+                    if (reachable.isMarked(merge.phiPredecessorAt(i))) {
+                        result = meet(result, valueOf(phi.valueAt(i)));
+                    }
+                }
+                return result;
+            } else if (node instanceof ProxyNode) {
+                return valueOf(((ProxyNode) node).value());
+            } else if (node instanceof ConditionalNode) {
+                ConditionalNode conditional = (ConditionalNode) node;
+                TriState condition = evaluate(conditional.condition());
+                if (condition == null) {
+                    return null;
+                } else if (condition == TriState.TRUE) {
+                    return valueOf(conditional.trueValue());
+                } else if (condition == TriState.FALSE) {
+                    return valueOf(conditional.falseValue());
+                }
+                return meet(valueOf(conditional.trueValue()), valueOf(conditional.falseValue()));
+            } else if (node instanceof NegateNode) {
+                Stamp value = valueOf(((NegateNode) node).x());
+                if (value == null) {
+                    return null;
+                } else if (!(value instanceof IntegerStamp)) {
+                    return node.stamp();
+                } else if (isConstant(value)) {
+                    return constantStamp(node.kind(), -((IntegerStamp) value).lowerBound());
+                }
+                return StampTool.negate(value);
+            } else if (node instanceof ConvertNode) {
+                return computeConvert((ConvertNode) node);
+            }
+            BinaryNode binary = (BinaryNode) node;
+            Stamp x = valueOf(binary.x());
+            Stamp y = valueOf(binary.y());
+            if (x == null || y == null) {
+                return null;
+            } else if (!(x instanceof IntegerStamp) || !(y instanceof IntegerStamp) || (node.kind() != Kind.Int && node.kind() != Kind.Long)) {
+                return node.stamp();
+            }
+            IntegerStamp xStamp = (IntegerStamp) x;
+            IntegerStamp yStamp = (IntegerStamp) y;
+            if (isConstant(x) && isConstant(y)) {
+                return constantStamp(node.kind(), fold(binary, xStamp.lowerBound(), yStamp.lowerBound()));
+            }
+            if (node instanceof IntegerAddNode) {
+                return StampTool.add(xStamp, yStamp);
+            } else if (node instanceof IntegerSubNode) {
+                return StampTool.sub(xStamp, yStamp);
+            } else if (node instanceof AndNode) {
+                return StampTool.and(xStamp, yStamp);
+            } else if (node instanceof OrNode) {
+                return StampTool.or(xStamp, yStamp);
+            } else if (node instanceof XorNode) {
+                return StampTool.xor(xStamp, yStamp);
+            } else if (node instanceof LeftShiftNode) {
+                return StampTool.leftShift(xStamp, yStamp);
+            } else if (node instanceof UnsignedRightShiftNode) {
+                return StampTool.unsignedRightShift(xStamp, yStamp);
+            }
+            return node.stamp();
+        }
+
+        private Stamp computeConvert(ConvertNode convert) {
+            Stamp value = valueOf(convert.value());
+            if (value == null) {
+                return null;
+            } else if (!(value instanceof IntegerStamp)) {
+                return convert.stamp();
+            }
+            IntegerStamp integerStamp = (IntegerStamp) value;
+            switch (convert.opcode) {
+                case I2L:
+                    return StampTool.intToLong(integerStamp);
+                case L2I:
+                    return isConstant(value) ? constantStamp(Kind.Int, integerStamp.lowerBound()) : StampTool.longToInt(integerStamp);
+                default:
+                    return convert.stamp();
+            }
+        }
+
+        private static long fold(BinaryNode node, long x, long y) {
+            boolean isInt = node.kind() == Kind.Int;
+            if (node instanceof IntegerAddNode) {
+                return x + y;
+            } else if (node instanceof IntegerSubNode) {
+                return x - y;
+            } else if (node instanceof IntegerMulNode) {
+                return x * y;
+            } else if (node instanceof AndNode) {
+                return x & y;
+            } else if (node instanceof OrNode) {
+                return x | y;
+            } else if (node instanceof XorNode) {
+                return x ^ y;
+            } else if (node instanceof LeftShiftNode) {
+                return isInt ? (int) x << y : x << y;
+            } else if (node instanceof RightShiftNode) {
+                return isInt ? (int) x >> y : x >> y;
+            } else {
+                assert node instanceof UnsignedRightShiftNode : node;
+                return isInt ? (int) x >>> y : x >>> y;
+            }
+        }
+
+        private static Stamp constantStamp(Kind kind, long value) {
+            long result = kind == Kind.Int ? (int) value : value;
+            return StampFactory.forInteger(kind, result, result);
+        }
+
+        /**
+         * Evaluates a condition, returning null if it depends on an undefined value.
+         */
+        private TriState evaluate(LogicNode condition) {
+            if (condition instanceof LogicConstantNode) {
+                return TriState.get(((LogicConstantNode) condition).getValue());
+            } else if (condition instanceof IsNullNode) {
+                Stamp object = valueOf(((IsNullNode) condition).object());
+                if (object == null) {
+                    return null;
+                } else if (object instanceof ObjectStamp && ((ObjectStamp) object).alwaysNull()) {
+                    return TriState.TRUE;
+                } else if (object.nonNull()) {
+                    return TriState.FALSE;
+                }
+            } else if (condition instanceof InstanceOfNode) {
+                InstanceOfNode instanceOf = (InstanceOfNode) condition;
+                Stamp object = valueOf(instanceOf.object());
+                if (object == null) {
+                    return null;
+                } else if (object instanceof ObjectStamp) {
+                    ObjectStamp objectStamp = (ObjectStamp) object;
+                    if (objectStamp.alwaysNull()) {
+                        return TriState.FALSE;
+                    } else if (objectStamp.nonNull() && objectStamp.type() != null) {
+                        if (instanceOf.type().isAssignableFrom(objectStamp.type())) {
+                            return TriState.TRUE;
+                        } else if (objectStamp.isExactType()) {
+                            return TriState.FALSE;
+                        }
+                    }
+                }
+            } else if (condition instanceof CompareNode) {
+                CompareNode compare = (CompareNode) condition;
+                Stamp x = valueOf(compare.x());
+                Stamp y = valueOf(compare.y());
+                if (x == null || y == null) {
+                    return null;
+                }
+                return evaluateCompare(compare, x, y);
+            }
+            return TriState.UNKNOWN;
+        }
+
+        private static TriState evaluateCompare(CompareNode compare, Stamp x, Stamp y) {
+            if (x instanceof IntegerStamp && y instanceof IntegerStamp) {
+                IntegerStamp xStamp = (IntegerStamp) x;
+                IntegerStamp yStamp = (IntegerStamp) y;
+                if (compare instanceof IntegerEqualsNode) {
+                    if (isConstant(x) && isConstant(y) && xStamp.lowerBound() == yStamp.lowerBound()) {
+                        return TriState.TRUE;
+                    } else if (xStamp.upperBound() < yStamp.lowerBound() || yStamp.upperBound() < xStamp.lowerBound()) {
+                        return TriState.FALSE;
+                    }
+                } else if (compare instanceof IntegerLessThanNode || (compare instanceof IntegerBelowThanNode && xStamp.lowerBound() >= 0 && yStamp.lowerBound() >= 0)) {
+                    // unsigned and signed comparisons agree on positive values
+                    if (xStamp.upperBound() < yStamp.lowerBound()) {
+                        return TriState.TRUE;
+                    } else if (xStamp.lowerBound() >= yStamp.upperBound()) {
+                        return TriState.FALSE;
+                    }
+                }
+            } else if (compare instanceof ObjectEqualsNode && x instanceof ObjectStamp && y instanceof ObjectStamp) {
+                ObjectStamp xStamp = (ObjectStamp) x;
+                ObjectStamp yStamp = (ObjectStamp) y;
+                if (xStamp.alwaysNull() && yStamp.alwaysNull()) {
+                    return TriState.TRUE;
+                } else if ((xStamp.alwaysNull() && yStamp.nonNull()) || (xStamp.nonNull() && yStamp.alwaysNull())) {
+                    return TriState.FALSE;
+                }
+            }
+            return TriState.UNKNOWN;
+        }
+    }
+}
@@ -0,0 +1,311 @@
+/*
+ * Copyright (c) 2013, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.phases.common;
+
+import static com.oracle.graal.api.meta.LocationIdentity.*;
+
+import java.util.*;
+
+import com.oracle.graal.api.meta.*;
+import com.oracle.graal.debug.*;
+import com.oracle.graal.graph.*;
+import com.oracle.graal.nodes.*;
+import com.oracle.graal.nodes.calc.*;
+import com.oracle.graal.nodes.cfg.*;
+import com.oracle.graal.nodes.extended.*;
+import com.oracle.graal.nodes.java.*;
+import com.oracle.graal.nodes.util.*;
+import com.oracle.graal.phases.*;
+
+/**
+ * Value numbers fixed nodes along the dominator tree. A node is replaced by an equal node that
+ * dominates it. {@link Graph#unique(Node)} only handles floating nodes, this phase handles
+ * {@link ReadNode}s, {@link ArrayLengthNode}s, {@link LoadHubNode}s and {@link FixedBinaryNode}s.
+ * <p>
+ * Reads are only reused as long as no {@link MemoryCheckpoint} that kills their location identity
+ * can execute between the two reads: kills in the current block are applied in order, and when
+ * entering a block that can also be reached through blocks other than its dominator (merges and
+ * loop headers), the kills of all blocks on those paths are applied first.
+ */
+public class GlobalValueNumberingPhase extends Phase {
+
+    private static final DebugMetric METRIC_VALUE_NUMBERED_NODES = Debug.metric("GVNValueNumberedNodes");
+
+    @Override
+    protected void run(StructuredGraph graph) {
+        ControlFlowGraph cfg = ControlFlowGraph.compute(graph, true, true, true, false);
+        new Instance(cfg).processBlock(cfg.getStartBlock());
+    }
+
+    /**
+     * Determines if a node can be value numbered. Reads of {@link LocationIdentity#ANY_LOCATION}
+     * are excluded since they may alias any location, so they cannot be coalesced with other reads.
+     */
+    private static boolean isCandidate(FixedNode node) {
+        if (node instanceof ReadNode) {
+            return ((ReadNode) node).location().getLocationIdentity() != ANY_LOCATION;
+        }
+        return node instanceof ArrayLengthNode || node instanceof LoadHubNode || node instanceof FixedBinaryNode;
+    }
+
+    /**
+     * Returns the location identity read by a candidate, or null if the value of the node does not
+     * depend on mutable memory.
+     */
+    private static LocationIdentity readLocation(FixedNode node) {
+        if (node instanceof ReadNode) {
+            LocationIdentity identity = ((ReadNode) node).location().getLocationIdentity();
+            return identity == FINAL_LOCATION ? null : identity;
+        }
+        // array lengths and hubs are immutable, fixed arithmetic does not access memory
+        return null;
+    }
+
+    /**
+     * The inputs that determine the value of a candidate. Guards and deoptimization states are
+     * ignored: if the dominating node executed, the dominated one can use its value.
+     */
+    private static Node[] operands(FixedNode node) {
+        if (node instanceof ReadNode) {
+            ReadNode read = (ReadNode) node;
+            return new Node[]{read.object(), read.location()};
+        } else if (node instanceof ArrayLengthNode) {
+            return new Node[]{((ArrayLengthNode) node).array()};
+        } else if (node instanceof LoadHubNode) {
+            return new Node[]{((LoadHubNode) node).object()};
+        } else {
+            FixedBinaryNode binary = (FixedBinaryNode) node;
+            return new Node[]{binary.x(), binary.y()};
+        }
+    }
+
+    private static final class ValueKey {
+
+        private final FixedWithNextNode node;
+        private final Node[] operands;
+        private final int hash;
+
+        ValueKey(FixedWithNextNode node) {
+            this.node = node;
+            this.operands = operands(node);
+            this.hash = node.getNodeClass().hashCode() * 31 + Arrays.hashCode(operands);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj instanceof ValueKey) {
+                ValueKey other = (ValueKey) obj;
+                NodeClass nodeClass = node.getNodeClass();
+                return other.node.getNodeClass() == nodeClass && Arrays.equals(operands, other.operands) && nodeClass.valueEqual(node, other.node);
+            }
+            return false;
+        }
+    }
+
+    /**
+     * An available value together with the memory state it was read in.
+     */
+    private static final class Entry {
+
+        final FixedWithNextNode node;
+        final LocationIdentity location;
+        final int locationVersion;
+        final int anyVersion;
+
+        Entry(FixedWithNextNode node, LocationIdentity location, int locationVersion, int anyVersion) {
+            this.node = node;
+            this.location = location;
+            this.locationVersion = locationVersion;
+            this.anyVersion = anyVersion;
+        }
+    }
+
+    private static final class Instance {
+
+        private final ControlFlowGraph cfg;
+        private final Map<ValueKey, Entry> table = new HashMap<>();
+        /**
+         * The current version of each location identity. A kill assigns a fresh version so that
+         * entries recorded before the kill no longer match. {@link LocationIdentity#ANY_LOCATION}
+         * versions all locations at once.
+         */
+        private final Map<LocationIdentity, Integer> versions = new IdentityHashMap<>();
+        private int nextVersion = 1;
+        /**
+         * The undo log of the dominator tree scopes: pairs of a key (a {@link ValueKey} or a
+         * {@link LocationIdentity}) and its previous value (possibly null).
+         */
+        private final ArrayList<Object> undoLog = new ArrayList<>();
+        private final List<Set<LocationIdentity>> blockKills;
+
+        Instance(ControlFlowGraph cfg) {
+            this.cfg = cfg;
+            Block[] blocks = cfg.getBlocks();
+            this.blockKills = new ArrayList<>(Collections.<Set<LocationIdentity>> nCopies(blocks.length, null));
+            for (Block block : blocks) {
+                blockKills.set(block.getId(), computeKills(block));
+            }
+        }
+
+        private static Set<LocationIdentity> computeKills(Block block) {
+            Set<LocationIdentity> kills = null;
+            for (FixedNode node : block.getNodes()) {
+                if (node instanceof MemoryCheckpoint.Single) {
+                    kills = addKill(kills, ((MemoryCheckpoint.Single) node).getLocationIdentity());
+                } else if (node instanceof MemoryCheckpoint.Multi) {
+                    for (LocationIdentity identity : ((MemoryCheckpoint.Multi) node).getLocationIdentities()) {
+                        kills = addKill(kills, identity);
+                    }
+                }
+            }
+            return kills == null ? Collections.<LocationIdentity> emptySet() : kills;
+        }
+
+        private static Set<LocationIdentity> addKill(Set<LocationIdentity> kills, LocationIdentity identity) {
+            Set<LocationIdentity> result = kills == null ? new HashSet<LocationIdentity>() : kills;
+            result.add(identity);
+            return result;
+        }
+
+        private int version(LocationIdentity identity) {
+            Integer version = versions.get(identity);
+            return version == null ? 0 : version;
+        }
+
+        private void kill(LocationIdentity identity) {
+            undoLog.add(identity);
+            undoLog.add(versions.put(identity, nextVersion++));
+        }
+
+        private void processBlock(Block block) {
+            int mark = undoLog.size();
+            if (block.getPredecessorCount() > 1 || block.isLoopHeader()) {
+                for (LocationIdentity identity : killsOnPathsFromDominator(block)) {
+                    kill(identity);
+                }
+            }
+            process(block);
+            for (Block dominated : block.getDominated()) {
+                processBlock(dominated);
+            }
+            undo(mark);
+        }
+
+        /**
+         * Collects the kills of the blocks through which control can reach {@code block} without
+         * coming directly from its dominator, including {@code block} itself if it is reachable
+         * from itself.
+         */
+        private Set<LocationIdentity> killsOnPathsFromDominator(Block block) {
+            Block dominator = block.getDominator();
+            Set<LocationIdentity> kills = new HashSet<>();
+            BitSet visited = new BitSet(cfg.getBlocks().length);
+            ArrayDeque<Block> worklist = new ArrayDeque<>(block.getPredecessors());
+            while (!worklist.isEmpty()) {
+                Block current = worklist.removeFirst();
+                if (current == dominator || visited.get(current.getId())) {
+                    continue;
+                }
+                visited.set(current.getId());
+                kills.addAll(blockKills.get(current.getId()));
+                if (current != block) {
+                    worklist.addAll(current.getPredecessors());
+                }
+            }
+            return kills;
+        }
+
+        private void undo(int mark) {
+            for (int i = undoLog.size() - 2; i >= mark; i -= 2) {
+                Object key = undoLog.get(i);
+                Object previous = undoLog.get(i + 1);
+                if (key instanceof ValueKey) {
+                    if (previous == null) {
+                        table.remove(key);
+                    } else {
+                        table.put((ValueKey) key, (Entry) previous);
+                    }
+                } else {
+                    if (previous == null) {
+                        versions.remove(key);
+                    } else {
+                        versions.put((LocationIdentity) key, (Integer) previous);
+                    }
+                }
+            }
+            undoLog.subList(mark, undoLog.size()).clear();
+        }
+
+        private void process(Block block) {
+            // collect the nodes first since the block's end node may be removed
+            List<FixedNode> nodes = new ArrayList<>();
+            for (FixedNode node : block.getNodes()) {
+                nodes.add(node);
+            }
+            for (FixedNode node : nodes) {
+                if (node instanceof MemoryCheckpoint.Single) {
+                    kill(((MemoryCheckpoint.Single) node).getLocationIdentity());
+                } else if (node instanceof MemoryCheckpoint.Multi) {
+                    for (LocationIdentity identity : ((MemoryCheckpoint.Multi) node).getLocationIdentities()) {
+                        kill(identity);
+                    }
+                } else if (isCandidate(node)) {
+                    valueNumber((FixedWithNextNode) node);
+                }
+            }
+        }
+
+        private void valueNumber(FixedWithNextNode node) {
+            ValueKey key = new ValueKey(node);
+            Entry existing = table.get(key);
+            if (existing != null && isAvailable(existing)) {
+                Debug.log("Replacing %s with dominating %s", node, existing.node);
+                METRIC_VALUE_NUMBERED_NODES.increment();
+                node.replaceAtUsages(existing.node);
+                FrameState deoptState = node instanceof DeoptimizingNode ? ((DeoptimizingNode) node).getDeoptimizationState() : null;
+                node.graph().removeFixed(node);
+                if (deoptState != null && deoptState.isAlive() && deoptState.usages().isEmpty()) {
+                    GraphUtil.killWithUnusedFloatingInputs(deoptState);
+                }
+            } else {
+                LocationIdentity location = readLocation(node);
+                int locationVersion = location == null ? 0 : version(location);
+                int anyVersion = location == null ? 0 : version(ANY_LOCATION);
+                undoLog.add(key);
+                undoLog.add(table.put(key, new Entry(node, location, locationVersion, anyVersion)));
+            }
+        }
+
+        private boolean isAvailable(Entry entry) {
+            if (entry.location == null) {
+                return true;
+            }
+            return entry.locationVersion == version(entry.location) && entry.anyVersion == version(ANY_LOCATION);
+        }
+    }
+}
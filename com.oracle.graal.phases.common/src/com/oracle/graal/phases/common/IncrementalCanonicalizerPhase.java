@@ -24,11 +24,21 @@ package com.oracle.graal.phases.common;
 
 import static com.oracle.graal.phases.GraalOptions.*;
 
+import java.util.*;
+
+import com.oracle.graal.graph.*;
+import com.oracle.graal.graph.Graph.NodeEventKind;
+import com.oracle.graal.graph.Graph.NodeEventListener;
+import com.oracle.graal.graph.Graph.NodeEventScope;
 import com.oracle.graal.nodes.*;
 import com.oracle.graal.phases.*;
 import com.oracle.graal.phases.common.CanonicalizerPhase.CustomCanonicalizer;
 import com.oracle.graal.phases.tiers.*;
 
+/**
+ * Runs a suite of phases and then canonicalizes the nodes that were added by them as well as the
+ * nodes whose inputs or usages were changed by them.
+ */
 public class IncrementalCanonicalizerPhase<C extends PhaseContext> extends PhaseSuite<C> {
 
     private final CustomCanonicalizer customCanonicalizer;
@@ -44,7 +54,19 @@ public class IncrementalCanonicalizerPhase<C extends PhaseContext> extends Phase
     @Override
     protected void run(StructuredGraph graph, C context) {
         int mark = graph.getMark();
-        super.run(graph, context);
-        new CanonicalizerPhase.Instance(context.getRuntime(), context.getAssumptions(), !AOTCompilation.getValue(), mark, customCanonicalizer).apply(graph);
+        final Set<Node> changedNodes = new LinkedHashSet<>();
+        NodeEventListener listener = new NodeEventListener() {
+
+            @Override
+            public void nodeChanged(NodeEventKind event, Node node) {
+                if (node.isAlive()) {
+                    changedNodes.add(node);
+                }
+            }
+        };
+        try (NodeEventScope scope = graph.trackNodeEvents(listener, EnumSet.of(NodeEventKind.INPUT_CHANGED, NodeEventKind.USAGES_DROPPED_ZERO), true)) {
+            super.run(graph, context);
+        }
+        new CanonicalizerPhase.Instance(context.getRuntime(), context.getAssumptions(), !AOTCompilation.getValue(), changedNodes, mark, customCanonicalizer).apply(graph);
     }
 }
@@ -0,0 +1,519 @@
+/*
+ * Copyright (c) 2013, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.phases.common;
+
+import java.util.*;
+
+import com.oracle.graal.api.meta.*;
+import com.oracle.graal.debug.*;
+import com.oracle.graal.graph.*;
+import com.oracle.graal.nodes.*;
+import com.oracle.graal.nodes.PhiNode.PhiType;
+import com.oracle.graal.nodes.calc.*;
+import com.oracle.graal.nodes.extended.*;
+import com.oracle.graal.nodes.java.*;
+import com.oracle.graal.nodes.type.*;
+import com.oracle.graal.nodes.util.*;
+import com.oracle.graal.phases.*;
+import com.oracle.graal.phases.graph.*;
+
+/**
+ * Propagates integer ranges implied by branch conditions, guards and induction variables down the
+ * dominator tree. A value whose range is narrower than its stamp at some point is replaced, in the
+ * inputs of nodes whose simplification depends on it, by a {@link PiNode} with the narrower stamp
+ * that is anchored where the range was established. The canonicalizer can then fold comparisons,
+ * remove switch successors, and drop the zero checks of divisions.
+ * <p>
+ * The ranges are joined with the stamps of the values at control flow splits and merged with
+ * {@link Stamp#meet} at merges. Values that only flow through floating nodes are not narrowed.
+ */
+public class IntegerRangePropagationPhase extends Phase {
+
+    private static final DebugMetric metricRangeRegistered = Debug.metric("RangeRegistered");
+    private static final DebugMetric metricRangePiInserted = Debug.metric("RangePiInserted");
+    private static final DebugMetric metricRangeGuardsRemoved = Debug.metric("RangeGuardsRemoved");
+
+    private StructuredGraph graph;
+
+    @Override
+    protected void run(StructuredGraph inputGraph) {
+        graph = inputGraph;
+        new RangePropagation(graph.start(), new State()).apply();
+    }
+
+    public static class State extends MergeableState<State> {
+
+        private IdentityHashMap<ValueNode, IntegerStamp> ranges;
+        private IdentityHashMap<ValueNode, GuardingNode> anchors;
+        private IdentityHashMap<ValueNode, PiNode> pis;
+
+        public State() {
+            this.ranges = new IdentityHashMap<>();
+            this.anchors = new IdentityHashMap<>();
+            this.pis = new IdentityHashMap<>();
+        }
+
+        public State(State other) {
+            this.ranges = new IdentityHashMap<>(other.ranges);
+            this.anchors = new IdentityHashMap<>(other.anchors);
+            this.pis = new IdentityHashMap<>(other.pis);
+        }
+
+        @Override
+        public boolean merge(MergeNode merge, List<State> withStates) {
+            IdentityHashMap<ValueNode, IntegerStamp> newRanges = new IdentityHashMap<>();
+            IdentityHashMap<ValueNode, GuardingNode> newAnchors = new IdentityHashMap<>();
+            IdentityHashMap<ValueNode, PiNode> newPis = new IdentityHashMap<>();
+
+            for (Map.Entry<ValueNode, IntegerStamp> entry : ranges.entrySet()) {
+                ValueNode node = entry.getKey();
+                IntegerStamp range = entry.getValue();
+                GuardingNode anchor = anchors.get(node);
+                PiNode pi = pis.get(node);
+                for (State other : withStates) {
+                    IntegerStamp otherRange = other.ranges.get(node);
+                    if (otherRange == null) {
+                        range = null;
+                        break;
+                    }
+                    range = (IntegerStamp) range.meet(otherRange);
+                    if (other.anchors.get(node) != anchor) {
+                        anchor = merge;
+                    }
+                    if (other.pis.get(node) != pi) {
+                        pi = null;
+                    }
+                }
+                if (range != null && !range.equals(node.stamp())) {
+                    newRanges.put(node, range);
+                    newAnchors.put(node, anchor);
+                    if (pi != null && pi.stamp().equals(range)) {
+                        newPis.put(node, pi);
+                    }
+                }
+            }
+
+            // the range of a phi is the meet of the ranges of its inputs
+            if (!(merge instanceof LoopBeginNode)) {
+                for (PhiNode phi : merge.phis()) {
+                    if (phi.type() == PhiType.Value && isInteger(phi)) {
+                        IntegerStamp range = getRange(phi.valueAt(0));
+                        for (int i = 0; i < withStates.size(); i++) {
+                            range = (IntegerStamp) range.meet(withStates.get(i).getRange(phi.valueAt(i + 1)));
+                        }
+                        range = (IntegerStamp) range.join(phi.stamp());
+                        if (!range.equals(phi.stamp())) {
+                            newRanges.put(phi, range);
+                            newAnchors.put(phi, merge);
+                        }
+                    }
+                }
+            }
+
+            this.ranges = newRanges;
+            this.anchors = newAnchors;
+            this.pis = newPis;
+            return true;
+        }
+
+        /**
+         * Gets the range of an integer value at the current point in the control flow.
+         */
+        public IntegerStamp getRange(ValueNode value) {
+            IntegerStamp range = ranges.get(value);
+            return range == null ? value.integerStamp() : range;
+        }
+
+        /**
+         * Records that the value is within the given range at the current point in the control
+         * flow and at all points dominated by it.
+         */
+        public void addRange(ValueNode value, IntegerStamp range, GuardingNode anchor) {
+            if (value instanceof ConstantNode || range.equals(getRange(value))) {
+                return;
+            }
+            ranges.put(value, range);
+            anchors.put(value, anchor);
+            pis.remove(value);
+            metricRangeRegistered.increment();
+        }
+
+        @Override
+        public State clone() {
+            return new State(this);
+        }
+    }
+
+    private static boolean isInteger(ValueNode node) {
+        return node.kind() == Kind.Int || node.kind() == Kind.Long;
+    }
+
+    /**
+     * Creates the narrowest range between the bounds that is also within {@code original}, or
+     * returns null if there is no such value.
+     */
+    private static IntegerStamp range(IntegerStamp original, long lowerBound, long upperBound) {
+        long lower = Math.max(lowerBound, original.lowerBound());
+        long upper = Math.min(upperBound, original.upperBound());
+        if (lower > upper) {
+            return null;
+        }
+        return (IntegerStamp) StampFactory.forInteger(original.kind(), lower, upper, original.mask());
+    }
+
+    /**
+     * Computes the ranges of the inputs of a comparison that follow from the result of the
+     * comparison.
+     * 
+     * @return the new ranges of x and y, or null if nothing is known or the result is impossible
+     */
+    private static IntegerStamp[] refine(CompareNode compare, boolean isTrue, IntegerStamp x, IntegerStamp y) {
+        long min = x.kind().getMinValue();
+        long max = x.kind().getMaxValue();
+        if (compare instanceof IntegerLessThanNode || (compare instanceof IntegerBelowThanNode && x.isPositive() && y.isPositive())) {
+            // unsigned and signed comparisons agree on positive values
+            if (isTrue) {
+                if (y.upperBound() == min || x.lowerBound() == max) {
+                    return null;
+                }
+                return pair(range(x, min, y.upperBound() - 1), range(y, x.lowerBound() + 1, max));
+            } else {
+                return pair(range(x, y.lowerBound(), max), range(y, min, x.upperBound()));
+            }
+        } else if (compare instanceof IntegerBelowThanNode) {
+            if (isTrue && y.isPositive() && y.upperBound() > 0) {
+                // x |<| y with a positive y implies 0 <= x < y
+                return pair(range(x, 0, y.upperBound() - 1), y);
+            }
+        } else if (compare instanceof IntegerEqualsNode) {
+            if (isTrue) {
+                IntegerStamp joined = range(x, y.lowerBound(), y.upperBound());
+                return pair(joined, joined == null ? null : range(y, joined.lowerBound(), joined.upperBound()));
+            } else if (y.lowerBound() == y.upperBound()) {
+                return pair(excludeBound(x, y.lowerBound()), y);
+            } else if (x.lowerBound() == x.upperBound()) {
+                return pair(x, excludeBound(y, x.lowerBound()));
+            }
+        }
+        return null;
+    }
+
+    private static IntegerStamp excludeBound(IntegerStamp stamp, long value) {
+        if (value == stamp.lowerBound()) {
+            return value == stamp.upperBound() ? null : range(stamp, value + 1, stamp.upperBound());
+        } else if (value == stamp.upperBound()) {
+            return range(stamp, stamp.lowerBound(), value - 1);
+        }
+        return stamp;
+    }
+
+    private static IntegerStamp[] pair(IntegerStamp x, IntegerStamp y) {
+        if (x == null || y == null) {
+            return null;
+        }
+        return new IntegerStamp[]{x, y};
+    }
+
+    /**
+     * Determines if the comparison is known to be true or false given the ranges of its inputs.
+     * 
+     * @return the result of the comparison, or null if it is unknown
+     */
+    private static Boolean evaluate(CompareNode compare, IntegerStamp x, IntegerStamp y) {
+        if (compare instanceof IntegerLessThanNode || (compare instanceof IntegerBelowThanNode && x.isPositive() && y.isPositive())) {
+            if (x.upperBound() < y.lowerBound()) {
+                return true;
+            } else if (x.lowerBound() >= y.upperBound()) {
+                return false;
+            }
+        } else if (compare instanceof IntegerEqualsNode) {
+            if (x.lowerBound() == x.upperBound() && y.lowerBound() == y.upperBound() && x.lowerBound() == y.lowerBound()) {
+                return true;
+            } else if (x.alwaysDistinct(y)) {
+                return false;
+            }
+        }
+        return null;
+    }
+
+    private static boolean isIntegerCompare(LogicNode condition) {
+        return condition instanceof CompareNode && isInteger(((CompareNode) condition).x()) && isInteger(((CompareNode) condition).y());
+    }
+
+    private class RangePropagation extends PostOrderNodeIterator<State> {
+
+        public RangePropagation(FixedNode start, State initialState) {
+            super(start, initialState);
+        }
+
+        private void registerCondition(LogicNode condition, boolean isTrue, GuardingNode anchor) {
+            if (isIntegerCompare(condition)) {
+                CompareNode compare = (CompareNode) condition;
+                IntegerStamp[] refined = refine(compare, isTrue, state.getRange(compare.x()), state.getRange(compare.y()));
+                if (refined != null) {
+                    state.addRange(compare.x(), refined[0], anchor);
+                    state.addRange(compare.y(), refined[1], anchor);
+                }
+            }
+        }
+
+        private void registerControlSplitInfo(Node pred, AbstractBeginNode begin) {
+            if (pred instanceof IfNode) {
+                IfNode ifNode = (IfNode) pred;
+                registerCondition(ifNode.condition(), begin == ifNode.trueSuccessor(), begin);
+            } else if (pred instanceof IntegerSwitchNode) {
+                IntegerSwitchNode switchNode = (IntegerSwitchNode) pred;
+                if (begin != switchNode.defaultSuccessor()) {
+                    long lower = Long.MAX_VALUE;
+                    long upper = Long.MIN_VALUE;
+                    for (int i = 0; i < switchNode.keyCount(); i++) {
+                        if (switchNode.keySuccessor(i) == begin) {
+                            long key = switchNode.keyAt(i).asLong();
+                            lower = Math.min(lower, key);
+                            upper = Math.max(upper, key);
+                        }
+                    }
+                    ValueNode value = switchNode.value();
+                    IntegerStamp range = range(state.getRange(value), lower, upper);
+                    if (range != null) {
+                        state.addRange(value, range, begin);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Removes a guard whose condition is known to hold, or records the ranges that follow from
+         * it. The usages of a removed guard are made to depend on the anchor of the ranges its
+         * condition follows from, so that they are not scheduled before the check that
+         * established them.
+         */
+        private void registerGuard(GuardNode guard, AbstractBeginNode begin) {
+            LogicNode condition = guard.condition();
+            if (isIntegerCompare(condition)) {
+                CompareNode compare = (CompareNode) condition;
+                Boolean result = evaluate(compare, state.getRange(compare.x()), state.getRange(compare.y()));
+                GuardingNode anchor = result != null && result != guard.negated() ? rangeAnchor(compare, begin) : null;
+                if (anchor != null) {
+                    guard.replaceAtUsages(anchor.asNode());
+                    GraphUtil.killWithUnusedFloatingInputs(guard);
+                    metricRangeGuardsRemoved.increment();
+                    return;
+                }
+            }
+            registerCondition(condition, !guard.negated(), guard);
+        }
+
+        /**
+         * Gets the anchor of the ranges of the inputs of a comparison, {@code begin} if both ranges
+         * follow from the stamps of the inputs, or null if the ranges have different anchors.
+         */
+        private GuardingNode rangeAnchor(CompareNode compare, AbstractBeginNode begin) {
+            GuardingNode x = state.anchors.get(compare.x());
+            GuardingNode y = state.anchors.get(compare.y());
+            if (x == null) {
+                return y == null ? begin : y;
+            }
+            return y == null || y == x ? x : null;
+        }
+
+        /**
+         * Registers the ranges of induction variables that are incremented by a constant after a
+         * loop header test that bounds them, so that the increment cannot overflow.
+         */
+        private void registerInductionRanges(LoopBeginNode loopBegin) {
+            if (loopBegin.forwardEndCount() != 1) {
+                return;
+            }
+            FixedNode current = loopBegin.next();
+            while (current instanceof FixedWithNextNode && !(current instanceof AbstractBeginNode)) {
+                current = ((FixedWithNextNode) current).next();
+            }
+            if (!(current instanceof IfNode) || !isIntegerCompare(((IfNode) current).condition())) {
+                return;
+            }
+            IfNode ifNode = (IfNode) current;
+            boolean inLoopIsTrue;
+            if (ifNode.falseSuccessor() instanceof LoopExitNode && ((LoopExitNode) ifNode.falseSuccessor()).loopBegin() == loopBegin) {
+                inLoopIsTrue = true;
+            } else if (ifNode.trueSuccessor() instanceof LoopExitNode && ((LoopExitNode) ifNode.trueSuccessor()).loopBegin() == loopBegin) {
+                inLoopIsTrue = false;
+            } else {
+                return;
+            }
+            CompareNode compare = (CompareNode) ifNode.condition();
+            for (PhiNode phi : loopBegin.phis()) {
+                if (phi.type() != PhiType.Value || !isInteger(phi) || (compare.x() != phi && compare.y() != phi)) {
+                    continue;
+                }
+                long stride = stride(phi);
+                if (stride == 0) {
+                    continue;
+                }
+                IntegerStamp phiStamp = phi.integerStamp();
+                IntegerStamp init = state.getRange(phi.valueAt(0));
+                long min = phi.kind().getMinValue();
+                long max = phi.kind().getMaxValue();
+                IntegerStamp assumed = stride > 0 ? range(phiStamp, init.lowerBound(), max) : range(phiStamp, min, init.upperBound());
+                if (assumed == null) {
+                    continue;
+                }
+                IntegerStamp x = compare.x() == phi ? assumed : state.getRange(compare.x());
+                IntegerStamp y = compare.y() == phi ? assumed : state.getRange(compare.y());
+                IntegerStamp[] refined = refine(compare, inLoopIsTrue, x, y);
+                if (refined == null) {
+                    continue;
+                }
+                IntegerStamp inLoop = compare.x() == phi ? refined[0] : refined[1];
+                boolean noOverflow = stride > 0 ? inLoop.upperBound() <= max - stride : inLoop.lowerBound() >= min - stride;
+                if (noOverflow) {
+                    state.addRange(phi, assumed, loopBegin);
+                }
+            }
+        }
+
+        /**
+         * Gets the constant amount by which all backedge values of the phi differ from the phi,
+         * where all amounts must have the same sign. Returns the largest amount, or 0 if the phi is
+         * not such an induction variable.
+         */
+        private long stride(PhiNode phi) {
+            LoopBeginNode loopBegin = (LoopBeginNode) phi.merge();
+            long result = 0;
+            for (int i = loopBegin.forwardEndCount(); i < phi.valueCount(); i++) {
+                ValueNode value = phi.valueAt(i);
+                long stride;
+                if (value instanceof IntegerAddNode && ((IntegerAddNode) value).x() == phi && ((IntegerAddNode) value).y().isConstant()) {
+                    stride = ((IntegerAddNode) value).y().asConstant().asLong();
+                } else if (value instanceof IntegerSubNode && ((IntegerSubNode) value).x() == phi && ((IntegerSubNode) value).y().isConstant()) {
+                    stride = -((IntegerSubNode) value).y().asConstant().asLong();
+                } else {
+                    return 0;
+                }
+                if (stride == 0 || stride == Long.MIN_VALUE || (result != 0 && (stride > 0) != (result > 0))) {
+                    return 0;
+                }
+                result = Math.abs(stride) > Math.abs(result) ? stride : result;
+            }
+            return result;
+        }
+
+        /**
+         * Gets a value with the range known at the current point, inserting a {@link PiNode} if the
+         * range is narrower than the stamp of the value.
+         */
+        private ValueNode narrow(ValueNode value) {
+            IntegerStamp range = state.ranges.get(value);
+            if (range == null || !isInteger(value)) {
+                return value;
+            }
+            PiNode pi = state.pis.get(value);
+            if (pi == null) {
+                pi = graph.unique(new PiNode(value, range, state.anchors.get(value)));
+                state.pis.put(value, pi);
+                metricRangePiInserted.increment();
+            }
+            return pi;
+        }
+
+        private void narrowInput(Node node, ValueNode input) {
+            if (input != null) {
+                ValueNode narrowed = narrow(input);
+                if (narrowed != input) {
+                    node.replaceFirstInput(input, narrowed);
+                }
+            }
+        }
+
+        /**
+         * Narrows the inputs of a comparison that is known to be true or false at this point, so
+         * that the canonicalizer can fold it.
+         */
+        private void narrowCondition(FixedNode node, LogicNode condition) {
+            if (!isIntegerCompare(condition)) {
+                return;
+            }
+            CompareNode compare = (CompareNode) condition;
+            if (evaluate(compare, state.getRange(compare.x()), state.getRange(compare.y())) == null) {
+                return;
+            }
+            ValueNode x = narrow(compare.x());
+            ValueNode y = narrow(compare.y());
+            if (x == compare.x() && y == compare.y()) {
+                return;
+            }
+            CompareNode narrowed = compare;
+            if (compare.usages().count() > 1) {
+                narrowed = (CompareNode) compare.copyWithInputs();
+                node.replaceFirstInput(compare, narrowed);
+            }
+            narrowed.replaceFirstInput(narrowed.x(), x);
+            narrowed.replaceFirstInput(narrowed.y(), y);
+        }
+
+        @Override
+        protected void node(FixedNode node) {
+            if (node instanceof AbstractBeginNode) {
+                AbstractBeginNode begin = (AbstractBeginNode) node;
+                Node pred = node.predecessor();
+                if (pred != null) {
+                    registerControlSplitInfo(pred, begin);
+                }
+                if (node instanceof LoopBeginNode) {
+                    registerInductionRanges((LoopBeginNode) node);
+                }
+                for (GuardNode guard : begin.guards().snapshot()) {
+                    registerGuard(guard, begin);
+                }
+            } else if (node instanceof IfNode) {
+                narrowCondition(node, ((IfNode) node).condition());
+            } else if (node instanceof FixedGuardNode) {
+                FixedGuardNode guard = (FixedGuardNode) node;
+                narrowCondition(guard, guard.condition());
+                registerCondition(guard.condition(), !guard.isNegated(), guard);
+            } else if (node instanceof IntegerSwitchNode) {
+                narrowInput(node, ((IntegerSwitchNode) node).value());
+            } else if (node instanceof FixedBinaryNode) {
+                FixedBinaryNode binary = (FixedBinaryNode) node;
+                narrowInput(binary, binary.x());
+                narrowInput(binary, binary.y());
+            } else if (node instanceof AccessIndexedNode) {
+                narrowInput(node, ((AccessIndexedNode) node).index());
+            } else if (node instanceof EndNode) {
+                // loop ends are left alone so that induction variables can still be recognized
+                EndNode end = (EndNode) node;
+                MergeNode merge = end.merge();
+                int index = merge.phiPredecessorIndex(end);
+                for (PhiNode phi : merge.phis()) {
+                    ValueNode value = phi.valueAt(index);
+                    if (phi.type() == PhiType.Value && value != null) {
+                        ValueNode narrowed = narrow(value);
+                        if (narrowed != value) {
+                            phi.setValueAt(index, narrowed);
+                        }
+                    }
+                }
+            }
+        }
+    }
+}
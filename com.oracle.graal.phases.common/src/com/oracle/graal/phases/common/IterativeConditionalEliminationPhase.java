@@ -26,8 +26,10 @@ import static com.oracle.graal.phases.GraalOptions.*;
 
 import java.util.*;
 
-import com.oracle.graal.graph.Graph.NodeChangedListener;
 import com.oracle.graal.graph.*;
+import com.oracle.graal.graph.Graph.NodeEventKind;
+import com.oracle.graal.graph.Graph.NodeEventListener;
+import com.oracle.graal.graph.Graph.NodeEventScope;
 import com.oracle.graal.nodes.*;
 import com.oracle.graal.phases.*;
 import com.oracle.graal.phases.tiers.*;
@@ -40,9 +42,9 @@ public class IterativeConditionalEliminationPhase extends BasePhase<PhaseContext
         ConditionalEliminationPhase eliminate = new ConditionalEliminationPhase(context.getRuntime());
         Listener listener = new Listener(canonicalizationRoots);
         while (true) {
-            graph.trackInputChange(listener);
-            eliminate.apply(graph);
-            graph.stopTrackingInputChange();
+            try (NodeEventScope scope = graph.trackNodeEvents(listener, EnumSet.of(NodeEventKind.INPUT_CHANGED))) {
+                eliminate.apply(graph);
+            }
             if (canonicalizationRoots.isEmpty()) {
                 break;
             }
@@ -51,7 +53,7 @@ public class IterativeConditionalEliminationPhase extends BasePhase<PhaseContext
         }
     }
 
-    private static class Listener implements NodeChangedListener {
+    private static class Listener implements NodeEventListener {
 
         private final Set<Node> canonicalizationRoots;
 
@@ -60,7 +62,7 @@ public class IterativeConditionalEliminationPhase extends BasePhase<PhaseContext
         }
 
         @Override
-        public void nodeChanged(Node node) {
+        public void nodeChanged(NodeEventKind event, Node node) {
             canonicalizationRoots.add(node);
         }
     }
@@ -59,7 +59,16 @@ public abstract class BasePhase<C> {
         Debug.scope(name, this, new Runnable() {
 
             public void run() {
-                BasePhase.this.run(graph, context);
+                if (PhaseProfiler.isEnabled()) {
+                    PhaseProfiler.Sample sample = PhaseProfiler.start(graph);
+                    try {
+                        BasePhase.this.run(graph, context);
+                    } finally {
+                        PhaseProfiler.stop(sample, BasePhase.this);
+                    }
+                } else {
+                    BasePhase.this.run(graph, context);
+                }
                 metricPhaseRuns.increment();
                 if (dumpGraph) {
                     Debug.dump(graph, "After phase %s", name);
@@ -108,6 +108,8 @@ public final class GraalOptions {
     //loop transform settings TODO (gd) tune
     @Option(help = "")
     public static final OptionValue<Boolean> LoopPeeling = new OptionValue<>(true);
+    @Option(help = "Move invariant guards, type checks and loads out of loops")
+    public static final OptionValue<Boolean> HoistLoopInvariants = new OptionValue<>(true);
     @Option(help = "")
     public static final OptionValue<Boolean> ReassociateInvariants = new OptionValue<>(true);
     @Option(help = "")
@@ -126,6 +128,22 @@ public final class GraalOptions {
     public static final OptionValue<Integer> LoopUnswitchMaxIncrease = new OptionValue<>(50);
     @Option(help = "")
     public static final OptionValue<Integer> LoopUnswitchUncertaintyBoost = new OptionValue<>(5);
+    @Option(help = "Partially unroll hot counted loops into a main loop and a post loop")
+    public static final OptionValue<Boolean> PartialUnroll = new OptionValue<>(true);
+    @Option(help = "Maximum number of nodes partial unrolling may add for a single loop")
+    public static final OptionValue<Integer> PartialUnrollMaxNodes = new OptionValue<>(200);
+    @Option(help = "Maximum partial unrolling factor (rounded down to a power of two)")
+    public static final OptionValue<Integer> PartialUnrollMaxFactor = new OptionValue<>(8);
+    @Option(help = "Replace bounds checks in counted loops by a predicate evaluated before the loop")
+    public static final OptionValue<Boolean> LoopRangeCheckElimination = new OptionValue<>(true);
+    @Option(help = "Vectorize counted loops over primitive arrays using the packed operations of the target")
+    public static final OptionValue<Boolean> LoopVectorization = new OptionValue<>(true);
+    @Option(help = "Nest counted loops without safepoints into an outer loop that polls, bounding the time to safepoint")
+    public static final OptionValue<Boolean> LoopStripMining = new OptionValue<>(true);
+    @Option(help = "Maximum number of iterations a strip mined loop runs between safepoint polls")
+    public static final OptionValue<Integer> LoopStripMiningIterations = new OptionValue<>(4096);
+    @Option(help = "Replace multiplications by the loop counter with additions and rewrite loop tests in terms of the new induction variables")
+    public static final OptionValue<Boolean> LoopStrengthReduction = new OptionValue<>(true);
     @Option(help = "")
     public static final OptionValue<Boolean> UseLoopLimitChecks = new OptionValue<>(true);
 
@@ -139,6 +157,8 @@ public final class GraalOptions {
 
     @Option(help = "")
     public static final OptionValue<String> PrintFilter = new OptionValue<>(null);
+    @Option(help = "Profiles wall time, CPU time and allocated bytes per phase and method and writes them to this file at shutdown (JSON if it ends with .json, CSV otherwise)")
+    public static final OptionValue<String> ProfilePhases = new OptionValue<>(null);
 
     // Debug settings:
     @Option(help = "")
@@ -195,6 +215,14 @@ public final class GraalOptions {
     @Option(help = "")
     public static final OptionValue<Boolean> HotSpotPrintInlining = new OptionValue<>(false);
 
+    // Register allocator
+    @Option(help = "Share spill slots between intervals whose lifetimes do not overlap")
+    public static final OptionValue<Boolean> ColorSpillSlots = new OptionValue<>(true);
+    @Option(help = "Allocate registers for values local to a hot block with a fast local allocator before running linear scan")
+    public static final OptionValue<Boolean> LocalRegisterAllocation = new OptionValue<>(false);
+    @Option(help = "Apply the target's peephole rules to the LIR after register allocation")
+    public static final OptionValue<Boolean> PeepholeOptimization = new OptionValue<>(true);
+
     // Register allocator debugging
     @Option(help = "")
     public static final OptionValue<String> RegisterPressure = new OptionValue<>(null);
@@ -230,6 +258,10 @@ public final class GraalOptions {
     public static final OptionValue<Boolean> ResolveClassBeforeStaticInvoke = new OptionValue<>(false);
     @Option(help = "")
     public static final OptionValue<Boolean> CanOmitFrame = new OptionValue<>(true);
+    @Option(help = "Lay out blocks for code emission by merging them into fall-through chains along the most frequent edges")
+    public static final OptionValue<Boolean> ChainedBlockLayout = new OptionValue<>(true);
+    @Option(help = "Emit forward jumps with an 8-bit displacement where the target is close enough, at the cost of emitting the code more than once")
+    public static final OptionValue<Boolean> ShortenBranches = new OptionValue<>(true);
     @Option(help = "")
     public static final OptionValue<Integer> SafepointPollOffset = new OptionValue<>(256);
 
@@ -265,6 +297,10 @@ public final class GraalOptions {
     public static final OptionValue<Boolean> OptReadElimination = new OptionValue<>(true);
     @Option(help = "")
     public static final OptionValue<Boolean> OptCanonicalizer = new OptionValue<>(true);
+    @Option(help = "Remove branches and fold values that sparse conditional constant propagation proves constant")
+    public static final OptionValue<Boolean> OptConditionalConstantPropagation = new OptionValue<>(true);
+    @Option(help = "Narrow the stamps of integer values with the ranges implied by dominating conditions")
+    public static final OptionValue<Boolean> OptIntegerRangePropagation = new OptionValue<>(true);
     @Option(help = "")
      public static final OptionValue<Boolean> OptScheduleOutOfLoops = new OptionValue<>(true);
     @Option(help = "")
@@ -289,6 +325,10 @@ public final class GraalOptions {
     public static final OptionValue<Boolean> OptDevirtualizeInvokesOptimistically = new OptionValue<>(true);
     @Option(help = "")
     public static final OptionValue<Boolean> OptPushThroughPi = new OptionValue<>(true);
+    @Option(help = "Value number fixed nodes (reads, array lengths, hub loads and fixed arithmetic) along the dominator tree")
+    public static final OptionValue<Boolean> OptGlobalValueNumbering = new OptionValue<>(true);
+    @Option(help = "Fraction of deleted node slots above which a graph is compacted between tiers (0 disables)")
+    public static final OptionValue<Double> GraphCompactionThreshold = new OptionValue<>(0.25);
 
     // Intrinsification settings
     @Option(help = "")
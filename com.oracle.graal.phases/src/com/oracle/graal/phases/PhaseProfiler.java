@@ -0,0 +1,238 @@
+/*
+ * Copyright (c) 2011, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.graal.phases;
+
+import static com.oracle.graal.phases.GraalOptions.*;
+
+import java.io.*;
+import java.lang.management.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+import com.oracle.graal.api.meta.*;
+import com.oracle.graal.nodes.*;
+import com.sun.management.ThreadMXBean;
+
+/**
+ * Records the wall time, thread CPU time and allocated bytes of each {@link BasePhase} application
+ * when {@link GraalOptions#ProfilePhases} is set. The values are aggregated per phase class and per
+ * compiled method and can be {@linkplain #export(PrintStream, boolean) exported} as CSV or JSON at
+ * any time. The VM exports them to the file named by the option at shutdown.
+ * <p>
+ * Phases nest (e.g., a {@link PhaseSuite} applies its phases), so both the inclusive values and the
+ * self values, which exclude the nested phases, are recorded. The per method self values are the
+ * sums of the self values and therefore add up to the total time spent in phases. The per method
+ * inclusive values only count the outermost phase applications on the method's graph, so that the
+ * time of a nested phase is not counted again for each enclosing phase.
+ */
+public final class PhaseProfiler {
+
+    private static final ThreadMXBean threadMXBean = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private static final ConcurrentHashMap<String, Counters> phases = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<String, Counters> methods = new ConcurrentHashMap<>();
+
+    private static final ThreadLocal<Sample> current = new ThreadLocal<>();
+
+    private PhaseProfiler() {
+    }
+
+    private static final class Counters {
+
+        private long runs;
+        private long wallTime;
+        private long cpuTime;
+        private long allocatedBytes;
+        private long selfWallTime;
+        private long selfCpuTime;
+        private long selfAllocatedBytes;
+
+        synchronized void add(Sample sample, long wall, long cpu, long bytes, boolean inclusive) {
+            runs++;
+            if (inclusive) {
+                wallTime += wall;
+                cpuTime += cpu;
+                allocatedBytes += bytes;
+            }
+            selfWallTime += wall - sample.childWallTime;
+            selfCpuTime += cpu - sample.childCpuTime;
+            selfAllocatedBytes += bytes - sample.childAllocatedBytes;
+        }
+
+        synchronized long[] values() {
+            return new long[]{runs, wallTime, cpuTime, allocatedBytes, selfWallTime, selfCpuTime, selfAllocatedBytes};
+        }
+    }
+
+    private static final String[] COLUMNS = {"runs", "wallTimeNs", "cpuTimeNs", "allocatedBytes", "selfWallTimeNs", "selfCpuTimeNs", "selfAllocatedBytes"};
+
+    /**
+     * The values at the start of a phase application.
+     */
+    static final class Sample {
+
+        private final Sample parent;
+        private final StructuredGraph graph;
+        private final long wallTime;
+        private final long cpuTime;
+        private final long allocatedBytes;
+        private long childWallTime;
+        private long childCpuTime;
+        private long childAllocatedBytes;
+
+        private Sample(Sample parent, StructuredGraph graph) {
+            this.parent = parent;
+            this.graph = graph;
+            this.wallTime = System.nanoTime();
+            this.cpuTime = threadMXBean.getCurrentThreadCpuTime();
+            this.allocatedBytes = threadMXBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+    }
+
+    public static boolean isEnabled() {
+        return ProfilePhases.getValue() != null;
+    }
+
+    static Sample start(StructuredGraph graph) {
+        Sample sample = new Sample(current.get(), graph);
+        current.set(sample);
+        return sample;
+    }
+
+    static void stop(Sample sample, BasePhase<?> phase) {
+        long wall = System.nanoTime() - sample.wallTime;
+        long cpu = threadMXBean.getCurrentThreadCpuTime() - sample.cpuTime;
+        long bytes = threadMXBean.getThreadAllocatedBytes(Thread.currentThread().getId()) - sample.allocatedBytes;
+        Sample parent = sample.parent;
+        if (parent != null) {
+            parent.childWallTime += wall;
+            parent.childCpuTime += cpu;
+            parent.childAllocatedBytes += bytes;
+        }
+        current.set(parent);
+
+        counters(phases, phase.getClass().getName()).add(sample, wall, cpu, bytes, true);
+        ResolvedJavaMethod method = sample.graph.method();
+        String methodName = method == null ? "<unknown>" : MetaUtil.format("%H.%n(%p)", method);
+        boolean outermost = parent == null || parent.graph != sample.graph;
+        counters(methods, methodName).add(sample, wall, cpu, bytes, outermost);
+    }
+
+    private static Counters counters(ConcurrentHashMap<String, Counters> map, String key) {
+        Counters counters = map.get(key);
+        if (counters == null) {
+            counters = new Counters();
+            Counters existing = map.putIfAbsent(key, counters);
+            if (existing != null) {
+                counters = existing;
+            }
+        }
+        return counters;
+    }
+
+    /**
+     * Discards all values recorded so far.
+     */
+    public static void reset() {
+        phases.clear();
+        methods.clear();
+    }
+
+    /**
+     * Writes the values recorded so far to the file named by {@link GraalOptions#ProfilePhases}.
+     */
+    public static void export() {
+        String fileName = ProfilePhases.getValue();
+        try (PrintStream out = new PrintStream(new FileOutputStream(fileName))) {
+            export(out, fileName.endsWith(".json"));
+        } catch (FileNotFoundException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Writes the values recorded so far, sorted by descending self CPU time.
+     * 
+     * @param json if true the values are written as a JSON object with a {@code phases} and a
+     *            {@code methods} array, otherwise as CSV with a {@code kind} column that is either
+     *            {@code phase} or {@code method}
+     */
+    public static void export(PrintStream out, boolean json) {
+        if (json) {
+            out.println("{");
+            exportJSON(out, "phases", phases);
+            out.println(",");
+            exportJSON(out, "methods", methods);
+            out.println();
+            out.println("}");
+        } else {
+            out.print("kind,name");
+            for (String column : COLUMNS) {
+                out.print("," + column);
+            }
+            out.println();
+            exportCSV(out, "phase", phases);
+            exportCSV(out, "method", methods);
+        }
+    }
+
+    private static List<Map.Entry<String, long[]>> sortedValues(ConcurrentHashMap<String, Counters> map) {
+        List<Map.Entry<String, long[]>> result = new ArrayList<>();
+        for (Map.Entry<String, Counters> entry : map.entrySet()) {
+            result.add(new AbstractMap.SimpleImmutableEntry<>(entry.getKey(), entry.getValue().values()));
+        }
+        Collections.sort(result, new Comparator<Map.Entry<String, long[]>>() {
+
+            @Override
+            public int compare(Map.Entry<String, long[]> o1, Map.Entry<String, long[]> o2) {
+                return Long.compare(o2.getValue()[5], o1.getValue()[5]);
+            }
+        });
+        return result;
+    }
+
+    private static void exportCSV(PrintStream out, String kind, ConcurrentHashMap<String, Counters> map) {
+        for (Map.Entry<String, long[]> entry : sortedValues(map)) {
+            // method names contain commas
+            out.print(kind + ",\"" + entry.getKey().replace("\"", "\"\"") + "\"");
+            for (long value : entry.getValue()) {
+                out.print("," + value);
+            }
+            out.println();
+        }
+    }
+
+    private static void exportJSON(PrintStream out, String name, ConcurrentHashMap<String, Counters> map) {
+        out.println("  \"" + name + "\": [");
+        List<Map.Entry<String, long[]>> values = sortedValues(map);
+        for (int i = 0; i < values.size(); i++) {
+            Map.Entry<String, long[]> entry = values.get(i);
+            out.print("    {\"name\": \"" + entry.getKey().replace("\\", "\\\\").replace("\"", "\\\"") + "\"");
+            for (int j = 0; j < COLUMNS.length; j++) {
+                out.print(", \"" + COLUMNS[j] + "\": " + entry.getValue()[j]);
+            }
+            out.println(i == values.size() - 1 ? "}" : "},");
+        }
+        out.print("  ]");
+    }
+}
@@ -25,10 +25,32 @@ package com.oracle.graal.phases.tiers;
 import com.oracle.graal.api.code.*;
 import com.oracle.graal.api.meta.*;
 import com.oracle.graal.nodes.spi.*;
+import com.oracle.graal.phases.*;
 
 public class HighTierContext extends PhaseContext {
 
+    private final TargetDescription target;
+    private final OptimisticOptimizations optimisticOpts;
+
     public HighTierContext(MetaAccessProvider runtime, Assumptions assumptions, Replacements replacements) {
+        this(runtime, assumptions, replacements, null, OptimisticOptimizations.NONE);
+    }
+
+    public HighTierContext(MetaAccessProvider runtime, Assumptions assumptions, Replacements replacements, TargetDescription target, OptimisticOptimizations optimisticOpts) {
         super(runtime, assumptions, replacements);
+        this.target = target;
+        this.optimisticOpts = optimisticOpts;
+    }
+
+    /**
+     * Gets the target of the compilation, or null if the graph is not compiled for a particular
+     * target.
+     */
+    public TargetDescription getTarget() {
+        return target;
+    }
+
+    public OptimisticOptimizations getOptimisticOptimizations() {
+        return optimisticOpts;
     }
 }
@@ -42,6 +42,7 @@ public class GraalOptions_Options implements Options {
             new OptionDescriptor("GraphCacheSize", Integer.class, "", GraalOptions.class, "GraphCacheSize", GraalOptions.GraphCacheSize),
             new OptionDescriptor("PrintGraphCache", Boolean.class, "", GraalOptions.class, "PrintGraphCache", GraalOptions.PrintGraphCache),
             new OptionDescriptor("LoopPeeling", Boolean.class, "", GraalOptions.class, "LoopPeeling", GraalOptions.LoopPeeling),
+            new OptionDescriptor("HoistLoopInvariants", Boolean.class, "Move invariant guards, type checks and loads out of loops", GraalOptions.class, "HoistLoopInvariants", GraalOptions.HoistLoopInvariants),
             new OptionDescriptor("ReassociateInvariants", Boolean.class, "", GraalOptions.class, "ReassociateInvariants", GraalOptions.ReassociateInvariants),
             new OptionDescriptor("FullUnroll", Boolean.class, "", GraalOptions.class, "FullUnroll", GraalOptions.FullUnroll),
             new OptionDescriptor("LoopUnswitch", Boolean.class, "", GraalOptions.class, "LoopUnswitch", GraalOptions.LoopUnswitch),
@@ -51,11 +52,20 @@ public class GraalOptions_Options implements Options {
             new OptionDescriptor("LoopMaxUnswitch", Integer.class, "", GraalOptions.class, "LoopMaxUnswitch", GraalOptions.LoopMaxUnswitch),
             new OptionDescriptor("LoopUnswitchMaxIncrease", Integer.class, "", GraalOptions.class, "LoopUnswitchMaxIncrease", GraalOptions.LoopUnswitchMaxIncrease),
             new OptionDescriptor("LoopUnswitchUncertaintyBoost", Integer.class, "", GraalOptions.class, "LoopUnswitchUncertaintyBoost", GraalOptions.LoopUnswitchUncertaintyBoost),
+            new OptionDescriptor("PartialUnroll", Boolean.class, "Partially unroll hot counted loops into a main loop and a post loop", GraalOptions.class, "PartialUnroll", GraalOptions.PartialUnroll),
+            new OptionDescriptor("PartialUnrollMaxNodes", Integer.class, "Maximum number of nodes partial unrolling may add for a single loop", GraalOptions.class, "PartialUnrollMaxNodes", GraalOptions.PartialUnrollMaxNodes),
+            new OptionDescriptor("PartialUnrollMaxFactor", Integer.class, "Maximum partial unrolling factor (rounded down to a power of two)", GraalOptions.class, "PartialUnrollMaxFactor", GraalOptions.PartialUnrollMaxFactor),
+            new OptionDescriptor("LoopRangeCheckElimination", Boolean.class, "Replace bounds checks in counted loops by a predicate evaluated before the loop", GraalOptions.class, "LoopRangeCheckElimination", GraalOptions.LoopRangeCheckElimination),
+            new OptionDescriptor("LoopVectorization", Boolean.class, "Vectorize counted loops over primitive arrays using the packed operations of the target", GraalOptions.class, "LoopVectorization", GraalOptions.LoopVectorization),
+            new OptionDescriptor("LoopStripMining", Boolean.class, "Nest counted loops without safepoints into an outer loop that polls, bounding the time to safepoint", GraalOptions.class, "LoopStripMining", GraalOptions.LoopStripMining),
+            new OptionDescriptor("LoopStripMiningIterations", Integer.class, "Maximum number of iterations a strip mined loop runs between safepoint polls", GraalOptions.class, "LoopStripMiningIterations", GraalOptions.LoopStripMiningIterations),
+            new OptionDescriptor("LoopStrengthReduction", Boolean.class, "Replace multiplications by the loop counter with additions and rewrite loop tests in terms of the new induction variables", GraalOptions.class, "LoopStrengthReduction", GraalOptions.LoopStrengthReduction),
             new OptionDescriptor("UseLoopLimitChecks", Boolean.class, "", GraalOptions.class, "UseLoopLimitChecks", GraalOptions.UseLoopLimitChecks),
             new OptionDescriptor("ZapStackOnMethodEntry", Boolean.class, "", GraalOptions.class, "ZapStackOnMethodEntry", GraalOptions.ZapStackOnMethodEntry),
             new OptionDescriptor("DeoptALot", Boolean.class, "", GraalOptions.class, "DeoptALot", GraalOptions.DeoptALot),
             new OptionDescriptor("VerifyPhases", Boolean.class, "", GraalOptions.class, "VerifyPhases", GraalOptions.VerifyPhases),
             new OptionDescriptor("PrintFilter", String.class, "", GraalOptions.class, "PrintFilter", GraalOptions.PrintFilter),
+            new OptionDescriptor("ProfilePhases", String.class, "Profiles wall time, CPU time and allocated bytes per phase and method and writes them to this file at shutdown (JSON if it ends with .json, CSV otherwise)", GraalOptions.class, "ProfilePhases", GraalOptions.ProfilePhases),
             new OptionDescriptor("BootstrapReplacements", Boolean.class, "", GraalOptions.class, "BootstrapReplacements", GraalOptions.BootstrapReplacements),
             new OptionDescriptor("GCDebugStartCycle", Integer.class, "", GraalOptions.class, "GCDebugStartCycle", GraalOptions.GCDebugStartCycle),
             new OptionDescriptor("PrintBinaryGraphs", Boolean.class, "", GraalOptions.class, "PrintBinaryGraphs", GraalOptions.PrintBinaryGraphs),
@@ -80,6 +90,9 @@ public class GraalOptions_Options implements Options {
             new OptionDescriptor("DecompileAfterPhase", String.class, "Sets a phase after which the decompiler dumps the graph, -G:Dump= required", GraalOptions.class, "DecompileAfterPhase", GraalOptions.DecompileAfterPhase),
             new OptionDescriptor("HotSpotPrintCompilation", Boolean.class, "", GraalOptions.class, "HotSpotPrintCompilation", GraalOptions.HotSpotPrintCompilation),
             new OptionDescriptor("HotSpotPrintInlining", Boolean.class, "", GraalOptions.class, "HotSpotPrintInlining", GraalOptions.HotSpotPrintInlining),
+            new OptionDescriptor("ColorSpillSlots", Boolean.class, "Share spill slots between intervals whose lifetimes do not overlap", GraalOptions.class, "ColorSpillSlots", GraalOptions.ColorSpillSlots),
+            new OptionDescriptor("LocalRegisterAllocation", Boolean.class, "Allocate registers for values local to a hot block with a fast local allocator before running linear scan", GraalOptions.class, "LocalRegisterAllocation", GraalOptions.LocalRegisterAllocation),
+            new OptionDescriptor("PeepholeOptimization", Boolean.class, "Apply the target's peephole rules to the LIR after register allocation", GraalOptions.class, "PeepholeOptimization", GraalOptions.PeepholeOptimization),
             new OptionDescriptor("RegisterPressure", String.class, "", GraalOptions.class, "RegisterPressure", GraalOptions.RegisterPressure),
             new OptionDescriptor("ConditionalElimination", Boolean.class, "", GraalOptions.class, "ConditionalElimination", GraalOptions.ConditionalElimination),
             new OptionDescriptor("UseProfilingInformation", Boolean.class, "", GraalOptions.class, "UseProfilingInformation", GraalOptions.UseProfilingInformation),
@@ -96,6 +109,8 @@ public class GraalOptions_Options implements Options {
             new OptionDescriptor("AlignCallsForPatching", Boolean.class, "", GraalOptions.class, "AlignCallsForPatching", GraalOptions.AlignCallsForPatching),
             new OptionDescriptor("ResolveClassBeforeStaticInvoke", Boolean.class, "", GraalOptions.class, "ResolveClassBeforeStaticInvoke", GraalOptions.ResolveClassBeforeStaticInvoke),
             new OptionDescriptor("CanOmitFrame", Boolean.class, "", GraalOptions.class, "CanOmitFrame", GraalOptions.CanOmitFrame),
+            new OptionDescriptor("ChainedBlockLayout", Boolean.class, "Lay out blocks for code emission by merging them into fall-through chains along the most frequent edges", GraalOptions.class, "ChainedBlockLayout", GraalOptions.ChainedBlockLayout),
+            new OptionDescriptor("ShortenBranches", Boolean.class, "Emit forward jumps with an 8-bit displacement where the target is close enough, at the cost of emitting the code more than once", GraalOptions.class, "ShortenBranches", GraalOptions.ShortenBranches),
             new OptionDescriptor("SafepointPollOffset", Integer.class, "", GraalOptions.class, "SafepointPollOffset", GraalOptions.SafepointPollOffset),
             new OptionDescriptor("MemoryAwareScheduling", Boolean.class, "", GraalOptions.class, "MemoryAwareScheduling", GraalOptions.MemoryAwareScheduling),
             new OptionDescriptor("NewMemoryAwareScheduling", Boolean.class, "", GraalOptions.class, "NewMemoryAwareScheduling", GraalOptions.NewMemoryAwareScheduling),
@@ -109,6 +124,8 @@ public class GraalOptions_Options implements Options {
             new OptionDescriptor("OptConvertDeoptsToGuards", Boolean.class, "", GraalOptions.class, "OptConvertDeoptsToGuards", GraalOptions.OptConvertDeoptsToGuards),
             new OptionDescriptor("OptReadElimination", Boolean.class, "", GraalOptions.class, "OptReadElimination", GraalOptions.OptReadElimination),
             new OptionDescriptor("OptCanonicalizer", Boolean.class, "", GraalOptions.class, "OptCanonicalizer", GraalOptions.OptCanonicalizer),
+            new OptionDescriptor("OptConditionalConstantPropagation", Boolean.class, "Remove branches and fold values that sparse conditional constant propagation proves constant", GraalOptions.class, "OptConditionalConstantPropagation", GraalOptions.OptConditionalConstantPropagation),
+            new OptionDescriptor("OptIntegerRangePropagation", Boolean.class, "Narrow the stamps of integer values with the ranges implied by dominating conditions", GraalOptions.class, "OptIntegerRangePropagation", GraalOptions.OptIntegerRangePropagation),
             new OptionDescriptor("OptScheduleOutOfLoops", Boolean.class, "", GraalOptions.class, "OptScheduleOutOfLoops", GraalOptions.OptScheduleOutOfLoops),
             new OptionDescriptor("OptEliminateGuards", Boolean.class, "", GraalOptions.class, "OptEliminateGuards", GraalOptions.OptEliminateGuards),
             new OptionDescriptor("OptEliminateSafepoints", Boolean.class, "", GraalOptions.class, "OptEliminateSafepoints", GraalOptions.OptEliminateSafepoints),
@@ -121,6 +138,8 @@ public class GraalOptions_Options implements Options {
             new OptionDescriptor("OptFilterProfiledTypes", Boolean.class, "", GraalOptions.class, "OptFilterProfiledTypes", GraalOptions.OptFilterProfiledTypes),
             new OptionDescriptor("OptDevirtualizeInvokesOptimistically", Boolean.class, "", GraalOptions.class, "OptDevirtualizeInvokesOptimistically", GraalOptions.OptDevirtualizeInvokesOptimistically),
             new OptionDescriptor("OptPushThroughPi", Boolean.class, "", GraalOptions.class, "OptPushThroughPi", GraalOptions.OptPushThroughPi),
+            new OptionDescriptor("OptGlobalValueNumbering", Boolean.class, "Value number fixed nodes (reads, array lengths, hub loads and fixed arithmetic) along the dominator tree", GraalOptions.class, "OptGlobalValueNumbering", GraalOptions.OptGlobalValueNumbering),
+            new OptionDescriptor("GraphCompactionThreshold", Double.class, "Fraction of deleted node slots above which a graph is compacted between tiers (0 disables)", GraalOptions.class, "GraphCompactionThreshold", GraalOptions.GraphCompactionThreshold),
             new OptionDescriptor("IntrinsifyObjectClone", Boolean.class, "", GraalOptions.class, "IntrinsifyObjectClone", GraalOptions.IntrinsifyObjectClone),
             new OptionDescriptor("IntrinsifyArrayCopy", Boolean.class, "", GraalOptions.class, "IntrinsifyArrayCopy", GraalOptions.IntrinsifyArrayCopy),
             new OptionDescriptor("IntrinsifyObjectMethods", Boolean.class, "", GraalOptions.class, "IntrinsifyObjectMethods", GraalOptions.IntrinsifyObjectMethods),
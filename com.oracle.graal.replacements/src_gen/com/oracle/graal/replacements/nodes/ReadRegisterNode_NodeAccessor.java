@@ -0,0 +1,59 @@
+// CheckStyle: stop header check
+// GENERATED CONTENT - DO NOT EDIT
+// Source: ReadRegisterNode.java
+package com.oracle.graal.replacements.nodes;
+
+public final class ReadRegisterNode_NodeAccessor extends com.oracle.graal.graph.NodeAccessor {
+
+    private static final long successor0 = fieldOffset(com.oracle.graal.replacements.nodes.ReadRegisterNode.class, 1, "next");
+    private static final long data0 = fieldOffset(com.oracle.graal.replacements.nodes.ReadRegisterNode.class, 0, "register");
+    private static final long data1 = fieldOffset(com.oracle.graal.replacements.nodes.ReadRegisterNode.class, 0, "directUse");
+    private static final long data2 = fieldOffset(com.oracle.graal.replacements.nodes.ReadRegisterNode.class, 0, "incoming");
+    private static final long data3 = fieldOffset(com.oracle.graal.replacements.nodes.ReadRegisterNode.class, 3, "stamp");
+    private static final int startMultiplier = hashMultiplier(Long.MIN_VALUE, data0, data1, data2, data3);
+    private static final int dataMultiplier0 = hashMultiplier(data0, data0, data1, data2, data3);
+    private static final int dataMultiplier1 = hashMultiplier(data1, data0, data1, data2, data3);
+    private static final int dataMultiplier2 = hashMultiplier(data2, data0, data1, data2, data3);
+    private static final int dataMultiplier3 = hashMultiplier(data3, data0, data1, data2, data3);
+
+    public ReadRegisterNode_NodeAccessor() {
+        super(new long[]{}, new long[]{}, new long[]{successor0}, new long[]{}, new long[]{data0, data1, data2, data3}, new Class<?>[]{Object.class, boolean.class, boolean.class, Object.class});
+    }
+
+    @Override
+    public int valueNumber(int start, com.oracle.graal.graph.Node node) {
+        return start * startMultiplier
+                        + objectHash(unsafe.getObject(node, data0)) * dataMultiplier0
+                        + (unsafe.getBoolean(node, data1) ? 7 : 0) * dataMultiplier1
+                        + (unsafe.getBoolean(node, data2) ? 7 : 0) * dataMultiplier2
+                        + objectHash(unsafe.getObject(node, data3)) * dataMultiplier3;
+    }
+
+    @Override
+    public boolean valueEqual(com.oracle.graal.graph.Node a, com.oracle.graal.graph.Node b) {
+        return objectEquals(unsafe.getObject(a, data0), unsafe.getObject(b, data0))
+                        && unsafe.getBoolean(a, data1) == unsafe.getBoolean(b, data1)
+                        && unsafe.getBoolean(a, data2) == unsafe.getBoolean(b, data2)
+                        && objectEquals(unsafe.getObject(a, data3), unsafe.getObject(b, data3));
+    }
+
+    @Override
+    public boolean inputsEqual(com.oracle.graal.graph.Node node, com.oracle.graal.graph.Node other) {
+        return true;
+    }
+
+    @Override
+    public boolean inputContains(com.oracle.graal.graph.Node node, com.oracle.graal.graph.Node other) {
+        return false;
+    }
+
+    @Override
+    public boolean successorsEqual(com.oracle.graal.graph.Node node, com.oracle.graal.graph.Node other) {
+        return unsafe.getObject(node, successor0) == unsafe.getObject(other, successor0);
+    }
+
+    @Override
+    public boolean successorContains(com.oracle.graal.graph.Node node, com.oracle.graal.graph.Node other) {
+        return unsafe.getObject(node, successor0) == other;
+    }
+}
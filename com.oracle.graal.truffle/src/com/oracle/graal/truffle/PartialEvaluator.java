@@ -167,6 +167,11 @@ public class PartialEvaluator {
                 // Convert deopt to guards.
                 new ConvertDeoptimizeToGuardPhase().apply(graph);
 
+                // Remove branches on values that are only constant along the reachable paths.
+                if (OptConditionalConstantPropagation.getValue()) {
+                    new ConditionalConstantPropagationPhase(null).apply(graph, new PhaseContext(metaAccessProvider, assumptions, replacements));
+                }
+
                 // Canonicalize / constant propagate.
                 canonicalizerPhase.apply(graph);
 